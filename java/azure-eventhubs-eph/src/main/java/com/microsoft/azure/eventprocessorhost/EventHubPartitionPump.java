@@ -15,7 +15,9 @@ import com.microsoft.azure.eventhubs.EventData;
 import com.microsoft.azure.eventhubs.EventHubClient;
 import com.microsoft.azure.eventhubs.PartitionReceiveHandler;
 import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.servicebus.MessagingFactoryCache;
 import com.microsoft.azure.servicebus.ReceiverDisconnectedException;
+import com.microsoft.azure.servicebus.SendMode;
 import com.microsoft.azure.servicebus.ServiceBusException;
 
 class EventHubPartitionPump extends PartitionPump
@@ -92,7 +94,11 @@ class EventHubPartitionPump extends PartitionPump
     {
     	// Create new client
     	this.host.logWithHostAndPartition(Level.FINE, this.partitionContext, "Opening EH client");
-		this.internalOperationFuture = EventHubClient.createFromConnectionString(this.host.getEventHubConnectionString());
+		final MessagingFactoryCache factoryCache = this.host.getEventProcessorOptions().getMessagingFactoryCache();
+		this.internalOperationFuture = factoryCache != null
+				? EventHubClient.createFromConnectionStringShared(this.host.getEventHubConnectionString(), SendMode.AtLeastOnce, factoryCache)
+				: EventHubClient.createFromConnectionString(this.host.getEventHubConnectionString(), SendMode.AtLeastOnce,
+						this.host.getEventProcessorOptions().getReactorGroup());
 		this.eventHubClient = (EventHubClient) this.internalOperationFuture.get();
 		this.internalOperationFuture = null;
 		
@@ -10,6 +10,8 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.servicebus.MessagingFactoryCache;
+import com.microsoft.azure.servicebus.ReactorGroup;
 
 public final class EventProcessorOptions
 {
@@ -17,6 +19,8 @@ public final class EventProcessorOptions
     private Boolean invokeProcessorAfterReceiveTimeout = false;
     private int maxBatchSize = 10;
     private int prefetchCount = 300;
+    private ReactorGroup reactorGroup = null;
+    private MessagingFactoryCache messagingFactoryCache = null;
     private Duration receiveTimeOut = Duration.ofMinutes(1);
     private Function<String, Object> initialOffsetProvider = (partitionId) -> { return PartitionReceiver.START_OF_STREAM; };
 
@@ -120,6 +124,53 @@ public final class EventProcessorOptions
         this.prefetchCount = prefetchCount;
     }
 
+    /***
+     * Returns the Reactor threads shared by the clients of the partition pumps.
+     * 
+     * @return the current ReactorGroup, or null if every pump runs a dedicated Reactor thread
+     */
+    public ReactorGroup getReactorGroup()
+    {
+        return this.reactorGroup;
+    }
+
+    /***
+     * Sets the Reactor threads shared by the clients of the partition pumps - so that a host owning many
+     * partitions runs a fixed number of Reactor threads instead of one per partition.
+     * 
+     * The default is null: every pump runs a dedicated Reactor thread. The host doesn't close the group.
+     * 
+     * @param reactorGroup  The group hosting the connections of the pumps.
+     */
+    public void setReactorGroup(ReactorGroup reactorGroup)
+    {
+        this.reactorGroup = reactorGroup;
+    }
+
+    /***
+     * Returns the cache of connections shared by the clients of the partition pumps.
+     * 
+     * @return the current MessagingFactoryCache, or null if every pump opens its own connection
+     */
+    public MessagingFactoryCache getMessagingFactoryCache()
+    {
+        return this.messagingFactoryCache;
+    }
+
+    /***
+     * Sets the cache of connections shared by the clients of the partition pumps - so that a host owning many
+     * partitions multiplexes their receivers over a few connections. When set, the ReactorGroup of these options
+     * is not used: the connections run on the Reactor threads of the cache.
+     * 
+     * The default is null: every pump opens its own connection.
+     * 
+     * @param messagingFactoryCache  The cache of connections shared by the pumps.
+     */
+    public void setMessagingFactoryCache(MessagingFactoryCache messagingFactoryCache)
+    {
+        this.messagingFactoryCache = messagingFactoryCache;
+    }
+
     /***
      * If there is no checkpoint for a partition, the initialOffsetProvider function is used to determine
      * the offset at which to start receiving events for that partition.
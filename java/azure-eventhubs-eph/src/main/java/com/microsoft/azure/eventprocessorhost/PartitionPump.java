@@ -9,6 +9,7 @@ import java.util.Iterator;
 import java.util.logging.Level;
 
 import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.servicebus.ReadOnlyBatch;
 
 abstract class PartitionPump
 {
@@ -116,6 +117,7 @@ abstract class PartitionPump
     
     abstract void specializedShutdown(CloseReason reason);
     
+    @SuppressWarnings("unchecked")
     protected void onEvents(Iterable<EventData> events)
 	{
     	// Underlying Java client will call with null on receive timeout. Whether those are passed on to IEventProcessor
@@ -138,11 +140,19 @@ abstract class PartitionPump
         		
         		if (events != null)
         		{
-	        		Iterator<EventData> blah = events.iterator();
 	        		EventData last = null;
-	        		while (blah.hasNext())
+	        		if (events instanceof ReadOnlyBatch)
 	        		{
-	        			last = blah.next();
+	        			// batches from the receive pump are array-backed - no need to walk them to find the end of the batch
+	        			last = ((ReadOnlyBatch<EventData>) events).last();
+	        		}
+	        		else
+	        		{
+		        		Iterator<EventData> blah = events.iterator();
+		        		while (blah.hasNext())
+		        		{
+		        			last = blah.next();
+		        		}
 	        		}
 	        		if (last != null)
 	        		{
@@ -7,8 +7,6 @@ package com.microsoft.azure.eventhubs.extensions.appender;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.core.*;
 import org.apache.logging.log4j.core.appender.*;
@@ -16,6 +14,12 @@ import org.apache.logging.log4j.core.config.plugins.*;
 import org.apache.logging.log4j.core.config.plugins.validation.constraints.*;
 import org.apache.logging.log4j.core.util.StringEncoder;
 
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.PayloadSizeExceededException;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
 /**
  * Sends {@link LogEvent}'s to Microsoft Azure EventHubs.
  * By default, tuned for high performance and hence, pushes a batch of Events. 
@@ -23,18 +27,21 @@ import org.apache.logging.log4j.core.util.StringEncoder;
 @Plugin(name = "EventHub", category = "Core" , elementType = "appender", printObject = true)
 public final class EventHubsAppender extends AbstractAppender
 {
-	private static final int MAX_BATCH_SIZE_BYTES = 200 * 1024;
-	
-	// this constant is tuned to use the MaximumAllowedMessageSize(256K) including Amqp-Headers for a LogEvent of 1Char
-	private static final int MAX_BATCH_SIZE = 21312;
+	// a failed batch is kept for the next flush - up to this many batches (~1MB) of logEvents
+	private static final int MAX_SEALED_BATCHES = 4;
 	private static final long serialVersionUID = 1L;
 	
 	private final EventHubsManager eventHubsManager;
 	private final boolean immediateFlush;
-	private final AtomicInteger currentBufferedSizeBytes;
-	private final ConcurrentLinkedQueue<byte[]> logEvents;
+	private final Object batchSync;
+
+	// guarded by batchSync - filled up to the exact maximum message size
+	private EventDataBatch pendingBatch;
+	private List<byte[]> pendingLogEvents;
+	// guarded by batchSync - sent, in order, by the next logEvent that seals a batch
+	private final ArrayDeque<SealedBatch> sealedBatches;
 	
-	private EventHubsAppender(
+	EventHubsAppender(
 			final String name,
 			final Filter filter,
 			final Layout<? extends Serializable> layout,
@@ -46,8 +53,9 @@ public final class EventHubsAppender extends AbstractAppender
 
 		this.eventHubsManager = eventHubsManager;
 		this.immediateFlush = immediateFlush;
-		this.logEvents = new ConcurrentLinkedQueue<byte[]>();
-		this.currentBufferedSizeBytes = new AtomicInteger();
+		this.batchSync = new Object();
+		this.pendingLogEvents = new ArrayList<byte[]>();
+		this.sealedBatches = new ArrayDeque<SealedBatch>();
 	}
 	
 	@PluginFactory
@@ -90,22 +98,52 @@ public final class EventHubsAppender extends AbstractAppender
 				}
 				else
 				{
-					int currentSize = this.currentBufferedSizeBytes.addAndGet(serializedLogEvent.length);
-					this.logEvents.offer(serializedLogEvent);
-
-					if (currentSize < EventHubsAppender.MAX_BATCH_SIZE_BYTES 
-							&& this.logEvents.size() < EventHubsAppender.MAX_BATCH_SIZE
-							&& !logEvent.isEndOfBatch())
+					final EventData eventData = new EventData(serializedLogEvent);
+					final List<SealedBatch> sentBatches;
+					boolean isOversized = false;
+					synchronized (this.batchSync)
 					{
-						return;
-					}
+						boolean isSealed = false;
+						if (!this.tryAddToPendingBatch(eventData, serializedLogEvent))
+						{
+							// the batch is full - seal it, and start the next one with this logEvent
+							if (!this.pendingLogEvents.isEmpty())
+							{
+								this.sealPendingBatch();
+								isSealed = true;
+							}
 
-					logEvent.setEndOfBatch(true);
+							isOversized = !this.tryAddToPendingBatch(eventData, serializedLogEvent);
+						}
 
-					this.eventHubsManager.send(this.logEvents);
+						if (logEvent.isEndOfBatch() && !this.pendingLogEvents.isEmpty())
+						{
+							this.sealPendingBatch();
+							isSealed = true;
+						}
 
-					this.logEvents.clear();
-					this.currentBufferedSizeBytes.set(0);
+						if (isSealed)
+						{
+							sentBatches = new ArrayList<SealedBatch>(this.sealedBatches);
+							this.sealedBatches.clear();
+						}
+						else
+						{
+							sentBatches = null;
+						}
+					}
+
+					// outside of batchSync - the other logging threads keep filling the next batch, while this one is sent
+					if (sentBatches != null)
+					{
+						this.sendSealedBatches(sentBatches);
+					}
+
+					if (isOversized)
+					{
+						throw new PayloadSizeExceededException(String.format(Locale.US,
+								"Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024));
+					}
 				}
 			}
 		}
@@ -117,16 +155,76 @@ public final class EventHubsAppender extends AbstractAppender
 			
 			LOGGER.error(String.format(Locale.US, "[%s] Appender failed to logEvent to EventHub.", this.getName()));
 			
-			// remove the current LogEvent from the inMem Q - to avoid replay
-			if (serializedLogEvent != null && this.logEvents.remove(serializedLogEvent))
-			{
-				this.currentBufferedSizeBytes.addAndGet(-1 * serializedLogEvent.length);
-			}
-			
 			throw appenderLoggingException;
 		}
 	};
 
+	// guarded by batchSync
+	private boolean tryAddToPendingBatch(final EventData eventData, final byte[] serializedLogEvent)
+	{
+		if (this.pendingBatch == null)
+		{
+			this.pendingBatch = this.eventHubsManager.createBatch();
+		}
+
+		if (!this.pendingBatch.tryAdd(eventData))
+		{
+			return false;
+		}
+
+		this.pendingLogEvents.add(serializedLogEvent);
+		return true;
+	}
+
+	// guarded by batchSync
+	private void sealPendingBatch()
+	{
+		this.sealedBatches.addLast(new SealedBatch(this.pendingBatch, this.pendingLogEvents));
+		this.pendingBatch = null;
+		this.pendingLogEvents = new ArrayList<byte[]>();
+	}
+
+	private void sendSealedBatches(final List<SealedBatch> sentBatches) throws ServiceBusException
+	{
+		for (int index = 0; index < sentBatches.size(); index++)
+		{
+			try
+			{
+				this.eventHubsManager.send(sentBatches.get(index).takeBatch(this.eventHubsManager));
+			}
+			catch (ServiceBusException | RuntimeException exception)
+			{
+				this.requeue(sentBatches.subList(index, sentBatches.size()));
+				throw exception;
+			}
+		}
+	}
+
+	// the unsent batches are sent ahead of the next one sealed - the oldest are dropped beyond MAX_SEALED_BATCHES
+	private void requeue(final List<SealedBatch> unsentBatches)
+	{
+		int droppedLogEvents = 0;
+		synchronized (this.batchSync)
+		{
+			for (int index = unsentBatches.size() - 1; index >= 0; index--)
+			{
+				this.sealedBatches.addFirst(unsentBatches.get(index));
+			}
+
+			while (this.sealedBatches.size() > MAX_SEALED_BATCHES)
+			{
+				final SealedBatch droppedBatch = this.sealedBatches.pollFirst();
+				droppedBatch.release();
+				droppedLogEvents += droppedBatch.logEvents.size();
+			}
+		}
+
+		if (droppedLogEvents > 0)
+		{
+			LOGGER.error(String.format(Locale.US, "[%s] Appender dropped %s logEvents, which could not be sent to EventHub.", this.getName(), droppedLogEvents));
+		}
+	}
+
 	@Override
 	public void start()
 	{
@@ -151,4 +249,43 @@ public final class EventHubsAppender extends AbstractAppender
 		super.stop();
 		this.eventHubsManager.release();
 	}
+
+	// a full (or end of batch) batch - and its logEvents, to re-encode it after a failed send
+	private static final class SealedBatch
+	{
+		final List<byte[]> logEvents;
+		private EventDataBatch batch;
+
+		SealedBatch(final EventDataBatch batch, final List<byte[]> logEvents)
+		{
+			this.batch = batch;
+			this.logEvents = logEvents;
+		}
+
+		// the encoded batch is sent once - a retry re-encodes the logEvents, which fit as they did the first time
+		EventDataBatch takeBatch(final EventHubsManager eventHubsManager)
+		{
+			EventDataBatch sentBatch = this.batch;
+			this.batch = null;
+			if (sentBatch == null)
+			{
+				sentBatch = eventHubsManager.createBatch();
+				for (byte[] logEvent : this.logEvents)
+				{
+					sentBatch.tryAdd(new EventData(logEvent));
+				}
+			}
+
+			return sentBatch;
+		}
+
+		void release()
+		{
+			if (this.batch != null)
+			{
+				this.batch.release();
+				this.batch = null;
+			}
+		}
+	}
 }
\ No newline at end of file
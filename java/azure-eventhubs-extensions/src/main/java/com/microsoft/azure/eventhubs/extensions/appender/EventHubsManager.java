@@ -12,9 +12,10 @@ import org.apache.logging.log4j.core.appender.*;
 import com.microsoft.azure.eventhubs.*;
 import com.microsoft.azure.servicebus.*;
 
-public final class EventHubsManager extends AbstractManager
+public class EventHubsManager extends AbstractManager
 {
 	private final String eventHubConnectionString;
+	private final ByteArrayPool batchBufferPool;
 	
 	private EventHubClient eventHubSender;
 	
@@ -22,6 +23,16 @@ public final class EventHubsManager extends AbstractManager
 	{
 		super(name);
 		this.eventHubConnectionString = eventHubConnectionString;
+		this.batchBufferPool = new ByteArrayPool(ClientConstants.MAX_MESSAGE_LENGTH_BYTES,
+				ClientConstants.DEFAULT_SEND_BUFFER_POOL_BUFFERS_PER_SIZE_CLASS, ClientConstants.DEFAULT_SEND_BUFFER_POOL_MAX_BYTES);
+	}
+
+	/**
+	 * @return an empty batch - whose buffer is given back to the pool of this manager, once it is sent using {@link #send(EventDataBatch)}
+	 */
+	public EventDataBatch createBatch()
+	{
+		return new EventDataBatch(null, this.batchBufferPool);
 	}
 	
 	public void send(final byte[] msg) throws ServiceBusException
@@ -47,6 +58,21 @@ public final class EventHubsManager extends AbstractManager
 		}
 	}
 
+	public void send(final EventDataBatch batch) throws ServiceBusException
+	{
+		try
+		{
+			if (batch.getSize() > 0)
+			{
+				this.eventHubSender.sendSync(batch);
+			}
+		}
+		finally
+		{
+			batch.release();
+		}
+	}
+
 	public void startup() throws ServiceBusException, IOException
 	{
 		this.eventHubSender = EventHubClient.createFromConnectionStringSync(this.eventHubConnectionString);
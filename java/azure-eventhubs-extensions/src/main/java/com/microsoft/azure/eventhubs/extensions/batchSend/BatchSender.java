@@ -13,13 +13,17 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
 import com.microsoft.azure.eventhubs.EventHubClient;
-import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+import com.microsoft.azure.servicebus.ByteArrayPool;
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.PayloadSizeExceededException;
 
 /**
  * Wraps up {@link EventHubClient} send APIs to provide Batching semantics.
@@ -28,17 +32,24 @@ public class BatchSender {
 
 	public final static int BATCH_FLUSH_INTERVAL_MS = 20;
 	public final static int MAX_BATCH_SIZE = 5100;
+	/**
+	 * @deprecated batches are now filled up to the exact maximum message size using {@link EventDataBatch}; this estimate is no longer used.
+	 */
+	@Deprecated
 	public final static int MAX_MSG_SIZE = 210000;
 	public final static String NO_PARTITION_KEY = "---NO-PARTITION-KEY---";
 	
 	private final static Logger logger = Logger.getLogger(BatchSender.class.getName());
 	private final static ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
 	
-	private final ISender sender;
+	private final IBatchSender sender;
 	private final ConcurrentHashMap<String, ConcurrentLinkedQueue<SendWork>> pendingSends;
+	private final ByteArrayPool batchBufferPool;
 
-	private BatchSender(final ISender sender, final int batchFlushInterval) {
+	private BatchSender(final IBatchSender sender, final int batchFlushInterval) {
 		this.sender = sender;
+		this.batchBufferPool = new ByteArrayPool(ClientConstants.MAX_MESSAGE_LENGTH_BYTES,
+				ClientConstants.DEFAULT_SEND_BUFFER_POOL_BUFFERS_PER_SIZE_CLASS, ClientConstants.DEFAULT_SEND_BUFFER_POOL_MAX_BYTES);
 		this.pendingSends = new ConcurrentHashMap<String, ConcurrentLinkedQueue<SendWork>>();
 		this.pendingSends.put(NO_PARTITION_KEY, new ConcurrentLinkedQueue<SendWork>());
 		scheduler.scheduleWithFixedDelay(new Sender(), 0, batchFlushInterval, TimeUnit.MILLISECONDS);
@@ -95,60 +106,76 @@ public class BatchSender {
 				final String partitionKey = partitionKeyWork.getKey();
 				final ConcurrentLinkedQueue<SendWork> pendingSendsPerPKey = partitionKeyWork.getValue();
 				
-				final LinkedList<EventData> events = new LinkedList<EventData>();
-				final LinkedList<CompletableFuture<Void>> futures = new LinkedList<CompletableFuture<Void>>();
-	
-				int batchSize = 0;
-				int aggregatedSize = 0;
-				while ((pendingSendsPerPKey).peek() != null
-						&& batchSize <= MAX_BATCH_SIZE 
-						&& (aggregatedSize + pendingSendsPerPKey.peek().getEventData().getBody().length) < MAX_MSG_SIZE)
+				// the batch - and its buffer - is created only once there is work for this partitionKey
+				EventDataBatch events = null;
+				LinkedList<CompletableFuture<Void>> futures = null;
+				SendWork work;
+				while ((work = pendingSendsPerPKey.peek()) != null
+						&& (events == null || events.getSize() <= MAX_BATCH_SIZE))
 				{
-					SendWork work = pendingSendsPerPKey.poll();
-					events.add(work.getEventData());
-					futures.add(work.getSendFuture());
-					batchSize++;
-					aggregatedSize += work.getEventData().getBody().length;
-					Map<String, String> properties = work.getEventData().getProperties();
-					if (properties != null)
+					if (events == null)
 					{
-						for (Map.Entry<String, String> property : properties.entrySet())
+						events = new EventDataBatch(partitionKey.compareTo(NO_PARTITION_KEY) == 0 ? null : partitionKey, batchBufferPool);
+						futures = new LinkedList<CompletableFuture<Void>>();
+					}
+
+					if (!events.tryAdd(work.getEventData()))
+					{
+						if (events.getSize() == 0)
 						{
-							aggregatedSize += ((property.getKey().length() + property.getValue().length()) * 2); 
+							// doesn't fit even in an empty batch - it can never be sent
+							pendingSendsPerPKey.poll();
+							work.getSendFuture().completeExceptionally(new PayloadSizeExceededException(String.format(Locale.US,
+									"Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024)));
+							continue;
 						}
+
+						break;
 					}
-					
-					if (partitionKey.compareTo(NO_PARTITION_KEY) != 0) {
-						aggregatedSize += (AmqpConstants.PARTITION_KEY.toString().length() * 2);
-						aggregatedSize += (partitionKey.length() * 2);
-					}
+
+					pendingSendsPerPKey.poll();
+					futures.add(work.getSendFuture());
 				}
 				
-				if(!events.isEmpty())
+				if (events == null)
 				{
-					CompletableFuture<Void> realSend = (partitionKey.compareTo(NO_PARTITION_KEY) == 0)
-							? sender.send(events) 
-							: sender.send(events, partitionKey);
+					continue;
+				}
 
-					if (logger.isLoggable(Level.FINE))
-						logger.log(Level.FINE, String.format(Locale.US, "Sending batchSize: %s, total messages Size: %s, partitionKey: %s", batchSize, aggregatedSize, partitionKey));
-					
-					realSend
-					.thenApplyAsync(new Function<Void, Void>() {
-						@Override
-						public Void apply(Void t) {
-							for (CompletableFuture<Void> work: futures)
-								work.complete(t);
-							return null;
-						}})
-					.exceptionally(new Function<Throwable, Void>() {
-						@Override
-						public Void apply(Throwable t) {
-							for (CompletableFuture<Void> work: futures)
-								work.completeExceptionally(t);
-							return null;
-						}});
+				if (events.getSize() == 0)
+				{
+					events.release();
+					continue;
 				}
+
+				if (logger.isLoggable(Level.FINE))
+					logger.log(Level.FINE, String.format(Locale.US, "Sending batchSize: %s, total messages Size: %s, partitionKey: %s", events.getSize(), events.getEncodedSize(), partitionKey));
+
+				final EventDataBatch sentEvents = events;
+				final LinkedList<CompletableFuture<Void>> sentFutures = futures;
+				CompletableFuture<Void> realSend = sender.send(sentEvents);
+
+				realSend
+				.whenComplete(new BiConsumer<Void, Throwable>() {
+					@Override
+					public void accept(Void t, Throwable error) {
+						// the buffer of the batch is not touched by the sender once the send is complete
+						sentEvents.release();
+					}})
+				.thenApplyAsync(new Function<Void, Void>() {
+					@Override
+					public Void apply(Void t) {
+						for (CompletableFuture<Void> work: sentFutures)
+							work.complete(t);
+						return null;
+					}})
+				.exceptionally(new Function<Throwable, Void>() {
+					@Override
+					public Void apply(Throwable t) {
+						for (CompletableFuture<Void> work: sentFutures)
+							work.completeExceptionally(t);
+						return null;
+					}});
 			}
 		}
 		
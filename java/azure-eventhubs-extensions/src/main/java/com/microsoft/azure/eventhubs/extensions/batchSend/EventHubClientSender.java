@@ -7,9 +7,10 @@ package com.microsoft.azure.eventhubs.extensions.batchSend;
 import java.util.concurrent.CompletableFuture;
 
 import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
 import com.microsoft.azure.eventhubs.EventHubClient;
 
-public class EventHubClientSender implements ISender {
+public class EventHubClientSender implements IBatchSender {
 
 	final EventHubClient eventHubClient;
 	
@@ -26,4 +27,9 @@ public class EventHubClientSender implements ISender {
 	public CompletableFuture<Void> send(Iterable<EventData> edatas) {
 		return this.eventHubClient.send(edatas);
 	}
+
+	@Override
+	public CompletableFuture<Void> send(EventDataBatch edataBatch) {
+		return this.eventHubClient.send(edataBatch);
+	}
 }
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs.extensions.batchSend;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.microsoft.azure.eventhubs.EventDataBatch;
+
+/**
+ * An {@link ISender} which can also send an already encoded {@link EventDataBatch}.
+ */
+public interface IBatchSender extends ISender {
+
+	CompletableFuture<Void> send(final EventDataBatch edataBatch);
+	
+}
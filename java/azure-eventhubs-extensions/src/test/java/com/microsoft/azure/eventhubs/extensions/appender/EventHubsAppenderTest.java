@@ -0,0 +1,174 @@
+package com.microsoft.azure.eventhubs.extensions.appender;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+public class EventHubsAppenderTest
+{
+	@Test
+	public void pendingEventsAreSentAtTheEndOfBatch()
+	{
+		final RecordingEventHubsManager manager = new RecordingEventHubsManager();
+		final EventHubsAppender appender = newAppender(manager);
+
+		appender.append(logEvent("first", false));
+		appender.append(logEvent("second", false));
+		Assert.assertTrue(manager.sentBatchSizes.isEmpty());
+
+		appender.append(logEvent("third", true));
+		Assert.assertEquals(Arrays.asList(3), manager.sentBatchSizes);
+	}
+
+	@Test
+	public void fullBatchIsSentAndTheIncomingEventStartsTheNextOne()
+	{
+		final RecordingEventHubsManager manager = new RecordingEventHubsManager();
+		final EventHubsAppender appender = newAppender(manager);
+
+		// 3 of these don't fit in a 256kb message
+		final String largeMessage = new String(new char[100 * 1024]).replace('\0', 'a');
+		appender.append(logEvent(largeMessage, false));
+		appender.append(logEvent(largeMessage, false));
+		Assert.assertTrue(manager.sentBatchSizes.isEmpty());
+
+		appender.append(logEvent(largeMessage, false));
+		Assert.assertEquals(Arrays.asList(2), manager.sentBatchSizes);
+
+		appender.append(logEvent("small", true));
+		Assert.assertEquals(Arrays.asList(2, 2), manager.sentBatchSizes);
+	}
+
+	@Test
+	public void failedBatchIsSentAgainAheadOfTheNextBatch()
+	{
+		final RecordingEventHubsManager manager = new RecordingEventHubsManager();
+		final EventHubsAppender appender = newAppender(manager);
+
+		appender.append(logEvent("first", false));
+		appender.append(logEvent("second", false));
+		manager.failedSendCount.set(1);
+		try
+		{
+			appender.append(logEvent("third", true));
+			Assert.fail("append should fail when the send fails");
+		}
+		catch (AppenderLoggingException expected)
+		{
+		}
+
+		Assert.assertTrue(manager.sentBatchSizes.isEmpty());
+
+		appender.append(logEvent("fourth", false));
+		Assert.assertTrue(manager.sentBatchSizes.isEmpty());
+
+		appender.append(logEvent("fifth", true));
+		Assert.assertEquals(Arrays.asList(3, 2), manager.sentBatchSizes);
+	}
+
+	@Test
+	public void loggingThreadsDoNotWaitOnASend() throws Exception
+	{
+		final RecordingEventHubsManager manager = new RecordingEventHubsManager();
+		final EventHubsAppender appender = newAppender(manager);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			manager.sendGate = new CountDownLatch(1);
+			final Future<?> flush = executor.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					appender.append(logEvent("flushed", true));
+				}
+			});
+
+			Assert.assertTrue(manager.sendStarted.await(10, TimeUnit.SECONDS));
+
+			// the send is blocked - another thread still appends to the next batch
+			appender.append(logEvent("next", false));
+			Assert.assertFalse(flush.isDone());
+
+			manager.sendGate.countDown();
+			flush.get(10, TimeUnit.SECONDS);
+
+			appender.append(logEvent("last", true));
+			Assert.assertEquals(Arrays.asList(1, 2), manager.sentBatchSizes);
+		}
+		finally
+		{
+			manager.sendGate.countDown();
+			executor.shutdown();
+		}
+	}
+
+	private static EventHubsAppender newAppender(final EventHubsManager manager)
+	{
+		return new EventHubsAppender("test", null, null, false, manager, false);
+	}
+
+	private static LogEvent logEvent(final String message, final boolean isEndOfBatch)
+	{
+		return new Log4jLogEvent.Builder().setMessage(new SimpleMessage(message)).setEndOfBatch(isEndOfBatch).build();
+	}
+
+	// records the size of each sent batch - instead of sending it
+	private static final class RecordingEventHubsManager extends EventHubsManager
+	{
+		final List<Integer> sentBatchSizes = new CopyOnWriteArrayList<Integer>();
+		final AtomicInteger failedSendCount = new AtomicInteger();
+		final CountDownLatch sendStarted = new CountDownLatch(1);
+		volatile CountDownLatch sendGate;
+
+		RecordingEventHubsManager()
+		{
+			super("test", null);
+		}
+
+		@Override
+		public void send(final EventDataBatch batch) throws ServiceBusException
+		{
+			try
+			{
+				this.sendStarted.countDown();
+				if (this.sendGate != null)
+				{
+					this.sendGate.await(10, TimeUnit.SECONDS);
+				}
+
+				if (this.failedSendCount.getAndDecrement() > 0)
+				{
+					throw new ServiceBusException(true, new IOException("send failed"));
+				}
+
+				this.sentBatchSizes.add(batch.getSize());
+			}
+			catch (InterruptedException exception)
+			{
+				throw new ServiceBusException(false, exception);
+			}
+			finally
+			{
+				batch.release();
+			}
+		}
+	}
+}
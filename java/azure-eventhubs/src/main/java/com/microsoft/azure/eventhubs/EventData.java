@@ -10,6 +10,7 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -43,14 +44,24 @@ public class EventData implements Serializable
 
 	private SystemProperties systemProperties;
 
+	// sections of a received message, which are materialized into the fields above on first access - never modified,
+	// so that threads sharing a received event can read them concurrently
+	transient private Map<Symbol, Object> receivedAnnotations;
+	@SuppressWarnings("rawtypes")
+	transient private Map receivedApplicationProperties;
+
+	// written under the lock of the event, after the fields they guard - read without it
+	transient private volatile boolean arePropertiesMaterialized;
+	transient private volatile boolean areSystemPropertiesMaterialized;
+
 	private EventData()
 	{
 	}
 
 	/**
-	 * Internal Constructor - intended to be used only by the {@link PartitionReceiver} to Create #EventData out of #Message
+	 * Internal Constructor - intended to be used only by the {@link PartitionReceiver} to Create #EventData out of #Message.
+	 * Only the body is extracted here - the properties & system properties are materialized out of the message annotations on first access.
 	 */
-	@SuppressWarnings("unchecked")
 	EventData(Message amqpMessage)
 	{
 		if (amqpMessage == null)
@@ -58,41 +69,8 @@ public class EventData implements Serializable
 			throw new IllegalArgumentException("amqpMessage cannot be null");
 		}
 
-		Map<Symbol, Object> messageAnnotations = amqpMessage.getMessageAnnotations().getValue();
-
-		Object partitionKeyObj = messageAnnotations.get(AmqpConstants.PARTITION_KEY);
-		if (partitionKeyObj != null)
-		{
-			this.partitionKey = partitionKeyObj.toString();
-			messageAnnotations.remove(AmqpConstants.PARTITION_KEY);
-		}
-
-		Object sequenceNumberObj = messageAnnotations.get(AmqpConstants.SEQUENCE_NUMBER);
-		this.sequenceNumber = (Long) sequenceNumberObj;
-		messageAnnotations.remove(AmqpConstants.SEQUENCE_NUMBER);
-
-		Object enqueuedTimeUtcObj = messageAnnotations.get(AmqpConstants.ENQUEUED_TIME_UTC);
-		this.enqueuedTime = ((Date) enqueuedTimeUtcObj).toInstant();
-		messageAnnotations.remove(AmqpConstants.ENQUEUED_TIME_UTC);
-
-		this.offset = messageAnnotations.get(AmqpConstants.OFFSET).toString();
-		messageAnnotations.remove(AmqpConstants.OFFSET);
-
-		this.properties = amqpMessage.getApplicationProperties() == null ? null 
-				: ((Map<String, String>)(amqpMessage.getApplicationProperties().getValue()));
-
-		if (!messageAnnotations.isEmpty())
-		{
-			if (this.properties == null)
-			{
-				this.properties = new HashMap<String, String>();
-			}
-
-			for(Map.Entry<Symbol, Object> annotation: messageAnnotations.entrySet())
-			{
-				this.properties.put(annotation.getKey().toString(), annotation.getValue() != null ? annotation.getValue().toString() : null);
-			}
-		}
+		this.receivedAnnotations = amqpMessage.getMessageAnnotations().getValue();
+		this.receivedApplicationProperties = amqpMessage.getApplicationProperties() == null ? null : amqpMessage.getApplicationProperties().getValue();
 
 		this.bodyData = amqpMessage.getBody() == null ? null : ((Data) amqpMessage.getBody()).getValue();
 
@@ -196,12 +174,38 @@ public class EventData implements Serializable
 	/**
 	 * Get Actual Payload/Data wrapped by EventData.
 	 * This is intended to be used after receiving EventData using @@PartitionReceiver.
+	 * On a received EventData, the payload is copied out of the buffer the event was received into on the first call -
+	 * after which this EventData no longer keeps that buffer reachable.
 	 * @return returns the byte[] of the actual data 
 	 */
 	public byte[] getBody()
 	{
+		if (this.bodyData == null)
+		{
+			return null;
+		}
+
+		if (this.isReceivedEvent
+				&& (this.bodyData.getArrayOffset() != 0 || this.bodyData.getLength() != this.bodyData.getArray().length))
+		{
+			// the received body is a slice of the receive buffer shared with other events - copied out once, on first access
+			this.bodyData = new Binary(Arrays.copyOfRange(this.bodyData.getArray(), this.bodyData.getArrayOffset(), this.bodyData.getArrayOffset() + this.bodyData.getLength()));
+		}
+
 		// TODO: enforce on-send constructor type 2
-		return this.bodyData == null ? null : this.bodyData.getArray();
+		return this.bodyData.getArray();
+	}
+
+	/**
+	 * Get the Payload/Data wrapped by EventData - without copying it.
+	 * On a received EventData, unlike {@link #getBody()}, this doesn't copy the payload out of the buffer the event was received into.
+	 * That buffer is shared with other events & stays reachable as long as the returned view, or this EventData, is - it is at most 16 times
+	 * the size of the payload, as smaller payloads are copied when received. To hold on to the payload of an event for long, use {@link #getBody()}.
+	 * @return read-only view of the actual data; null if the event has no body
+	 */
+	public ByteBuffer getBodyBuffer()
+	{
+		return this.bodyData == null ? null : this.bodyData.asByteBuffer().slice().asReadOnlyBuffer();
 	}
 
 	/**
@@ -210,12 +214,93 @@ public class EventData implements Serializable
 	 */
 	public Map<String, String> getProperties()
 	{
+		if (this.isReceivedEvent && !this.arePropertiesMaterialized)
+		{
+			this.materializeProperties();
+		}
+
 		return this.properties;
 	}
 
 	public void setProperties(Map<String, String> applicationProperties)
 	{
-		this.properties = applicationProperties;
+		synchronized (this)
+		{
+			this.properties = applicationProperties;
+			this.arePropertiesMaterialized = true;
+		}
+	}
+
+	// application properties + the message annotations which are not system properties - copied into a new map
+	@SuppressWarnings("unchecked")
+	private synchronized void materializeProperties()
+	{
+		if (this.arePropertiesMaterialized)
+		{
+			return;
+		}
+
+		Map<String, String> receivedProperties = this.receivedApplicationProperties == null
+				? null
+				: new HashMap<String, String>((Map<String, String>) this.receivedApplicationProperties);
+		if (this.receivedAnnotations != null)
+		{
+			for (Map.Entry<Symbol, Object> annotation: this.receivedAnnotations.entrySet())
+			{
+				if (!EventData.isSystemProperty(annotation.getKey()))
+				{
+					if (receivedProperties == null)
+					{
+						receivedProperties = new HashMap<String, String>();
+					}
+
+					receivedProperties.put(annotation.getKey().toString(), annotation.getValue() != null ? annotation.getValue().toString() : null);
+				}
+			}
+		}
+
+		this.properties = receivedProperties;
+		this.arePropertiesMaterialized = true;
+	}
+
+	private void materializeSystemProperties()
+	{
+		if (this.isReceivedEvent && !this.areSystemPropertiesMaterialized)
+		{
+			this.materializeReceivedSystemProperties();
+		}
+	}
+
+	private synchronized void materializeReceivedSystemProperties()
+	{
+		if (this.areSystemPropertiesMaterialized)
+		{
+			return;
+		}
+
+		final Map<Symbol, Object> messageAnnotations = this.receivedAnnotations;
+
+		final Object partitionKeyObj = messageAnnotations.get(AmqpConstants.PARTITION_KEY);
+		this.partitionKey = partitionKeyObj != null ? partitionKeyObj.toString() : null;
+		this.sequenceNumber = (Long) messageAnnotations.get(AmqpConstants.SEQUENCE_NUMBER);
+		this.enqueuedTime = ((Date) messageAnnotations.get(AmqpConstants.ENQUEUED_TIME_UTC)).toInstant();
+		this.offset = messageAnnotations.get(AmqpConstants.OFFSET).toString();
+
+		this.areSystemPropertiesMaterialized = true;
+	}
+
+	private long getReceivedSequenceNumber()
+	{
+		// the most commonly read system property - read straight out of the annotations, without materializing the rest
+		return this.areSystemPropertiesMaterialized ? this.sequenceNumber : (Long) this.receivedAnnotations.get(AmqpConstants.SEQUENCE_NUMBER);
+	}
+
+	private static boolean isSystemProperty(final Symbol annotationKey)
+	{
+		return AmqpConstants.PARTITION_KEY.equals(annotationKey)
+				|| AmqpConstants.SEQUENCE_NUMBER.equals(annotationKey)
+				|| AmqpConstants.ENQUEUED_TIME_UTC.equals(annotationKey)
+				|| AmqpConstants.OFFSET.equals(annotationKey);
 	}
 
 	/**
@@ -266,6 +351,8 @@ public class EventData implements Serializable
 	
 	private void writeObject(ObjectOutputStream out) throws IOException
 	{
+		this.getProperties();
+		this.materializeSystemProperties();
 		out.defaultWriteObject();
 		
 		out.writeInt(this.bodyData.getLength());
@@ -280,6 +367,10 @@ public class EventData implements Serializable
 		final byte[] data = new byte[length];
 		in.read(data, 0, length);
 		this.bodyData = new Binary(data, 0, length);
+
+		// everything was materialized before it was serialized
+		this.arePropertiesMaterialized = true;
+		this.areSystemPropertiesMaterialized = true;
 	}
 
 	public static class SystemProperties implements Serializable
@@ -300,21 +391,24 @@ public class EventData implements Serializable
 
 		public long getSequenceNumber()
 		{
-			return this.eventData.sequenceNumber;
+			return this.eventData.getReceivedSequenceNumber();
 		}
 		
 		public Instant getEnqueuedTime()
 		{
+			this.eventData.materializeSystemProperties();
 			return this.eventData.enqueuedTime;
 		}
 
 		public String getOffset()
 		{
+			this.eventData.materializeSystemProperties();
 			return this.eventData.offset;
 		}
 
 		public String getPartitionKey()
 		{
+			this.eventData.materializeSystemProperties();
 			return this.eventData.partitionKey;
 		}
 	}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+
+import com.microsoft.azure.servicebus.BatchMessageEncoder;
+import com.microsoft.azure.servicebus.ByteArrayPool;
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * A batch of {@link EventData}'s which is encoded as the events are added - so, the size of the batch is exact and
+ * the batch is sent, using {@link EventHubClient#send(EventDataBatch)} or {@link PartitionSender#send(EventDataBatch)}, without being re-encoded.
+ * <p>Use {@link #tryAdd(EventData)} to fill the batch up to the maximum message size allowed by the service:
+ * <pre>
+ * EventDataBatch batch = new EventDataBatch();
+ * for (EventData event : events)
+ * {
+ *     if (!batch.tryAdd(event))
+ *     {
+ *         client.sendSync(batch);
+ *         batch = new EventDataBatch();
+ *         batch.tryAdd(event);
+ *     }
+ * }
+ * </pre>
+ * <p>A batch created with a {@link ByteArrayPool} encodes into a buffer borrowed from the pool - give it back using {@link #release()},
+ * once the send of the batch completes.
+ * <p>This class is not thread-safe.
+ */
+public final class EventDataBatch
+{
+	private final String partitionKey;
+	private final ByteArrayPool bufferPool;
+
+	private BatchMessageEncoder encoder;
+
+	/**
+	 * Create an empty batch, whose events land on any arbitrarily chosen EventHubs partition - or on the partition of the {@link PartitionSender} it is sent with.
+	 */
+	public EventDataBatch()
+	{
+		this(null);
+	}
+
+	/**
+	 * Create an empty batch, whose events are all sent with the given partitionKey.
+	 * @param partitionKey the partitionKey will be hash'ed to determine the partitionId to send the batch to. null to send without a partitionKey.
+	 */
+	public EventDataBatch(final String partitionKey)
+	{
+		this(partitionKey, null);
+	}
+
+	/**
+	 * Create an empty batch, whose events are all sent with the given partitionKey - encoded into a buffer borrowed from the bufferPool.
+	 * @param partitionKey the partitionKey will be hash'ed to determine the partitionId to send the batch to. null to send without a partitionKey.
+	 * @param bufferPool the pool to borrow the buffer of the batch from - null, to allocate it
+	 */
+	public EventDataBatch(final String partitionKey, final ByteArrayPool bufferPool)
+	{
+		if (partitionKey != null && partitionKey.length() > ClientConstants.MAX_PARTITION_KEY_LENGTH)
+		{
+			throw new IllegalArgumentException(
+					String.format(Locale.US, "PartitionKey exceeds the maximum allowed length of partitionKey: %s", ClientConstants.MAX_PARTITION_KEY_LENGTH));
+		}
+
+		this.partitionKey = partitionKey;
+		this.bufferPool = bufferPool;
+		this.encoder = new BatchMessageEncoder(
+				bufferPool != null ? bufferPool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES) : new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES],
+				ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+
+		MessageAnnotations batchAnnotations = null;
+		if (partitionKey != null)
+		{
+			final HashMap<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+			annotations.put(AmqpConstants.PARTITION_KEY, partitionKey);
+			batchAnnotations = new MessageAnnotations(annotations);
+		}
+
+		this.encoder.encodeEnvelope(batchAnnotations);
+	}
+
+	/**
+	 * Add the {@link EventData} to the batch - if it fits in the remaining space.
+	 * @param eventData the {@link EventData} to be added
+	 * @return true if the event is added; false if the batch doesn't have room for it - in which case the batch is left unchanged
+	 */
+	public boolean tryAdd(final EventData eventData)
+	{
+		if (eventData == null)
+		{
+			throw new IllegalArgumentException("eventData cannot be null");
+		}
+
+		return this.getEncoder().tryAppend(this.partitionKey == null ? eventData.toAmqpMessage() : eventData.toAmqpMessage(this.partitionKey));
+	}
+
+	/**
+	 * @return number of {@link EventData}'s in the batch
+	 */
+	public int getSize()
+	{
+		return this.getEncoder().getMessageCount();
+	}
+
+	/**
+	 * @return size of the encoded batch in bytes
+	 */
+	public int getEncodedSize()
+	{
+		return this.getEncoder().getEncodedSize();
+	}
+
+	/**
+	 * @return number of bytes left in the batch, before it reaches the maximum message size allowed by the service.
+	 * An event added to the batch takes up its encoded size plus a few bytes of framing.
+	 */
+	public int getRemainingBytes()
+	{
+		return this.getEncoder().getRemainingBytes();
+	}
+
+	public String getPartitionKey()
+	{
+		return this.partitionKey;
+	}
+
+	/**
+	 * Give the buffer of the batch back to the {@link ByteArrayPool} it was borrowed from - the batch cannot be added to, or sent, afterwards.
+	 * Invoke it only once the send of the batch is complete. Releasing a batch created without a pool, or an already released batch, is a no-op.
+	 */
+	public void release()
+	{
+		final BatchMessageEncoder releasedEncoder = this.encoder;
+		if (releasedEncoder == null || this.bufferPool == null)
+		{
+			return;
+		}
+
+		this.encoder = null;
+		this.bufferPool.release(releasedEncoder.getBuffer());
+	}
+
+	BatchMessageEncoder getEncoder()
+	{
+		if (this.encoder == null)
+		{
+			throw new IllegalStateException("EventDataBatch is released");
+		}
+
+		return this.encoder;
+	}
+}
@@ -8,6 +8,8 @@ import java.util.*;
 import java.util.function.*;
 import org.apache.qpid.proton.message.*;
 
+import com.microsoft.azure.servicebus.ReadOnlyBatch;
+
 /*
  * Internal utility class for EventData
  */
@@ -15,21 +17,33 @@ final class EventDataUtil
 {
 	private EventDataUtil(){}
 
-	static LinkedList<EventData> toEventDataCollection(final Collection<Message> messages)
+	@SuppressWarnings("unchecked")
+	static ReadOnlyBatch<EventData> toEventDataCollection(final Collection<Message> messages)
 	{
 		if (messages == null)
 		{
 			return null;
 		}
 
-		// TODO: no-copy solution
-		LinkedList<EventData> events = new LinkedList<EventData>();
-		for(Message message : messages)
+		final Object[] events = new Object[messages.size()];
+		int eventCount = 0;
+		if (messages instanceof ReadOnlyBatch)
 		{
-			events.add(new EventData(message));
+			final ReadOnlyBatch<Message> messageBatch = (ReadOnlyBatch<Message>) messages;
+			for (int index = 0; index < events.length; index++)
+			{
+				events[eventCount++] = new EventData(messageBatch.get(index));
+			}
+		}
+		else
+		{
+			for (Message message : messages)
+			{
+				events[eventCount++] = new EventData(message);
+			}
 		}
 
-		return events;
+		return new ReadOnlyBatch<EventData>(events, eventCount);
 	}
 
 	static Iterable<Message> toAmqpMessages(final Iterable<EventData> eventDatas, final String partitionKey)
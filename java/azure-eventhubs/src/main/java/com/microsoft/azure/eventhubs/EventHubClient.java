@@ -23,18 +23,25 @@ public class EventHubClient extends ClientEntity
 
 	private final String eventHubName;
 	private final Object senderCreateSync;
+	private final SendMode sendMode;
+
+	private volatile int maxInFlightSends;
+	private volatile long maxInFlightBytes;
+	private volatile boolean coalesceSends;
 
 	private MessagingFactory underlyingFactory;
-	private MessageSender sender;
+	private MessagingFactoryCache factoryCache;
+	private volatile MessageSender sender;
 	private boolean isSenderCreateStarted;
 	private CompletableFuture<Void> createSender;
 
-	private EventHubClient(ConnectionStringBuilder connectionString) throws IOException, IllegalEntityException
+	private EventHubClient(ConnectionStringBuilder connectionString, SendMode sendMode) throws IOException, IllegalEntityException
 	{
 		super(StringUtil.getRandomString(), null);
 
 		this.eventHubName = connectionString.getEntityPath();
 		this.senderCreateSync = new Object();
+		this.sendMode = sendMode;
 	}
 
 	/**
@@ -46,10 +53,24 @@ public class EventHubClient extends ClientEntity
 	 */
 	public static EventHubClient createFromConnectionStringSync(final String connectionString)
 			throws ServiceBusException, IOException
+	{
+		return createFromConnectionStringSync(connectionString, SendMode.AtLeastOnce);
+	}
+
+	/**
+	 * Synchronous version of {@link #createFromConnectionString(String, SendMode)}. 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param sendMode delivery guarantee of the events sent using the {@link #send(EventData)} methods
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static EventHubClient createFromConnectionStringSync(final String connectionString, final SendMode sendMode)
+			throws ServiceBusException, IOException
 	{
 		try
 		{
-			return createFromConnectionString(connectionString).get();
+			return createFromConnectionString(connectionString, sendMode).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -93,10 +114,113 @@ public class EventHubClient extends ClientEntity
 	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString)
 			throws ServiceBusException, IOException
 	{
-		ConnectionStringBuilder connStr = new ConnectionStringBuilder(connectionString);
-		final EventHubClient eventHubClient = new EventHubClient(connStr);
+		return createFromConnectionString(connectionString, SendMode.AtLeastOnce);
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} using the supplied connectionString - 
+	 * whose internal Sender, used by the {@link #send(EventData)} methods, sends with the given {@link SendMode}.
+	 * 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param sendMode delivery guarantee of the events sent using the {@link #send(EventData)} methods. 
+	 * Use {@link SendMode#AtMostOnce} only if losing events on failures is acceptable.
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString, final SendMode sendMode)
+			throws ServiceBusException, IOException
+	{
+		return createFromConnectionString(connectionString, sendMode, (ReactorGroup) null);
+	}
 
-		return MessagingFactory.createFromConnectionString(connectionString.toString())
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} using the supplied connectionString - 
+	 * whose connection is hosted by one of the Reactor threads of the given {@link ReactorGroup}, instead of a dedicated Reactor thread.
+	 * Use it to bound the number of threads of an application which creates many clients.
+	 * 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param sendMode delivery guarantee of the events sent using the {@link #send(EventData)} methods.
+	 * @param reactorGroup the Reactor threads shared by the clients - null, to run a dedicated Reactor thread for this client
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionString(final String connectionString, final SendMode sendMode, final ReactorGroup reactorGroup)
+			throws ServiceBusException, IOException
+	{
+		return createFromConnectionStringBuilder(new ConnectionStringBuilder(connectionString), sendMode, reactorGroup);
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} using the supplied {@link ConnectionStringBuilder} - 
+	 * whose connection applies the {@link TransportOptions} & {@link RetryPolicy} set on the builder, which its connection string doesn't carry.
+	 * 
+	 * @param connectionStringBuilder The connection string builder to be used.
+	 * @param sendMode delivery guarantee of the events sent using the {@link #send(EventData)} methods.
+	 * @param reactorGroup the Reactor threads shared by the clients - null, to run a dedicated Reactor thread for this client
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionStringBuilder(final ConnectionStringBuilder connectionStringBuilder, final SendMode sendMode, final ReactorGroup reactorGroup)
+			throws ServiceBusException, IOException
+	{
+		final EventHubClient eventHubClient = new EventHubClient(connectionStringBuilder, sendMode);
+
+		return eventHubClient.onFactoryOpen(MessagingFactory.createFromConnectionStringBuilder(connectionStringBuilder, reactorGroup));
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} using the supplied connectionString - 
+	 * which shares its connection with the other clients of the same namespace & credentials acquired from the given {@link MessagingFactoryCache}.
+	 * Closing the client releases its handle on the shared connection; the connection is closed with the last client using it.
+	 * 
+	 * @param connectionString The connection string to be used. See {@link ConnectionStringBuilder} to construct a connectionString.
+	 * @param sendMode delivery guarantee of the events sent using the {@link #send(EventData)} methods.
+	 * @param factoryCache the cache of shared connections
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionStringShared(final String connectionString, final SendMode sendMode, final MessagingFactoryCache factoryCache)
+			throws ServiceBusException, IOException
+	{
+		return createFromConnectionStringBuilderShared(new ConnectionStringBuilder(connectionString), sendMode, factoryCache);
+	}
+
+	/**
+	 * Factory method to create an instance of {@link EventHubClient} using the supplied {@link ConnectionStringBuilder} - 
+	 * which shares its connection with the other clients acquired from the given {@link MessagingFactoryCache} using the same namespace, credentials,
+	 * {@link TransportOptions} & {@link RetryPolicy}.
+	 * Closing the client releases its handle on the shared connection; the connection is closed with the last client using it.
+	 * 
+	 * @param connectionStringBuilder The connection string builder to be used.
+	 * @param sendMode delivery guarantee of the events sent using the {@link #send(EventData)} methods.
+	 * @param factoryCache the cache of shared connections
+	 * @return EventHubClient which can be used to create Senders and Receivers to EventHub
+	 * @throws ServiceBusException If Service Bus service encountered problems during connection creation. 
+	 * @throws IOException  If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<EventHubClient> createFromConnectionStringBuilderShared(final ConnectionStringBuilder connectionStringBuilder, final SendMode sendMode,
+			final MessagingFactoryCache factoryCache)
+			throws ServiceBusException, IOException
+	{
+		if (factoryCache == null)
+		{
+			throw new IllegalArgumentException("factoryCache cannot be null");
+		}
+
+		final EventHubClient eventHubClient = new EventHubClient(connectionStringBuilder, sendMode);
+		eventHubClient.factoryCache = factoryCache;
+
+		return eventHubClient.onFactoryOpen(factoryCache.acquire(connectionStringBuilder));
+	}
+
+	private CompletableFuture<EventHubClient> onFactoryOpen(final CompletableFuture<MessagingFactory> factoryOpen)
+	{
+		final EventHubClient eventHubClient = this;
+		return factoryOpen
 				.thenApplyAsync(new Function<MessagingFactory, EventHubClient>()
 				{
 					@Override
@@ -120,7 +244,8 @@ public class EventHubClient extends ClientEntity
 	{
 		try
 		{
-			this.send(data).get();
+			// blocks for room in the in-flight window of the internal sender, instead of failing the send
+			this.sendInternal(data, true).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -174,20 +299,30 @@ public class EventHubClient extends ClientEntity
 	 * @see PartitionSender#send(EventData) 
 	 */
 	public final CompletableFuture<Void> send(final EventData data)
+	{
+		return this.sendInternal(data, false);
+	}
+
+	private CompletableFuture<Void> sendInternal(final EventData data, final boolean waitForCapacity)
 	{
 		if (data == null)
 		{
 			throw new IllegalArgumentException("EventData cannot be empty.");
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		final Function<Void, CompletableFuture<Void>> sendOnInternalSender = new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(data.toAmqpMessage());
+				return EventHubClient.this.sender.send(data.toAmqpMessage(), waitForCapacity);
 			}
-		});
+		};
+
+		// waiting for capacity blocks - so, it stays on the calling thread (sendSync) once the internal sender is created
+		return waitForCapacity
+				? this.createInternalSender().thenCompose(sendOnInternalSender)
+				: this.createInternalSender().thenComposeAsync(sendOnInternalSender);
 	}
 
 	/**
@@ -202,7 +337,8 @@ public class EventHubClient extends ClientEntity
 	{
 		try
 		{
-			this.send(eventDatas).get();
+			// blocks for room in the in-flight window of the internal sender, instead of failing the send
+			this.sendInternal(eventDatas, true).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -275,20 +411,30 @@ public class EventHubClient extends ClientEntity
 	 * @see PartitionSender#send(EventData) 
 	 */
 	public final CompletableFuture<Void> send(final Iterable<EventData> eventDatas)
+	{
+		return this.sendInternal(eventDatas, false);
+	}
+
+	private CompletableFuture<Void> sendInternal(final Iterable<EventData> eventDatas, final boolean waitForCapacity)
 	{
 		if (eventDatas == null || IteratorUtil.sizeEquals(eventDatas, 0))
 		{
 			throw new IllegalArgumentException("Empty batch of EventData cannot be sent.");
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		final Function<Void, CompletableFuture<Void>> sendOnInternalSender = new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas));
+				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas), waitForCapacity);
 			}
-		});
+		};
+
+		// waiting for capacity blocks - so, it stays on the calling thread (sendSync) once the internal sender is created
+		return waitForCapacity
+				? this.createInternalSender().thenCompose(sendOnInternalSender)
+				: this.createInternalSender().thenComposeAsync(sendOnInternalSender);
 	}
 
 	/**
@@ -303,7 +449,8 @@ public class EventHubClient extends ClientEntity
 	{
 		try
 		{
-			this.send(eventData, partitionKey).get();
+			// blocks for room in the in-flight window of the internal sender, instead of failing the send
+			this.sendInternal(eventData, partitionKey, true).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -358,6 +505,11 @@ public class EventHubClient extends ClientEntity
 	 * @see PartitionSender#send(EventData)
 	 */
 	public final CompletableFuture<Void> send(final EventData eventData, final String partitionKey)
+	{
+		return this.sendInternal(eventData, partitionKey, false);
+	}
+
+	private CompletableFuture<Void> sendInternal(final EventData eventData, final String partitionKey, final boolean waitForCapacity)
 	{
 		if (eventData == null)
 		{
@@ -369,14 +521,19 @@ public class EventHubClient extends ClientEntity
 			throw new IllegalArgumentException("partitionKey cannot be null");
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		final Function<Void, CompletableFuture<Void>> sendOnInternalSender = new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(eventData.toAmqpMessage(partitionKey));
+				return EventHubClient.this.sender.send(eventData.toAmqpMessage(partitionKey), waitForCapacity);
 			}
-		});
+		};
+
+		// waiting for capacity blocks - so, it stays on the calling thread (sendSync) once the internal sender is created
+		return waitForCapacity
+				? this.createInternalSender().thenCompose(sendOnInternalSender)
+				: this.createInternalSender().thenComposeAsync(sendOnInternalSender);
 	}
 
 	/**
@@ -392,7 +549,8 @@ public class EventHubClient extends ClientEntity
 	{
 		try
 		{
-			this.send(eventDatas, partitionKey).get();
+			// blocks for room in the in-flight window of the internal sender, instead of failing the send
+			this.sendInternal(eventDatas, partitionKey, true).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -439,6 +597,11 @@ public class EventHubClient extends ClientEntity
 	 * @see PartitionSender#send(EventData) 
 	 */
 	public final CompletableFuture<Void> send(final Iterable<EventData> eventDatas, final String partitionKey)
+	{
+		return this.sendInternal(eventDatas, partitionKey, false);
+	}
+
+	private CompletableFuture<Void> sendInternal(final Iterable<EventData> eventDatas, final String partitionKey, final boolean waitForCapacity)
 	{
 		if (eventDatas == null || IteratorUtil.sizeEquals(eventDatas, 0))
 		{
@@ -456,14 +619,94 @@ public class EventHubClient extends ClientEntity
 					String.format(Locale.US, "PartitionKey exceeds the maximum allowed length of partitionKey: {0}", ClientConstants.MAX_PARTITION_KEY_LENGTH));
 		}
 
-		return this.createInternalSender().thenComposeAsync(new Function<Void, CompletableFuture<Void>>()
+		final Function<Void, CompletableFuture<Void>> sendOnInternalSender = new Function<Void, CompletableFuture<Void>>()
+		{
+			@Override
+			public CompletableFuture<Void> apply(Void voidArg)
+			{
+				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas, partitionKey), waitForCapacity);
+			}
+		};
+
+		// waiting for capacity blocks - so, it stays on the calling thread (sendSync) once the internal sender is created
+		return waitForCapacity
+				? this.createInternalSender().thenCompose(sendOnInternalSender)
+				: this.createInternalSender().thenComposeAsync(sendOnInternalSender);
+	}
+
+	/**
+	 * Synchronous version of {@link #send(EventDataBatch)}. 
+	 * @param eventDataBatch the batch of events to send to EventHub
+	 * @throws ServiceBusException             if Service Bus service encountered problems during the operation.
+	 * @throws UnresolvedAddressException      if there are Client to Service network connectivity issues, if the Azure DNS resolution of the ServiceBus Namespace fails (ex: namespace deleted etc.)
+	 */
+	public final void sendSync(final EventDataBatch eventDataBatch) 
+			throws ServiceBusException
+	{
+		try
+		{
+			// blocks for room in the in-flight window of the internal sender, instead of failing the send
+			this.sendInternal(eventDataBatch, true).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+	}
+
+	/**
+	 * Send an {@link EventDataBatch} to EventHub - the batch is already encoded, so, it is sent as is.
+	 * If the batch was created with a partitionKey, it is sent as in {@link #send(Iterable, String)}; otherwise, as in {@link #send(Iterable)}.
+	 * <p>The batch could be sent again (ex: after a failure), but, it should not be modified until the send is complete.
+	 * @param eventDataBatch the batch of events to send to EventHub
+	 * @return     a CompletableFuture that can be completed when the send operations is done..
+	 * @see EventDataBatch#tryAdd(EventData)
+	 */
+	public final CompletableFuture<Void> send(final EventDataBatch eventDataBatch)
+	{
+		return this.sendInternal(eventDataBatch, false);
+	}
+
+	private CompletableFuture<Void> sendInternal(final EventDataBatch eventDataBatch, final boolean waitForCapacity)
+	{
+		if (eventDataBatch == null || eventDataBatch.getSize() == 0)
+		{
+			throw new IllegalArgumentException("Empty batch of EventData cannot be sent.");
+		}
+
+		final Function<Void, CompletableFuture<Void>> sendOnInternalSender = new Function<Void, CompletableFuture<Void>>()
 		{
 			@Override
 			public CompletableFuture<Void> apply(Void voidArg)
 			{
-				return EventHubClient.this.sender.send(EventDataUtil.toAmqpMessages(eventDatas, partitionKey));
+				return EventHubClient.this.sender.send(eventDataBatch.getEncoder(), waitForCapacity);
 			}
-		});
+		};
+
+		// waiting for capacity blocks - so, it stays on the calling thread (sendSync) once the internal sender is created
+		return waitForCapacity
+				? this.createInternalSender().thenCompose(sendOnInternalSender)
+				: this.createInternalSender().thenComposeAsync(sendOnInternalSender);
 	}
 
 	/**
@@ -474,10 +717,23 @@ public class EventHubClient extends ClientEntity
 	 */
 	public final PartitionSender createPartitionSenderSync(final String partitionId)
 			throws ServiceBusException, IllegalArgumentException
+	{
+		return this.createPartitionSenderSync(partitionId, SendMode.AtLeastOnce);
+	}
+
+	/**
+	 * Synchronous version of {@link #createPartitionSender(String, SendMode)}. 
+	 * @param partitionId  partitionId of EventHub to send the {@link EventData}'s to
+	 * @param sendMode     delivery guarantee of the events sent using the PartitionSender
+	 * @return PartitionSender which can be used to send events to a specific partition.
+	 * @throws ServiceBusException if Service Bus service encountered problems during connection creation. 
+	 */
+	public final PartitionSender createPartitionSenderSync(final String partitionId, final SendMode sendMode)
+			throws ServiceBusException, IllegalArgumentException
 	{
 		try
 		{
-			return this.createPartitionSender(partitionId).get();
+			return this.createPartitionSender(partitionId, sendMode).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -528,6 +784,23 @@ public class EventHubClient extends ClientEntity
 		return PartitionSender.Create(this.underlyingFactory, this.eventHubName, partitionId);
 	}
 
+	/**
+	 * Create a {@link PartitionSender} which publishes {@link EventData}'s to a specific EventHub partition with the given {@link SendMode}.
+	 * <p>With {@link SendMode#AtMostOnce}, events are sent pre-settled: a send completes as soon as the event is handed over to the transport - 
+	 * without waiting for an acknowledgement from the service - and events could be lost on failures. 
+	 *
+	 * @param partitionId  partitionId of EventHub to send the {@link EventData}'s to
+	 * @param sendMode     delivery guarantee of the events sent using the PartitionSender
+	 * @return             a CompletableFuture that would result in a PartitionSender when it is completed.
+	 * @throws ServiceBusException if Service Bus service encountered problems during connection creation. 
+	 * @see #createPartitionSender(String)
+	 */
+	public final CompletableFuture<PartitionSender> createPartitionSender(final String partitionId, final SendMode sendMode)
+			throws ServiceBusException
+	{
+		return PartitionSender.Create(this.underlyingFactory, this.eventHubName, partitionId, sendMode);
+	}
+
 	/**
 	 * Synchronous version of {@link #createReceiver(String, String, String)}. 
 	 * @param consumerGroupName    the consumer group name that this receiver should be grouped under.
@@ -920,6 +1193,106 @@ public class EventHubClient extends ClientEntity
 		return PartitionReceiver.create(this.underlyingFactory,  this.eventHubName, consumerGroupName, partitionId, null, false, dateTime, epoch, true);
 	}
 
+	/**
+	 * Bounds the number of sends which can be in-flight (sent and not yet complete) on the internal sender used by the {@link #send(EventData)} methods.
+	 * When the window is full, the async send methods fail with a transient {@link ServiceBusException} and the sendSync methods block until in-flight sends complete.
+	 * @param value maximum number of in-flight sends. 0 - the default - means unbounded.
+	 */
+	public final void setMaxInFlightSends(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("maxInFlightSends should be non-negative");
+		}
+
+		synchronized (this.senderCreateSync)
+		{
+			this.maxInFlightSends = value;
+			if (this.sender != null)
+			{
+				this.sender.setMaxInFlightSends(value);
+			}
+		}
+	}
+
+	public final int getMaxInFlightSends()
+	{
+		return this.maxInFlightSends;
+	}
+
+	/**
+	 * Bounds the size of the encoded events which can be in-flight on the internal sender. See {@link #setMaxInFlightSends(int)} for the behavior when the window is full.
+	 * @param value maximum number of in-flight bytes. 0 - the default - means unbounded.
+	 */
+	public final void setMaxInFlightBytes(final long value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("maxInFlightBytes should be non-negative");
+		}
+
+		synchronized (this.senderCreateSync)
+		{
+			this.maxInFlightBytes = value;
+			if (this.sender != null)
+			{
+				this.sender.setMaxInFlightBytes(value);
+			}
+		}
+	}
+
+	public final long getMaxInFlightBytes()
+	{
+		return this.maxInFlightBytes;
+	}
+
+	/**
+	 * When enabled, single event sends - {@link #send(EventData)} and {@link #send(EventData, String)} - which are queued up on the internal sender
+	 * (ex: waiting for link credit) are merged into one batch delivery, if they have the same partitionKey (or none) and fit in the maximum message size.
+	 * The future returned by each send still completes individually. Disabled by default.
+	 * @param value true to enable send coalescing
+	 */
+	public final void setSendCoalescingEnabled(final boolean value)
+	{
+		synchronized (this.senderCreateSync)
+		{
+			this.coalesceSends = value;
+			if (this.sender != null)
+			{
+				this.sender.setSendCoalescingEnabled(value);
+			}
+		}
+	}
+
+	public final boolean isSendCoalescingEnabled()
+	{
+		return this.coalesceSends;
+	}
+
+	/**
+	 * @return number of sends on the internal sender which are not yet complete - including the ones waiting for link credit
+	 */
+	public final int getInFlightSendCount()
+	{
+		final MessageSender internalSender = this.sender;
+		return internalSender != null ? internalSender.getInFlightSendCount() : 0;
+	}
+
+	public final long getInFlightBytes()
+	{
+		final MessageSender internalSender = this.sender;
+		return internalSender != null ? internalSender.getInFlightBytes() : 0;
+	}
+
+	/**
+	 * @return number of events the service is currently willing to accept on the internal sender's link
+	 */
+	public final int getLinkCredit()
+	{
+		final MessageSender internalSender = this.sender;
+		return internalSender != null ? internalSender.getLinkCredit() : 0;
+	}
+
 	@Override
 	public CompletableFuture<Void> onClose()
 	{
@@ -932,16 +1305,21 @@ public class EventHubClient extends ClientEntity
 						{
 							@Override
 							public void run() {
-								EventHubClient.this.underlyingFactory.close();
+								EventHubClient.this.closeFactory();
 							}
 						})
-								: this.underlyingFactory.close();
+								: this.closeFactory();
 			}
 		}
 
 		return CompletableFuture.completedFuture(null);
 	}
 
+	private CompletableFuture<Void> closeFactory()
+	{
+		return this.factoryCache != null ? this.factoryCache.release(this.underlyingFactory) : this.underlyingFactory.close();
+	}
+
 	private CompletableFuture<Void> createInternalSender()
 	{
 		if (!this.isSenderCreateStarted)
@@ -950,10 +1328,19 @@ public class EventHubClient extends ClientEntity
 			{
 				if (!this.isSenderCreateStarted)
 				{
-					this.createSender = MessageSender.create(this.underlyingFactory, StringUtil.getRandomString(), this.eventHubName)
+					this.createSender = MessageSender.create(this.underlyingFactory, StringUtil.getRandomString(), this.eventHubName, this.sendMode)
 							.thenAcceptAsync(new Consumer<MessageSender>()
 							{
-								public void accept(MessageSender a) { EventHubClient.this.sender = a;}
+								public void accept(MessageSender a)
+								{
+									synchronized (EventHubClient.this.senderCreateSync)
+									{
+										a.setMaxInFlightSends(EventHubClient.this.maxInFlightSends);
+										a.setMaxInFlightBytes(EventHubClient.this.maxInFlightBytes);
+										a.setSendCoalescingEnabled(EventHubClient.this.coalesceSends);
+										EventHubClient.this.sender = a;
+									}
+								}
 							});
 
 					this.isSenderCreateStarted = true;
@@ -4,6 +4,8 @@
  */
 package com.microsoft.azure.eventhubs;
 
+import java.time.Duration;
+
 /**
  * A handler class for the receive operation. Use any implementation of this abstract class to specify 
  * user action when using PartitionReceiver's setReceiveHandler().
@@ -12,10 +14,26 @@ package com.microsoft.azure.eventhubs;
 public abstract class PartitionReceiveHandler
 {
 	private int maxEventCount;
+	private int minEventCount;
+	private Duration maxWaitTime;
 
 	protected PartitionReceiveHandler(final int maxEventCount)
 	{
+		this(1, maxEventCount, null);
+	}
+
+	/**
+	 * A handler which is called with batches of at least minEventCount events - unless maxWaitTime passes first,
+	 * in which case it is called with the events received so far. This trades a bounded latency for larger batches.
+	 * @param minEventCount minimum number of {@link EventData}'s to wait for, before calling {@link PartitionReceiveHandler#onReceive}
+	 * @param maxEventCount maximum number of {@link EventData}'s to be received in a {@link PartitionReceiveHandler#onReceive} call
+	 * @param maxWaitTime how long to wait for minEventCount {@link EventData}'s - null means the receive timeout of the {@link PartitionReceiver}
+	 */
+	protected PartitionReceiveHandler(final int minEventCount, final int maxEventCount, final Duration maxWaitTime)
+	{
+		this.minEventCount = minEventCount;
 		this.maxEventCount = maxEventCount;
+		this.maxWaitTime = maxWaitTime;
 	}
 
 	int getMaxEventCount()
@@ -23,6 +41,16 @@ public abstract class PartitionReceiveHandler
 		return maxEventCount;
 	}
 
+	int getMinEventCount()
+	{
+		return minEventCount;
+	}
+
+	Duration getMaxWaitTime()
+	{
+		return maxWaitTime;
+	}
+
 	/**
 	 * implementor of {@link PartitionReceiveHandler#onReceive} can use this to set the limit on maximum {@link EventData}'s that
 	 * can be received by the next {@link PartitionReceiveHandler#onReceive} call
@@ -33,6 +61,25 @@ public abstract class PartitionReceiveHandler
 		this.maxEventCount = value;
 	}
 
+	/**
+	 * implementor of {@link PartitionReceiveHandler#onReceive} can use this to set the number of {@link EventData}'s to wait for,
+	 * before the next {@link PartitionReceiveHandler#onReceive} call
+	 * @param value minimum {@link EventData}'s to be received in the next {@link PartitionReceiveHandler#onReceive} call - unless the maxWaitTime passes first
+	 */
+	protected final void setMinEventCount(final int value)
+	{
+		this.minEventCount = value;
+	}
+
+	/**
+	 * implementor of {@link PartitionReceiveHandler#onReceive} can use this to set how long to wait for the minEventCount {@link EventData}'s
+	 * @param value maximum time to wait - null means the receive timeout of the {@link PartitionReceiver}
+	 */
+	protected final void setMaxWaitTime(final Duration value)
+	{
+		this.maxWaitTime = value;
+	}
+
 	/**
 	 * user should implement this method to specify the action to be performed on the received events.
 	 * @param   events  the list of fetched events from the corresponding PartitionReceiver.
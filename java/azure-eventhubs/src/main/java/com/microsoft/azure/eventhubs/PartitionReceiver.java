@@ -10,6 +10,7 @@ import java.util.Collection;
 import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
@@ -19,10 +20,15 @@ import java.util.logging.Logger;
 
 import org.apache.qpid.proton.message.Message;
 
+import com.microsoft.azure.servicebus.AdaptiveCreditController;
 import com.microsoft.azure.servicebus.ClientConstants;
 import com.microsoft.azure.servicebus.ClientEntity;
+import com.microsoft.azure.servicebus.IMessageFilter;
+import com.microsoft.azure.servicebus.IMessageReceiveHandler;
+import com.microsoft.azure.servicebus.IPublisher;
 import com.microsoft.azure.servicebus.MessageReceiver;
 import com.microsoft.azure.servicebus.MessagingFactory;
+import com.microsoft.azure.servicebus.ReadOnlyBatch;
 import com.microsoft.azure.servicebus.ServiceBusException;
 import com.microsoft.azure.servicebus.StringUtil;
 
@@ -169,6 +175,45 @@ public final class PartitionReceiver extends ClientEntity
 		return this.internalReceiver.getPrefetchCount();
 	}
 
+	/**
+	 * Get the offset of the last {@link EventData} returned by this receiver (or dropped by its filter) - the receiver resumes right after it, if the underlying link is re-created.
+	 * @return the offset - null if no {@link EventData} was returned yet.
+	 */
+	public final String getLastReceivedOffset()
+	{
+		return this.internalReceiver.getLastReceivedOffset();
+	}
+
+	/**
+	 * Get the sequence number of the last {@link EventData} returned by this receiver.
+	 * @return the sequence number - -1 if no {@link EventData} was returned yet.
+	 */
+	public final long getLastReceivedSequenceNumber()
+	{
+		return this.internalReceiver.getLastReceivedSequenceNumber();
+	}
+
+	/**
+	 * Drop the events not accepted by the filter as they arrive - before an {@link EventData} is created for them, or any of their properties are read.
+	 * Use this when most of the events are discarded based on their properties (ex: an event type property).
+	 * <p>A dropped event still advances the position of this receiver (see {@link #getLastReceivedOffset()}) and counts towards {@link #getFilteredEventCount()}.
+	 * The filter runs on the thread which receives for the underlying connection - so, it should be cheap and never block.
+	 * @param filter the filter - which sees the message annotations (the system properties) and the application properties (the {@link EventData#getProperties()}) of each event.
+	 * null to stop filtering.
+	 */
+	public final void setMessageFilter(final IMessageFilter filter)
+	{
+		this.internalReceiver.setMessageFilter(filter);
+	}
+
+	/**
+	 * @return number of events dropped by the filter set through {@link #setMessageFilter}
+	 */
+	public final long getFilteredEventCount()
+	{
+		return this.internalReceiver.getFilteredMessageCount();
+	}
+
 	public final Duration getReceiveTimeout()
 	{
 		return this.internalReceiver.getReceiveTimeout();
@@ -196,6 +241,57 @@ public final class PartitionReceiver extends ClientEntity
 		this.internalReceiver.setPrefetchCount(prefetchCount);
 	}
 
+	/**
+	 * Get the byte budget for the events pre-fetched at the {@link PartitionReceiver}.
+	 * @return the byte budget - 0 means that pre-fetch is bounded only by the prefetch count.
+	 * @see #setPrefetchBytes
+	 */
+	public final int getPrefetchBytes()
+	{
+		return this.internalReceiver.getPrefetchBytes();
+	}
+
+	/**
+	 * Bound the events pre-fetched and cached at the {@link PartitionReceiver} by their size, instead of only by their count:
+	 * new events are requested from the service only as the cached events are received by the application and free up the byte budget.
+	 * Use this to keep the memory held by a receiver predictable when the event sizes vary widely.
+	 * <p>The prefetch count still caps the number of cached events. By default the value is 0 - pre-fetch is bounded only by the prefetch count.
+	 * @param prefetchBytes the byte budget for the pre-fetched events. value must be 0 or more.
+	 * @throws ServiceBusException if the budget could not be applied to the underlying link
+	 * @see #setPrefetchCount
+	 */
+	public final void setPrefetchBytes(final int prefetchBytes) throws ServiceBusException
+	{
+		if (prefetchBytes < 0)
+		{
+			throw new IllegalArgumentException("PrefetchBytes has to be 0 or more");
+		}
+
+		this.internalReceiver.setPrefetchBytes(prefetchBytes);
+	}
+
+	/**
+	 * Get the controller adapting the pre-fetch of this {@link PartitionReceiver}.
+	 * @return the controller - null if the pre-fetch is static.
+	 * @see #setCreditController
+	 */
+	public final AdaptiveCreditController getCreditController()
+	{
+		return this.internalReceiver.getCreditController();
+	}
+
+	/**
+	 * Adapt the number of events pre-fetched at the {@link PartitionReceiver} to how the application is keeping up with the partition:
+	 * a large window while catching up on a backlog, and a small, low-latency window once caught up.
+	 * The prefetch count still caps the number of cached events; the decisions of the controller are exposed through its counters.
+	 * @param creditController a controller dedicated to this receiver - or null, to go back to pre-fetching the prefetch count.
+	 * @throws ServiceBusException if the controller could not be applied to the underlying link
+	 */
+	public final void setCreditController(final AdaptiveCreditController creditController) throws ServiceBusException
+	{
+		this.internalReceiver.setCreditController(creditController);
+	}
+
 	/**
 	 * Get the epoch value that this receiver is currently using for partition ownership.
 	 * <p>
@@ -279,6 +375,7 @@ public final class PartitionReceiver extends ClientEntity
 	 * </pre>
 	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
 	 * @return A completableFuture that will yield a batch of {@link EventData}'s from the partition on which this receiver is created. Returns 'null' if no {@link EventData} is present.
+	 * The batch is a {@link ReadOnlyBatch} - see {@link #receiveBatch(int)}.
 	 */
 	public CompletableFuture<Iterable<EventData>> receive(final int maxEventCount)
 	{
@@ -292,6 +389,63 @@ public final class PartitionReceiver extends ClientEntity
 		});
 	}
 
+	/**
+	 * Same as {@link #receive(int)} - but, yields the batch as a {@link ReadOnlyBatch}, which supports indexed access and O(1) access to the last {@link EventData}.
+	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
+	 * @return A completableFuture that will yield a batch of {@link EventData}'s from the partition on which this receiver is created. Returns 'null' if no {@link EventData} is present.
+	 */
+	public CompletableFuture<ReadOnlyBatch<EventData>> receiveBatch(final int maxEventCount)
+	{
+		return this.internalReceiver.receive(maxEventCount).thenApply(new Function<Collection<Message>, ReadOnlyBatch<EventData>>()
+		{
+			@Override
+			public ReadOnlyBatch<EventData> apply(Collection<Message> amqpMessages)
+			{
+				return EventDataUtil.toEventDataCollection(amqpMessages);
+			}
+		});
+	}
+
+	/**
+	 * Receive a batch of at least minEventCount {@link EventData}'s - unless maxWaitTime passes first, in which case the {@link EventData}'s received so far are returned.
+	 * <p>{@link #receive(int)} completes as soon as any event is available - which, at moderate event rates, often yields very small batches.
+	 * Waiting for minEventCount events trades a bounded latency (maxWaitTime) for fewer & larger batches.
+	 * @param minEventCount the receive completes as soon as this many {@link EventData}'s are available
+	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
+	 * @param maxWaitTime how long to wait for minEventCount {@link EventData}'s
+	 * @return A completableFuture that will yield a batch of {@link EventData}'s. Returns 'null' if no {@link EventData} arrived in maxWaitTime.
+	 */
+	public CompletableFuture<Iterable<EventData>> receive(final int minEventCount, final int maxEventCount, final Duration maxWaitTime)
+	{
+		return this.internalReceiver.receive(minEventCount, maxEventCount, maxWaitTime).thenApply(new Function<Collection<Message>, Iterable<EventData>>()
+		{
+			@Override
+			public Iterable<EventData> apply(Collection<Message> amqpMessages)
+			{
+				return EventDataUtil.toEventDataCollection(amqpMessages);
+			}
+		});
+	}
+
+	/**
+	 * Same as {@link #receive(int, int, Duration)} - but, yields the batch as a {@link ReadOnlyBatch}.
+	 * @param minEventCount the receive completes as soon as this many {@link EventData}'s are available
+	 * @param maxEventCount maximum number of {@link EventData}'s that this call should return
+	 * @param maxWaitTime how long to wait for minEventCount {@link EventData}'s
+	 * @return A completableFuture that will yield a batch of {@link EventData}'s. Returns 'null' if no {@link EventData} arrived in maxWaitTime.
+	 */
+	public CompletableFuture<ReadOnlyBatch<EventData>> receiveBatch(final int minEventCount, final int maxEventCount, final Duration maxWaitTime)
+	{
+		return this.internalReceiver.receive(minEventCount, maxEventCount, maxWaitTime).thenApply(new Function<Collection<Message>, ReadOnlyBatch<EventData>>()
+		{
+			@Override
+			public ReadOnlyBatch<EventData> apply(Collection<Message> amqpMessages)
+			{
+				return EventDataUtil.toEventDataCollection(amqpMessages);
+			}
+		});
+	}
+
 	/**
 	 * Register a receive handler that will be called when an event is available. A 
 	 * {@link PartitionReceiveHandler} is a handler that allows user to specify a callback
@@ -302,15 +456,8 @@ public final class PartitionReceiver extends ClientEntity
 	{
 		synchronized (this.receiveHandlerSync)
 		{
-			if (receiveHandler == null)
-			{
-				if (this.onReceiveHandler != null)
-				{
-					this.isOnReceivePumpRunning = false;
-					this.onReceivePumpThread.interrupt();
-				}
-			}
-			else
+			this.stopOnReceivePump();
+			if (receiveHandler != null)
 			{
 				this.onReceiveHandler = receiveHandler;
 				this.startOnReceivePump();
@@ -318,6 +465,109 @@ public final class PartitionReceiver extends ClientEntity
 		}
 	}
 
+	/**
+	 * Register a receive handler that will be called on the executor when events are available - without a dedicated pump thread for this receiver:
+	 * the events are handed to the executor as they arrive. The handler is called with the events in the order they were received,
+	 * and only after the previous {@link PartitionReceiveHandler#onReceive} call returned - so, it is never called concurrently for this receiver.
+	 * If no event arrives for the receive timeout, the handler is called with null - like with {@link #setReceiveHandler(PartitionReceiveHandler)}.
+	 * Use this to run the handlers of many receivers on a shared thread pool.
+	 * @param receiveHandler An implementation of {@link PartitionReceiveHandler} - null, to stop receiving
+	 * @param executor the executor to call the receiveHandler on
+	 * @throws ServiceBusException if the handler could not be registered with the underlying link
+	 */
+	public void setReceiveHandler(final PartitionReceiveHandler receiveHandler, final Executor executor) throws ServiceBusException
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			this.stopOnReceivePump();
+			if (receiveHandler == null)
+			{
+				return;
+			}
+
+			this.onReceiveHandler = receiveHandler;
+			this.internalReceiver.setReceiveHandler(new IMessageReceiveHandler()
+			{
+				@Override
+				public int getMaxMessageCount()
+				{
+					return receiveHandler.getMaxEventCount();
+				}
+
+				@Override
+				public int getMinMessageCount()
+				{
+					return receiveHandler.getMinEventCount();
+				}
+
+				@Override
+				public Duration getMaxWaitTime()
+				{
+					return PartitionReceiver.this.getMaxWaitTime(receiveHandler);
+				}
+
+				@Override
+				public void onReceive(final ReadOnlyBatch<Message> messages)
+				{
+					receiveHandler.onReceive(EventDataUtil.toEventDataCollection(messages));
+				}
+
+				@Override
+				public void onError(final Throwable error)
+				{
+					receiveHandler.onError(error);
+				}
+			}, executor);
+		}
+	}
+
+	/**
+	 * Get a publisher of the events of this partition - following the Reactive Streams contract (see {@link IPublisher}).
+	 * The demand of the subscriber drives the link credit of this receiver: events are requested from the service only as the subscriber requests them -
+	 * which propagates the backpressure of the processing pipeline all the way to the service.
+	 * <p>The publisher supports a single subscriber. Its signals are delivered on the executor, never concurrently.
+	 * Receiving through the publisher replaces the receive handler of this receiver, if any.
+	 * The subscriber gets {@link com.microsoft.azure.servicebus.ISubscriber#onError} with a {@link com.microsoft.azure.servicebus.OperationCancelledException}, once this receiver is closed or its receive handler is replaced.
+	 * @param executor the executor to deliver the events to the subscriber on
+	 * @return the publisher
+	 */
+	public IPublisher<EventData> toPublisher(final Executor executor)
+	{
+		if (executor == null)
+		{
+			throw new IllegalArgumentException("executor cannot be null");
+		}
+
+		return new PartitionReceiverPublisher(this, this.internalReceiver, executor);
+	}
+
+	void setDemandDrivenReceiveHandler(final IMessageReceiveHandler receiveHandler, final Executor executor) throws ServiceBusException
+	{
+		synchronized (this.receiveHandlerSync)
+		{
+			this.stopOnReceivePump();
+			this.internalReceiver.setDemandDrivenReceiveHandler(receiveHandler, executor);
+		}
+	}
+
+	private Duration getMaxWaitTime(final PartitionReceiveHandler receiveHandler)
+	{
+		final Duration maxWaitTime = receiveHandler.getMaxWaitTime();
+		return maxWaitTime != null ? maxWaitTime : this.getReceiveTimeout();
+	}
+
+	private void stopOnReceivePump()
+	{
+		this.internalReceiver.removeReceiveHandler();
+		if (this.onReceivePumpThread != null)
+		{
+			// a pump thread which didn't start running yet, won't - as it is no longer the onReceivePumpThread
+			this.isOnReceivePumpRunning = false;
+			this.onReceivePumpThread.interrupt();
+			this.onReceivePumpThread = null;
+		}
+	}
+
 	@Override
 	public CompletableFuture<Void> onClose()
 	{
@@ -329,6 +579,7 @@ public final class PartitionReceiver extends ClientEntity
 
 		if (this.internalReceiver != null)
 		{
+			this.internalReceiver.removeReceiveHandler();
 			return this.internalReceiver.close();
 		}
 		else
@@ -346,17 +597,19 @@ public final class PartitionReceiver extends ClientEntity
 			{
 				synchronized (PartitionReceiver.this.receiveHandlerSync)
 				{
-					PartitionReceiver.this.isOnReceivePumpRunning = true;
+					PartitionReceiver.this.isOnReceivePumpRunning = PartitionReceiver.this.onReceivePumpThread == Thread.currentThread();
 				}
 
 				while(PartitionReceiver.this.isOnReceivePumpRunning)
 				{
-					Iterable<EventData> receivedEvents = null;
+					ReadOnlyBatch<EventData> receivedEvents = null;
 
 					try
 					{
-						receivedEvents = PartitionReceiver.this.receive(PartitionReceiver.this.onReceiveHandler.getMaxEventCount())
-								.get(PartitionReceiver.this.underlyingFactory.getOperationTimeout().getSeconds(), TimeUnit.SECONDS);
+						final PartitionReceiveHandler receiveHandler = PartitionReceiver.this.onReceiveHandler;
+						final Duration maxWaitTime = PartitionReceiver.this.getMaxWaitTime(receiveHandler);
+						receivedEvents = PartitionReceiver.this.receiveBatch(receiveHandler.getMinEventCount(), receiveHandler.getMaxEventCount(), maxWaitTime)
+								.get(Math.max(PartitionReceiver.this.underlyingFactory.getOperationTimeout().toMillis(), maxWaitTime.toMillis()), TimeUnit.MILLISECONDS);
 					}
 					catch (InterruptedException|ExecutionException|TimeoutException clientException)
 					{
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.eventhubs;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.IMessageReceiveHandler;
+import com.microsoft.azure.servicebus.IPublisher;
+import com.microsoft.azure.servicebus.ISubscriber;
+import com.microsoft.azure.servicebus.ISubscription;
+import com.microsoft.azure.servicebus.MessageReceiver;
+import com.microsoft.azure.servicebus.ReadOnlyBatch;
+import com.microsoft.azure.servicebus.ServiceBusException;
+
+/*
+ * Publishes the events of a partition to a single subscriber - whose demand drives the link credit of the underlying receiver.
+ */
+final class PartitionReceiverPublisher implements IPublisher<EventData>
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private static final ISubscription NO_OP_SUBSCRIPTION = new ISubscription()
+	{
+		@Override
+		public void request(long n)
+		{
+		}
+
+		@Override
+		public void cancel()
+		{
+		}
+	};
+
+	private final PartitionReceiver receiver;
+	private final MessageReceiver internalReceiver;
+	private final Executor executor;
+	private final AtomicBoolean isSubscribed;
+
+	PartitionReceiverPublisher(final PartitionReceiver receiver, final MessageReceiver internalReceiver, final Executor executor)
+	{
+		this.receiver = receiver;
+		this.internalReceiver = internalReceiver;
+		this.executor = executor;
+		this.isSubscribed = new AtomicBoolean();
+	}
+
+	@Override
+	public void subscribe(final ISubscriber<? super EventData> subscriber)
+	{
+		if (subscriber == null)
+		{
+			throw new NullPointerException("subscriber cannot be null");
+		}
+
+		if (!this.isSubscribed.compareAndSet(false, true))
+		{
+			subscriber.onSubscribe(NO_OP_SUBSCRIPTION);
+			subscriber.onError(new IllegalStateException("the publisher of a PartitionReceiver supports only one subscriber"));
+			return;
+		}
+
+		final EventDataSubscription subscription = new EventDataSubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+		try
+		{
+			this.receiver.setDemandDrivenReceiveHandler(subscription, this.executor);
+		}
+		catch (ServiceBusException exception)
+		{
+			subscription.onError(exception);
+		}
+	}
+
+	private final class EventDataSubscription implements ISubscription, IMessageReceiveHandler
+	{
+		private final ISubscriber<? super EventData> subscriber;
+		private volatile boolean isCancelled;
+
+		EventDataSubscription(final ISubscriber<? super EventData> subscriber)
+		{
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(final long n)
+		{
+			if (!this.isCancelled)
+			{
+				PartitionReceiverPublisher.this.internalReceiver.request(n);
+			}
+		}
+
+		@Override
+		public void cancel()
+		{
+			if (!this.isCancelled)
+			{
+				this.isCancelled = true;
+				PartitionReceiverPublisher.this.internalReceiver.removeReceiveHandler();
+			}
+		}
+
+		@Override
+		public int getMaxMessageCount()
+		{
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		public int getMinMessageCount()
+		{
+			return 1;
+		}
+
+		@Override
+		public Duration getMaxWaitTime()
+		{
+			return PartitionReceiverPublisher.this.internalReceiver.getReceiveTimeout();
+		}
+
+		@Override
+		public void onReceive(final ReadOnlyBatch<Message> messages)
+		{
+			if (messages == null)
+			{
+				return;
+			}
+
+			for (int index = 0; index < messages.size() && !this.isCancelled; index++)
+			{
+				try
+				{
+					this.subscriber.onNext(new EventData(messages.get(index)));
+				}
+				catch (Throwable subscriberError)
+				{
+					// a subscriber throwing from onNext violates the contract - it is considered cancelled & doesn't get any further signal
+					this.cancel();
+					if (TRACE_LOGGER.isLoggable(Level.WARNING))
+					{
+						TRACE_LOGGER.log(Level.WARNING, String.format("subscriber cancelled after it threw from onNext: %s", subscriberError.toString()));
+					}
+				}
+			}
+		}
+
+		@Override
+		public void onError(final Throwable error)
+		{
+			if (!this.isCancelled)
+			{
+				this.isCancelled = true;
+				this.subscriber.onError(error);
+			}
+		}
+	}
+}
@@ -20,16 +20,18 @@ public final class PartitionSender extends ClientEntity
 	private final String partitionId;
 	private final String eventHubName;
 	private final MessagingFactory factory;
+	private final SendMode sendMode;
 
 	private MessageSender internalSender;
 
-	private PartitionSender(MessagingFactory factory, String eventHubName, String partitionId)
+	private PartitionSender(MessagingFactory factory, String eventHubName, String partitionId, SendMode sendMode)
 	{
 		super(null, null);
 
 		this.partitionId = partitionId;
 		this.eventHubName = eventHubName;
 		this.factory = factory;
+		this.sendMode = sendMode;
 	}
 
 	/**
@@ -37,7 +39,15 @@ public final class PartitionSender extends ClientEntity
 	 */
 	static CompletableFuture<PartitionSender> Create(MessagingFactory factory, String eventHubName, String partitionId) throws ServiceBusException
 	{
-		final PartitionSender sender = new PartitionSender(factory, eventHubName, partitionId);
+		return PartitionSender.Create(factory, eventHubName, partitionId, SendMode.AtLeastOnce);
+	}
+
+	/**
+	 * Internal-Only: factory pattern to Create EventHubSender with the given {@link SendMode}
+	 */
+	static CompletableFuture<PartitionSender> Create(MessagingFactory factory, String eventHubName, String partitionId, SendMode sendMode) throws ServiceBusException
+	{
+		final PartitionSender sender = new PartitionSender(factory, eventHubName, partitionId, sendMode);
 		return sender.createInternalSender()
 				.thenApplyAsync(new Function<Void, PartitionSender>()
 				{
@@ -51,13 +61,21 @@ public final class PartitionSender extends ClientEntity
 	private CompletableFuture<Void> createInternalSender() throws ServiceBusException
 	{
 		return MessageSender.create(this.factory, StringUtil.getRandomString(), 
-				String.format("%s/Partitions/%s", this.eventHubName, this.partitionId))
+				String.format("%s/Partitions/%s", this.eventHubName, this.partitionId), this.sendMode)
 				.thenAcceptAsync(new Consumer<MessageSender>()
 				{
 					public void accept(MessageSender a) { PartitionSender.this.internalSender = a;}
 				});
 	}
 
+	/**
+	 * @return the delivery guarantee of the events sent by this sender
+	 */
+	public final SendMode getSendMode()
+	{
+		return this.sendMode;
+	}
+
 	/**
 	 * Synchronous version of {@link #send(EventData)} Api. 
 	 * @param data the {@link EventData} to be sent.
@@ -68,7 +86,13 @@ public final class PartitionSender extends ClientEntity
 	{
 		try
 		{
-			this.send(data).get();
+			if (data == null)
+			{
+				throw new IllegalArgumentException("data cannot be null");
+			}
+
+			// blocks for room in the in-flight window, instead of failing the send
+			this.internalSender.send(data.toAmqpMessage(), true).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -134,7 +158,13 @@ public final class PartitionSender extends ClientEntity
 	{
 		try
 		{
-			this.send(eventDatas).get();
+			if (eventDatas == null || IteratorUtil.sizeEquals(eventDatas, 0))
+			{
+				throw new IllegalArgumentException("EventData batch cannot be empty.");
+			}
+
+			// blocks for room in the in-flight window, instead of failing the send
+			this.internalSender.send(EventDataUtil.toAmqpMessages(eventDatas), true).get();
 		}
 		catch (InterruptedException|ExecutionException exception)
 		{
@@ -213,6 +243,183 @@ public final class PartitionSender extends ClientEntity
 		return this.internalSender.send(EventDataUtil.toAmqpMessages(eventDatas));
 	}
 
+	/**
+	 * Synchronous version of {@link #send(EventDataBatch)}.
+	 * @param eventDataBatch batch of events to send to EventHub
+	 * @throws ServiceBusException if Service Bus service encountered problems during the operation.
+	 */
+	public final void sendSync(final EventDataBatch eventDataBatch) 
+			throws ServiceBusException
+	{
+		try
+		{
+			this.throwIfInvalid(eventDataBatch);
+
+			// blocks for room in the in-flight window, instead of failing the send
+			this.internalSender.send(eventDataBatch.getEncoder(), true).get();
+		}
+		catch (InterruptedException|ExecutionException exception)
+		{
+			if (exception instanceof InterruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+			}
+
+			Throwable throwable = exception.getCause();
+			if (throwable != null)
+			{
+				if (throwable instanceof RuntimeException)
+				{
+					throw (RuntimeException)throwable;
+				}
+
+				if (throwable instanceof ServiceBusException)
+				{
+					throw (ServiceBusException)throwable;
+				}
+
+				throw new ServiceBusException(true, throwable);
+			}
+		}
+	}
+
+	/**
+	 * Send an {@link EventDataBatch} to the EventHub partition of this sender - the batch is already encoded, so, it is sent as is.
+	 * <p>The batch could be sent again (ex: after a failure), but, it should not be modified until the send is complete.
+	 * @param eventDataBatch batch of events - created without a partitionKey - to send to EventHub
+	 * @return     a CompletableFuture that can be completed when the send operations is done..
+	 * @see EventDataBatch#tryAdd(EventData)
+	 */
+	public final CompletableFuture<Void> send(final EventDataBatch eventDataBatch)
+	{
+		this.throwIfInvalid(eventDataBatch);
+		return this.internalSender.send(eventDataBatch.getEncoder());
+	}
+
+	/**
+	 * Send the {@link EventDataBatch} only if the in-flight window of this sender has room for it.
+	 * @param eventDataBatch batch of events - created without a partitionKey - to send to EventHub
+	 * @return a CompletableFuture that can be completed when the send operations is done; or null if the in-flight window is full - in which case the batch is not sent.
+	 * @see #trySend(EventData)
+	 */
+	public final CompletableFuture<Void> trySend(final EventDataBatch eventDataBatch)
+	{
+		this.throwIfInvalid(eventDataBatch);
+		return this.internalSender.trySend(eventDataBatch.getEncoder());
+	}
+
+	private void throwIfInvalid(final EventDataBatch eventDataBatch)
+	{
+		if (eventDataBatch == null || eventDataBatch.getSize() == 0)
+		{
+			throw new IllegalArgumentException("EventData batch cannot be empty.");
+		}
+
+		if (eventDataBatch.getPartitionKey() != null)
+		{
+			throw new IllegalArgumentException("An EventDataBatch with a partitionKey cannot be sent to a specific partition - use EventHubClient.send(EventDataBatch) instead.");
+		}
+	}
+
+	/**
+	 * Send {@link EventData} only if the in-flight window of this sender has room for it - see {@link #setMaxInFlightSends(int)} and {@link #setMaxInFlightBytes(long)}.
+	 * @param data the {@link EventData} to be sent.
+	 * @return a CompletableFuture that can be completed when the send operations is done; or null if the in-flight window is full - in which case the event is not sent.
+	 */
+	public final CompletableFuture<Void> trySend(final EventData data)
+	{
+		if (data == null)
+		{
+			throw new IllegalArgumentException("data cannot be null");
+		}
+
+		return this.internalSender.trySend(data.toAmqpMessage());
+	}
+
+	/**
+	 * Send the batch of {@link EventData}'s only if the in-flight window of this sender has room for it.
+	 * @param eventDatas batch of events to send to EventHub
+	 * @return a CompletableFuture that can be completed when the send operations is done; or null if the in-flight window is full - in which case the batch is not sent.
+	 * @see #trySend(EventData)
+	 */
+	public final CompletableFuture<Void> trySend(final Iterable<EventData> eventDatas)
+	{
+		if (eventDatas == null || IteratorUtil.sizeEquals(eventDatas, 0))
+		{
+			throw new IllegalArgumentException("EventData batch cannot be empty.");
+		}
+
+		return this.internalSender.trySend(EventDataUtil.toAmqpMessages(eventDatas));
+	}
+
+	/**
+	 * Bounds the number of sends which can be in-flight (sent and not yet complete) on this sender.
+	 * When the window is full, {@link #send(EventData)} fails with a transient {@link ServiceBusException}, {@link #trySend(EventData)} returns null 
+	 * and {@link #sendSync(EventData)} blocks until in-flight sends complete.
+	 * @param value maximum number of in-flight sends. 0 - the default - means unbounded.
+	 */
+	public final void setMaxInFlightSends(final int value)
+	{
+		this.internalSender.setMaxInFlightSends(value);
+	}
+
+	public final int getMaxInFlightSends()
+	{
+		return this.internalSender.getMaxInFlightSends();
+	}
+
+	/**
+	 * Bounds the size of the encoded events which can be in-flight on this sender. See {@link #setMaxInFlightSends(int)} for the behavior when the window is full.
+	 * @param value maximum number of in-flight bytes. 0 - the default - means unbounded.
+	 */
+	public final void setMaxInFlightBytes(final long value)
+	{
+		this.internalSender.setMaxInFlightBytes(value);
+	}
+
+	public final long getMaxInFlightBytes()
+	{
+		return this.internalSender.getMaxInFlightBytes();
+	}
+
+	/**
+	 * When enabled, single event sends - {@link #send(EventData)} - which are queued up on this sender (ex: waiting for link credit)
+	 * are merged into one batch delivery, as long as they fit in the maximum message size.
+	 * The future returned by each send still completes individually. Disabled by default.
+	 * @param value true to enable send coalescing
+	 */
+	public final void setSendCoalescingEnabled(final boolean value)
+	{
+		this.internalSender.setSendCoalescingEnabled(value);
+	}
+
+	public final boolean isSendCoalescingEnabled()
+	{
+		return this.internalSender.isSendCoalescingEnabled();
+	}
+
+	/**
+	 * @return number of sends on this sender which are not yet complete - including the ones waiting for link credit
+	 */
+	public final int getInFlightSendCount()
+	{
+		return this.internalSender.getInFlightSendCount();
+	}
+
+	public final long getInFlightBytes()
+	{
+		return this.internalSender.getInFlightBytes();
+	}
+
+	/**
+	 * @return number of events the service is currently willing to accept on this sender's link
+	 */
+	public final int getLinkCredit()
+	{
+		return this.internalSender.getLinkCredit();
+	}
+
 	@Override
 	public CompletableFuture<Void> onClose()
 	{
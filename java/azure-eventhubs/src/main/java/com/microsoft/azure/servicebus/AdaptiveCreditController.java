@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+
+/**
+ * Adapts the effective prefetch count & the flow batch size of a {@link MessageReceiver} to how the receiver is keeping up with the stream.
+ * <p>Once per evaluation interval, the controller looks at what happened in the interval:
+ * <ul>
+ * <li>if the link ran out of credit while the consumer drained at least a full window of messages - the receiver is catching up
+ * and the window is the bottleneck - so, the effective prefetch count is doubled (up to maxPrefetchCount).
+ * <li>if the link never ran out of credit and the prefetch queue was empty for at least half of the interval - the receiver is caught up
+ * and is waiting for new messages - so, the effective prefetch count is halved (down to minPrefetchCount).
+ * </ul>
+ * The flow batch size follows the effective prefetch count (a quarter of it) - large flows while catching up, and small low-latency flows once caught up.
+ * <p>The decisions & the observations behind them are exposed as counters.
+ * <p>A controller holds the state of a single receiver - and should not be shared between receivers.
+ * Its state is updated only on the Reactor thread; the counters can be read from any thread.
+ */
+public final class AdaptiveCreditController
+{
+	private static final int FLOW_BATCH_DIVISOR = 4;
+	private static final double CAUGHT_UP_EMPTY_QUEUE_RATIO = 0.5;
+
+	private final int minPrefetchCount;
+	private final int maxPrefetchCount;
+	private final long evaluationIntervalNanos;
+
+	// accessed only on the Reactor thread
+	private long intervalStartNanos;
+	private boolean isQueueEmpty;
+	private long emptyQueueSinceNanos;
+	private long emptyQueueNanos;
+	private int drainedInInterval;
+	private boolean creditExhaustedInInterval;
+
+	private volatile int effectivePrefetchCount;
+	private volatile int flowBatchSize;
+	private volatile long drainRate;
+	private volatile double emptyQueueRatio;
+	private volatile long evaluationCount;
+	private volatile long growCount;
+	private volatile long shrinkCount;
+	private volatile long creditExhaustedCount;
+	private volatile long drainedCount;
+
+	/**
+	 * @param minPrefetchCount lower bound of the effective prefetch count
+	 * @param maxPrefetchCount upper bound of the effective prefetch count - which is further capped by the prefetchCount of the receiver
+	 * @param evaluationInterval how often the effective prefetch count is re-evaluated
+	 */
+	public AdaptiveCreditController(final int minPrefetchCount, final int maxPrefetchCount, final Duration evaluationInterval)
+	{
+		if (minPrefetchCount <= 0 || maxPrefetchCount < minPrefetchCount)
+		{
+			throw new IllegalArgumentException("minPrefetchCount should be positive and maxPrefetchCount should not be less than minPrefetchCount");
+		}
+
+		if (evaluationInterval == null || evaluationInterval.isNegative() || evaluationInterval.isZero())
+		{
+			throw new IllegalArgumentException("evaluationInterval should be positive");
+		}
+
+		this.minPrefetchCount = minPrefetchCount;
+		this.maxPrefetchCount = maxPrefetchCount;
+		this.evaluationIntervalNanos = evaluationInterval.toNanos();
+		this.setEffectivePrefetchCount(maxPrefetchCount);
+	}
+
+	public int getMinPrefetchCount()
+	{
+		return this.minPrefetchCount;
+	}
+
+	public int getMaxPrefetchCount()
+	{
+		return this.maxPrefetchCount;
+	}
+
+	/**
+	 * @return the number of messages the receiver currently keeps prefetched & in-flight
+	 */
+	public int getEffectivePrefetchCount()
+	{
+		return this.effectivePrefetchCount;
+	}
+
+	/**
+	 * @return the minimum link credit sent in one flow - unless the link ran out of credit
+	 */
+	public int getFlowBatchSize()
+	{
+		return this.flowBatchSize;
+	}
+
+	/**
+	 * @return messages drained by the consumer per second - in the last evaluation interval
+	 */
+	public long getDrainRate()
+	{
+		return this.drainRate;
+	}
+
+	/**
+	 * @return fraction of the last evaluation interval for which the prefetch queue was empty
+	 */
+	public double getEmptyQueueRatio()
+	{
+		return this.emptyQueueRatio;
+	}
+
+	public long getEvaluationCount()
+	{
+		return this.evaluationCount;
+	}
+
+	/**
+	 * @return number of times the effective prefetch count was increased
+	 */
+	public long getGrowCount()
+	{
+		return this.growCount;
+	}
+
+	/**
+	 * @return number of times the effective prefetch count was decreased
+	 */
+	public long getShrinkCount()
+	{
+		return this.shrinkCount;
+	}
+
+	/**
+	 * @return number of evaluation intervals in which the link ran out of credit
+	 */
+	public long getCreditExhaustedCount()
+	{
+		return this.creditExhaustedCount;
+	}
+
+	/**
+	 * @return total number of messages drained by the consumer
+	 */
+	public long getDrainedCount()
+	{
+		return this.drainedCount;
+	}
+
+	// start a new evaluation - when the controller is attached to a receiver
+	void reset(final int prefetchQueueLength, final long nowNanos)
+	{
+		this.intervalStartNanos = nowNanos;
+		this.isQueueEmpty = prefetchQueueLength == 0;
+		this.emptyQueueSinceNanos = nowNanos;
+		this.emptyQueueNanos = 0;
+		this.drainedInInterval = 0;
+		this.creditExhaustedInInterval = false;
+	}
+
+	void onMessagesDrained(final int messageCount)
+	{
+		this.drainedInInterval += messageCount;
+		this.drainedCount += messageCount;
+	}
+
+	/**
+	 * Record the state of the receiver after messages were received or drained - and re-evaluate if the interval elapsed.
+	 * @return true if the effective prefetch count changed
+	 */
+	boolean update(final int prefetchQueueLength, final int linkCredit, final long nowNanos)
+	{
+		if (linkCredit <= 0)
+		{
+			this.creditExhaustedInInterval = true;
+		}
+
+		if (prefetchQueueLength == 0)
+		{
+			if (!this.isQueueEmpty)
+			{
+				this.isQueueEmpty = true;
+				this.emptyQueueSinceNanos = nowNanos;
+			}
+		}
+		else if (this.isQueueEmpty)
+		{
+			this.isQueueEmpty = false;
+			this.emptyQueueNanos += nowNanos - this.emptyQueueSinceNanos;
+		}
+
+		final long elapsedNanos = nowNanos - this.intervalStartNanos;
+		if (elapsedNanos < this.evaluationIntervalNanos)
+		{
+			return false;
+		}
+
+		if (this.isQueueEmpty)
+		{
+			this.emptyQueueNanos += nowNanos - this.emptyQueueSinceNanos;
+			this.emptyQueueSinceNanos = nowNanos;
+		}
+
+		return this.evaluate(elapsedNanos, nowNanos);
+	}
+
+	private boolean evaluate(final long elapsedNanos, final long nowNanos)
+	{
+		final int currentPrefetchCount = this.effectivePrefetchCount;
+		final double currentEmptyQueueRatio = Math.min(1.0, (double) this.emptyQueueNanos / elapsedNanos);
+
+		this.evaluationCount++;
+		this.drainRate = (long) (this.drainedInInterval * 1000000000.0 / elapsedNanos);
+		this.emptyQueueRatio = currentEmptyQueueRatio;
+		if (this.creditExhaustedInInterval)
+		{
+			this.creditExhaustedCount++;
+		}
+
+		int nextPrefetchCount = currentPrefetchCount;
+		if (this.creditExhaustedInInterval && this.drainedInInterval >= currentPrefetchCount)
+		{
+			// catching up - the window is what limits the throughput
+			nextPrefetchCount = (int) Math.min(this.maxPrefetchCount, 2L * currentPrefetchCount);
+		}
+		else if (!this.creditExhaustedInInterval && currentEmptyQueueRatio >= CAUGHT_UP_EMPTY_QUEUE_RATIO)
+		{
+			// caught up - the receiver is waiting on new messages; a smaller window keeps the flows small & frequent
+			nextPrefetchCount = Math.max(this.minPrefetchCount, currentPrefetchCount / 2);
+		}
+
+		this.intervalStartNanos = nowNanos;
+		this.emptyQueueNanos = 0;
+		this.drainedInInterval = 0;
+		this.creditExhaustedInInterval = false;
+
+		if (nextPrefetchCount == currentPrefetchCount)
+		{
+			return false;
+		}
+
+		if (nextPrefetchCount > currentPrefetchCount)
+		{
+			this.growCount++;
+		}
+		else
+		{
+			this.shrinkCount++;
+		}
+
+		this.setEffectivePrefetchCount(nextPrefetchCount);
+		return true;
+	}
+
+	private void setEffectivePrefetchCount(final int value)
+	{
+		this.effectivePrefetchCount = value;
+		this.flowBatchSize = Math.max(1, value / FLOW_BATCH_DIVISOR);
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.nio.BufferOverflowException;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * Encodes a batch of {@link Message}'s in {@link AmqpConstants#AMQP_BATCH_MESSAGE_FORMAT} in a single pass.
+ * <p>The batch format is an envelope message (carrying the batch level message annotations) followed by one Data section per message,
+ * where the Data section contains the encoded message.
+ * Each message is encoded directly into its Data section in the target buffer - and the Data section length is back-filled after the encode -
+ * so, the message bytes are copied exactly once. This is the alternate approach to multiple Data sections
+ * (which proton-j doesn't support) suggested by proton: https://github.com/apache/qpid-proton/pull/54
+ * <p>Not thread-safe.
+ */
+public final class BatchMessageEncoder
+{
+	// described-type constructor (0x00) + smallulong descriptor of amqp:data:binary (0x53 0x75) + vbin32 constructor (0xb0) + 4 byte length
+	static final int DATA_SECTION_HEADER_SIZE = 8;
+
+	private static final byte DESCRIBED_TYPE_CONSTRUCTOR = 0x00;
+	private static final byte SMALL_ULONG_CONSTRUCTOR = 0x53;
+	private static final byte DATA_SECTION_DESCRIPTOR = 0x75;
+	private static final byte VBIN32_CONSTRUCTOR = (byte) 0xb0;
+
+	private final byte[] buffer;
+	private final int maxSize;
+
+	private int position;
+	private int messageCount;
+
+	/**
+	 * @param buffer the target buffer - the encoded batch starts at index 0
+	 * @param maxSize maximum number of bytes that the encoded batch can occupy
+	 */
+	public BatchMessageEncoder(final byte[] buffer, final int maxSize)
+	{
+		if (buffer == null || maxSize > buffer.length)
+		{
+			throw new IllegalArgumentException("buffer should be non-null and at least maxSize long");
+		}
+
+		this.buffer = buffer;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Encode the envelope of the batch - has to be invoked once, before adding any message to the batch.
+	 * @param batchMessageAnnotations annotations applied to the whole batch (ex: partitionKey) - could be null
+	 * @throws BufferOverflowException if the envelope does not fit in maxSize
+	 */
+	public void encodeEnvelope(final MessageAnnotations batchMessageAnnotations)
+	{
+		if (this.position != 0)
+		{
+			throw new IllegalStateException("batch envelope is already encoded");
+		}
+
+		final Message batchMessage = Proton.message();
+		batchMessage.setMessageAnnotations(batchMessageAnnotations);
+		this.position = batchMessage.encode(this.buffer, 0, this.maxSize);
+	}
+
+	/**
+	 * Append the message as a Data section to the batch.
+	 * @param message message to be added
+	 * @return false if the message doesn't fit in the remaining space - in which case the batch is left unchanged
+	 */
+	public boolean tryAppend(final Message message)
+	{
+		final int messageOffset = this.position + DATA_SECTION_HEADER_SIZE;
+		final int available = this.maxSize - messageOffset;
+		if (available <= 0)
+		{
+			return false;
+		}
+
+		final int encodedSize;
+		try
+		{
+			encodedSize = message.encode(this.buffer, messageOffset, available);
+		}
+		catch (BufferOverflowException exception)
+		{
+			return false;
+		}
+
+		this.writeDataSection(messageOffset, encodedSize);
+		return true;
+	}
+
+	/**
+	 * Append an already encoded message as a Data section to the batch.
+	 * @param encodedMessage buffer containing the encoded message
+	 * @param offset index of the encoded message in encodedMessage
+	 * @param length size of the encoded message
+	 * @return false if the message doesn't fit in the remaining space - in which case the batch is left unchanged
+	 */
+	public boolean tryAppendEncoded(final byte[] encodedMessage, final int offset, final int length)
+	{
+		final int messageOffset = this.position + DATA_SECTION_HEADER_SIZE;
+		if (length > this.maxSize - messageOffset)
+		{
+			return false;
+		}
+
+		System.arraycopy(encodedMessage, offset, this.buffer, messageOffset, length);
+		this.writeDataSection(messageOffset, length);
+		return true;
+	}
+
+	private void writeDataSection(final int messageOffset, final int encodedSize)
+	{
+		this.buffer[this.position] = DESCRIBED_TYPE_CONSTRUCTOR;
+		this.buffer[this.position + 1] = SMALL_ULONG_CONSTRUCTOR;
+		this.buffer[this.position + 2] = DATA_SECTION_DESCRIPTOR;
+		this.buffer[this.position + 3] = VBIN32_CONSTRUCTOR;
+		this.buffer[this.position + 4] = (byte) (encodedSize >>> 24);
+		this.buffer[this.position + 5] = (byte) (encodedSize >>> 16);
+		this.buffer[this.position + 6] = (byte) (encodedSize >>> 8);
+		this.buffer[this.position + 7] = (byte) encodedSize;
+
+		this.position = messageOffset + encodedSize;
+		this.messageCount++;
+	}
+
+	public byte[] getBuffer()
+	{
+		return this.buffer;
+	}
+
+	/**
+	 * @return number of bytes encoded so far, including the envelope
+	 */
+	public int getEncodedSize()
+	{
+		return this.position;
+	}
+
+	/**
+	 * @return number of bytes left for Data sections, before hitting maxSize
+	 */
+	public int getRemainingBytes()
+	{
+		return this.maxSize - this.position;
+	}
+
+	public int getMessageCount()
+	{
+		return this.messageCount;
+	}
+}
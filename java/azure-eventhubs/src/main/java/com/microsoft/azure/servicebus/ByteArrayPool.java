@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, size-classed pool of byte[]'s used to encode outgoing messages.
+ * Size classes are powers of 2 - starting at {@link #MIN_SIZE_CLASS_BYTES} and going up to maxBufferSize.
+ * Requests larger than maxBufferSize are allocated on demand and are never pooled.
+ * Thread-safe: buffers are borrowed on the caller's thread and returned on the Reactor thread.
+ */
+public final class ByteArrayPool
+{
+	static final int MIN_SIZE_CLASS_BYTES = 1024;
+
+	private final int maxBufferSize;
+	private final ConcurrentLinkedQueue<byte[]>[] sizeClasses;
+	private final AtomicInteger[] pooledBuffers;
+	private final AtomicLong pooledBytes;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	private volatile int maxBuffersPerSizeClass;
+	private volatile long maxPooledBytes;
+
+	@SuppressWarnings("unchecked")
+	public ByteArrayPool(final int maxBufferSize, final int maxBuffersPerSizeClass, final long maxPooledBytes)
+	{
+		if (maxBufferSize < MIN_SIZE_CLASS_BYTES || Integer.bitCount(maxBufferSize) != 1)
+		{
+			throw new IllegalArgumentException(String.format(Locale.US, "maxBufferSize should be a power of 2 and not less than %s", MIN_SIZE_CLASS_BYTES));
+		}
+
+		this.maxBufferSize = maxBufferSize;
+		this.setMaxBuffersPerSizeClass(maxBuffersPerSizeClass);
+		this.setMaxPooledBytes(maxPooledBytes);
+
+		final int sizeClassCount = sizeClassIndex(maxBufferSize) + 1;
+		this.sizeClasses = new ConcurrentLinkedQueue[sizeClassCount];
+		this.pooledBuffers = new AtomicInteger[sizeClassCount];
+		for (int index = 0; index < sizeClassCount; index++)
+		{
+			this.sizeClasses[index] = new ConcurrentLinkedQueue<byte[]>();
+			this.pooledBuffers[index] = new AtomicInteger();
+		}
+
+		this.pooledBytes = new AtomicLong();
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+
+	/**
+	 * @param minimumSize minimum length of the buffer required
+	 * @return a buffer whose length is at least minimumSize; contents of the buffer are not cleared
+	 */
+	public byte[] borrow(final int minimumSize)
+	{
+		if (minimumSize > this.maxBufferSize)
+		{
+			this.misses.incrementAndGet();
+			return new byte[minimumSize];
+		}
+
+		final int index = sizeClassIndex(minimumSize);
+		final byte[] buffer = this.sizeClasses[index].poll();
+		if (buffer == null)
+		{
+			this.misses.incrementAndGet();
+			return new byte[MIN_SIZE_CLASS_BYTES << index];
+		}
+
+		this.pooledBuffers[index].decrementAndGet();
+		this.pooledBytes.addAndGet(-buffer.length);
+		this.hits.incrementAndGet();
+		return buffer;
+	}
+
+	/**
+	 * Return a buffer to the pool. Buffers which do not belong to a size class of this pool, or which would exceed the configured caps, are left to the GC.
+	 * The caller should not touch the buffer after this call.
+	 * @param buffer buffer previously acquired via {@link #borrow(int)}
+	 */
+	public void release(final byte[] buffer)
+	{
+		if (buffer == null || buffer.length > this.maxBufferSize || buffer.length < MIN_SIZE_CLASS_BYTES || Integer.bitCount(buffer.length) != 1)
+		{
+			return;
+		}
+
+		final int index = sizeClassIndex(buffer.length);
+		if (this.pooledBuffers[index].incrementAndGet() > this.maxBuffersPerSizeClass)
+		{
+			this.pooledBuffers[index].decrementAndGet();
+			return;
+		}
+
+		if (this.pooledBytes.addAndGet(buffer.length) > this.maxPooledBytes)
+		{
+			this.pooledBytes.addAndGet(-buffer.length);
+			this.pooledBuffers[index].decrementAndGet();
+			return;
+		}
+
+		this.sizeClasses[index].offer(buffer);
+	}
+
+	public long getHitCount()
+	{
+		return this.hits.get();
+	}
+
+	public long getMissCount()
+	{
+		return this.misses.get();
+	}
+
+	public long getPooledBytes()
+	{
+		return this.pooledBytes.get();
+	}
+
+	public int getMaxBufferSize()
+	{
+		return this.maxBufferSize;
+	}
+
+	public int getMaxBuffersPerSizeClass()
+	{
+		return this.maxBuffersPerSizeClass;
+	}
+
+	/**
+	 * @param value maximum number of idle buffers retained per size class. 0 disables pooling.
+	 */
+	public void setMaxBuffersPerSizeClass(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("maxBuffersPerSizeClass should be non-negative");
+		}
+
+		this.maxBuffersPerSizeClass = value;
+	}
+
+	public long getMaxPooledBytes()
+	{
+		return this.maxPooledBytes;
+	}
+
+	/**
+	 * @param value maximum number of bytes retained by idle buffers across all size classes. 0 disables pooling.
+	 */
+	public void setMaxPooledBytes(final long value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("maxPooledBytes should be non-negative");
+		}
+
+		this.maxPooledBytes = value;
+	}
+
+	private static int sizeClassIndex(final int size)
+	{
+		if (size <= MIN_SIZE_CLASS_BYTES)
+		{
+			return 0;
+		}
+
+		// ceil(log2(size)) - log2(MIN_SIZE_CLASS_BYTES)
+		return (Integer.SIZE - Integer.numberOfLeadingZeros(size - 1)) - Integer.numberOfTrailingZeros(MIN_SIZE_CLASS_BYTES);
+	}
+}
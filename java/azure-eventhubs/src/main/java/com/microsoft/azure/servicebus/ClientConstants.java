@@ -30,6 +30,13 @@ public final class ClientConstants
 	public static final int MAX_FRAME_SIZE_BYTES = 64 * 1024;
 	public static final int MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES = 512;
 
+	public static final int DEFAULT_MAX_SESSIONS_PER_CONNECTION = 4;
+	public static final int DEFAULT_SESSION_INCOMING_BYTES = 64 * 1024 * 1024;
+	public static final int DEFAULT_SESSION_OUTGOING_BYTES = 64 * 1024 * 1024;
+
+	public static final int DEFAULT_SEND_BUFFER_POOL_BUFFERS_PER_SIZE_CLASS = 64;
+	public static final long DEFAULT_SEND_BUFFER_POOL_MAX_BYTES = 32 * 1024 * 1024;
+
 	public final static Duration TIMER_TOLERANCE = Duration.ofSeconds(1);
 
 	public final static Duration DEFAULT_RERTRY_MIN_BACKOFF = Duration.ofSeconds(0);
@@ -42,6 +49,7 @@ public final class ClientConstants
 	public final static boolean DEFAULT_IS_TRANSIENT = true;
 
 	public final static int REACTOR_IO_POLL_TIMEOUT = 20;
+	public final static int LINK_RECOVERY_CHECK_INTERVAL_MILLIS = 50;
 	public final static int SERVER_BUSY_BASE_SLEEP_TIME_IN_SECS = 4;
 
 	public final static String NO_RETRY = "NoRetry";
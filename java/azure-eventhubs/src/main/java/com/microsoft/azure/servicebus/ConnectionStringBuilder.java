@@ -63,6 +63,7 @@ public class ConnectionStringBuilder
 	private String entityPath;
 	private Duration operationTimeout;
 	private RetryPolicy retryPolicy;
+	private TransportOptions transportOptions;
 
 	private ConnectionStringBuilder(
 			final URI endpointAddress, 
@@ -225,6 +226,31 @@ public class ConnectionStringBuilder
 		this.retryPolicy = retryPolicy;
 	}
 
+	/**
+	 * Get the tuning of the transport & socket of the connections opened using this builder - defaults are created on first use, and can be changed in place.
+	 * @return TransportOptions applied to the connections opened using this ConnectionString
+	 */
+	public TransportOptions getTransportOptions()
+	{
+		if (this.transportOptions == null)
+		{
+			this.transportOptions = new TransportOptions();
+		}
+
+		return this.transportOptions;
+	}
+
+	/**
+	 * Set the transport options.
+	 * <p>TransportOptions are not Serialized as part of {@link ConnectionStringBuilder#toString()} - create the factory from the builder,
+	 * using {@link MessagingFactory#createFromConnectionStringBuilder(ConnectionStringBuilder, ReactorGroup)}, for them to apply.
+	 * @param transportOptions TransportOptions applied to the connections opened using this ConnectionString
+	 */
+	public void setTransportOptions(final TransportOptions transportOptions)
+	{
+		this.transportOptions = transportOptions;
+	}
+
 	/**
 	 * Returns an inter-operable connection string that can be used to connect to ServiceBus Namespace
 	 * @return connection string
@@ -4,6 +4,7 @@
  */
 package com.microsoft.azure.servicebus;
 
+import java.nio.channels.UnresolvedAddressException;
 import java.time.ZonedDateTime;
 import java.util.Locale;
 import java.util.UUID;
@@ -12,6 +13,7 @@ import java.util.concurrent.TimeoutException;
 
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.engine.HandlerException;
 
 import com.microsoft.azure.servicebus.amqp.AmqpErrorCode;
 import com.microsoft.azure.servicebus.amqp.AmqpException;
@@ -93,6 +95,34 @@ final class ExceptionUtil
 		return new ServiceBusException(ClientConstants.DEFAULT_IS_TRANSIENT, errorCondition.getDescription());
 	}
 
+	// translates an error thrown while the Reactor processed events - the Reactor can't continue after it
+	static ServiceBusException toException(final HandlerException handlerException)
+	{
+		Throwable cause = handlerException.getCause();
+		if (cause == null)
+		{
+			cause = handlerException;
+		}
+
+		final String message = !StringUtil.isNullOrEmpty(cause.getMessage()) ? 
+				cause.getMessage():
+				!StringUtil.isNullOrEmpty(handlerException.getMessage()) ? 
+					handlerException.getMessage() :
+					"Reactor encountered unrecoverable error";
+
+		if (cause instanceof UnresolvedAddressException)
+		{
+			return new CommunicationException(
+					String.format(Locale.US, "%s. This is usually caused by incorrect hostname or network configuration. Please check to see if namespace information is correct. %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
+					cause);
+		}
+
+		return new ServiceBusException(
+				true,
+				String.format(Locale.US, "%s, %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
+				cause);
+	}
+
 	static <T> void completeExceptionally(CompletableFuture<T> future, Exception exception, IErrorContextProvider contextProvider)
 	{
 		if (exception != null && exception instanceof ServiceBusException)
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Approximate one-shot timer, optimized for a large number of timeouts which are mostly cancelled before they expire
+ * (ex: a timeout per in-flight send, which is cancelled when the send is acknowledged).
+ * <p>Timeouts are hashed into a ring of buckets, each bucket covering one tick. Schedule and cancel are O(1) and lock-free for the caller:
+ * they are queued and applied to the wheel by a single worker thread, which advances the wheel every tick.
+ * Timeouts fire at most one tick late. Expired tasks are handed to the given {@link Executor}, so that a slow task doesn't stall the wheel.
+ */
+final class HashedWheelTimer
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private static final int STATE_PENDING = 0;
+	private static final int STATE_CANCELLED = 1;
+	private static final int STATE_EXPIRED = 2;
+
+	private final Executor taskExecutor;
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final ConcurrentLinkedQueue<WheelTimeout> scheduledTimeouts;
+	private final ConcurrentLinkedQueue<WheelTimeout> cancelledTimeouts;
+	private final Thread worker;
+
+	private volatile boolean running;
+	private volatile long startTime;
+	private long tick;
+
+	/**
+	 * @param taskExecutor executor on which the expired tasks are run
+	 * @param tickDuration granularity of the timer
+	 * @param ticksPerWheel number of buckets - rounded up to a power of 2
+	 */
+	HashedWheelTimer(final Executor taskExecutor, final Duration tickDuration, final int ticksPerWheel)
+	{
+		if (tickDuration.isNegative() || tickDuration.isZero() || ticksPerWheel <= 0)
+		{
+			throw new IllegalArgumentException("tickDuration and ticksPerWheel should be positive");
+		}
+
+		int wheelSize = 1;
+		while (wheelSize < ticksPerWheel)
+		{
+			wheelSize <<= 1;
+		}
+
+		this.taskExecutor = taskExecutor;
+		this.tickNanos = tickDuration.toNanos();
+		this.wheel = new Bucket[wheelSize];
+		for (int index = 0; index < wheelSize; index++)
+		{
+			this.wheel[index] = new Bucket();
+		}
+
+		this.mask = wheelSize - 1;
+		this.scheduledTimeouts = new ConcurrentLinkedQueue<WheelTimeout>();
+		this.cancelledTimeouts = new ConcurrentLinkedQueue<WheelTimeout>();
+
+		this.worker = new Thread(new Worker(), "servicebus-timer");
+		this.worker.setDaemon(true);
+	}
+
+	void start()
+	{
+		this.startTime = System.nanoTime();
+		this.running = true;
+		this.worker.start();
+	}
+
+	/**
+	 * Stops the worker thread - timeouts which didn't expire yet are dropped.
+	 */
+	void stop()
+	{
+		this.running = false;
+		this.worker.interrupt();
+	}
+
+	ScheduledFuture<?> schedule(final Runnable task, final Duration delay)
+	{
+		if (!this.running)
+		{
+			throw new RejectedExecutionException("Timer is stopped.");
+		}
+
+		final long delayNanos = Math.max(delay.toNanos(), 0);
+		final WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() - this.startTime + delayNanos);
+		this.scheduledTimeouts.offer(timeout);
+		return timeout;
+	}
+
+	private void transferScheduledTimeouts()
+	{
+		WheelTimeout timeout;
+		while ((timeout = this.scheduledTimeouts.poll()) != null)
+		{
+			if (timeout.state.get() == STATE_CANCELLED)
+			{
+				continue;
+			}
+
+			final long expiryTick = timeout.deadline / this.tickNanos;
+			timeout.remainingRounds = (expiryTick - this.tick) / this.wheel.length;
+			// a timeout whose deadline already passed goes into the current bucket
+			this.wheel[(int) (Math.max(expiryTick, this.tick) & this.mask)].add(timeout);
+		}
+	}
+
+	private void removeCancelledTimeouts()
+	{
+		WheelTimeout timeout;
+		while ((timeout = this.cancelledTimeouts.poll()) != null)
+		{
+			if (timeout.bucket != null)
+			{
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void expireTimeouts(final Bucket bucket, final long tickDeadline)
+	{
+		WheelTimeout timeout = bucket.head;
+		while (timeout != null)
+		{
+			final WheelTimeout next = timeout.next;
+			if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline)
+			{
+				bucket.remove(timeout);
+				timeout.expire();
+			}
+			else if (timeout.remainingRounds > 0)
+			{
+				timeout.remainingRounds--;
+			}
+
+			timeout = next;
+		}
+	}
+
+	private final class Worker implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			while (HashedWheelTimer.this.running)
+			{
+				final long tickDeadline = (HashedWheelTimer.this.tick + 1) * HashedWheelTimer.this.tickNanos;
+				long sleepNanos;
+				while ((sleepNanos = tickDeadline - (System.nanoTime() - HashedWheelTimer.this.startTime)) > 0)
+				{
+					LockSupport.parkNanos(sleepNanos);
+					if (!HashedWheelTimer.this.running)
+					{
+						return;
+					}
+				}
+
+				HashedWheelTimer.this.removeCancelledTimeouts();
+				HashedWheelTimer.this.transferScheduledTimeouts();
+				HashedWheelTimer.this.expireTimeouts(HashedWheelTimer.this.wheel[(int) (HashedWheelTimer.this.tick & HashedWheelTimer.this.mask)], tickDeadline);
+				HashedWheelTimer.this.tick++;
+			}
+		}
+	}
+
+	// doubly-linked list of timeouts - accessed only by the worker thread
+	private static final class Bucket
+	{
+		private WheelTimeout head;
+		private WheelTimeout tail;
+
+		void add(final WheelTimeout timeout)
+		{
+			timeout.bucket = this;
+			if (this.head == null)
+			{
+				this.head = this.tail = timeout;
+			}
+			else
+			{
+				this.tail.next = timeout;
+				timeout.previous = this.tail;
+				this.tail = timeout;
+			}
+		}
+
+		void remove(final WheelTimeout timeout)
+		{
+			if (timeout.previous != null)
+			{
+				timeout.previous.next = timeout.next;
+			}
+			else
+			{
+				this.head = timeout.next;
+			}
+
+			if (timeout.next != null)
+			{
+				timeout.next.previous = timeout.previous;
+			}
+			else
+			{
+				this.tail = timeout.previous;
+			}
+
+			timeout.next = null;
+			timeout.previous = null;
+			timeout.bucket = null;
+		}
+	}
+
+	private final class WheelTimeout implements ScheduledFuture<Void>, Runnable
+	{
+		private final Runnable task;
+		// nanos since the start of the timer
+		private final long deadline;
+		private final AtomicInteger state;
+
+		// owned by the worker thread
+		private long remainingRounds;
+		private Bucket bucket;
+		private WheelTimeout next;
+		private WheelTimeout previous;
+
+		private boolean isTaskComplete;
+		private Throwable taskFailure;
+
+		WheelTimeout(final Runnable task, final long deadline)
+		{
+			this.task = task;
+			this.deadline = deadline;
+			this.state = new AtomicInteger(STATE_PENDING);
+		}
+
+		void expire()
+		{
+			if (!this.state.compareAndSet(STATE_PENDING, STATE_EXPIRED))
+			{
+				return;
+			}
+
+			try
+			{
+				HashedWheelTimer.this.taskExecutor.execute(this);
+			}
+			catch (RejectedExecutionException exception)
+			{
+				if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "timer task could not be run: %s", exception.getMessage()));
+				}
+
+				this.onTaskComplete(exception);
+			}
+		}
+
+		@Override
+		public void run()
+		{
+			Throwable failure = null;
+			try
+			{
+				this.task.run();
+			}
+			catch (Throwable throwable)
+			{
+				failure = throwable;
+				if (TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING, "timer task failed", throwable);
+				}
+			}
+
+			this.onTaskComplete(failure);
+		}
+
+		private synchronized void onTaskComplete(final Throwable failure)
+		{
+			this.taskFailure = failure;
+			this.isTaskComplete = true;
+			this.notifyAll();
+		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning)
+		{
+			if (!this.state.compareAndSet(STATE_PENDING, STATE_CANCELLED))
+			{
+				return false;
+			}
+
+			HashedWheelTimer.this.cancelledTimeouts.offer(this);
+			synchronized (this)
+			{
+				this.notifyAll();
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled()
+		{
+			return this.state.get() == STATE_CANCELLED;
+		}
+
+		@Override
+		public boolean isDone()
+		{
+			return this.state.get() != STATE_PENDING;
+		}
+
+		@Override
+		public Void get() throws InterruptedException, ExecutionException
+		{
+			synchronized (this)
+			{
+				while (!this.isCancelled() && !this.isTaskComplete)
+				{
+					this.wait();
+				}
+			}
+
+			return this.getResult();
+		}
+
+		@Override
+		public Void get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, java.util.concurrent.TimeoutException
+		{
+			final long waitUntil = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (this)
+			{
+				while (!this.isCancelled() && !this.isTaskComplete)
+				{
+					final long remaining = waitUntil - System.nanoTime();
+					if (remaining <= 0)
+					{
+						throw new java.util.concurrent.TimeoutException();
+					}
+
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			}
+
+			return this.getResult();
+		}
+
+		private Void getResult() throws ExecutionException
+		{
+			if (this.isCancelled())
+			{
+				throw new CancellationException();
+			}
+
+			if (this.taskFailure != null)
+			{
+				throw new ExecutionException(this.taskFailure);
+			}
+
+			return null;
+		}
+
+		@Override
+		public long getDelay(final TimeUnit unit)
+		{
+			return unit.convert(this.deadline - (System.nanoTime() - HashedWheelTimer.this.startTime), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(final Delayed other)
+		{
+			return Long.compare(this.getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.Symbol;
+
+/**
+ * Receiver-level filter - evaluated on the Reactor thread against the raw sections of each received message,
+ * before the message is prefetched. So, it should be cheap & non-blocking.
+ */
+public interface IMessageFilter
+{
+	/**
+	 * @param messageAnnotations the message annotations of the message - null if it has none
+	 * @param applicationProperties the application properties of the message - null if it has none
+	 * @return false to drop the message
+	 */
+	boolean accept(Map<Symbol, Object> messageAnnotations, Map<String, Object> applicationProperties);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * Callbacks of the push mode of {@link MessageReceiver} - invoked on the Executor supplied to {@link MessageReceiver#setReceiveHandler},
+ * in the order the messages were received and one at a time.
+ */
+public interface IMessageReceiveHandler
+{
+	/**
+	 * @return maximum number of messages to be handed to the next {@link #onReceive} call
+	 */
+	int getMaxMessageCount();
+
+	/**
+	 * @return number of messages to wait for, before the next {@link #onReceive} call - unless {@link #getMaxWaitTime} passes first
+	 */
+	int getMinMessageCount();
+
+	/**
+	 * @return how long to wait for {@link #getMinMessageCount} messages, before handing the messages received so far to {@link #onReceive}
+	 */
+	Duration getMaxWaitTime();
+
+	/**
+	 * @param messages the next batch of received messages - null, if no message was received for the receiveTimeout of the receiver
+	 */
+	void onReceive(ReadOnlyBatch<Message> messages);
+
+	/**
+	 * Invoked once, when the push mode is stopped by an error - either a non-transient error on the link or an error thrown by {@link #onReceive}.
+	 * A demand driven handler is also invoked with an {@link OperationCancelledException} once it is removed or replaced, or the receiver is closed.
+	 * @param error the error which stopped the push mode
+	 */
+	void onError(Throwable error);
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Provider of a potentially unbounded sequence of elements - published as demanded by its {@link ISubscriber}.
+ * <p>{@link IPublisher}, {@link ISubscriber} and {@link ISubscription} follow the Reactive Streams contract - method for method,
+ * and signal for signal - so that adapting them to org.reactivestreams or java.util.concurrent.Flow is a plain delegating wrapper.
+ * The client targets Java 8 and doesn't depend on the reactive-streams library - hence the interfaces of its own.
+ * @param <T> type of the published elements
+ */
+public interface IPublisher<T>
+{
+	/**
+	 * Request the publisher to start publishing elements to the subscriber - once the subscriber signals demand through {@link ISubscription#request}.
+	 * @param subscriber the subscriber, which receives {@link ISubscriber#onSubscribe} first
+	 */
+	void subscribe(ISubscriber<? super T> subscriber);
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import org.apache.qpid.proton.engine.Link;
+
+/*
+ * An entity whose link is re-attached by the link recovery of its MessagingFactory - after the connection was lost.
+ * Both methods are called on the Reactor thread.
+ */
+interface IRecoverableLink
+{
+	/*
+	 * @return the current link of the entity - null, if the entity is not to be recovered (it is closing, or its link was never opened)
+	 */
+	Link getRecoverableLink();
+
+	/*
+	 * Re-create the link of the entity - on the current connection of the factory.
+	 */
+	void recreateLink();
+}
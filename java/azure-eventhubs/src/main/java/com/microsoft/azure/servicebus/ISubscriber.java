@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Receives the elements published by an {@link IPublisher} - no more than requested through {@link ISubscription#request}.
+ * The signals are never concurrent: onSubscribe, followed by onNext's, optionally followed by one of onError or onComplete.
+ * @param <T> type of the published elements
+ * @see IPublisher
+ */
+public interface ISubscriber<T>
+{
+	void onSubscribe(ISubscription subscription);
+
+	void onNext(T item);
+
+	void onError(Throwable error);
+
+	void onComplete();
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * The one-to-one lifecycle of an {@link ISubscriber} subscribing to an {@link IPublisher}.
+ * @see IPublisher
+ */
+public interface ISubscription
+{
+	/**
+	 * Signal demand for n more elements - a non-positive n fails the subscription with an {@link IllegalArgumentException}.
+	 * @param n number of elements the subscriber is ready to receive
+	 */
+	void request(long n);
+
+	/**
+	 * Stop publishing to the subscriber - elements already in flight may still be delivered.
+	 */
+	void cancel();
+}
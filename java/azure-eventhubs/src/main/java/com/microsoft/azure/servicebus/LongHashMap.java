@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-addressing (linear probing) hash map keyed by a primitive long - used to track in-flight deliveries by their numeric delivery tag
+ * without boxing the keys or allocating an entry per put.
+ * Null values are not allowed. Not thread-safe.
+ */
+public final class LongHashMap<V>
+{
+	private static final int MIN_CAPACITY = 16;
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int shift;
+	private int size;
+	private int resizeThreshold;
+
+	public LongHashMap()
+	{
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize number of entries the map should hold without resizing
+	 */
+	public LongHashMap(final int expectedSize)
+	{
+		if (expectedSize < 0)
+		{
+			throw new IllegalArgumentException("expectedSize should be non-negative");
+		}
+
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2)
+		{
+			capacity <<= 1;
+		}
+
+		this.allocate(capacity);
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(final long key)
+	{
+		int index = this.indexOf(key);
+		while (this.values[index] != null)
+		{
+			if (this.keys[index] == key)
+			{
+				return (V) this.values[index];
+			}
+
+			index = (index + 1) & this.mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return the previous value associated with the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(final long key, final V value)
+	{
+		if (value == null)
+		{
+			throw new IllegalArgumentException("value cannot be null");
+		}
+
+		int index = this.indexOf(key);
+		while (this.values[index] != null)
+		{
+			if (this.keys[index] == key)
+			{
+				final V previous = (V) this.values[index];
+				this.values[index] = value;
+				return previous;
+			}
+
+			index = (index + 1) & this.mask;
+		}
+
+		this.keys[index] = key;
+		this.values[index] = value;
+		if (++this.size > this.resizeThreshold)
+		{
+			this.resize(this.keys.length << 1);
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return the value which was associated with the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(final long key)
+	{
+		int index = this.indexOf(key);
+		while (this.values[index] != null)
+		{
+			if (this.keys[index] == key)
+			{
+				final V removed = (V) this.values[index];
+				this.values[index] = null;
+				this.size--;
+				this.compactChain(index);
+				return removed;
+			}
+
+			index = (index + 1) & this.mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return a snapshot of the values - changes to the map are not reflected in the returned list
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values()
+	{
+		final List<V> snapshot = new ArrayList<V>(this.size);
+		for (Object value : this.values)
+		{
+			if (value != null)
+			{
+				snapshot.add((V) value);
+			}
+		}
+
+		return snapshot;
+	}
+
+	public void clear()
+	{
+		if (this.size > 0)
+		{
+			for (int index = 0; index < this.values.length; index++)
+			{
+				this.values[index] = null;
+			}
+
+			this.size = 0;
+		}
+	}
+
+	private int indexOf(final long key)
+	{
+		return (int) ((key * HASH_MULTIPLIER) >>> this.shift);
+	}
+
+	// backward-shift deletion: moves the entries following the freed slot, so that lookups never need tombstones
+	private void compactChain(final int freedIndex)
+	{
+		int emptyIndex = freedIndex;
+		int index = (freedIndex + 1) & this.mask;
+		while (this.values[index] != null)
+		{
+			final int idealIndex = this.indexOf(this.keys[index]);
+			if (((index - idealIndex) & this.mask) >= ((index - emptyIndex) & this.mask))
+			{
+				this.keys[emptyIndex] = this.keys[index];
+				this.values[emptyIndex] = this.values[index];
+				this.values[index] = null;
+				emptyIndex = index;
+			}
+
+			index = (index + 1) & this.mask;
+		}
+	}
+
+	private void resize(final int capacity)
+	{
+		final long[] oldKeys = this.keys;
+		final Object[] oldValues = this.values;
+
+		this.allocate(capacity);
+		for (int oldIndex = 0; oldIndex < oldValues.length; oldIndex++)
+		{
+			if (oldValues[oldIndex] != null)
+			{
+				int index = this.indexOf(oldKeys[oldIndex]);
+				while (this.values[index] != null)
+				{
+					index = (index + 1) & this.mask;
+				}
+
+				this.keys[index] = oldKeys[oldIndex];
+				this.values[index] = oldValues[oldIndex];
+			}
+		}
+	}
+
+	private void allocate(final int capacity)
+	{
+		this.keys = new long[capacity];
+		this.values = new Object[capacity];
+		this.mask = capacity - 1;
+		this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+		this.resizeThreshold = (capacity * 3) / 4;
+	}
+}
@@ -8,18 +8,18 @@ import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnknownDescribedType;
 import org.apache.qpid.proton.amqp.messaging.Source;
@@ -31,6 +31,7 @@ import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Receiver;
 import org.apache.qpid.proton.engine.Session;
 import org.apache.qpid.proton.message.Message;
@@ -39,13 +40,12 @@ import com.microsoft.azure.servicebus.amqp.AmqpConstants;
 import com.microsoft.azure.servicebus.amqp.DispatchHandler;
 import com.microsoft.azure.servicebus.amqp.IAmqpReceiver;
 import com.microsoft.azure.servicebus.amqp.ReceiveLinkHandler;
-import com.microsoft.azure.servicebus.amqp.SessionHandler;
 
 /**
  * Common Receiver that abstracts all amqp related details
  * translates event-driven reactor model into async receive Api
  */
-public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErrorContextProvider
+public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErrorContextProvider, IRecoverableLink
 {
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 	private static final int MIN_TIMEOUT_DURATION_MILLIS = 20;
@@ -57,9 +57,30 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	private final Duration operationTimeout;
 	private final CompletableFuture<Void> linkClose;
 	private final Object prefetchCountSync;
+	// received deliveries are read into & decoded out of this buffer - accessed only on the Reactor thread
+	private final ReceiveBuffer receiveBuffer;
 	private int prefetchCount;
 
 	private ConcurrentLinkedQueue<Message> prefetchedMessages;
+	// byte budget for the prefetched messages - 0 means that prefetch is bounded only by the prefetchCount
+	private volatile int prefetchBytes;
+	// size of prefetchedMessages, in messages & in bytes, and the encoded size of each of them (a ring buffer in prefetch order) - accessed only on the Reactor thread
+	private int prefetchedMessageCount;
+	private long prefetchedBytes;
+	private int[] prefetchedMessageSizes;
+	private int prefetchedMessageSizesHead;
+	private int averageMessageSize;
+	// adapts the effective prefetch count to the consumer - null means that prefetch is static
+	private volatile AdaptiveCreditController creditController;
+	// push mode - received batches are handed to the handler of the pump on its executor, one at a time
+	private final Object receivePumpSync;
+	private volatile PushReceivePump receivePump;
+	private volatile boolean isPushDispatchInFlight;
+	private volatile Exception pendingPushError;
+	// demand driven pumps stopped by the receiver - their handlers get a last onError, after the batch in flight, if any
+	private final ConcurrentLinkedQueue<PushReceivePump> stoppedPumps;
+	// messages requested by the demand driven receive handler & not yet handed to it - accessed only on the Reactor thread
+	private long subscriberDemand;
 	private Receiver receiveLink;
 	private WorkItem<MessageReceiver> linkOpen;
 	private Duration receiveTimeout;
@@ -69,7 +90,21 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	private Instant dateTime;
 	private boolean offsetInclusive;
 
-	private String lastReceivedOffset;
+	// offset the receiver was created with - the link starts from it, until a message is received
+	private String startingOffset;
+	// position of the last message handed to the caller - updated once per batch on the Reactor thread, formatted only to re-create the link
+	private volatile boolean isMessageReceived;
+	private volatile long lastReceivedOffset;
+	private volatile long lastReceivedSequenceNumber;
+	// drops received messages before they are prefetched - null means that every message is prefetched
+	private volatile IMessageFilter messageFilter;
+	private volatile long filteredMessageCount;
+	// position of the last dropped message - to be taken once the messages prefetched ahead of it are returned; accessed only on the Reactor thread
+	private boolean hasFilteredPosition;
+	private long filteredOffset;
+	private long filteredSequenceNumber;
+	// whether the link has a session of its own - or shares a pooled session of the factory; accessed only on the Reactor thread
+	private boolean isSessionDedicated;
 	private Exception lastKnownLinkError;
 	private int nextCreditToFlow;
 
@@ -92,14 +127,20 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		this.epoch = epoch;
 		this.isEpochReceiver = isEpochReceiver;
 		this.prefetchedMessages = new ConcurrentLinkedQueue<Message>();
+		this.prefetchedMessageSizes = new int[16];
+		// until messages are received, assume the worst - so that the byte budget is not overrun by the first flow
+		this.averageMessageSize = ClientConstants.MAX_MESSAGE_LENGTH_BYTES;
+		this.receiveBuffer = new ReceiveBuffer();
 		this.linkClose = new CompletableFuture<Void>();
 		this.lastKnownLinkError = null;
 		this.receiveTimeout = factory.getOperationTimeout();
 		this.prefetchCountSync = new Object();
+		this.receivePumpSync = new Object();
+		this.stoppedPumps = new ConcurrentLinkedQueue<PushReceivePump>();
 
 		if (offset != null)
 		{
-			this.lastReceivedOffset = offset;
+			this.startingOffset = offset;
 			this.offsetInclusive = offsetInclusive;
 		}
 		else
@@ -114,17 +155,25 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		{
 			public void run()
 			{
-				WorkItem<Collection<Message>> topWorkItem = null;
+				ReceiveWorkItem topWorkItem = null;
 				boolean workItemTimedout = false;
 				while((topWorkItem = MessageReceiver.this.pendingReceives.peek()) != null)
 				{
 					if (topWorkItem.getTimeoutTracker().remaining().toMillis() <= MessageReceiver.MIN_TIMEOUT_DURATION_MILLIS)
 					{
-						WorkItem<Collection<Message>> dequedWorkItem = MessageReceiver.this.pendingReceives.poll();
+						ReceiveWorkItem dequedWorkItem = MessageReceiver.this.pendingReceives.poll();
 						if (dequedWorkItem != null)
 						{
 							workItemTimedout = true;
-							dequedWorkItem.getWork().complete(null);
+							if (dequedWorkItem.minMessageCount > 1)
+							{
+								// the batch didn't fill up in maxWaitTime - return whatever is prefetched
+								MessageReceiver.this.completeLingeringReceive(dequedWorkItem);
+							}
+							else
+							{
+								dequedWorkItem.getWork().complete(null);
+							}
 						}
 						else
 							break;
@@ -209,28 +258,155 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		return this.linkOpen.getWork();
 	}
 
-	private List<Message> receiveCore(final int messageCount)
+	private ReadOnlyBatch<Message> receiveCore(final int messageCount)
 	{
-		List<Message> returnMessages = null;
 		Message currentMessage = this.pollPrefetchQueue();
-	
+		if (currentMessage == null)
+		{
+			this.updateCreditController(0);
+			return null;
+		}
+
+		// sized by what is already prefetched - pollPrefetchQueue took one of those
+		Object[] returnMessages = new Object[Math.max(1, Math.min(messageCount, this.prefetchedMessageCount + 1))];
+		int returnMessageCount = 0;
 		while (currentMessage != null) 
 		{
-			if (returnMessages == null)
+			if (returnMessageCount == returnMessages.length)
 			{
-				returnMessages = new LinkedList<Message>();
+				returnMessages = Arrays.copyOf(returnMessages, Math.min(messageCount, returnMessages.length * 2));
 			}
 
-			returnMessages.add(currentMessage);
-			if (returnMessages.size() >= messageCount)
+			returnMessages[returnMessageCount++] = currentMessage;
+			if (returnMessageCount >= messageCount)
 			{
 				break;
 			}
 
 			currentMessage = this.pollPrefetchQueue();
 		}
-		
-		return returnMessages;
+
+		// the position should be up-to-date upon each batch - as recreateLink will depend on this
+		this.updateLastReceivedPosition((Message) returnMessages[returnMessageCount - 1]);
+		if (this.hasFilteredPosition && this.prefetchedMessageCount == 0)
+		{
+			this.setLastReceivedPosition(this.filteredOffset, this.filteredSequenceNumber);
+			this.hasFilteredPosition = false;
+		}
+		this.updateCreditController(returnMessageCount);
+		return new ReadOnlyBatch<Message>(returnMessages, returnMessageCount);
+	}
+
+	private void updateLastReceivedPosition(final Message lastMessage)
+	{
+		final Map<Symbol, Object> annotations = lastMessage.getMessageAnnotations().getValue();
+		this.setLastReceivedPosition(getOffset(annotations), getSequenceNumber(annotations));
+	}
+
+	private void setLastReceivedPosition(final long offset, final long sequenceNumber)
+	{
+		this.lastReceivedOffset = offset;
+		this.lastReceivedSequenceNumber = sequenceNumber;
+		this.isMessageReceived = true;
+	}
+
+	private static long getOffset(final Map<Symbol, Object> annotations)
+	{
+		final Object offset = annotations.get(AmqpConstants.OFFSET);
+		return offset instanceof Number ? ((Number) offset).longValue() : Long.parseLong(offset.toString());
+	}
+
+	private static long getSequenceNumber(final Map<Symbol, Object> annotations)
+	{
+		final Object sequenceNumber = annotations.get(AmqpConstants.SEQUENCE_NUMBER);
+		return sequenceNumber != null ? ((Number) sequenceNumber).longValue() : -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean isAccepted(final IMessageFilter filter, final Message message)
+	{
+		try
+		{
+			return filter.accept(
+					message.getMessageAnnotations() != null ? message.getMessageAnnotations().getValue() : null,
+					message.getApplicationProperties() != null ? (Map<String, Object>) message.getApplicationProperties().getValue() : null);
+		}
+		catch (RuntimeException filterError)
+		{
+			// a failing filter shouldn't lose messages
+			if (TRACE_LOGGER.isLoggable(Level.WARNING))
+			{
+				TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "receiverPath[%s], message filter failed - message is not filtered: %s", this.receivePath, filterError.toString()));
+			}
+
+			return true;
+		}
+	}
+
+	// a dropped message still advances the position - and its credit is replenished as if it was returned
+	private void onMessageFiltered(final Message message)
+	{
+		this.filteredMessageCount++;
+
+		final Map<Symbol, Object> annotations = message.getMessageAnnotations().getValue();
+		if (this.prefetchedMessageCount == 0)
+		{
+			this.setLastReceivedPosition(getOffset(annotations), getSequenceNumber(annotations));
+		}
+		else
+		{
+			this.hasFilteredPosition = true;
+			this.filteredOffset = getOffset(annotations);
+			this.filteredSequenceNumber = getSequenceNumber(annotations);
+		}
+
+		if (this.isCreditTargeted())
+		{
+			this.flowTargetCredit();
+		}
+		else
+		{
+			this.sendFlow(1);
+		}
+	}
+
+	public IMessageFilter getMessageFilter()
+	{
+		return this.messageFilter;
+	}
+
+	/**
+	 * Drop the received messages not accepted by the filter - before they are prefetched.
+	 * A dropped message still advances the position of the receiver, and its link credit is replenished.
+	 * @param value the filter - null to stop filtering
+	 */
+	public void setMessageFilter(final IMessageFilter value)
+	{
+		this.messageFilter = value;
+	}
+
+	/**
+	 * @return number of messages dropped by the message filter
+	 */
+	public long getFilteredMessageCount()
+	{
+		return this.filteredMessageCount;
+	}
+
+	/**
+	 * @return offset of the last message returned by this receiver (or dropped by its filter) - null if no message was returned yet
+	 */
+	public String getLastReceivedOffset()
+	{
+		return this.isMessageReceived ? Long.toString(this.lastReceivedOffset) : null;
+	}
+
+	/**
+	 * @return sequence number of the last message returned by this receiver - -1 if no message was returned yet
+	 */
+	public long getLastReceivedSequenceNumber()
+	{
+		return this.isMessageReceived ? this.lastReceivedSequenceNumber : -1;
 	}
 
 	public int getPrefetchCount()
@@ -257,7 +433,14 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 				@Override
 				public void onEvent()
 				{
-					sendFlow(deltaPrefetchCount);
+					if (MessageReceiver.this.isCreditTargeted())
+					{
+						MessageReceiver.this.flowTargetCredit();
+					}
+					else
+					{
+						sendFlow(deltaPrefetchCount);
+					}
 				}
 			});
 		}
@@ -267,6 +450,205 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		}
 	}
 
+	public int getPrefetchBytes()
+	{
+		return this.prefetchBytes;
+	}
+
+	/**
+	 * Bound the prefetched messages by their size: link credit is issued only for the part of the byte budget not used up by the messages already prefetched
+	 * (going by the average size of the received messages) - and the link gets a session of its own, whose incoming capacity is set to the byte budget.
+	 * A link already attached to a pooled session of the factory moves to a session of its own when it is re-created.
+	 * prefetchCount still caps the number of prefetched messages.
+	 * @param value byte budget for the prefetched messages. 0 - the default - means that prefetch is bounded only by the prefetchCount.
+	 */
+	public void setPrefetchBytes(final int value) throws ServiceBusException
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("prefetchBytes should be non-negative");
+		}
+
+		this.prefetchBytes = value;
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					MessageReceiver.this.setSessionIncomingCapacity();
+					MessageReceiver.this.resumeFlow();
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			throw new ServiceBusException(false, "Setting prefetch bytes failed, see cause for more details", ioException);
+		}
+	}
+
+	public AdaptiveCreditController getCreditController()
+	{
+		return this.creditController;
+	}
+
+	/**
+	 * Let the controller adapt the effective prefetch count & the flow batch size to how the consumer is keeping up -
+	 * instead of keeping prefetchCount messages prefetched at all times. prefetchCount still caps the effective prefetch count.
+	 * @param value controller owned by this receiver - or null, to go back to the static prefetchCount.
+	 */
+	public void setCreditController(final AdaptiveCreditController value) throws ServiceBusException
+	{
+		this.creditController = value;
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					if (value != null)
+					{
+						value.reset(MessageReceiver.this.prefetchedMessageCount, System.nanoTime());
+					}
+
+					MessageReceiver.this.resumeFlow();
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			throw new ServiceBusException(false, "Setting credit controller failed, see cause for more details", ioException);
+		}
+	}
+
+	/**
+	 * Push mode: as messages arrive, hand them in batches to the handler on the executor - instead of waiting for receive calls.
+	 * The batches are handed over in the order the messages were received, and the next batch is handed over only after the handler returns.
+	 * If no message arrives for the receiveTimeout, the handler is invoked with a null batch.
+	 * @param handler handler of the received batches
+	 * @param executor executor to run the handler on - could be shared by many receivers
+	 */
+	public void setReceiveHandler(final IMessageReceiveHandler handler, final Executor executor) throws ServiceBusException
+	{
+		this.startReceivePump(handler, executor, false);
+	}
+
+	/**
+	 * Demand driven push mode: same as {@link #setReceiveHandler} - but, messages are handed to the handler only as requested through {@link #request},
+	 * and link credit is issued only for the requested messages - so, the demand of the handler is the backpressure all the way to the service.
+	 * The handler isn't invoked with null batches in this mode.
+	 * <p>Link credit issued before this call isn't revoked - messages received for it are buffered till requested.
+	 * <p>Once the handler is removed or replaced, or the receiver is closed, its {@link IMessageReceiveHandler#onError} is invoked with an
+	 * {@link OperationCancelledException} - after the batch being handled, if any.
+	 * @param handler handler of the received batches
+	 * @param executor executor to run the handler on - could be shared by many receivers
+	 */
+	public void setDemandDrivenReceiveHandler(final IMessageReceiveHandler handler, final Executor executor) throws ServiceBusException
+	{
+		this.startReceivePump(handler, executor, true);
+	}
+
+	/**
+	 * Request messageCount more messages for the demand driven receive handler.
+	 * @param messageCount number of messages - a non-positive count stops the handler with an {@link IllegalArgumentException}
+	 */
+	public void request(final long messageCount)
+	{
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					if (messageCount <= 0)
+					{
+						MessageReceiver.this.pendingPushError = new IllegalArgumentException(
+								String.format(Locale.US, "requested message count should be positive, but was %s", messageCount));
+					}
+					else
+					{
+						final long demand = MessageReceiver.this.subscriberDemand + messageCount;
+						// unbounded demand - once it overflows
+						MessageReceiver.this.subscriberDemand = demand < 0 ? Long.MAX_VALUE : demand;
+						if (MessageReceiver.this.isCreditTargeted())
+						{
+							MessageReceiver.this.flowTargetCredit();
+						}
+					}
+
+					MessageReceiver.this.dispatchPush(false);
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			if (TRACE_LOGGER.isLoggable(Level.WARNING))
+			{
+				TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "receiverPath[%s], request of %s messages failed while dispatching to Reactor: %s",
+						this.receivePath, messageCount, ioException.toString()));
+			}
+		}
+	}
+
+	private void startReceivePump(final IMessageReceiveHandler handler, final Executor executor, final boolean isDemandDriven) throws ServiceBusException
+	{
+		if (handler == null || executor == null)
+		{
+			throw new IllegalArgumentException("handler and executor should be non-null");
+		}
+
+		final PushReceivePump pump = new PushReceivePump(handler, executor, isDemandDriven);
+		final PushReceivePump previousPump;
+		synchronized (this.receivePumpSync)
+		{
+			previousPump = this.receivePump;
+			this.receivePump = pump;
+		}
+
+		this.onReceivePumpStopped(previousPump, true);
+
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					if (isDemandDriven)
+					{
+						MessageReceiver.this.flowTargetCredit();
+					}
+
+					MessageReceiver.this.dispatchPush(false);
+					MessageReceiver.this.schedulePushIdleCheck(pump, MessageReceiver.this.getPushIdleCheckIntervalMillis(pump));
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			this.removeReceiveHandler();
+			throw new ServiceBusException(false, "Setting receive handler failed, see cause for more details", ioException);
+		}
+	}
+
+	/**
+	 * Stop the push mode - a batch being handled, if any, is not interrupted.
+	 */
+	public void removeReceiveHandler()
+	{
+		final PushReceivePump previousPump;
+		synchronized (this.receivePumpSync)
+		{
+			previousPump = this.receivePump;
+			this.receivePump = null;
+		}
+
+		this.onReceivePumpStopped(previousPump, true);
+	}
+
 	public Duration getReceiveTimeout()
 	{
 		return this.receiveTimeout;
@@ -278,6 +660,18 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	}
 
 	public CompletableFuture<Collection<Message>> receive(final int maxMessageCount)
+	{
+		return this.receive(1, maxMessageCount, this.receiveTimeout);
+	}
+
+	/**
+	 * Receive a batch of at least minMessageCount messages - unless maxWaitTime passes first, in which case the messages received so far are returned.
+	 * Waiting for a larger batch trades a bounded latency for fewer & larger batches, when the messages arrive at a moderate rate.
+	 * @param minMessageCount the receive completes as soon as this many messages are prefetched
+	 * @param maxMessageCount maximum number of messages to return
+	 * @param maxWaitTime how long to wait for minMessageCount messages - the returned batch is null if no message arrived by then
+	 */
+	public CompletableFuture<Collection<Message>> receive(final int minMessageCount, final int maxMessageCount, final Duration maxWaitTime)
 	{
 		this.throwIfClosed(this.lastKnownLinkError);
 
@@ -286,9 +680,19 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 			throw new IllegalArgumentException(String.format(Locale.US, "parameter 'maxMessageCount' should be a positive number and should be less than prefetchCount(%s)", this.prefetchCount));
 		}
 
+		if (minMessageCount <= 0 || minMessageCount > maxMessageCount)
+		{
+			throw new IllegalArgumentException(String.format(Locale.US, "parameter 'minMessageCount' should be a positive number and should not be more than maxMessageCount(%s)", maxMessageCount));
+		}
+
+		if (maxWaitTime == null || maxWaitTime.isNegative() || maxWaitTime.isZero())
+		{
+			throw new IllegalArgumentException("parameter 'maxWaitTime' should be a positive duration");
+		}
+
 		if (this.pendingReceives.isEmpty())
 		{
-			this.scheduleOperationTimer(TimeoutTracker.create(this.receiveTimeout));
+			this.scheduleOperationTimer(TimeoutTracker.create(maxWaitTime));
 		}
 
 		CompletableFuture<Collection<Message>> onReceive = new CompletableFuture<Collection<Message>>();
@@ -305,11 +709,13 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 						createReceiveLink();
 					}
 
-					final List<Message> messages = receiveCore(maxMessageCount);
-					if (messages != null)
-						onReceive.complete(messages);
+					if (prefetchedMessageCount >= minMessageCount)
+						onReceive.complete(receiveCore(maxMessageCount));
 					else
-						pendingReceives.offer(new ReceiveWorkItem(onReceive, receiveTimeout, maxMessageCount));
+					{
+						updateCreditController(0);
+						pendingReceives.offer(new ReceiveWorkItem(onReceive, maxWaitTime, minMessageCount, maxMessageCount));
+					}
 				}
 			});
 		}
@@ -338,7 +744,14 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 			this.underlyingFactory.getRetryPolicy().resetRetryCount(this.underlyingFactory.getClientId());
 
 			this.nextCreditToFlow = 0;
-			this.sendFlow(this.prefetchCount - this.prefetchedMessages.size());
+			if (this.isCreditTargeted())
+			{
+				this.flowTargetCredit();
+			}
+			else
+			{
+				this.sendFlow(this.prefetchCount - this.prefetchedMessageCount);
+			}
 
 			if(TRACE_LOGGER.isLoggable(Level.FINE))
 			{
@@ -361,29 +774,42 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	@Override
 	public void onReceiveComplete(Delivery delivery)
 	{
-		Message message = null;
-		
-		int msgSize = delivery.pending();
-		byte[] buffer = new byte[msgSize];
-		
-		int read = receiveLink.recv(buffer, 0, msgSize);
-		
-		message = Proton.message();
-		message.decode(buffer, 0, read);
+		final int messageSize = delivery.pending();
+		final Message message = this.receiveBuffer.readMessage(this.receiveLink, messageSize);
 		
 		delivery.settle();
 
+		final IMessageFilter filter = this.messageFilter;
+		if (filter != null && !this.isAccepted(filter, message))
+		{
+			this.onMessageFiltered(message);
+			this.underlyingFactory.getRetryPolicy().resetRetryCount(this.getClientId());
+			return;
+		}
+
 		this.prefetchedMessages.add(message);
+		// a prefetched message is past any filtered one
+		this.hasFilteredPosition = false;
+		this.onMessagePrefetched(messageSize);
+		this.updateCreditController(0);
+		if (this.isCreditTargeted())
+		{
+			this.flowTargetCredit();
+		}
 		this.underlyingFactory.getRetryPolicy().resetRetryCount(this.getClientId());
 		
-		final ReceiveWorkItem currentReceive = this.pendingReceives.poll();
-		if (currentReceive != null && !currentReceive.getWork().isDone())
+		// a receive waiting for a larger batch stays pending - till enough messages are prefetched or its maxWaitTime passes
+		final ReceiveWorkItem currentReceive = this.pendingReceives.peek();
+		if (currentReceive != null && this.prefetchedMessageCount >= currentReceive.minMessageCount
+				&& this.pendingReceives.remove(currentReceive) && !currentReceive.getWork().isDone())
 		{
-			List<Message> messages = this.receiveCore(currentReceive.maxMessageCount);
+			final ReadOnlyBatch<Message> messages = this.receiveCore(currentReceive.maxMessageCount);
 
 			CompletableFuture<Collection<Message>> future = currentReceive.getWork();
 			future.complete(messages);
 		}
+
+		this.dispatchPush(false);
 	}
 
 	public void onError(ErrorCondition error)
@@ -396,10 +822,20 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 	public void onError(Exception exception)
 	{
 		this.prefetchedMessages.clear();
+		this.prefetchedMessageCount = 0;
+		this.prefetchedMessageSizesHead = 0;
+		this.prefetchedBytes = 0;
+		this.hasFilteredPosition = false;
 
 		if (this.getIsClosingOrClosed())
 		{
+			if (this.receiveLink != null)
+			{
+				this.underlyingFactory.deregisterForConnectionError(this.receiveLink);
+			}
+
 			this.linkClose.complete(null);
+			this.removeReceiveHandler();
 			
 			WorkItem<Collection<Message>> workItem = null;
 			final boolean isTransientException = exception == null ||
@@ -430,6 +866,12 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 				{
 					ExceptionUtil.completeExceptionally(workItem.getWork(), exception, this);
 				}
+
+				if (this.receivePump != null)
+				{
+					this.pendingPushError = exception;
+					this.dispatchPush(false);
+				}
 			}
 			else
 			{
@@ -463,6 +905,28 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		}
 	}
 
+	private void completeLingeringReceive(final ReceiveWorkItem workItem)
+	{
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					if (!workItem.getWork().isDone())
+					{
+						workItem.getWork().complete(MessageReceiver.this.receiveCore(workItem.maxMessageCount));
+					}
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			workItem.getWork().complete(null);
+		}
+	}
+
 	private void scheduleOperationTimer(TimeoutTracker tracker)
 	{
 		if (tracker != null)
@@ -471,6 +935,24 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		}
 	}
 
+	@Override
+	public Link getRecoverableLink()
+	{
+		// a receiver whose first open didn't succeed was never handed out
+		if (this.getIsClosingOrClosed() || this.linkOpen == null || !this.linkOpen.getWork().isDone() || this.linkOpen.getWork().isCompletedExceptionally())
+		{
+			return null;
+		}
+
+		return this.receiveLink;
+	}
+
+	@Override
+	public void recreateLink()
+	{
+		this.createReceiveLink();
+	}
+
 	private void createReceiveLink()
 	{	
 		Connection connection = this.underlyingFactory.getConnection();
@@ -479,7 +961,8 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		source.setAddress(receivePath);
 
 		UnknownDescribedType filter = null;
-		if (this.lastReceivedOffset == null)
+		final String offset = this.isMessageReceived ? Long.toString(this.lastReceivedOffset) : this.startingOffset;
+		if (offset == null)
 		{
 			long totalMilliSeconds;
 			try
@@ -503,20 +986,20 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		{
 			if(TRACE_LOGGER.isLoggable(Level.FINE))
 			{
-				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], action[recreateReceiveLink], offset[%s], offsetInclusive[%s]", this.receivePath, this.lastReceivedOffset, this.offsetInclusive));
+				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], action[recreateReceiveLink], offset[%s], offsetInclusive[%s]", this.receivePath, offset, this.offsetInclusive));
 			}
 
 			filter =  new UnknownDescribedType(AmqpConstants.STRING_FILTER,
-					String.format(AmqpConstants.AMQP_ANNOTATION_FORMAT, AmqpConstants.OFFSET_ANNOTATION_NAME, this.offsetInclusive ? "=" : StringUtil.EMPTY, this.lastReceivedOffset));
+					String.format(AmqpConstants.AMQP_ANNOTATION_FORMAT, AmqpConstants.OFFSET_ANNOTATION_NAME, this.offsetInclusive ? "=" : StringUtil.EMPTY, offset));
 		}
 
 		final Map<Symbol, UnknownDescribedType> filterMap = Collections.singletonMap(AmqpConstants.STRING_FILTER, filter);
 		source.setFilter(filterMap);
 
-		final Session session = connection.session();
-		session.setIncomingCapacity(Integer.MAX_VALUE);
-		session.open();
-		BaseHandler.setHandler(session, new SessionHandler(this.receivePath));
+		// a byte budget needs a session of its own - its incoming window can't be shared with other links
+		final int budget = this.prefetchBytes;
+		final Session session = this.underlyingFactory.getSession(this.receivePath, budget);
+		this.isSessionDedicated = budget > 0 || this.underlyingFactory.getMaxSessionsPerConnection() <= 0;
 
 		final String receiveLinkNamePrefix = StringUtil.getRandomString();
 		final String receiveLinkName = !StringUtil.isNullOrEmpty(connection.getRemoteContainer()) ? 
@@ -556,14 +1039,402 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		final Message message = this.prefetchedMessages.poll();
 		if (message != null)
 		{
-			// message lastReceivedOffset should be up-to-date upon each poll - as recreateLink will depend on this 
-			this.lastReceivedOffset = message.getMessageAnnotations().getValue().get(AmqpConstants.OFFSET).toString();
-			this.sendFlow(1);
+			this.onPrefetchedMessagePolled();
+			if (this.isCreditTargeted())
+			{
+				this.flowTargetCredit();
+			}
+			else
+			{
+				this.sendFlow(1);
+			}
 		}
 
 		return message;
 	}
 
+	private void onMessagePrefetched(final int messageSize)
+	{
+		if (this.prefetchedMessageCount == this.prefetchedMessageSizes.length)
+		{
+			// grow the ring - unwrapping it, so that the head moves to index 0
+			final int[] messageSizes = new int[this.prefetchedMessageSizes.length * 2];
+			final int headLength = this.prefetchedMessageSizes.length - this.prefetchedMessageSizesHead;
+			System.arraycopy(this.prefetchedMessageSizes, this.prefetchedMessageSizesHead, messageSizes, 0, headLength);
+			System.arraycopy(this.prefetchedMessageSizes, 0, messageSizes, headLength, this.prefetchedMessageSizesHead);
+			this.prefetchedMessageSizes = messageSizes;
+			this.prefetchedMessageSizesHead = 0;
+		}
+
+		this.prefetchedMessageSizes[(this.prefetchedMessageSizesHead + this.prefetchedMessageCount) & (this.prefetchedMessageSizes.length - 1)] = messageSize;
+		this.prefetchedMessageCount++;
+		this.prefetchedBytes += messageSize;
+
+		// moving average, weighing the latest message by 1/8
+		this.averageMessageSize = Math.max(1, this.averageMessageSize + ((messageSize - this.averageMessageSize) >> 3));
+	}
+
+	private void onPrefetchedMessagePolled()
+	{
+		this.prefetchedBytes -= this.prefetchedMessageSizes[this.prefetchedMessageSizesHead];
+		this.prefetchedMessageSizesHead = (this.prefetchedMessageSizesHead + 1) & (this.prefetchedMessageSizes.length - 1);
+		this.prefetchedMessageCount--;
+	}
+
+	// hand the next batch - or the error which stops the pump - to the receive handler, unless the previous one is still being handled
+	private void dispatchPush(final boolean isIdle)
+	{
+		if (this.isPushDispatchInFlight)
+		{
+			return;
+		}
+
+		final PushReceivePump stoppedPump = this.stoppedPumps.poll();
+		if (stoppedPump != null)
+		{
+			this.executePush(stoppedPump, null, new OperationCancelledException(
+					"The receive handler was stopped - it was removed or replaced, or the receiver was closed."));
+			return;
+		}
+
+		final PushReceivePump pump = this.receivePump;
+		if (pump == null)
+		{
+			return;
+		}
+
+		final Exception error = this.pendingPushError;
+		final ReadOnlyBatch<Message> messages;
+		if (error != null)
+		{
+			this.pendingPushError = null;
+			messages = null;
+		}
+		else
+		{
+			final int minMessageCount = pump.handler.getMinMessageCount();
+			if (!isIdle && minMessageCount > 1 && this.prefetchedMessageCount < minMessageCount
+					&& System.nanoTime() - pump.lastDispatchNanos < pump.handler.getMaxWaitTime().toNanos())
+			{
+				// linger - for a larger batch
+				return;
+			}
+
+			int maxMessageCount = pump.handler.getMaxMessageCount();
+			if (pump.isDemandDriven)
+			{
+				if (this.subscriberDemand <= 0)
+				{
+					return;
+				}
+
+				maxMessageCount = (int) Math.min(maxMessageCount, this.subscriberDemand);
+				// the batch is taken out of the demand before it is polled - or, each poll would top up the credit for the messages being handed over
+				this.subscriberDemand -= maxMessageCount;
+			}
+
+			messages = this.receiveCore(maxMessageCount);
+			if (pump.isDemandDriven)
+			{
+				this.subscriberDemand += maxMessageCount - (messages != null ? messages.size() : 0);
+				this.flowTargetCredit();
+			}
+
+			if (messages == null && (!isIdle || pump.isDemandDriven))
+			{
+				return;
+			}
+		}
+
+		this.executePush(pump, messages, error);
+	}
+
+	private void executePush(final PushReceivePump pump, final ReadOnlyBatch<Message> messages, final Exception error)
+	{
+		this.isPushDispatchInFlight = true;
+		pump.lastDispatchNanos = System.nanoTime();
+		try
+		{
+			pump.executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					MessageReceiver.this.runPush(pump, messages, error);
+				}
+			});
+		}
+		catch (RejectedExecutionException rejectedException)
+		{
+			this.isPushDispatchInFlight = false;
+			this.stopReceivePump(pump);
+
+			if (TRACE_LOGGER.isLoggable(Level.WARNING))
+			{
+				TRACE_LOGGER.log(Level.WARNING, String.format(Locale.US, "receiverPath[%s], linkname[%s], receive pump stopped - executor rejected the batch: %s",
+						this.receivePath, this.receiveLink.getName(), rejectedException.toString()));
+			}
+
+			pump.handler.onError(rejectedException);
+		}
+	}
+
+	// runs on the executor of the pump
+	private void runPush(final PushReceivePump pump, final ReadOnlyBatch<Message> messages, final Exception error)
+	{
+		try
+		{
+			if (error != null)
+			{
+				this.stopReceivePump(pump);
+				pump.handler.onError(error);
+			}
+			else
+			{
+				pump.handler.onReceive(messages);
+			}
+		}
+		catch (Throwable userCodeError)
+		{
+			this.stopReceivePump(pump);
+			if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+			{
+				TRACE_LOGGER.log(Level.SEVERE, String.format(Locale.US, "receiverPath[%s], receive pump stopped after user exception %s", this.receivePath, userCodeError.toString()));
+			}
+
+			if (error == null)
+			{
+				pump.handler.onError(userCodeError);
+			}
+		}
+		finally
+		{
+			this.isPushDispatchInFlight = false;
+
+			// messages which arrived while the handler was running are dispatched from here - the reactor thread skipped them
+			if ((this.receivePump != null && (!this.prefetchedMessages.isEmpty() || this.pendingPushError != null)) || !this.stoppedPumps.isEmpty())
+			{
+				try
+				{
+					this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+					{
+						@Override
+						public void onEvent()
+						{
+							MessageReceiver.this.dispatchPush(false);
+						}
+					});
+				}
+				catch (IOException ignore)
+				{
+				}
+			}
+		}
+	}
+
+	private void stopReceivePump(final PushReceivePump pump)
+	{
+		synchronized (this.receivePumpSync)
+		{
+			if (this.receivePump != pump)
+			{
+				return;
+			}
+
+			this.receivePump = null;
+		}
+
+		this.onReceivePumpStopped(pump, false);
+	}
+
+	// the demand of a demand driven pump goes away with it - and the credit goes back to what the next mode issues;
+	// a demand driven handler stopped by the receiver (and not by its own error) is told so - or, a subscriber would wait forever
+	private void onReceivePumpStopped(final PushReceivePump pump, final boolean isStoppedByReceiver)
+	{
+		if (pump == null || !pump.isDemandDriven)
+		{
+			return;
+		}
+
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					final PushReceivePump currentPump = MessageReceiver.this.receivePump;
+					if (currentPump == null || !currentPump.isDemandDriven)
+					{
+						MessageReceiver.this.subscriberDemand = 0;
+						MessageReceiver.this.resumeFlow();
+					}
+
+					if (isStoppedByReceiver)
+					{
+						MessageReceiver.this.stoppedPumps.offer(pump);
+						MessageReceiver.this.dispatchPush(false);
+					}
+				}
+			});
+		}
+		catch (IOException ignore)
+		{
+		}
+	}
+
+	// hands the lingering batch to the handler once its maxWaitTime passes, or a null batch if nothing was received for the receiveTimeout
+	// - and re-creates the link if it was closed, the way a receive call would
+	private void schedulePushIdleCheck(final PushReceivePump pump, final long delayMillis)
+	{
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread((int) Math.max(1, delayMillis), new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					if (MessageReceiver.this.receivePump != pump)
+					{
+						return;
+					}
+
+					if (receiveLink.getLocalState() == EndpointState.CLOSED || receiveLink.getRemoteState() == EndpointState.CLOSED)
+					{
+						createReceiveLink();
+					}
+
+					final long receiveTimeoutMillis = MessageReceiver.this.receiveTimeout.toMillis();
+					final long checkIntervalMillis = MessageReceiver.this.getPushIdleCheckIntervalMillis(pump);
+					final long idleMillis = (System.nanoTime() - pump.lastDispatchNanos) / 1000000;
+					if (idleMillis >= checkIntervalMillis)
+					{
+						MessageReceiver.this.dispatchPush(idleMillis >= receiveTimeoutMillis);
+					}
+
+					final long remainingMillis = checkIntervalMillis - (System.nanoTime() - pump.lastDispatchNanos) / 1000000;
+					MessageReceiver.this.schedulePushIdleCheck(pump, remainingMillis > 0 ? remainingMillis : checkIntervalMillis);
+				}
+			});
+		}
+		catch (IOException ignore)
+		{
+		}
+	}
+
+	// a lingering batch is due after maxWaitTime - sooner than the receiveTimeout, usually
+	private long getPushIdleCheckIntervalMillis(final PushReceivePump pump)
+	{
+		final long receiveTimeoutMillis = this.receiveTimeout.toMillis();
+		return pump.handler.getMinMessageCount() > 1
+				? Math.min(receiveTimeoutMillis, pump.handler.getMaxWaitTime().toMillis())
+				: receiveTimeoutMillis;
+	}
+
+	private boolean isCreditTargeted()
+	{
+		final PushReceivePump pump = this.receivePump;
+		return this.prefetchBytes > 0 || this.creditController != null || (pump != null && pump.isDemandDriven);
+	}
+
+	// keep enough link credit outstanding to fill up the effective prefetch count - and the part of the byte budget which is not taken by the prefetched messages
+	private void flowTargetCredit()
+	{
+		final AdaptiveCreditController controller = this.creditController;
+		final int effectivePrefetchCount = controller != null ? Math.min(this.prefetchCount, controller.getEffectivePrefetchCount()) : this.prefetchCount;
+		int creditLimit = effectivePrefetchCount - this.prefetchedMessageCount;
+		final PushReceivePump pump = this.receivePump;
+		if (pump != null && pump.isDemandDriven)
+		{
+			// no credit beyond what the subscriber requested - the prefetched messages are already on their way to it
+			creditLimit = (int) Math.min(creditLimit, this.subscriberDemand - this.prefetchedMessageCount);
+		}
+
+		int targetCredit = creditLimit;
+		if (this.prefetchBytes > 0)
+		{
+			final long unusedBudget = Math.max(0, this.prefetchBytes - this.prefetchedBytes);
+			targetCredit = (int) Math.min(creditLimit, unusedBudget / this.averageMessageSize);
+			if (targetCredit <= 0 && this.prefetchedMessageCount == 0 && creditLimit > 0)
+			{
+				// a message larger than the budget should still be received - one at a time
+				targetCredit = 1;
+			}
+		}
+
+		final int currentCredit = this.receiveLink.getCredit();
+		final int creditToFlow = targetCredit - currentCredit;
+		final int flowBatchSize = controller != null ? controller.getFlowBatchSize() : Math.min(100, Math.max(1, targetCredit / 2));
+
+		// slow down sending the flow - to make the protocol less-chat'y
+		if (creditToFlow > 0 && (currentCredit == 0 || creditToFlow >= flowBatchSize))
+		{
+			this.receiveLink.flow(creditToFlow);
+
+			if(TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], linkname[%s], updated-link-credit[%s], sentCredits[%s], prefetchedBytes[%s], averageMessageSize[%s], effectivePrefetchCount[%s]",
+						this.receivePath, this.receiveLink.getName(), this.receiveLink.getCredit(), creditToFlow, this.prefetchedBytes, this.averageMessageSize, effectivePrefetchCount));
+			}
+		}
+	}
+
+	// after switching between static & targeted prefetch
+	private void resumeFlow()
+	{
+		if (this.isCreditTargeted())
+		{
+			this.flowTargetCredit();
+		}
+		else
+		{
+			// back to count based prefetch - top up the credit to the prefetchCount
+			this.nextCreditToFlow = 0;
+			final int creditToFlow = this.prefetchCount - this.prefetchedMessageCount - this.receiveLink.getCredit();
+			if (creditToFlow > 0)
+			{
+				this.receiveLink.flow(creditToFlow);
+			}
+		}
+	}
+
+	private void updateCreditController(final int drainedMessageCount)
+	{
+		final AdaptiveCreditController controller = this.creditController;
+		if (controller == null)
+		{
+			return;
+		}
+
+		if (drainedMessageCount > 0)
+		{
+			controller.onMessagesDrained(drainedMessageCount);
+		}
+
+		if (controller.update(this.prefetchedMessageCount, this.receiveLink.getCredit(), System.nanoTime()))
+		{
+			if(TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, String.format("receiverPath[%s], linkname[%s], effectivePrefetchCount[%s], flowBatchSize[%s], drainRate[%s], emptyQueueRatio[%s]",
+						this.receivePath, this.receiveLink.getName(), controller.getEffectivePrefetchCount(), controller.getFlowBatchSize(), controller.getDrainRate(), controller.getEmptyQueueRatio()));
+			}
+
+			this.flowTargetCredit();
+		}
+	}
+
+	// a pooled session keeps the budget of the factory - the new budget applies to it once the link is re-created on a session of its own
+	private void setSessionIncomingCapacity()
+	{
+		if (this.receiveLink == null || !this.isSessionDedicated)
+		{
+			return;
+		}
+
+		final int budget = this.prefetchBytes;
+		SessionPool.setIncomingBytes(this.receiveLink.getSession(), budget > 0 ? budget : this.underlyingFactory.getSessionIncomingBytes());
+	}
+
 	private void sendFlow(final int credits)
 	{
 		// slow down sending the flow - to make the protocol less-chat'y
@@ -661,7 +1532,7 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 		ReceiverContext errorContext = new ReceiverContext(this.underlyingFactory != null ? this.underlyingFactory.getHostName() : null,
 				this.receivePath,
 				referenceId,
-				(isLinkOpened && this.lastReceivedOffset != null) ? Long.parseLong(this.lastReceivedOffset) : null, 
+				(isLinkOpened && this.isMessageReceived) ? this.lastReceivedOffset : null, 
 						isLinkOpened ? this.prefetchCount : null, 
 								isLinkOpened && this.receiveLink != null ? this.receiveLink.getCredit(): null, 
 										isLinkOpened && this.prefetchedMessages != null ? this.prefetchedMessages.size(): null, 
@@ -672,11 +1543,13 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 
 	private static class ReceiveWorkItem extends WorkItem<Collection<Message>>
 	{
+		private final int minMessageCount;
 		private final int maxMessageCount;
 
-		public ReceiveWorkItem(CompletableFuture<Collection<Message>> completableFuture, Duration timeout, final int maxMessageCount)
+		public ReceiveWorkItem(CompletableFuture<Collection<Message>> completableFuture, Duration timeout, final int minMessageCount, final int maxMessageCount)
 		{
 			super(completableFuture, timeout);
+			this.minMessageCount = minMessageCount;
 			this.maxMessageCount = maxMessageCount;
 		}
 	}
@@ -699,4 +1572,21 @@ public class MessageReceiver extends ClientEntity implements IAmqpReceiver, IErr
 
 		return this.linkClose;
 	}
+
+	private static final class PushReceivePump
+	{
+		final IMessageReceiveHandler handler;
+		final Executor executor;
+		final boolean isDemandDriven;
+		// set before the pump is published - so that a message arriving ahead of the start of the pump lingers as well; then accessed only on the Reactor thread
+		long lastDispatchNanos;
+
+		PushReceivePump(final IMessageReceiveHandler handler, final Executor executor, final boolean isDemandDriven)
+		{
+			this.handler = handler;
+			this.executor = executor;
+			this.isDemandDriven = isDemandDriven;
+			this.lastDispatchNanos = System.nanoTime();
+		}
+	}
 }
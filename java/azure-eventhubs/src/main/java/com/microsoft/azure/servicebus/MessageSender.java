@@ -9,20 +9,18 @@ import java.nio.BufferOverflowException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.UUID;
-import java.util.PriorityQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.concurrent.ScheduledFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
@@ -40,6 +38,7 @@ import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Sender;
 import org.apache.qpid.proton.engine.Session;
 import org.apache.qpid.proton.engine.impl.DeliveryImpl;
@@ -49,30 +48,43 @@ import com.microsoft.azure.servicebus.amqp.AmqpConstants;
 import com.microsoft.azure.servicebus.amqp.DispatchHandler;
 import com.microsoft.azure.servicebus.amqp.IAmqpSender;
 import com.microsoft.azure.servicebus.amqp.SendLinkHandler;
-import com.microsoft.azure.servicebus.amqp.SessionHandler;
 
 /**
  * Abstracts all amqp related details
  * translates event-driven reactor model into async send Api
  */
-public class MessageSender extends ClientEntity implements IAmqpSender, IErrorContextProvider
+public class MessageSender extends ClientEntity implements IAmqpSender, IErrorContextProvider, IRecoverableLink
 {
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 	private static final String SEND_TIMED_OUT = "Send operation timed out";
+	// delivery tags are a per-sender sequence number, encoded as an 8 byte big-endian long
+	private static final int DELIVERY_TAG_SIZE = 8;
 
 	private final MessagingFactory underlyingFactory;
 	private final String sendPath;
+	private final SendMode sendMode;
 	private final Duration operationTimeout;
 	private final RetryPolicy retryPolicy;
 	private final CompletableFuture<Void> linkClose;
-	private final Object pendingSendLock;
-	private final ConcurrentHashMap<String, ReplayableWorkItem<Void>> pendingSendsData;
-	private final PriorityQueue<WeightedDeliveryTag> pendingSends;
+	// sends waiting for link credit - retries are always drained ahead of new sends
+	private final PendingSendQueue<ReplayableWorkItem<Void>> pendingSends;
+	// sends delivered on the link & waiting for ack, keyed by their delivery tag - accessed only on the Reactor thread
+	private final LongHashMap<ReplayableWorkItem<Void>> pendingSendsData;
 	private final DispatchHandler sendWork;
+	private final ByteArrayPool bufferPool;
+	// in-flight window: sends which are accepted by this sender & are not yet complete
+	private final AtomicInteger inFlightSends;
+	private final AtomicLong inFlightBytes;
+	private final Object inFlightCapacitySync;
 
 	private Sender sendLink;
 	private CompletableFuture<MessageSender> linkFirstOpen; 
-	private int linkCredit;
+	private volatile int linkCredit;
+	private long nextDeliveryTag;
+	private volatile int maxInFlightSends;
+	private volatile long maxInFlightBytes;
+	private volatile int inFlightCapacityWaiters;
+	private volatile boolean coalesceSends;
 	private TimeoutTracker openLinkTracker;
 	private Exception lastKnownLinkError;
 	private Instant lastKnownErrorReportedAt;
@@ -82,7 +94,16 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			final String sendLinkName,
 			final String senderPath)
 	{
-		final MessageSender msgSender = new MessageSender(factory, sendLinkName, senderPath);
+		return MessageSender.create(factory, sendLinkName, senderPath, SendMode.AtLeastOnce);
+	}
+
+	public static CompletableFuture<MessageSender> create(
+			final MessagingFactory factory,
+			final String sendLinkName,
+			final String senderPath,
+			final SendMode sendMode)
+	{
+		final MessageSender msgSender = new MessageSender(factory, sendLinkName, senderPath, sendMode);
 		msgSender.openLinkTracker = TimeoutTracker.create(factory.getOperationTimeout());
 		msgSender.initializeLinkOpen(msgSender.openLinkTracker);
 		
@@ -105,11 +126,12 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		return msgSender.linkFirstOpen;
 	}
 
-	private MessageSender(final MessagingFactory factory, final String sendLinkName, final String senderPath)
+	private MessageSender(final MessagingFactory factory, final String sendLinkName, final String senderPath, final SendMode sendMode)
 	{
 		super(sendLinkName, factory);
 
 		this.sendPath = senderPath;
+		this.sendMode = sendMode == null ? SendMode.AtLeastOnce : sendMode;
 		this.underlyingFactory = factory;
 		this.operationTimeout = factory.getOperationTimeout();
 		
@@ -117,12 +139,16 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		this.lastKnownErrorReportedAt = Instant.EPOCH;
 		
 		this.retryPolicy = factory.getRetryPolicy();
+		this.bufferPool = factory.getSendBufferPool();
 
-		this.pendingSendLock = new Object();
-		this.pendingSendsData = new ConcurrentHashMap<String, ReplayableWorkItem<Void>>();
-		this.pendingSends = new PriorityQueue<WeightedDeliveryTag>(1000, new DeliveryTagComparator());
+		this.pendingSends = new PendingSendQueue<ReplayableWorkItem<Void>>();
+		this.pendingSendsData = new LongHashMap<ReplayableWorkItem<Void>>();
 		this.linkCredit = 0;
 
+		this.inFlightSends = new AtomicInteger();
+		this.inFlightBytes = new AtomicLong();
+		this.inFlightCapacitySync = new Object();
+
 		this.linkClose = new CompletableFuture<Void>();
 		
 		this.sendWork = new DispatchHandler()
@@ -140,18 +166,263 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		return this.sendPath;
 	}
 
-	private CompletableFuture<Void> send(byte[] bytes, int arrayOffset, int messageFormat)
+	public SendMode getSendMode()
+	{
+		return this.sendMode;
+	}
+
+	public int getMaxInFlightSends()
+	{
+		return this.maxInFlightSends;
+	}
+
+	/**
+	 * @param value maximum number of sends which can be in-flight (accepted by this sender and not yet complete). 0 - the default - means unbounded.
+	 */
+	public void setMaxInFlightSends(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("maxInFlightSends should be non-negative");
+		}
+
+		this.maxInFlightSends = value;
+		this.signalInFlightCapacity();
+	}
+
+	public long getMaxInFlightBytes()
+	{
+		return this.maxInFlightBytes;
+	}
+
+	/**
+	 * @param value maximum number of encoded message bytes which can be in-flight. 0 - the default - means unbounded.
+	 * A single message larger than this value is still sent - when nothing else is in-flight.
+	 */
+	public void setMaxInFlightBytes(final long value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("maxInFlightBytes should be non-negative");
+		}
+
+		this.maxInFlightBytes = value;
+		this.signalInFlightCapacity();
+	}
+
+	public boolean isSendCoalescingEnabled()
+	{
+		return this.coalesceSends;
+	}
+
+	/**
+	 * When enabled, single message sends which are queued up on this sender (ex: waiting for link credit) are merged,
+	 * at the time they are sent on the link, into one {@link AmqpConstants#AMQP_BATCH_MESSAGE_FORMAT} delivery - which costs a single link credit and a single acknowledgement.
+	 * Only sends with the same message annotations (ex: the same partitionKey, or none) are merged, up to the maximum message size.
+	 * The future of each send still completes individually - with the outcome of the batch delivery.
+	 * Sends are never delayed to wait for others to coalesce with. Disabled by default.
+	 */
+	public void setSendCoalescingEnabled(final boolean value)
+	{
+		this.coalesceSends = value;
+	}
+
+	/**
+	 * @return number of sends accepted by this sender and not yet complete - including those waiting for link credit
+	 */
+	public int getInFlightSendCount()
+	{
+		return this.inFlightSends.get();
+	}
+
+	public long getInFlightBytes()
+	{
+		return this.inFlightBytes.get();
+	}
+
+	/**
+	 * @return link credit available to send - as last known on the Reactor thread
+	 */
+	public int getLinkCredit()
+	{
+		return this.linkCredit;
+	}
+
+	/**
+	 * @param messageAnnotations annotations of the single message being sent - null for a batch
+	 * @param messagePool pool to which bytes are returned once the send is complete - null if the buffer is owned by the caller
+	 */
+	private CompletableFuture<Void> send(
+			final byte[] bytes,
+			final int arrayOffset,
+			final int messageFormat,
+			final MessageAnnotations messageAnnotations,
+			final ByteArrayPool messagePool,
+			final WindowFullAction windowFullAction)
+	{
+		if (!this.acquireInFlightCapacity(arrayOffset, windowFullAction))
+		{
+			if (messagePool != null)
+			{
+				messagePool.release(bytes);
+			}
+
+			return windowFullAction == WindowFullAction.SkipSend ? null : this.windowFullFailure(windowFullAction);
+		}
+
+		final CompletableFuture<Void> onSend;
+		try
+		{
+			onSend = this.send(bytes, arrayOffset, messageFormat, messageAnnotations, messagePool, null, null);
+		}
+		catch (RuntimeException exception)
+		{
+			if (messagePool != null)
+			{
+				messagePool.release(bytes);
+			}
+
+			this.releaseInFlightCapacity(arrayOffset);
+			throw exception;
+		}
+
+		onSend.whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void result, Throwable failure)
+			{
+				MessageSender.this.releaseInFlightCapacity(arrayOffset);
+			}
+		});
+
+		return onSend;
+	}
+
+	private boolean acquireInFlightCapacity(final int messageSize, final WindowFullAction windowFullAction)
+	{
+		if (this.tryAcquireInFlightCapacity(messageSize))
+		{
+			return true;
+		}
+
+		if (windowFullAction != WindowFullAction.WaitForCapacity)
+		{
+			return false;
+		}
+
+		final TimeoutTracker tracker = TimeoutTracker.create(this.operationTimeout);
+		synchronized (this.inFlightCapacitySync)
+		{
+			this.inFlightCapacityWaiters++;
+			try
+			{
+				while (!this.tryAcquireInFlightCapacity(messageSize))
+				{
+					final long remainingMillis = tracker.remaining().toMillis();
+					if (remainingMillis <= 0)
+					{
+						return false;
+					}
+
+					this.inFlightCapacitySync.wait(remainingMillis);
+				}
+
+				return true;
+			}
+			catch (InterruptedException interruptedException)
+			{
+				// Re-assert the thread's interrupted status
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			finally
+			{
+				this.inFlightCapacityWaiters--;
+			}
+		}
+	}
+
+	private boolean tryAcquireInFlightCapacity(final int messageSize)
+	{
+		final int maxSends = this.maxInFlightSends;
+		final long maxBytes = this.maxInFlightBytes;
+
+		// a counter is moved only if the send fits in its limit - so that a send which doesn't fit can't make the window look full to others
+		int sends;
+		do
+		{
+			sends = this.inFlightSends.get();
+			if (maxSends > 0 && sends >= maxSends)
+			{
+				return false;
+			}
+		}
+		while (!this.inFlightSends.compareAndSet(sends, sends + 1));
+
+		long bytes;
+		do
+		{
+			bytes = this.inFlightBytes.get();
+			// a message larger than maxInFlightBytes goes through when nothing else is in-flight - otherwise, it could never be sent
+			if (maxBytes > 0 && bytes + messageSize > maxBytes && bytes > 0)
+			{
+				this.inFlightSends.decrementAndGet();
+				this.signalInFlightCapacity();
+				return false;
+			}
+		}
+		while (!this.inFlightBytes.compareAndSet(bytes, bytes + messageSize));
+
+		return true;
+	}
+
+	private void releaseInFlightCapacity(final int messageSize)
 	{
-		return this.send(bytes, arrayOffset, messageFormat, null, null);
+		this.inFlightSends.decrementAndGet();
+		this.inFlightBytes.addAndGet(-messageSize);
+		this.signalInFlightCapacity();
+	}
+
+	private void signalInFlightCapacity()
+	{
+		if (this.inFlightCapacityWaiters > 0)
+		{
+			synchronized (this.inFlightCapacitySync)
+			{
+				this.inFlightCapacitySync.notifyAll();
+			}
+		}
+	}
+
+	private CompletableFuture<Void> windowFullFailure(final WindowFullAction windowFullAction)
+	{
+		final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
+		if (windowFullAction == WindowFullAction.WaitForCapacity && Thread.currentThread().isInterrupted())
+		{
+			sendTask.completeExceptionally(new OperationCancelledException("Send cancelled as the thread was interrupted while waiting for the in-flight sends to complete."));
+		}
+		else if (windowFullAction == WindowFullAction.WaitForCapacity)
+		{
+			sendTask.completeExceptionally(new TimeoutException(String.format(Locale.US, "%s while waiting for the in-flight sends (count: %s, bytes: %s) to complete.",
+					MessageSender.SEND_TIMED_OUT, this.inFlightSends.get(), this.inFlightBytes.get())));
+		}
+		else
+		{
+			sendTask.completeExceptionally(new ServiceBusException(true, String.format(Locale.US, "Send rejected as the in-flight window of the Sender is full (count: %s, bytes: %s). Retry once the in-flight sends complete.",
+					this.inFlightSends.get(), this.inFlightBytes.get())));
+		}
+
+		return sendTask;
 	}
 
 	private CompletableFuture<Void> sendCore(
 			final byte[] bytes,
 			final int arrayOffset,
 			final int messageFormat,
+			final MessageAnnotations messageAnnotations,
+			final ByteArrayPool messagePool,
 			final CompletableFuture<Void> onSend,
 			final TimeoutTracker tracker,
-			final String deliveryTag,
 			final Exception lastKnownError,
 			final ScheduledFuture<?> timeoutTask)
 	{
@@ -163,7 +434,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			{
 				TRACE_LOGGER.log(Level.FINE,
 						String.format(Locale.US, 
-						"path[%s], linkName[%s], deliveryTag[%s] - timed out at sendCore", this.sendPath, this.sendLink.getName(), deliveryTag));
+						"path[%s], linkName[%s] - timed out at sendCore", this.sendPath, this.sendLink.getName()));
 			}
 
 			if (timeoutTask != null)
@@ -171,28 +442,35 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				timeoutTask.cancel(false);
 			}
 			
+			if (messagePool != null)
+			{
+				messagePool.release(bytes);
+			}
+
 			this.throwSenderTimeout(onSend, null);
 			return onSend;
 		}
 
 		final boolean isRetrySend = (onSend != null);
-		final String tag = (deliveryTag == null) ? UUID.randomUUID().toString().replace("-", StringUtil.EMPTY) : deliveryTag;
-		
 		final CompletableFuture<Void> onSendFuture = (onSend == null) ? new CompletableFuture<Void>() : onSend;
 		
 		final ReplayableWorkItem<Void> sendWaiterData = (tracker == null) ?
-				new ReplayableWorkItem<Void>(bytes, arrayOffset, messageFormat, onSendFuture, this.operationTimeout) : 
-				new ReplayableWorkItem<Void>(bytes, arrayOffset, messageFormat, onSendFuture, tracker);
+				new ReplayableWorkItem<Void>(bytes, arrayOffset, messageFormat, onSendFuture, this.operationTimeout, messagePool) : 
+				new ReplayableWorkItem<Void>(bytes, arrayOffset, messageFormat, onSendFuture, tracker, messagePool);
 
+		sendWaiterData.setMessageAnnotations(messageAnnotations);
 		if (lastKnownError != null)
 		{
 			sendWaiterData.setLastKnownException(lastKnownError);
 		}
 
-		synchronized (this.pendingSendLock)
+		if (isRetrySend)
+		{
+			this.pendingSends.offerRetry(sendWaiterData);
+		}
+		else
 		{
-			this.pendingSendsData.put(tag, sendWaiterData);
-			this.pendingSends.offer(new WeightedDeliveryTag(tag, isRetrySend ? 1 : 0));
+			this.pendingSends.offer(sendWaiterData);
 		}
 		
 		try
@@ -212,10 +490,12 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			final byte[] bytes,
 			final int arrayOffset,
 			final int messageFormat,
+			final MessageAnnotations messageAnnotations,
+			final ByteArrayPool messagePool,
 			final CompletableFuture<Void> onSend,
 			final TimeoutTracker tracker)
 	{
-		return this.sendCore(bytes, arrayOffset, messageFormat, onSend, tracker, null, null, null);
+		return this.sendCore(bytes, arrayOffset, messageFormat, messageAnnotations, messagePool, onSend, tracker, null, null);
 	}
 
 	private int getPayloadSize(Message msg)
@@ -287,60 +567,138 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 
 	public CompletableFuture<Void> send(final Iterable<Message> messages)
 	{
-		if (messages == null || IteratorUtil.sizeEquals(messages, 0))
+		return this.send(messages, WindowFullAction.FailSend);
+	}
+
+	/**
+	 * @param waitForCapacity if true and the in-flight window is full, blocks the calling thread until in-flight sends complete - for up to the operation timeout
+	 */
+	public CompletableFuture<Void> send(final Iterable<Message> messages, final boolean waitForCapacity)
+	{
+		return this.send(messages, waitForCapacity ? WindowFullAction.WaitForCapacity : WindowFullAction.FailSend);
+	}
+
+	/**
+	 * Send the batch only if the in-flight window has room for it.
+	 * @return null if the in-flight window is full - in which case nothing is sent
+	 */
+	public CompletableFuture<Void> trySend(final Iterable<Message> messages)
+	{
+		return this.send(messages, WindowFullAction.SkipSend);
+	}
+
+	private CompletableFuture<Void> send(final Iterable<Message> messages, final WindowFullAction windowFullAction)
+	{
+		final Iterator<Message> messageIterator = messages == null ? null : messages.iterator();
+		if (messageIterator == null || !messageIterator.hasNext())
 		{
 			throw new IllegalArgumentException("Sending Empty batch of messages is not allowed.");
 		}
 
-		Message firstMessage = messages.iterator().next();			
-		if (IteratorUtil.sizeEquals(messages, 1))
+		final Message firstMessage = messageIterator.next();
+		if (!messageIterator.hasNext())
 		{
-			return this.send(firstMessage);
+			return this.send(firstMessage, windowFullAction);
 		}
 
-		// proton-j doesn't support multiple dataSections to be part of AmqpMessage
-		// here's the alternate approach provided by them: https://github.com/apache/qpid-proton/pull/54
-		Message batchMessage = Proton.message();
-		batchMessage.setMessageAnnotations(firstMessage.getMessageAnnotations());
+		// single pass: each message is encoded straight into its Data section in the batch buffer
+		final byte[] bytes = this.bufferPool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		final BatchMessageEncoder batchEncoder = new BatchMessageEncoder(bytes, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
 
-		byte[] bytes = new byte[ClientConstants.MAX_MESSAGE_LENGTH_BYTES];
-		int encodedSize = batchMessage.encode(bytes, 0, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
-		int byteArrayOffset = encodedSize;
+		boolean encoded;
+		try
+		{
+			batchEncoder.encodeEnvelope(firstMessage.getMessageAnnotations());
+			encoded = batchEncoder.tryAppend(firstMessage);
+			while (encoded && messageIterator.hasNext())
+			{
+				encoded = batchEncoder.tryAppend(messageIterator.next());
+			}
+		}
+		catch (BufferOverflowException exception)
+		{
+			encoded = false;
+		}
 
-		for(Message amqpMessage: messages)
+		if (!encoded)
 		{
-			Message messageWrappedByData = Proton.message();
+			this.bufferPool.release(bytes);
 
-			int payloadSize = this.getDataSerializedSize(amqpMessage);
-			int allocationSize = Math.min(payloadSize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+			final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
+			sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024)));
+			return sendTask;
+		}
 
-			byte[] messageBytes = new byte[allocationSize];
-			int messageSizeBytes = amqpMessage.encode(messageBytes, 0, allocationSize);
-			messageWrappedByData.setBody(new Data(new Binary(messageBytes, 0, messageSizeBytes)));
+		return this.send(bytes, batchEncoder.getEncodedSize(), AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT, null, this.bufferPool, windowFullAction);
+	}
 
-			try
-			{
-				encodedSize = messageWrappedByData.encode(bytes, byteArrayOffset, ClientConstants.MAX_MESSAGE_LENGTH_BYTES - byteArrayOffset - 1);
-			}
-			catch(BufferOverflowException exception)
-			{
-				final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
-				sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
-				return sendTask;
-			}
+	/**
+	 * Send a batch which is already encoded in {@link AmqpConstants#AMQP_BATCH_MESSAGE_FORMAT} - without re-encoding it.
+	 * The buffer of the batch stays owned by the caller (it is not returned to the send buffer pool), so, the batch can be re-sent;
+	 * but, it should not be modified until the send is complete.
+	 */
+	public CompletableFuture<Void> send(final BatchMessageEncoder encodedBatch)
+	{
+		return this.send(encodedBatch, WindowFullAction.FailSend);
+	}
 
-			byteArrayOffset = byteArrayOffset + encodedSize;
+	/**
+	 * @param waitForCapacity if true and the in-flight window is full, blocks the calling thread until in-flight sends complete - for up to the operation timeout
+	 * @see #send(BatchMessageEncoder)
+	 */
+	public CompletableFuture<Void> send(final BatchMessageEncoder encodedBatch, final boolean waitForCapacity)
+	{
+		return this.send(encodedBatch, waitForCapacity ? WindowFullAction.WaitForCapacity : WindowFullAction.FailSend);
+	}
+
+	/**
+	 * Send the encoded batch only if the in-flight window has room for it.
+	 * @return null if the in-flight window is full - in which case nothing is sent
+	 * @see #send(BatchMessageEncoder)
+	 */
+	public CompletableFuture<Void> trySend(final BatchMessageEncoder encodedBatch)
+	{
+		return this.send(encodedBatch, WindowFullAction.SkipSend);
+	}
+
+	private CompletableFuture<Void> send(final BatchMessageEncoder encodedBatch, final WindowFullAction windowFullAction)
+	{
+		if (encodedBatch == null || encodedBatch.getMessageCount() == 0)
+		{
+			throw new IllegalArgumentException("Sending Empty batch of messages is not allowed.");
 		}
 
-		return this.send(bytes, byteArrayOffset, AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT);
+		return this.send(encodedBatch.getBuffer(), encodedBatch.getEncodedSize(), AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT, null, null, windowFullAction);
 	}
 
 	public CompletableFuture<Void> send(Message msg)
+	{
+		return this.send(msg, WindowFullAction.FailSend);
+	}
+
+	/**
+	 * @param waitForCapacity if true and the in-flight window is full, blocks the calling thread until in-flight sends complete - for up to the operation timeout
+	 */
+	public CompletableFuture<Void> send(final Message msg, final boolean waitForCapacity)
+	{
+		return this.send(msg, waitForCapacity ? WindowFullAction.WaitForCapacity : WindowFullAction.FailSend);
+	}
+
+	/**
+	 * Send the message only if the in-flight window has room for it.
+	 * @return null if the in-flight window is full - in which case nothing is sent
+	 */
+	public CompletableFuture<Void> trySend(final Message msg)
+	{
+		return this.send(msg, WindowFullAction.SkipSend);
+	}
+
+	private CompletableFuture<Void> send(final Message msg, final WindowFullAction windowFullAction)
 	{
 		int payloadSize = this.getDataSerializedSize(msg);
 		int allocationSize = Math.min(payloadSize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
 
-		byte[] bytes = new byte[allocationSize];
+		byte[] bytes = this.bufferPool.borrow(allocationSize);
 		int encodedSize = 0;
 		try
 		{
@@ -348,12 +706,14 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		}
 		catch(BufferOverflowException exception)
 		{
+			this.bufferPool.release(bytes);
+
 			final CompletableFuture<Void> sendTask = new CompletableFuture<Void>();
 			sendTask.completeExceptionally(new PayloadSizeExceededException(String.format("Size of the payload exceeded Maximum message size: %s kb", ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 1024), exception));
 			return sendTask;
 		}
 
-		return this.send(bytes, encodedSize, DeliveryImpl.DEFAULT_MESSAGE_FORMAT);
+		return this.send(bytes, encodedSize, DeliveryImpl.DEFAULT_MESSAGE_FORMAT, msg.getMessageAnnotations(), this.bufferPool, windowFullAction);
 	}
 
 	@Override
@@ -372,28 +732,15 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			}
 			else
 			{
-				synchronized (this.pendingSendLock)
+				// deliveries which were not acknowledged on the previous link are replayed, with new delivery tags, on the new link
+				if (!this.pendingSendsData.isEmpty())
 				{
-					if (!this.pendingSendsData.isEmpty())
+					for (ReplayableWorkItem<Void> unacknowledgedSend: this.pendingSendsData.values())
 					{
-						LinkedList<String> unacknowledgedSends = new LinkedList<String>();
-						unacknowledgedSends.addAll(this.pendingSendsData.keySet());
-		
-						if (unacknowledgedSends.size() > 0)
-						{
-							Iterator<String> reverseReader = unacknowledgedSends.iterator();
-							while (reverseReader.hasNext())
-							{
-								String unacknowledgedSend = reverseReader.next();
-								if (this.pendingSendsData.get(unacknowledgedSend).isWaitingForAck())
-								{
-									this.pendingSends.offer(new WeightedDeliveryTag(unacknowledgedSend, 1));
-								}
-							}
-						}
-	
-						unacknowledgedSends.clear();
+						this.pendingSends.offerRetry(unacknowledgedSend);
 					}
+
+					this.pendingSendsData.clear();
 				}
 			}
 		}
@@ -422,21 +769,15 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		this.linkCredit = 0;
 		if (this.getIsClosingOrClosed())
 		{
-			synchronized (this.pendingSendLock)
+			this.cleanupPendingSends(completionException == null
+					? new OperationCancelledException("Send cancelled as the Sender instance is Closed before the sendOperation completed.")
+					: completionException);
+			
+			if (this.sendLink != null)
 			{
-				for (Map.Entry<String, ReplayableWorkItem<Void>> pendingSend: this.pendingSendsData.entrySet())
-				{
-					ExceptionUtil.completeExceptionally(pendingSend.getValue().getWork(),
-							completionException == null
-								? new OperationCancelledException("Send cancelled as the Sender instance is Closed before the sendOperation completed.")
-								: completionException,
-							this);					
-				}
-	
-				this.pendingSendsData.clear();
-				this.pendingSends.clear();
+				this.underlyingFactory.deregisterForConnectionError(this.sendLink);
 			}
-			
+
 			this.linkClose.complete(null);
 			return;
 		}
@@ -450,23 +791,14 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			if (completionException != null &&
 					(!(completionException instanceof ServiceBusException) || !((ServiceBusException) completionException).getIsTransient()))
 			{
-				synchronized (this.pendingSendLock)
-				{
-					for (Map.Entry<String, ReplayableWorkItem<Void>> pendingSend: this.pendingSendsData.entrySet())
-					{
-						this.cleanupFailedSend(pendingSend.getValue(), completionException);					
-					}
-		
-					this.pendingSendsData.clear();
-					this.pendingSends.clear();
-				}
+				this.cleanupPendingSends(completionException);
 			}
 			else
 			{
-				final Map.Entry<String, ReplayableWorkItem<Void>> pendingSendEntry = IteratorUtil.getFirst(this.pendingSendsData.entrySet());
-				if (pendingSendEntry != null && pendingSendEntry.getValue() != null)
+				final ReplayableWorkItem<Void> pendingSend = this.getFirstPendingSend();
+				if (pendingSend != null)
 				{
-					final TimeoutTracker tracker = pendingSendEntry.getValue().getTimeoutTracker();
+					final TimeoutTracker tracker = pendingSend.getTimeoutTracker();
 					if (tracker != null)
 					{
 						final Duration nextRetryInterval = this.retryPolicy.getNextRetryInterval(this.getClientId(), completionException, tracker.remaining());
@@ -500,13 +832,14 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 	public void onSendComplete(final Delivery delivery)
 	{
 		final DeliveryState outcome = delivery.getRemoteState();
-		final String deliveryTag = new String(delivery.getTag());
+		final byte[] deliveryTagBytes = delivery.getTag();
+		final long deliveryTag = (deliveryTagBytes != null && deliveryTagBytes.length == DELIVERY_TAG_SIZE) ? toDeliveryTag(deliveryTagBytes) : -1;
 
 		if (TRACE_LOGGER.isLoggable(Level.FINEST))
 			TRACE_LOGGER.log(Level.FINEST,
 				String.format(Locale.US, "path[%s], linkName[%s], deliveryTag[%s]", MessageSender.this.sendPath, this.sendLink.getName(), deliveryTag));
 
-		final ReplayableWorkItem<Void> pendingSendWorkItem = this.pendingSendsData.remove(deliveryTag);
+		final ReplayableWorkItem<Void> pendingSendWorkItem = deliveryTag >= 0 ? this.pendingSendsData.remove(deliveryTag) : null;
 
 		if (pendingSendWorkItem != null)
 		{
@@ -516,6 +849,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				this.retryPolicy.resetRetryCount(this.getClientId());
 
 				pendingSendWorkItem.getTimeoutTask().cancel(false);
+				pendingSendWorkItem.releaseMessage();
 				pendingSendWorkItem.getWork().complete(null);
 			}
 			else if (outcome instanceof Rejected)
@@ -547,7 +881,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 									@Override
 									public void onEvent()
 									{
-										MessageSender.this.reSend(deliveryTag, pendingSendWorkItem, false);
+										MessageSender.this.reSend(pendingSendWorkItem);
 									}
 								});
 					}
@@ -577,37 +911,85 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		}
 	}
 
-	private void reSend(final String deliveryTag, final ReplayableWorkItem<Void> pendingSend, boolean reuseDeliveryTag)
+	// a re-sent message is always delivered with a new delivery tag
+	private void reSend(final ReplayableWorkItem<Void> pendingSend)
 	{
 		if (pendingSend != null)
 		{
 			this.sendCore(pendingSend.getMessage(), 
 					pendingSend.getEncodedMessageSize(), 
 					pendingSend.getMessageFormat(),
+					pendingSend.getMessageAnnotations(),
+					pendingSend.getBufferPool(),
 					pendingSend.getWork(),
 					pendingSend.getTimeoutTracker(),
-					reuseDeliveryTag ? deliveryTag : null,
 					pendingSend.getLastKnownException(),
 					pendingSend.getTimeoutTask());
 		}
 	}
 	
+	// runs on the Reactor thread - sends enqueued concurrently by other threads are either failed here or remain intact for processSendWork
+	private void cleanupPendingSends(final Exception exception)
+	{
+		ReplayableWorkItem<Void> pendingSend;
+		while ((pendingSend = this.pendingSends.poll()) != null)
+		{
+			this.cleanupFailedSend(pendingSend, exception);
+		}
+
+		if (!this.pendingSendsData.isEmpty())
+		{
+			for (ReplayableWorkItem<Void> unacknowledgedSend: this.pendingSendsData.values())
+			{
+				this.cleanupFailedSend(unacknowledgedSend, exception);
+			}
+
+			this.pendingSendsData.clear();
+		}
+	}
+
+	private ReplayableWorkItem<Void> getFirstPendingSend()
+	{
+		if (!this.pendingSendsData.isEmpty())
+		{
+			return IteratorUtil.getFirst(this.pendingSendsData.values());
+		}
+
+		return this.pendingSends.peek();
+	}
+
 	private void cleanupFailedSend(final ReplayableWorkItem<Void> failedSend, final Exception exception)
 	{
 		if (failedSend.getTimeoutTask() != null)
 			failedSend.getTimeoutTask().cancel(false);
 		
+		failedSend.releaseMessage();
 		ExceptionUtil.completeExceptionally(failedSend.getWork(), exception, this);
 	}
 
+	@Override
+	public Link getRecoverableLink()
+	{
+		// a sender whose first open didn't succeed was never handed out
+		if (this.getIsClosingOrClosed() || this.linkFirstOpen == null || !this.linkFirstOpen.isDone() || this.linkFirstOpen.isCompletedExceptionally())
+		{
+			return null;
+		}
+
+		return this.sendLink;
+	}
+
+	@Override
+	public void recreateLink()
+	{
+		this.createSendLink();
+	}
+
 	private void createSendLink()
 	{
 		final Connection connection = this.underlyingFactory.getConnection();
 
-		final Session session = connection.session();
-		session.setOutgoingWindow(Integer.MAX_VALUE);
-		session.open();
-		BaseHandler.setHandler(session, new SessionHandler(sendPath));
+		final Session session = this.underlyingFactory.getSession(this.sendPath, 0);
 
 		final String sendLinkNamePrefix = StringUtil.getRandomString();
 		final String sendLinkName = !StringUtil.isNullOrEmpty(connection.getRemoteContainer()) ?
@@ -622,7 +1004,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		final Source source = new Source();
 		sender.setSource(source);
 
-		sender.setSenderSettleMode(SenderSettleMode.UNSETTLED);
+		sender.setSenderSettleMode(this.sendMode == SendMode.AtMostOnce ? SenderSettleMode.SETTLED : SenderSettleMode.UNSETTLED);
 
 		SendLinkHandler handler = new SendLinkHandler(MessageSender.this);
 		BaseHandler.setHandler(sender, handler);
@@ -699,7 +1081,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 		{
 			int numberOfSendsWaitingforCredit = this.pendingSends.size();
 			TRACE_LOGGER.log(Level.FINE, String.format(Locale.US, "path[%s], linkName[%s], remoteLinkCredit[%s], pendingSendsWaitingForCredit[%s], pendingSendsWaitingDelivery[%s]",
-					this.sendPath, this.sendLink.getName(), creditIssued, numberOfSendsWaitingforCredit, this.pendingSendsData.size() - numberOfSendsWaitingforCredit));
+					this.sendPath, this.sendLink.getName(), creditIssued, numberOfSendsWaitingforCredit, this.pendingSendsData.size()));
 		}
 
 		this.linkCredit = this.linkCredit + creditIssued;
@@ -727,26 +1109,24 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				&& sendLinkCurrent.getLocalState() == EndpointState.ACTIVE && sendLinkCurrent.getRemoteState() == EndpointState.ACTIVE
 				&& this.linkCredit > 0)
 		{
-			final WeightedDeliveryTag deliveryTag;
-			final ReplayableWorkItem<Void> sendData;
-			synchronized (this.pendingSendLock)
-			{
-				deliveryTag = this.pendingSends.poll();
-				sendData = deliveryTag != null 
-						? this.pendingSendsData.get(deliveryTag.getDeliveryTag())
-						: null;
-			}
+			final ReplayableWorkItem<Void> retrySendData = this.pendingSends.pollRetry();
+			final ReplayableWorkItem<Void> queuedSendData = retrySendData != null ? retrySendData : this.pendingSends.pollNew();
 			
-			if (sendData != null)
+			if (queuedSendData != null)
 			{
-				if (sendData.getWork() != null && sendData.getWork().isDone())
+				if (queuedSendData.getWork() != null && queuedSendData.getWork().isDone())
 				{
 					// CoreSend could enque Sends into PendingSends Queue and can fail the SendCompletableFuture
 					// (when It fails to schedule the ProcessSendWork on reactor Thread)
-					this.pendingSendsData.remove(sendData);
+					queuedSendData.releaseMessage();
 					continue;
 				}
 				
+				final ReplayableWorkItem<Void> sendData = (this.coalesceSends && retrySendData == null)
+						? this.coalescePendingSends(queuedSendData)
+						: queuedSendData;
+				
+				final long deliveryTag = this.nextDeliveryTag++;
 				Delivery delivery = null;
 				boolean linkAdvance = false;
 				int sentMsgSize = 0;
@@ -754,7 +1134,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 				
 				try
 				{
-					delivery = sendLinkCurrent.delivery(deliveryTag.getDeliveryTag().getBytes());
+					delivery = sendLinkCurrent.delivery(toDeliveryTagBytes(deliveryTag));
 					delivery.setMessageFormat(sendData.getMessageFormat());
 					
 					sentMsgSize = sendLinkCurrent.send(sendData.getMessage(), 0, sendData.getEncodedMessageSize());
@@ -767,19 +1147,31 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 					sendException = exception;
 				}
 				
-				if (linkAdvance)
+				if (linkAdvance && this.sendMode == SendMode.AtMostOnce)
 				{
+					// pre-settled: there will be no disposition from the service - so, the send is complete once the message is with the transport
 					this.linkCredit--;
+					delivery.settle();
+
+					sendData.releaseMessage();
+					sendData.getWork().complete(null);
+				}
+				else if (linkAdvance)
+				{
+					this.linkCredit--;
+					this.pendingSendsData.put(deliveryTag, sendData);
 					
 					ScheduledFuture<?> timeoutTask = Timer.schedule(new Runnable()
 					{
 						@Override
 						public void run()
 						{
+							// the encoded message is not returned to the bufferPool here, as this runs outside the Reactor thread
+							// and could race with a re-send of the same message - it is left to the GC instead
 							if (!sendData.getWork().isDone())
 							{
-								MessageSender.this.pendingSendsData.remove(deliveryTag);
 								MessageSender.this.throwSenderTimeout(sendData.getWork(), sendData.getLastKnownException());
+								MessageSender.this.removePendingSendOnReactorThread(deliveryTag);
 							}
 						}
 					}, this.operationTimeout, TimerType.OneTimeRun);
@@ -801,6 +1193,7 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 						delivery.free();
 					}
 					
+					sendData.releaseMessage();
 					sendData.getWork().completeExceptionally(
 						sendException != null
 							? new OperationCancelledException("Send operation failed. Please see cause for more details", sendException)
@@ -810,19 +1203,191 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 			}
 			else
 			{
-				if (deliveryTag != null)
+				break;
+			}
+		}
+	}
+
+	// runs on the Reactor thread - merges the single sends queued up behind firstSend into one batch delivery;
+	// returns firstSend as-is if there is nothing to merge it with
+	private ReplayableWorkItem<Void> coalescePendingSends(final ReplayableWorkItem<Void> firstSend)
+	{
+		ReplayableWorkItem<Void> nextSend = this.pendingSends.peekNew();
+		if (!canCoalesce(firstSend, nextSend))
+		{
+			return firstSend;
+		}
+
+		final byte[] bytes = this.bufferPool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		final BatchMessageEncoder batchEncoder = new BatchMessageEncoder(bytes, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		try
+		{
+			batchEncoder.encodeEnvelope(firstSend.getMessageAnnotations());
+		}
+		catch (BufferOverflowException exception)
+		{
+			this.bufferPool.release(bytes);
+			return firstSend;
+		}
+
+		if (!batchEncoder.tryAppendEncoded(firstSend.getMessage(), 0, firstSend.getEncodedMessageSize()))
+		{
+			this.bufferPool.release(bytes);
+			return firstSend;
+		}
+
+		final List<ReplayableWorkItem<Void>> coalescedSends = new ArrayList<ReplayableWorkItem<Void>>();
+		coalescedSends.add(firstSend);
+		while (canCoalesce(firstSend, nextSend))
+		{
+			if (nextSend.getWork().isDone())
+			{
+				this.pendingSends.pollNew();
+				nextSend.releaseMessage();
+			}
+			else if (batchEncoder.tryAppendEncoded(nextSend.getMessage(), 0, nextSend.getEncodedMessageSize()))
+			{
+				this.pendingSends.pollNew();
+				coalescedSends.add(nextSend);
+			}
+			else
+			{
+				break;
+			}
+
+			nextSend = this.pendingSends.peekNew();
+		}
+
+		if (coalescedSends.size() == 1)
+		{
+			this.bufferPool.release(bytes);
+			return firstSend;
+		}
+
+		if (TRACE_LOGGER.isLoggable(Level.FINEST))
+		{
+			TRACE_LOGGER.log(Level.FINEST, String.format(Locale.US, "path[%s], linkName[%s], coalescedSends[%s], batchSize[%s]",
+					this.sendPath, this.sendLink.getName(), coalescedSends.size(), batchEncoder.getEncodedSize()));
+		}
+
+		// the batch is retried until its last member times out - a member must not time out earlier than it would, had it been sent alone
+		final CompletableFuture<Void> batchSend = new CompletableFuture<Void>();
+		final ReplayableWorkItem<Void> batchSendData = new ReplayableWorkItem<Void>(bytes, batchEncoder.getEncodedSize(), AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT,
+				batchSend, getLatestTimeoutTracker(coalescedSends), this.bufferPool);
+
+		for (ReplayableWorkItem<Void> coalescedSend : coalescedSends)
+		{
+			coalescedSend.releaseMessage();
+		}
+
+		batchSend.whenComplete(new BiConsumer<Void, Throwable>()
+		{
+			@Override
+			public void accept(Void result, Throwable failure)
+			{
+				for (ReplayableWorkItem<Void> coalescedSend : coalescedSends)
 				{
-					if (TRACE_LOGGER.isLoggable(Level.SEVERE))
+					if (failure == null)
 					{
-						TRACE_LOGGER.log(Level.SEVERE,
-								String.format(Locale.US, "path[%s], linkName[%s], deliveryTag[%s] - sendData not found for this delivery.",
-								this.sendPath, this.sendLink.getName(), deliveryTag));
+						coalescedSend.getWork().complete(null);
+					}
+					else
+					{
+						coalescedSend.getWork().completeExceptionally(failure);
 					}
 				}
+			}
+		});
 
-				break;
+		return batchSendData;
+	}
+
+	// returns the tracker - of the given sends - with the most time remaining
+	static TimeoutTracker getLatestTimeoutTracker(final List<? extends WorkItem<?>> sends)
+	{
+		TimeoutTracker latestTracker = null;
+		Duration latestRemaining = null;
+		for (WorkItem<?> send : sends)
+		{
+			final Duration remaining = send.getTimeoutTracker().remaining();
+			if (latestRemaining == null || remaining.compareTo(latestRemaining) > 0)
+			{
+				latestTracker = send.getTimeoutTracker();
+				latestRemaining = remaining;
 			}
 		}
+
+		return latestTracker;
+	}
+
+	private static boolean canCoalesce(final ReplayableWorkItem<Void> firstSend, final ReplayableWorkItem<Void> nextSend)
+	{
+		if (nextSend == null
+				|| firstSend.getMessageFormat() != DeliveryImpl.DEFAULT_MESSAGE_FORMAT
+				|| nextSend.getMessageFormat() != DeliveryImpl.DEFAULT_MESSAGE_FORMAT)
+		{
+			return false;
+		}
+
+		final MessageAnnotations firstAnnotations = firstSend.getMessageAnnotations();
+		final MessageAnnotations nextAnnotations = nextSend.getMessageAnnotations();
+		if (firstAnnotations == null || nextAnnotations == null)
+		{
+			return firstAnnotations == nextAnnotations;
+		}
+
+		return firstAnnotations.getValue() == null
+				? nextAnnotations.getValue() == null
+				: firstAnnotations.getValue().equals(nextAnnotations.getValue());
+	}
+
+	// pendingSendsData is confined to the Reactor thread - so, a timed out delivery is untracked from there
+	private void removePendingSendOnReactorThread(final long deliveryTag)
+	{
+		try
+		{
+			this.underlyingFactory.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					MessageSender.this.pendingSendsData.remove(deliveryTag);
+				}
+			});
+		}
+		catch (IOException ignore)
+		{
+			// the delivery is failed along with the rest of the pending sends, when the link or the connection is closed
+		}
+	}
+
+	private static enum WindowFullAction
+	{
+		FailSend,
+		SkipSend,
+		WaitForCapacity
+	}
+
+	private static byte[] toDeliveryTagBytes(final long deliveryTag)
+	{
+		final byte[] tag = new byte[DELIVERY_TAG_SIZE];
+		for (int index = DELIVERY_TAG_SIZE - 1; index >= 0; index--)
+		{
+			tag[index] = (byte) (deliveryTag >>> ((DELIVERY_TAG_SIZE - 1 - index) * Byte.SIZE));
+		}
+
+		return tag;
+	}
+
+	private static long toDeliveryTag(final byte[] tag)
+	{
+		long deliveryTag = 0;
+		for (int index = 0; index < DELIVERY_TAG_SIZE; index++)
+		{
+			deliveryTag = (deliveryTag << Byte.SIZE) | (tag[index] & 0xff);
+		}
+
+		return deliveryTag;
 	}
 
 	private void throwSenderTimeout(CompletableFuture<Void> pendingSendWork, Exception lastKnownException)
@@ -889,35 +1454,4 @@ public class MessageSender extends ClientEntity implements IAmqpSender, IErrorCo
 
 		return this.linkClose;
 	}
-	
-	private static class WeightedDeliveryTag
-	{
-		private final String deliveryTag;
-		private final int priority;
-		
-		WeightedDeliveryTag(final String deliveryTag, final int priority)
-		{
-			this.deliveryTag = deliveryTag;
-			this.priority = priority;
-		}
-		
-		public String getDeliveryTag()
-		{
-			return this.deliveryTag;
-		}
-		
-		public int getPriority()
-		{
-			return this.priority;
-		}
-	}
-	
-	private static class DeliveryTagComparator implements Comparator<WeightedDeliveryTag>
-	{
-		@Override
-		public int compare(WeightedDeliveryTag deliveryTag0, WeightedDeliveryTag deliveryTag1)
-		{
-			return deliveryTag1.getPriority() - deliveryTag0.getPriority();
-		}	
-	}
-}
+}
\ No newline at end of file
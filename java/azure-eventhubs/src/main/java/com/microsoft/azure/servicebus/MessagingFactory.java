@@ -5,12 +5,15 @@
 package com.microsoft.azure.servicebus;
 
 import java.io.IOException;
-import java.nio.channels.UnresolvedAddressException;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Locale;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,6 +25,7 @@ import org.apache.qpid.proton.engine.Event;
 import org.apache.qpid.proton.engine.Handler;
 import org.apache.qpid.proton.engine.HandlerException;
 import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Session;
 import org.apache.qpid.proton.reactor.Reactor;
 
 import com.microsoft.azure.servicebus.amqp.BaseLinkHandler;
@@ -45,13 +49,31 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	private final CompletableFuture<Void> closeTask;
 	private final ConnectionHandler connectionHandler;
 	private final ReactorHandler reactorHandler;
-	private final LinkedList<Link> registeredLinks;
+	private final Set<Link> registeredLinks;
 	private final Object reactorLock;
+	private final ByteArrayPool sendBufferPool;
+	private final ReactorLoop reactorLoop;
 	
 	private Reactor reactor;
 	private ReactorDispatcher reactorScheduler;
 	private Connection connection;
 
+	// accessed only on the Reactor thread
+	private SessionPool sessionPool;
+	private boolean isRecoveringLinks;
+	private long linkRecoveryStartNanos;
+	private Exception linkRecoveryCause;
+
+	private volatile long linkRecoveryCount;
+	private volatile long failedLinkRecoveryCount;
+	private volatile Duration lastLinkRecoveryDuration;
+	private volatile int lastRecoveredLinkCount;
+
+	private volatile int maxSessionsPerConnection;
+	private volatile int sessionIncomingBytes;
+	private volatile int sessionOutgoingBytes;
+	private volatile long sessionOpenCount;
+
 	private Duration operationTimeout;
 	private RetryPolicy retryPolicy;
 	private CompletableFuture<MessagingFactory> open;
@@ -61,19 +83,35 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	 * @param reactor parameter reactor is purely for testing purposes and the SDK code should always set it to null
 	 */
 	MessagingFactory(final ConnectionStringBuilder builder)
+	{
+		this(builder, null);
+	}
+
+	/**
+	 * @param reactorGroup the group whose loop hosts the connection - null, to run a dedicated Reactor for this factory
+	 */
+	MessagingFactory(final ConnectionStringBuilder builder, final ReactorGroup reactorGroup)
 	{
 		super("MessagingFactory".concat(StringUtil.getRandomString()), null);
 
+		this.reactorLoop = reactorGroup != null ? reactorGroup.next() : null;
+
 		Timer.register(this.getClientId());
 		this.hostName = builder.getEndpoint().getHost();
 		
 		this.operationTimeout = builder.getOperationTimeout();
 		this.retryPolicy = builder.getRetryPolicy();
-		this.registeredLinks = new LinkedList<Link>();
+		// links are registered on the Reactor thread - and walked on the thread of a failed Reactor
+		this.registeredLinks = Collections.newSetFromMap(new ConcurrentHashMap<Link, Boolean>());
 		this.closeTask = new CompletableFuture<Void>();
 		this.reactorLock = new Object();
-		this.connectionHandler = new ConnectionHandler(this, builder.getSasKeyName(), builder.getSasKey());
+		this.connectionHandler = new ConnectionHandler(this, builder.getSasKeyName(), builder.getSasKey(), builder.getTransportOptions());
 		this.openConnection = new CompletableFuture<Connection>();
+		this.maxSessionsPerConnection = ClientConstants.DEFAULT_MAX_SESSIONS_PER_CONNECTION;
+		this.sessionIncomingBytes = ClientConstants.DEFAULT_SESSION_INCOMING_BYTES;
+		this.sessionOutgoingBytes = ClientConstants.DEFAULT_SESSION_OUTGOING_BYTES;
+		this.sendBufferPool = new ByteArrayPool(ClientConstants.MAX_MESSAGE_LENGTH_BYTES,
+				ClientConstants.DEFAULT_SEND_BUFFER_POOL_BUFFERS_PER_SIZE_CLASS, ClientConstants.DEFAULT_SEND_BUFFER_POOL_MAX_BYTES);
 		
 		this.reactorHandler = new ReactorHandler()
 		{
@@ -82,8 +120,7 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 			{
 				super.onReactorInit(e);
 
-				final Reactor r = e.getReactor();
-				connection = r.connectionToHost(hostName, ClientConstants.AMQPS_PORT, connectionHandler);
+				connection = connectToHost();
 			}
 		};
 	}
@@ -95,6 +132,11 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	
 	private Reactor getReactor()
 	{
+		if (this.reactorLoop != null)
+		{
+			return this.reactorLoop.getReactor();
+		}
+
 		synchronized (this.reactorLock)
 		{
 			return this.reactor;
@@ -103,16 +145,52 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	
 	private ReactorDispatcher getReactorScheduler()
 	{
+		if (this.reactorLoop != null)
+		{
+			return this.reactorLoop.getReactorScheduler();
+		}
+
 		synchronized (this.reactorLock)
 		{
 			return this.reactorScheduler;
 		}
 	}
 
-	private void createConnection(ConnectionStringBuilder builder) throws IOException
+	void createConnection(ConnectionStringBuilder builder) throws IOException
 	{
 		this.open = new CompletableFuture<MessagingFactory>();
-		this.startReactor(this.reactorHandler);
+		if (this.reactorLoop == null)
+		{
+			this.startReactor(this.reactorHandler);
+			return;
+		}
+
+		// the loop is already running - the connection is created on its thread, like the rest of the work on the Reactor
+		this.reactorLoop.register(this);
+		try
+		{
+			this.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					connection = connectToHost();
+				}
+			});
+		}
+		catch (IOException exception)
+		{
+			this.reactorLoop.deregister(this);
+			throw exception;
+		}
+	}
+
+	private void releaseReactorLoop()
+	{
+		if (this.reactorLoop != null)
+		{
+			this.reactorLoop.deregister(this);
+		}
 	}
 
 	private void startReactor(ReactorHandler reactorHandler) throws IOException
@@ -133,12 +211,109 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	{
 		if (this.connection == null || this.connection.getLocalState() == EndpointState.CLOSED || this.connection.getRemoteState() == EndpointState.CLOSED)
 		{
-			this.connection = this.getReactor().connectionToHost(this.hostName, ClientConstants.AMQPS_PORT, this.connectionHandler);
+			this.connection = this.connectToHost();
 		}
 
 		return this.connection;
 	}
 
+	// a new connection to the host - on the Reactor thread; tests override it, to connect to an in-process peer instead
+	Connection connectToHost()
+	{
+		return this.getReactor().connectionToHost(this.hostName, ClientConstants.AMQPS_PORT, this.connectionHandler);
+	}
+
+	/**
+	 * Session for a new link - from the pool of sessions of the current connection, unless the link needs a session of its own.
+	 * Should be called on the Reactor thread.
+	 * @param entityPath name of the entity of the link - to trace the session
+	 * @param incomingBytes incoming byte budget of a session of its own - 0, to attach the link to a pooled session
+	 * @return an open (or opening) session
+	 */
+	Session getSession(final String entityPath, final int incomingBytes)
+	{
+		final Connection currentConnection = this.getConnection();
+		final int maxSessions = this.maxSessionsPerConnection;
+		if (incomingBytes > 0 || maxSessions <= 0)
+		{
+			this.sessionOpenCount++;
+			return SessionPool.openSession(currentConnection, entityPath, incomingBytes > 0 ? incomingBytes : this.sessionIncomingBytes, this.sessionOutgoingBytes);
+		}
+
+		if (this.sessionPool == null || this.sessionPool.getConnection() != currentConnection)
+		{
+			this.sessionPool = new SessionPool(currentConnection, this.hostName);
+		}
+
+		final long poolOpenCount = this.sessionPool.getSessionOpenCount();
+		final Session session = this.sessionPool.getSession(maxSessions, this.sessionIncomingBytes, this.sessionOutgoingBytes);
+		this.sessionOpenCount += this.sessionPool.getSessionOpenCount() - poolOpenCount;
+		return session;
+	}
+
+	public int getMaxSessionsPerConnection()
+	{
+		return this.maxSessionsPerConnection;
+	}
+
+	/**
+	 * Number of sessions the links of this factory share, per connection. Links attach to the existing sessions - instead of beginning a session per link.
+	 * @param value maximum number of pooled sessions - 0, to begin a session per link
+	 */
+	public void setMaxSessionsPerConnection(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("maxSessionsPerConnection should be non-negative");
+		}
+
+		this.maxSessionsPerConnection = value;
+	}
+
+	public int getSessionIncomingBytes()
+	{
+		return this.sessionIncomingBytes;
+	}
+
+	/**
+	 * @param value byte budget of the incoming window of the sessions begun from now on - 0, for an unbounded window
+	 */
+	public void setSessionIncomingBytes(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("sessionIncomingBytes should be non-negative");
+		}
+
+		this.sessionIncomingBytes = value;
+	}
+
+	public int getSessionOutgoingBytes()
+	{
+		return this.sessionOutgoingBytes;
+	}
+
+	/**
+	 * @param value byte budget of the outgoing window of the sessions begun from now on - sized in frames of the max frame size of the connection; 0, for an unbounded window
+	 */
+	public void setSessionOutgoingBytes(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("sessionOutgoingBytes should be non-negative");
+		}
+
+		this.sessionOutgoingBytes = value;
+	}
+
+	/**
+	 * @return number of sessions begun by the links of this factory - on all its connections, including the ones pooled
+	 */
+	public long getSessionOpenCount()
+	{
+		return this.sessionOpenCount;
+	}
+
 	public Duration getOperationTimeout()
 	{
 		return this.operationTimeout;
@@ -149,10 +324,48 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 		return this.retryPolicy;
 	}
 
+	/**
+	 * @return the tuning of the transport & socket of the connection - changes apply to the connections opened afterwards, including re-connects
+	 */
+	public TransportOptions getTransportOptions()
+	{
+		return this.connectionHandler.getTransportOptions();
+	}
+
+	/**
+	 * @return pool of encode buffers shared by all the {@link MessageSender}'s created on this factory - use it to tune the caps or to read hit/miss counters
+	 */
+	public ByteArrayPool getSendBufferPool()
+	{
+		return this.sendBufferPool;
+	}
+
 	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString) throws IOException
 	{
-		ConnectionStringBuilder builder = new ConnectionStringBuilder(connectionString);
-		MessagingFactory messagingFactory = new MessagingFactory(builder);
+		return createFromConnectionString(connectionString, null);
+	}
+
+	/**
+	 * @param connectionString the connection string to be used
+	 * @param reactorGroup the group whose loop hosts the connection of this factory - null, to run a dedicated Reactor thread for it
+	 * @return a future which completes when the connection is opened
+	 * @throws IOException If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<MessagingFactory> createFromConnectionString(final String connectionString, final ReactorGroup reactorGroup) throws IOException
+	{
+		return createFromConnectionStringBuilder(new ConnectionStringBuilder(connectionString), reactorGroup);
+	}
+
+	/**
+	 * Create the factory from a builder - unlike its connection string, the builder carries the {@link TransportOptions} & the {@link RetryPolicy} set on it.
+	 * @param builder the connection string builder to be used
+	 * @param reactorGroup the group whose loop hosts the connection of this factory - null, to run a dedicated Reactor thread for it
+	 * @return a future which completes when the connection is opened
+	 * @throws IOException If the underlying Proton-J layer encounter network errors.
+	 */
+	public static CompletableFuture<MessagingFactory> createFromConnectionStringBuilder(final ConnectionStringBuilder builder, final ReactorGroup reactorGroup) throws IOException
+	{
+		MessagingFactory messagingFactory = new MessagingFactory(builder, reactorGroup);
 
 		messagingFactory.createConnection(builder);
 		return messagingFactory.open;
@@ -168,6 +381,7 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 		}
 		else
 		{
+			this.releaseReactorLoop();
 			this.open.completeExceptionally(exception);
 			this.openConnection.completeExceptionally(exception);
 		}
@@ -212,16 +426,25 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 					linkHandler.processOnClose(link, error);
 				}
 			}
+
+			if (!this.getIsClosingOrClosed())
+			{
+				this.startLinkRecovery(error != null
+						? ExceptionUtil.toException(error)
+						: new ServiceBusException(ClientConstants.DEFAULT_IS_TRANSIENT, "The connection was closed by the service."));
+			}
 		}
 
 		if (this.getIsClosingOrClosed() && !this.closeTask.isDone())
 		{
+			this.releaseReactorLoop();
 			this.closeTask.complete(null);
 			Timer.unregister(this.getClientId());
 		}
 	}
 
-	private void onReactorError(Exception cause)
+	// a shared loop restarts its Reactor itself - before notifying the factories pinned to it
+	void onReactorError(Exception cause)
 	{
 		if (!this.open.isDone())
 		{
@@ -231,15 +454,18 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 		{
 			final Connection currentConnection = this.connection;
 			
-			try
-			{
-				this.startReactor(this.reactorHandler);
-			}
-			catch (IOException e)
+			if (this.reactorLoop == null)
 			{
-				TRACE_LOGGER.log(Level.SEVERE, ExceptionUtil.toStackTraceString(e, "Re-starting reactor failed with error"));
-				
-				this.onReactorError(cause);
+				try
+				{
+					this.startReactor(this.reactorHandler);
+				}
+				catch (IOException e)
+				{
+					TRACE_LOGGER.log(Level.SEVERE, ExceptionUtil.toStackTraceString(e, "Re-starting reactor failed with error"));
+					
+					this.onReactorError(cause);
+				}
 			}
 
 			Iterator<Link> literator = this.registeredLinks.iterator();
@@ -268,9 +494,241 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 					linkHandler.processOnClose(link, cause);
 				}
 			}
+
+			if (!this.getIsClosingOrClosed())
+			{
+				this.startLinkRecovery(cause);
+			}
 		}
 	}
 
+	/*
+	 * Link recovery - after the connection (or the Reactor) is lost, instead of every sender & receiver re-creating its link on its own backoff:
+	 * the connection is re-opened once & all the links are re-attached to it in one pass on the Reactor thread.
+	 * The links which fail to re-attach are retried in the next pass - after the retry interval of the factory, with jitter.
+	 * A sender or receiver may still re-create its link on its own retry - whichever comes first wins, the other finds the link attached.
+	 */
+	private void startLinkRecovery(final Exception cause)
+	{
+		try
+		{
+			this.scheduleOnReactorThread(new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					if (MessagingFactory.this.isRecoveringLinks)
+					{
+						MessagingFactory.this.linkRecoveryCause = cause;
+						return;
+					}
+
+					MessagingFactory.this.isRecoveringLinks = true;
+					MessagingFactory.this.linkRecoveryStartNanos = System.nanoTime();
+					MessagingFactory.this.linkRecoveryCause = cause;
+					MessagingFactory.this.retryPolicy.resetRetryCount(MessagingFactory.this.getClientId());
+					MessagingFactory.this.recoverLinks();
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			if (TRACE_LOGGER.isLoggable(Level.WARNING))
+			{
+				TRACE_LOGGER.log(Level.WARNING, ExceptionUtil.toStackTraceString(ioException, "Scheduling link recovery failed - links recover on their own retries"));
+			}
+		}
+	}
+
+	private void recoverLinks()
+	{
+		if (this.getIsClosingOrClosed())
+		{
+			this.isRecoveringLinks = false;
+			return;
+		}
+
+		// re-open the connection once - all the links attach to it
+		this.getConnection();
+
+		int recreatedLinks = 0;
+		for (IRecoverableLink recoverableLink : this.getRecoverableLinks())
+		{
+			final Link link = recoverableLink.getRecoverableLink();
+			if (link != null && (link.getLocalState() == EndpointState.CLOSED || link.getRemoteState() == EndpointState.CLOSED))
+			{
+				recoverableLink.recreateLink();
+				recreatedLinks++;
+			}
+		}
+
+		if (TRACE_LOGGER.isLoggable(Level.FINE))
+		{
+			TRACE_LOGGER.log(Level.FINE, String.format("host[%s], action[recoverLinks], recreatedLinks[%s]", this.hostName, recreatedLinks));
+		}
+
+		this.lastRecoveredLinkCount = recreatedLinks;
+		this.scheduleLinkRecoveryCheck(ClientConstants.LINK_RECOVERY_CHECK_INTERVAL_MILLIS);
+	}
+
+	private void checkLinkRecovery()
+	{
+		if (this.getIsClosingOrClosed())
+		{
+			this.isRecoveringLinks = false;
+			return;
+		}
+
+		int attachingLinks = 0;
+		int failedLinks = 0;
+		for (IRecoverableLink recoverableLink : this.getRecoverableLinks())
+		{
+			final Link link = recoverableLink.getRecoverableLink();
+			if (link == null)
+			{
+				continue;
+			}
+
+			if (link.getLocalState() == EndpointState.CLOSED || link.getRemoteState() == EndpointState.CLOSED)
+			{
+				failedLinks++;
+			}
+			else if (link.getRemoteState() != EndpointState.ACTIVE)
+			{
+				attachingLinks++;
+			}
+		}
+
+		if (failedLinks == 0 && attachingLinks == 0)
+		{
+			this.isRecoveringLinks = false;
+			this.retryPolicy.resetRetryCount(this.getClientId());
+			this.linkRecoveryCount++;
+			this.lastLinkRecoveryDuration = Duration.ofNanos(System.nanoTime() - this.linkRecoveryStartNanos);
+
+			if (TRACE_LOGGER.isLoggable(Level.INFO))
+			{
+				TRACE_LOGGER.log(Level.INFO, String.format("host[%s], action[linksRecovered], links[%s], duration[%sms]",
+						this.hostName, this.lastRecoveredLinkCount, this.lastLinkRecoveryDuration.toMillis()));
+			}
+
+			return;
+		}
+
+		final long elapsedNanos = System.nanoTime() - this.linkRecoveryStartNanos;
+		final Duration remaining = this.operationTimeout.minusNanos(elapsedNanos);
+		if (failedLinks == 0)
+		{
+			if (!remaining.isNegative())
+			{
+				this.scheduleLinkRecoveryCheck(ClientConstants.LINK_RECOVERY_CHECK_INTERVAL_MILLIS);
+				return;
+			}
+		}
+		else
+		{
+			this.retryPolicy.incrementRetryCount(this.getClientId());
+			final Duration retryInterval = remaining.isNegative() ? null
+					: this.retryPolicy.getNextRetryInterval(this.getClientId(), this.linkRecoveryCause, remaining);
+			if (retryInterval != null)
+			{
+				// jitter spreads the retries of the factories which lost their connections at the same time
+				final long retryMillis = retryInterval.toMillis();
+				final long jitterMillis = ThreadLocalRandom.current().nextLong(retryMillis / 2 + 1);
+				this.scheduleLinkRecovery((int) Math.min(Integer.MAX_VALUE, retryMillis + jitterMillis));
+				return;
+			}
+		}
+
+		// the links left are recovered by their senders & receivers - on their own retries
+		this.isRecoveringLinks = false;
+		this.retryPolicy.resetRetryCount(this.getClientId());
+		this.failedLinkRecoveryCount++;
+		if (TRACE_LOGGER.isLoggable(Level.WARNING))
+		{
+			TRACE_LOGGER.log(Level.WARNING, String.format("host[%s], action[linkRecoveryStopped], failedLinks[%s], attachingLinks[%s], elapsed[%sms]",
+					this.hostName, failedLinks, attachingLinks, TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+		}
+	}
+
+	private void scheduleLinkRecovery(final int delayMillis)
+	{
+		try
+		{
+			this.scheduleOnReactorThread(delayMillis, new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					MessagingFactory.this.recoverLinks();
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			this.isRecoveringLinks = false;
+		}
+	}
+
+	private void scheduleLinkRecoveryCheck(final int delayMillis)
+	{
+		try
+		{
+			this.scheduleOnReactorThread(delayMillis, new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					MessagingFactory.this.checkLinkRecovery();
+				}
+			});
+		}
+		catch (IOException ioException)
+		{
+			this.isRecoveringLinks = false;
+		}
+	}
+
+	// the senders & receivers owning the registered links - each once
+	private Set<IRecoverableLink> getRecoverableLinks()
+	{
+		final Set<IRecoverableLink> recoverableLinks = new LinkedHashSet<IRecoverableLink>();
+		for (Link link : this.registeredLinks)
+		{
+			final Handler handler = BaseHandler.getHandler(link);
+			if (handler instanceof BaseLinkHandler && ((BaseLinkHandler) handler).getAmqpLink() instanceof IRecoverableLink)
+			{
+				recoverableLinks.add((IRecoverableLink) ((BaseLinkHandler) handler).getAmqpLink());
+			}
+		}
+
+		return recoverableLinks;
+	}
+
+	/**
+	 * @return number of times all the links of this factory were re-attached after the connection was lost
+	 */
+	public long getLinkRecoveryCount()
+	{
+		return this.linkRecoveryCount;
+	}
+
+	/**
+	 * @return number of times the link recovery gave up - leaving the links to the retries of their senders & receivers
+	 */
+	public long getFailedLinkRecoveryCount()
+	{
+		return this.failedLinkRecoveryCount;
+	}
+
+	/**
+	 * @return time from the loss of the connection until all the links were re-attached - in the last successful link recovery; null, if none
+	 */
+	public Duration getLastLinkRecoveryDuration()
+	{
+		return this.lastLinkRecoveryDuration;
+	}
+
 	@Override
 	protected CompletableFuture<Void> onClose()
 	{
@@ -290,6 +748,7 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 					{
 						if (!MessagingFactory.this.closeTask.isDone())
 						{
+							MessagingFactory.this.releaseReactorLoop();
 							MessagingFactory.this.closeTask.completeExceptionally(new TimeoutException("Closing MessagingFactory timed out."));
 						}
 					}
@@ -297,6 +756,7 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 				this.operationTimeout, TimerType.OneTimeRun);
 			} else if(this.connection == null || this.connection.getRemoteState() == EndpointState.CLOSED)
 			{
+				this.releaseReactorLoop();
 				this.closeTask.complete(null);
 			}
 		}		
@@ -329,36 +789,13 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 			}
 			catch (HandlerException handlerException)
 			{
-				Throwable cause = handlerException.getCause();
-				if (cause == null)
-				{
-					cause = handlerException;
-				}
-
 				if(TRACE_LOGGER.isLoggable(Level.WARNING))
 				{
 					TRACE_LOGGER.log(Level.WARNING,
 							ExceptionUtil.toStackTraceString(handlerException, "UnHandled exception while processing events in reactor:"));
 				}
 
-				String message = !StringUtil.isNullOrEmpty(cause.getMessage()) ? 
-						cause.getMessage():
-						!StringUtil.isNullOrEmpty(handlerException.getMessage()) ? 
-							handlerException.getMessage() :
-							"Reactor encountered unrecoverable error";
-				ServiceBusException sbException = new ServiceBusException(
-						true,
-						String.format(Locale.US, "%s, %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
-						cause);
-				
-				if (cause instanceof UnresolvedAddressException)
-				{
-					sbException = new CommunicationException(
-							String.format(Locale.US, "%s. This is usually caused by incorrect hostname or network configuration. Please check to see if namespace information is correct. %s", message, ExceptionUtil.getTrackingIDAndTimeToLog()),
-							cause);
-				}
-				
-				MessagingFactory.this.onReactorError(sbException);
+				MessagingFactory.this.onReactorError(ExceptionUtil.toException(handlerException));
 			}
 			finally
 			{
@@ -377,6 +814,19 @@ public class MessagingFactory extends ClientEntity implements IAmqpConnection, I
 	public void deregisterForConnectionError(Link link)
 	{
 		this.registeredLinks.remove(link);	
+
+		if (this.sessionPool != null)
+		{
+			this.sessionPool.onLinkRemoved(link);
+		}
+	}
+
+	/**
+	 * @return number of links of the senders & receivers currently open - or being re-opened - on the connection of this factory
+	 */
+	public int getLinkCount()
+	{
+		return this.registeredLinks.size();
 	}
 	
 	public void scheduleOnReactorThread(final DispatchHandler handler) throws IOException
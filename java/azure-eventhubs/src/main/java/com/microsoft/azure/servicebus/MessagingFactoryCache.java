@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shares {@link MessagingFactory}'s - and so, their AMQP connections - between the clients of a namespace.
+ * <p>{@link #acquire(ConnectionStringBuilder)} hands out a handle to a factory connected to the endpoint with the same SAS identity, operation timeout,
+ * retry policy (by its name) & transport options,
+ * opening a new factory only if none is cached or all the cached ones are full. Every acquired handle is counted;
+ * {@link #release(MessagingFactory)} closes the factory - and its connection - when its last handle is released.
+ * <p>A cached factory is full once its connection carries maxLinksPerConnection links, or once maxLinksPerConnection handles were acquired on it
+ * (each client opens at least one link on it) - the next acquire spills over to a new connection. That bounds the work on one connection
+ * and on the Reactor thread hosting it.
+ * <p>The {@link TransportOptions} are compared as they are at acquire - a shared factory keeps reading the options of the builder of its first acquire.
+ */
+public final class MessagingFactoryCache
+{
+	public static final int DEFAULT_MAX_LINKS_PER_CONNECTION = 64;
+
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final int maxLinksPerConnection;
+	private final ReactorGroup reactorGroup;
+	private final Object cacheSync;
+	private final HashMap<String, LinkedList<CachedFactory>> cachedFactories;
+
+	public MessagingFactoryCache()
+	{
+		this(DEFAULT_MAX_LINKS_PER_CONNECTION, null);
+	}
+
+	/**
+	 * @param maxLinksPerConnection number of links after which a connection is considered full
+	 * @param reactorGroup the Reactor threads hosting the connections of the cache - null, to run a dedicated Reactor thread per connection
+	 */
+	public MessagingFactoryCache(final int maxLinksPerConnection, final ReactorGroup reactorGroup)
+	{
+		if (maxLinksPerConnection <= 0)
+		{
+			throw new IllegalArgumentException("maxLinksPerConnection should be greater than 0");
+		}
+
+		this.maxLinksPerConnection = maxLinksPerConnection;
+		this.reactorGroup = reactorGroup;
+		this.cacheSync = new Object();
+		this.cachedFactories = new HashMap<String, LinkedList<CachedFactory>>();
+	}
+
+	public int getMaxLinksPerConnection()
+	{
+		return this.maxLinksPerConnection;
+	}
+
+	/**
+	 * @return number of factories - connections - currently cached, including the ones still opening
+	 */
+	public int getConnectionCount()
+	{
+		synchronized (this.cacheSync)
+		{
+			int connectionCount = 0;
+			for (LinkedList<CachedFactory> factories : this.cachedFactories.values())
+			{
+				connectionCount += factories.size();
+			}
+
+			return connectionCount;
+		}
+	}
+
+	/**
+	 * Acquire a handle to a shared factory - which should be given back using {@link #release(MessagingFactory)}, instead of closing the factory.
+	 * @param builder the connection string builder to be used. Its EntityPath is not part of the connection - the factory is shared across the entities of the namespace.
+	 * @return a future which completes with the factory, once its connection is opened
+	 * @throws IOException If the underlying Proton-J layer encounter network errors.
+	 */
+	public CompletableFuture<MessagingFactory> acquire(final ConnectionStringBuilder builder) throws IOException
+	{
+		if (builder == null)
+		{
+			throw new IllegalArgumentException("builder cannot be null");
+		}
+
+		final String key = String.format(Locale.US, "%s|%s|%s|%s|%s|%s",
+				builder.getEndpoint().getHost(), builder.getSasKeyName(), builder.getSasKey(), builder.getOperationTimeout(),
+				builder.getRetryPolicy(), builder.getTransportOptions());
+
+		synchronized (this.cacheSync)
+		{
+			LinkedList<CachedFactory> factories = this.cachedFactories.get(key);
+			if (factories == null)
+			{
+				factories = new LinkedList<CachedFactory>();
+				this.cachedFactories.put(key, factories);
+			}
+
+			for (CachedFactory cachedFactory : factories)
+			{
+				if (!cachedFactory.isFull(this.maxLinksPerConnection))
+				{
+					cachedFactory.handleCount++;
+					return cachedFactory.open;
+				}
+			}
+
+			final CompletableFuture<MessagingFactory> factoryOpen;
+			try
+			{
+				factoryOpen = MessagingFactory.createFromConnectionStringBuilder(builder, this.reactorGroup);
+			}
+			catch (IOException exception)
+			{
+				if (factories.isEmpty())
+				{
+					this.cachedFactories.remove(key);
+				}
+
+				throw exception;
+			}
+
+			// the handles see the factory only after it is recorded - so that it can be released right away
+			final CachedFactory newFactory = new CachedFactory(key);
+			factories.add(newFactory);
+			newFactory.open = factoryOpen.handle(new BiFunction<MessagingFactory, Throwable, MessagingFactory>()
+			{
+				@Override
+				public MessagingFactory apply(MessagingFactory factory, Throwable error)
+				{
+					MessagingFactoryCache.this.onOpenComplete(newFactory, factory, error);
+					if (error != null)
+					{
+						throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+					}
+
+					return factory;
+				}
+			});
+
+			if (TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, String.format(Locale.US, "host[%s], opening shared connection %s", builder.getEndpoint().getHost(), factories.size()));
+			}
+
+			return newFactory.open;
+		}
+	}
+
+	/**
+	 * Give back a handle acquired using {@link #acquire(ConnectionStringBuilder)}. The factory is closed when its last handle is released.
+	 * A factory which is not cached - is closed.
+	 * @param factory the acquired factory
+	 * @return a future which completes when the handle is released - and the factory is closed, if this was its last handle
+	 */
+	public CompletableFuture<Void> release(final MessagingFactory factory)
+	{
+		synchronized (this.cacheSync)
+		{
+			final CachedFactory cachedFactory = this.find(factory);
+			if (cachedFactory != null)
+			{
+				cachedFactory.handleCount--;
+				if (cachedFactory.handleCount > 0)
+				{
+					return CompletableFuture.completedFuture(null);
+				}
+
+				this.remove(cachedFactory);
+			}
+		}
+
+		return factory.close();
+	}
+
+	// guarded by cacheSync
+	private CachedFactory find(final MessagingFactory factory)
+	{
+		for (LinkedList<CachedFactory> factories : this.cachedFactories.values())
+		{
+			for (CachedFactory cachedFactory : factories)
+			{
+				if (cachedFactory.factory == factory)
+				{
+					return cachedFactory;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	// guarded by cacheSync
+	private void remove(final CachedFactory cachedFactory)
+	{
+		final LinkedList<CachedFactory> factories = this.cachedFactories.get(cachedFactory.key);
+		if (factories != null)
+		{
+			factories.remove(cachedFactory);
+			if (factories.isEmpty())
+			{
+				this.cachedFactories.remove(cachedFactory.key);
+			}
+		}
+	}
+
+	private void onOpenComplete(final CachedFactory cachedFactory, final MessagingFactory factory, final Throwable error)
+	{
+		synchronized (this.cacheSync)
+		{
+			if (error == null)
+			{
+				cachedFactory.factory = factory;
+				return;
+			}
+
+			// all the handles acquired on it see the failure - the next acquire opens a new connection
+			this.remove(cachedFactory);
+		}
+	}
+
+	private static final class CachedFactory
+	{
+		final String key;
+
+		// guarded by cacheSync
+		CompletableFuture<MessagingFactory> open;
+		MessagingFactory factory;
+		int handleCount;
+
+		CachedFactory(final String key)
+		{
+			this.key = key;
+			this.handleCount = 1;
+		}
+
+		boolean isFull(final int maxLinksPerConnection)
+		{
+			return this.handleCount >= maxLinksPerConnection
+					|| (this.factory != null && this.factory.getLinkCount() >= maxLinksPerConnection);
+		}
+	}
+}
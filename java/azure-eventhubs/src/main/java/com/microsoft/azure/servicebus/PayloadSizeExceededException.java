@@ -19,7 +19,7 @@ public class PayloadSizeExceededException extends ServiceBusException
 		super(false);
 	}
 
-	PayloadSizeExceededException(final String message)
+	public PayloadSizeExceededException(final String message)
 	{
 		super(false, message);
 	}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Sends waiting for link credit - multiple producers (any thread calling send) and a single consumer (the Reactor thread).
+ * Retries are offered by the consumer itself (a re-send, or a replay on a new link) and are always drained ahead of new sends;
+ * each is first-in first-out.
+ * <p>New sends are kept in a linked queue built for a single consumer: a producer links its send with a single atomic exchange of the tail,
+ * and the consumer unlinks from the head with no atomic update. Retries are kept in a plain queue, confined to the consumer -
+ * so, polling when there is no retry costs a field read.
+ * <p>Except for {@link #offer}, methods should be called only by the consumer. Null elements are not allowed.
+ */
+public final class PendingSendQueue<T>
+{
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Node, Node> NEXT_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+	private final ArrayDeque<T> retrySends;
+	private final AtomicReference<Node<T>> newSendsTail;
+
+	// the last node taken by the consumer - its next is the oldest new send
+	private Node<T> newSendsHead;
+
+	public PendingSendQueue()
+	{
+		this.retrySends = new ArrayDeque<T>();
+		this.newSendsHead = new Node<T>(null);
+		this.newSendsTail = new AtomicReference<Node<T>>(this.newSendsHead);
+	}
+
+	public void offer(final T send)
+	{
+		if (send == null)
+		{
+			throw new NullPointerException("send");
+		}
+
+		final Node<T> node = new Node<T>(send);
+		final Node<T> previousTail = this.newSendsTail.getAndSet(node);
+		// until this is visible, the consumer sees the queue end at previousTail - the producer schedules the consumer only after offer returns
+		NEXT_UPDATER.lazySet(previousTail, node);
+	}
+
+	public void offerRetry(final T retrySend)
+	{
+		this.retrySends.offer(retrySend);
+	}
+
+	/**
+	 * @return the oldest retry, or the oldest new send if there is no retry waiting - null, if both are empty
+	 */
+	public T poll()
+	{
+		final T retrySend = this.retrySends.poll();
+		return retrySend != null ? retrySend : this.pollNew();
+	}
+
+	public T peek()
+	{
+		final T retrySend = this.retrySends.peek();
+		return retrySend != null ? retrySend : this.peekNew();
+	}
+
+	public T pollRetry()
+	{
+		return this.retrySends.poll();
+	}
+
+	public T pollNew()
+	{
+		final Node<T> next = this.newSendsHead.next;
+		if (next == null)
+		{
+			return null;
+		}
+
+		final T send = next.value;
+		// next becomes the head - it shouldn't keep the send reachable; the unlinked head shouldn't keep the rest of the queue reachable
+		// (had it been promoted by the GC, it would keep the nodes after it from being collected young)
+		next.value = null;
+		NEXT_UPDATER.lazySet(this.newSendsHead, this.newSendsHead);
+		this.newSendsHead = next;
+		return send;
+	}
+
+	public T peekNew()
+	{
+		final Node<T> next = this.newSendsHead.next;
+		return next != null ? next.value : null;
+	}
+
+	// not constant time - traverses the new sends
+	public int size()
+	{
+		int size = this.retrySends.size();
+		for (Node<T> node = this.newSendsHead.next; node != null; node = node.next)
+		{
+			size++;
+		}
+
+		return size;
+	}
+
+	private static final class Node<T>
+	{
+		T value;
+		volatile Node<T> next;
+
+		Node(final T value)
+		{
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of Reactor threads - event loops - shared by many {@link MessagingFactory}'s.
+ * <p>By default, every {@link MessagingFactory} runs its own Reactor on a dedicated thread;
+ * a factory created with a {@link ReactorGroup} instead pins its connection to one loop of the group - the one hosting the fewest connections.
+ * All the work of that connection - IO, link events & the work scheduled using {@link MessagingFactory#scheduleOnReactorThread} - runs on that loop.
+ * <p>A loop is shared: slow work on the Reactor thread delays the other connections on the loop,
+ * and if the Reactor of a loop fails, the loop is restarted & all its connections are re-created.
+ * <p>The loop threads are daemon threads. Close the group once all the factories using it are closed.
+ */
+public final class ReactorGroup
+{
+	private static final AtomicInteger GROUP_COUNTER = new AtomicInteger();
+
+	private final ReactorLoop[] loops;
+	private final AtomicInteger nextLoop;
+
+	private volatile boolean isClosed;
+
+	/**
+	 * Creates a group with one loop per available processor.
+	 * @throws IOException If the underlying Proton-J layer failed to start a Reactor.
+	 */
+	public ReactorGroup() throws IOException
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param loopCount number of Reactor threads in the group
+	 * @throws IOException If the underlying Proton-J layer failed to start a Reactor.
+	 */
+	public ReactorGroup(final int loopCount) throws IOException
+	{
+		if (loopCount <= 0)
+		{
+			throw new IllegalArgumentException("loopCount should be greater than 0");
+		}
+
+		final int groupId = GROUP_COUNTER.incrementAndGet();
+		this.loops = new ReactorLoop[loopCount];
+		this.nextLoop = new AtomicInteger();
+		for (int index = 0; index < loopCount; index++)
+		{
+			this.loops[index] = new ReactorLoop(String.format(Locale.US, "eventhubs-reactor-%s-%s", groupId, index));
+		}
+
+		try
+		{
+			for (ReactorLoop loop : this.loops)
+			{
+				loop.start();
+			}
+		}
+		catch (IOException exception)
+		{
+			this.close();
+			throw exception;
+		}
+	}
+
+	public int getLoopCount()
+	{
+		return this.loops.length;
+	}
+
+	/**
+	 * @return number of {@link MessagingFactory}'s currently pinned to the loops of this group
+	 */
+	public int getConnectionCount()
+	{
+		int connectionCount = 0;
+		for (ReactorLoop loop : this.loops)
+		{
+			connectionCount += loop.getFactoryCount();
+		}
+
+		return connectionCount;
+	}
+
+	/**
+	 * @return number of times the Reactor threads of this group woke up to process events or to poll for IO - since the group was created
+	 */
+	public long getWakeupCount()
+	{
+		long wakeupCount = 0;
+		for (ReactorLoop loop : this.loops)
+		{
+			wakeupCount += loop.getWakeupCount();
+		}
+
+		return wakeupCount;
+	}
+
+	public boolean getIsClosed()
+	{
+		return this.isClosed;
+	}
+
+	/**
+	 * Stops all the loops of the group. Factories still pinned to the group stop receiving events.
+	 */
+	public void close()
+	{
+		this.isClosed = true;
+		for (ReactorLoop loop : this.loops)
+		{
+			loop.close();
+		}
+	}
+
+	// the loop hosting the fewest connections - ties are spread round-robin
+	ReactorLoop next()
+	{
+		if (this.isClosed)
+		{
+			throw new IllegalStateException("ReactorGroup is closed");
+		}
+
+		final int start = (this.nextLoop.getAndIncrement() & Integer.MAX_VALUE) % this.loops.length;
+		ReactorLoop leastLoaded = this.loops[start];
+		for (int offset = 1; offset < this.loops.length; offset++)
+		{
+			final ReactorLoop loop = this.loops[(start + offset) % this.loops.length];
+			if (loop.getFactoryCount() < leastLoaded.getFactoryCount())
+			{
+				leastLoaded = loop;
+			}
+		}
+
+		return leastLoaded;
+	}
+}
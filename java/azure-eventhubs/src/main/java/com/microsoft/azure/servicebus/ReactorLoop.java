@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.qpid.proton.engine.HandlerException;
+import org.apache.qpid.proton.reactor.Reactor;
+
+import com.microsoft.azure.servicebus.amqp.ProtonUtil;
+import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
+import com.microsoft.azure.servicebus.amqp.ReactorHandler;
+
+/*
+ * One Reactor & the thread running it - hosting the connections of all the MessagingFactory's pinned to it.
+ * If the Reactor fails, it is replaced by a new one & the pinned factories are notified - so that they recover their connections on the new Reactor.
+ */
+final class ReactorLoop
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final String name;
+	private final Object reactorLock;
+	private final CopyOnWriteArrayList<MessagingFactory> factories;
+
+	private Reactor reactor;
+	private ReactorDispatcher reactorScheduler;
+
+	// written only by the loop thread
+	private volatile long wakeupCount;
+	private volatile boolean isClosed;
+
+	ReactorLoop(final String name)
+	{
+		this.name = name;
+		this.reactorLock = new Object();
+		this.factories = new CopyOnWriteArrayList<MessagingFactory>();
+	}
+
+	void start() throws IOException
+	{
+		final Reactor newReactor = ProtonUtil.reactor(new ReactorHandler());
+		synchronized (this.reactorLock)
+		{
+			this.reactor = newReactor;
+			this.reactorScheduler = new ReactorDispatcher(newReactor);
+		}
+
+		final Thread loopThread = new Thread(new RunLoop(newReactor), this.name);
+		loopThread.setDaemon(true);
+		loopThread.start();
+	}
+
+	Reactor getReactor()
+	{
+		synchronized (this.reactorLock)
+		{
+			return this.reactor;
+		}
+	}
+
+	ReactorDispatcher getReactorScheduler()
+	{
+		synchronized (this.reactorLock)
+		{
+			return this.reactorScheduler;
+		}
+	}
+
+	void register(final MessagingFactory factory)
+	{
+		this.factories.add(factory);
+	}
+
+	void deregister(final MessagingFactory factory)
+	{
+		this.factories.remove(factory);
+	}
+
+	int getFactoryCount()
+	{
+		return this.factories.size();
+	}
+
+	long getWakeupCount()
+	{
+		return this.wakeupCount;
+	}
+
+	void close()
+	{
+		this.isClosed = true;
+
+		final Reactor currentReactor = this.getReactor();
+		if (currentReactor != null)
+		{
+			currentReactor.wakeup();
+		}
+	}
+
+	private class RunLoop implements Runnable
+	{
+		final private Reactor rctr;
+
+		public RunLoop(final Reactor reactor)
+		{
+			this.rctr = reactor;
+		}
+
+		public void run()
+		{
+			if(TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, String.format("starting reactor loop: %s", ReactorLoop.this.name));
+			}
+
+			try
+			{
+				this.rctr.setTimeout(3141);
+				this.rctr.start();
+				while(!ReactorLoop.this.isClosed && this.rctr.process())
+				{
+					ReactorLoop.this.wakeupCount++;
+				}
+
+				this.rctr.stop();
+			}
+			catch (HandlerException handlerException)
+			{
+				if(TRACE_LOGGER.isLoggable(Level.WARNING))
+				{
+					TRACE_LOGGER.log(Level.WARNING,
+							ExceptionUtil.toStackTraceString(handlerException, String.format("UnHandled exception while processing events in reactor loop %s:", ReactorLoop.this.name)));
+				}
+
+				final ServiceBusException sbException = ExceptionUtil.toException(handlerException);
+				if (!ReactorLoop.this.isClosed)
+				{
+					try
+					{
+						ReactorLoop.this.start();
+					}
+					catch (IOException e)
+					{
+						TRACE_LOGGER.log(Level.SEVERE, ExceptionUtil.toStackTraceString(e, "Re-starting reactor loop failed with error"));
+					}
+				}
+
+				for (MessagingFactory factory : ReactorLoop.this.factories)
+				{
+					factory.onReactorError(sbException);
+				}
+			}
+			finally
+			{
+				this.rctr.free();
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only, array-backed batch of received items - supports indexed access and O(1) access to the {@link #last()} item.
+ * All the mutating methods of {@link java.util.List} throw {@link UnsupportedOperationException}.
+ */
+public final class ReadOnlyBatch<T> extends AbstractList<T> implements RandomAccess
+{
+	private final Object[] items;
+	private final int size;
+
+	/**
+	 * @param items array holding the items of the batch - the batch takes ownership of it, so, it should not be modified afterwards
+	 * @param size number of items - which are the first size elements of the items array
+	 */
+	public ReadOnlyBatch(final Object[] items, final int size)
+	{
+		if (items == null || size < 0 || size > items.length)
+		{
+			throw new IllegalArgumentException("items should be non-null and hold at least size elements");
+		}
+
+		this.items = items;
+		this.size = size;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T get(final int index)
+	{
+		if (index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+
+		return (T) this.items[index];
+	}
+
+	@Override
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * @return the last item of the batch - null if the batch is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T last()
+	{
+		return this.size == 0 ? null : (T) this.items[this.size - 1];
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.DeliveryAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Footer;
+import org.apache.qpid.proton.amqp.messaging.Header;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Properties;
+import org.apache.qpid.proton.amqp.messaging.Section;
+import org.apache.qpid.proton.codec.AMQPDefinedTypes;
+import org.apache.qpid.proton.codec.DecoderImpl;
+import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.engine.Receiver;
+import org.apache.qpid.proton.message.Message;
+
+/**
+ * Reads deliveries off a receive link into a shared chunk of memory and decodes them without copying the payload:
+ * the body of a received message is a {@link Binary} slice of the chunk.
+ * <p>Deliveries are read back-to-back into the current chunk; once it can't fit the next delivery, a new chunk is started.
+ * A chunk is never reused or pooled - it stays reachable as long as any message body sliced from it is, and is garbage collected after that.
+ * So, there is nothing to release explicitly, and a message body stays valid for as long as the caller holds on to it.
+ * <p>To bound what a body held by the caller keeps reachable, a body is sliced only if its buffer is at most {@link #MAX_BUFFER_TO_BODY_RATIO} times its size -
+ * smaller bodies are copied out: with the default chunk size, bodies under 4kb are copied.
+ * <p>Not thread-safe - should be used only on the Reactor thread.
+ */
+final class ReceiveBuffer
+{
+	static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+	static final int MAX_BUFFER_TO_BODY_RATIO = 16;
+
+	// described-type constructor (0x00) + smallulong descriptor of amqp:data:binary (0x53 0x75)
+	private static final byte DESCRIBED_TYPE_CONSTRUCTOR = 0x00;
+	private static final byte SMALL_ULONG_CONSTRUCTOR = 0x53;
+	private static final byte DATA_SECTION_DESCRIPTOR = 0x75;
+	private static final byte VBIN8_CONSTRUCTOR = (byte) 0xa0;
+	private static final byte VBIN32_CONSTRUCTOR = (byte) 0xb0;
+
+	private final int chunkSize;
+	private final DecoderImpl decoder;
+
+	private byte[] chunk;
+	private int chunkPosition;
+
+	ReceiveBuffer()
+	{
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	ReceiveBuffer(final int chunkSize)
+	{
+		if (chunkSize <= 0)
+		{
+			throw new IllegalArgumentException("chunkSize should be positive");
+		}
+
+		this.chunkSize = chunkSize;
+		this.decoder = new DecoderImpl();
+		AMQPDefinedTypes.registerAllTypes(this.decoder, new EncoderImpl(this.decoder));
+	}
+
+	/**
+	 * Read the current delivery on the receive link and decode it.
+	 * @param receiveLink link whose current delivery is complete
+	 * @param messageSize number of bytes pending on the current delivery
+	 */
+	Message readMessage(final Receiver receiveLink, final int messageSize)
+	{
+		final byte[] buffer;
+		final int offset;
+		if (messageSize > this.chunkSize / 2)
+		{
+			// a large message gets a buffer of its own - instead of wasting the rest of the current chunk
+			buffer = new byte[messageSize];
+			offset = 0;
+		}
+		else
+		{
+			if (this.chunk == null || this.chunk.length - this.chunkPosition < messageSize)
+			{
+				this.chunk = new byte[this.chunkSize];
+				this.chunkPosition = 0;
+			}
+
+			buffer = this.chunk;
+			offset = this.chunkPosition;
+		}
+
+		final int read = receiveLink.recv(buffer, offset, messageSize);
+		if (buffer == this.chunk)
+		{
+			this.chunkPosition += read;
+		}
+
+		return this.decode(buffer, offset, read);
+	}
+
+	/**
+	 * Decode the message encoded at buffer[offset, offset + length) - a Data section body is returned as a slice of buffer, unless it is small (see {@link #MAX_BUFFER_TO_BODY_RATIO}).
+	 */
+	Message decode(final byte[] buffer, final int offset, final int length)
+	{
+		final Message message = Proton.message();
+		final ByteBuffer encodedMessage = ByteBuffer.wrap(buffer, offset, length);
+		this.decoder.setByteBuffer(encodedMessage);
+
+		try
+		{
+			while (encodedMessage.hasRemaining())
+			{
+				final Binary dataSection = sliceDataSection(buffer, encodedMessage);
+				if (dataSection != null)
+				{
+					message.setBody(new Data(dataSection));
+					continue;
+				}
+
+				final Section section = (Section) this.decoder.readObject();
+				if (section instanceof Header)
+				{
+					message.setHeader((Header) section);
+				}
+				else if (section instanceof DeliveryAnnotations)
+				{
+					message.setDeliveryAnnotations((DeliveryAnnotations) section);
+				}
+				else if (section instanceof MessageAnnotations)
+				{
+					message.setMessageAnnotations((MessageAnnotations) section);
+				}
+				else if (section instanceof Properties)
+				{
+					message.setProperties((Properties) section);
+				}
+				else if (section instanceof ApplicationProperties)
+				{
+					message.setApplicationProperties((ApplicationProperties) section);
+				}
+				else if (section instanceof Footer)
+				{
+					message.setFooter((Footer) section);
+				}
+				else
+				{
+					message.setBody(section);
+				}
+			}
+		}
+		finally
+		{
+			this.decoder.setByteBuffer(null);
+		}
+
+		return message;
+	}
+
+	// if a Data section starts at the current position: returns its value as a slice of buffer & moves past the section
+	private static Binary sliceDataSection(final byte[] buffer, final ByteBuffer encodedMessage)
+	{
+		final int position = encodedMessage.position();
+		if (encodedMessage.remaining() < 5
+				|| buffer[position] != DESCRIBED_TYPE_CONSTRUCTOR
+				|| buffer[position + 1] != SMALL_ULONG_CONSTRUCTOR
+				|| buffer[position + 2] != DATA_SECTION_DESCRIPTOR)
+		{
+			return null;
+		}
+
+		final int valueOffset;
+		final int valueLength;
+		if (buffer[position + 3] == VBIN8_CONSTRUCTOR)
+		{
+			valueOffset = position + 5;
+			valueLength = buffer[position + 4] & 0xff;
+		}
+		else if (buffer[position + 3] == VBIN32_CONSTRUCTOR && encodedMessage.remaining() >= 8)
+		{
+			valueOffset = position + 8;
+			valueLength = ((buffer[position + 4] & 0xff) << 24)
+					| ((buffer[position + 5] & 0xff) << 16)
+					| ((buffer[position + 6] & 0xff) << 8)
+					| (buffer[position + 7] & 0xff);
+		}
+		else
+		{
+			return null;
+		}
+
+		if (valueLength < 0 || valueLength > encodedMessage.limit() - valueOffset)
+		{
+			return null;
+		}
+
+		encodedMessage.position(valueOffset + valueLength);
+		if ((long) valueLength * MAX_BUFFER_TO_BODY_RATIO < buffer.length)
+		{
+			// a small body doesn't pin the whole chunk
+			return new Binary(Arrays.copyOfRange(buffer, valueOffset, valueOffset + valueLength));
+		}
+
+		return new Binary(buffer, valueOffset, valueLength);
+	}
+}
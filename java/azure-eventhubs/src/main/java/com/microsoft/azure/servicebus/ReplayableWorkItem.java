@@ -8,12 +8,16 @@ import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+
 public class ReplayableWorkItem<T> extends WorkItem<T>
 {
 	private byte[] amqpMessage;
+	private ByteArrayPool bufferPool;
 	private int messageFormat;
 	private int encodedMessageSize;
 	private boolean waitingForAck;
+	private MessageAnnotations messageAnnotations;
 	
 	private Exception lastKnownException;
 	private ScheduledFuture<?> timeoutTask;
@@ -21,20 +25,36 @@ public class ReplayableWorkItem<T> extends WorkItem<T>
 	public ReplayableWorkItem(final byte[] amqpMessage, final int encodedMessageSize, final int messageFormat, final CompletableFuture<T> completableFuture, final Duration timeout)
 	{
 		super(completableFuture, timeout);
-		this.initialize(amqpMessage, encodedMessageSize, messageFormat);
+		this.initialize(amqpMessage, encodedMessageSize, messageFormat, null);
 	}
 
 	public ReplayableWorkItem(final byte[] amqpMessage, final int encodedMessageSize, final int messageFormat, final CompletableFuture<T> completableFuture, final TimeoutTracker timeout)
 	{
 		super(completableFuture, timeout);
-		this.initialize(amqpMessage, encodedMessageSize, messageFormat);
+		this.initialize(amqpMessage, encodedMessageSize, messageFormat, null);
+	}
+
+	/**
+	 * @param bufferPool pool from which amqpMessage was borrowed; amqpMessage is returned to it upon {@link #releaseMessage()}
+	 */
+	public ReplayableWorkItem(final byte[] amqpMessage, final int encodedMessageSize, final int messageFormat, final CompletableFuture<T> completableFuture, final Duration timeout, final ByteArrayPool bufferPool)
+	{
+		super(completableFuture, timeout);
+		this.initialize(amqpMessage, encodedMessageSize, messageFormat, bufferPool);
 	}
 
-	private void initialize(final byte[] amqpMessage, final int encodedMessageSize, final int messageFormat)
+	public ReplayableWorkItem(final byte[] amqpMessage, final int encodedMessageSize, final int messageFormat, final CompletableFuture<T> completableFuture, final TimeoutTracker timeout, final ByteArrayPool bufferPool)
+	{
+		super(completableFuture, timeout);
+		this.initialize(amqpMessage, encodedMessageSize, messageFormat, bufferPool);
+	}
+
+	private void initialize(final byte[] amqpMessage, final int encodedMessageSize, final int messageFormat, final ByteArrayPool bufferPool)
 	{
 		this.amqpMessage = amqpMessage;
 		this.messageFormat = messageFormat;
 		this.encodedMessageSize = encodedMessageSize;
+		this.bufferPool = bufferPool;
 	}
 
 	public byte[] getMessage()
@@ -42,6 +62,26 @@ public class ReplayableWorkItem<T> extends WorkItem<T>
 		return this.amqpMessage;
 	}
 
+	public ByteArrayPool getBufferPool()
+	{
+		return this.bufferPool;
+	}
+
+	/**
+	 * Returns the encoded message buffer to its pool - should be invoked only once the delivery is settled or failed, and only from the Reactor thread.
+	 * The message cannot be replayed after this call.
+	 */
+	public void releaseMessage()
+	{
+		final byte[] message = this.amqpMessage;
+		this.amqpMessage = null;
+
+		if (message != null && this.bufferPool != null)
+		{
+			this.bufferPool.release(message);
+		}
+	}
+
 	public int getEncodedMessageSize()
 	{
 		return this.encodedMessageSize;
@@ -52,6 +92,19 @@ public class ReplayableWorkItem<T> extends WorkItem<T>
 		return this.messageFormat;
 	}
 
+	/**
+	 * @return message annotations of the encoded message - used to find the sends which can be coalesced into one batch
+	 */
+	public MessageAnnotations getMessageAnnotations()
+	{
+		return this.messageAnnotations;
+	}
+
+	public void setMessageAnnotations(final MessageAnnotations messageAnnotations)
+	{
+		this.messageAnnotations = messageAnnotations;
+	}
+
 	public Exception getLastKnownException()
 	{
 		return this.lastKnownException;
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+/**
+ * Delivery guarantee of the messages sent by a Sender.
+ */
+public enum SendMode
+{
+	/**
+	 * Messages are sent unsettled - a send completes once the service acknowledges the message; failed sends are retried as per the {@link RetryPolicy}.
+	 */
+	AtLeastOnce,
+
+	/**
+	 * Messages are sent pre-settled (fire-and-forget) - a send completes as soon as the message is handed over to the transport.
+	 * Messages could be lost, without any error reported, if the link or the connection fails. Intended for high volume telemetry which can tolerate loss.
+	 */
+	AtMostOnce
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Session;
+import org.apache.qpid.proton.engine.Transport;
+
+import com.microsoft.azure.servicebus.amqp.SessionHandler;
+
+/*
+ * The sessions of one connection - shared by the links of a MessagingFactory.
+ * A link attaches to the open session carrying the fewest links; a new session is begun only if all the pooled sessions carry links
+ * and the pool is not full - so that re-creating a link after an error doesn't cost a session begin/end round trip.
+ * Accessed only on the Reactor thread.
+ */
+final class SessionPool
+{
+	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
+
+	private final Connection connection;
+	private final String name;
+	private final ArrayList<PooledSession> sessions;
+
+	private long sessionOpenCount;
+
+	SessionPool(final Connection connection, final String name)
+	{
+		this.connection = connection;
+		this.name = name;
+		this.sessions = new ArrayList<PooledSession>();
+	}
+
+	Connection getConnection()
+	{
+		return this.connection;
+	}
+
+	int getSessionCount()
+	{
+		return this.sessions.size();
+	}
+
+	long getSessionOpenCount()
+	{
+		return this.sessionOpenCount;
+	}
+
+	Session getSession(final int maxSessions, final int incomingBytes, final int outgoingBytes)
+	{
+		PooledSession leastLoaded = null;
+		final Iterator<PooledSession> iterator = this.sessions.iterator();
+		while (iterator.hasNext())
+		{
+			final PooledSession pooledSession = iterator.next();
+			if (pooledSession.session.getLocalState() == EndpointState.CLOSED || pooledSession.session.getRemoteState() == EndpointState.CLOSED)
+			{
+				iterator.remove();
+				continue;
+			}
+
+			if (leastLoaded == null || pooledSession.linkCount < leastLoaded.linkCount)
+			{
+				leastLoaded = pooledSession;
+			}
+		}
+
+		if (leastLoaded == null || (leastLoaded.linkCount > 0 && this.sessions.size() < maxSessions))
+		{
+			leastLoaded = new PooledSession(openSession(this.connection, String.format(Locale.US, "%s-session-%s", this.name, this.sessionOpenCount), incomingBytes, outgoingBytes));
+			this.sessions.add(leastLoaded);
+			this.sessionOpenCount++;
+
+			if (TRACE_LOGGER.isLoggable(Level.FINE))
+			{
+				TRACE_LOGGER.log(Level.FINE, String.format(Locale.US, "pool[%s], action[openSession], sessionCount[%s]", this.name, this.sessions.size()));
+			}
+		}
+
+		leastLoaded.linkCount++;
+		return leastLoaded.session;
+	}
+
+	void onLinkRemoved(final Link link)
+	{
+		final Session session = link.getSession();
+		for (PooledSession pooledSession : this.sessions)
+		{
+			if (pooledSession.session == session)
+			{
+				pooledSession.linkCount = Math.max(0, pooledSession.linkCount - 1);
+				return;
+			}
+		}
+	}
+
+	static Session openSession(final Connection connection, final String name, final int incomingBytes, final int outgoingBytes)
+	{
+		final Session session = connection.session();
+		setIncomingBytes(session, incomingBytes);
+		setOutgoingBytes(session, outgoingBytes);
+		session.open();
+		BaseHandler.setHandler(session, new SessionHandler(name));
+		return session;
+	}
+
+	// the incoming window of the session is (capacity / maxFrameSize) frames - it should fit at least one frame, or the session would stall
+	static void setIncomingBytes(final Session session, final int incomingBytes)
+	{
+		if (incomingBytes <= 0)
+		{
+			session.setIncomingCapacity(Integer.MAX_VALUE);
+			return;
+		}
+
+		session.setIncomingCapacity(Math.max(incomingBytes, getMaxFrameSize(session)));
+	}
+
+	static void setOutgoingBytes(final Session session, final int outgoingBytes)
+	{
+		if (outgoingBytes <= 0)
+		{
+			session.setOutgoingWindow(Integer.MAX_VALUE);
+			return;
+		}
+
+		session.setOutgoingWindow(Math.max(1, outgoingBytes / getMaxFrameSize(session)));
+	}
+
+	private static int getMaxFrameSize(final Session session)
+	{
+		final Transport transport = session.getConnection().getTransport();
+		final int maxFrameSize = transport != null ? transport.getMaxFrameSize() : 0;
+		return maxFrameSize > 0 ? maxFrameSize : ClientConstants.MAX_FRAME_SIZE_BYTES;
+	}
+
+	private static final class PooledSession
+	{
+		final Session session;
+		int linkCount;
+
+		PooledSession(final Session session)
+		{
+			this.session = session;
+		}
+	}
+}
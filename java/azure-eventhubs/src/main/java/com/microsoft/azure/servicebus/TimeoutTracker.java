@@ -6,11 +6,14 @@ package com.microsoft.azure.servicebus;
 
 import java.time.*;
 
+/**
+ * Tracks the time left for an operation - using the monotonic {@link System#nanoTime()} clock, so that it is not affected by wall-clock adjustments.
+ */
 public class TimeoutTracker
 {
 	private final Duration originalTimeout;
 	private boolean isTimerStarted;
-	private Instant startTime;
+	private long startTime;
 
 	/**
 	 * @param timeout original operationTimeout
@@ -27,7 +30,7 @@ public class TimeoutTracker
 
 		if (startTrackingTimeout)
 		{
-			this.startTime = Instant.now();
+			this.startTime = System.nanoTime();
 		}
 
 		this.isTimerStarted = startTrackingTimeout;
@@ -47,10 +50,10 @@ public class TimeoutTracker
 	{
 		if (!this.isTimerStarted)
 		{
-			this.startTime = Instant.now();
+			this.startTime = System.nanoTime();
 			this.isTimerStarted = true;
 		}
 
-		return Duration.between(this.startTime, Instant.now());
+		return Duration.ofNanos(System.nanoTime() - this.startTime);
 	}
 }
@@ -14,11 +14,17 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * An abstraction for a Scheduler functionality - which can later be replaced by a light-weight Thread
+ * An abstraction for a Scheduler functionality.
+ * One time runs (operation timeouts - which are mostly cancelled before they fire) are tracked on a {@link HashedWheelTimer};
+ * the expired tasks and the repeated runs are run on a ScheduledThreadPoolExecutor.
  */
 final class Timer
 {
+	private static final Duration WHEEL_TICK_DURATION = Duration.ofMillis(10);
+	private static final int WHEEL_TICKS = 512;
+
 	private static ScheduledThreadPoolExecutor executor = null;
+	private static HashedWheelTimer wheelTimer = null;
 
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 	private static final HashSet<String> references = new HashSet<String>();
@@ -36,7 +42,7 @@ final class Timer
 		switch (timerType)
 		{
 		case OneTimeRun:
-			return executor.schedule(runnable, runFrequency.toMillis(), TimeUnit.MILLISECONDS);
+			return wheelTimer.schedule(runnable, runFrequency);
 
 		case RepeatRun:
 			return executor.scheduleWithFixedDelay(runnable, runFrequency.toMillis(), runFrequency.toMillis(), TimeUnit.MILLISECONDS);
@@ -60,6 +66,8 @@ final class Timer
 				}
 
 				executor = new ScheduledThreadPoolExecutor(corePoolSize);
+				wheelTimer = new HashedWheelTimer(executor, WHEEL_TICK_DURATION, WHEEL_TICKS);
+				wheelTimer.start();
 			}
 
 			references.add(clientId);
@@ -77,6 +85,7 @@ final class Timer
 					TRACE_LOGGER.log(Level.FINE, "Shuting down ScheduledThreadPoolExecutor.");
 				}
 
+				wheelTimer.stop();
 				executor.shutdownNow();
 			}
 		}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus;
+
+import java.util.Locale;
+
+import org.apache.qpid.proton.engine.Transport;
+
+/**
+ * Tuning of the AMQP transport & the TCP socket under the connection of a {@link MessagingFactory} - set on the {@link ConnectionStringBuilder}
+ * the factory is created from (see {@link MessagingFactory#createFromConnectionStringBuilder}).
+ * <p>The options are read whenever the factory opens a connection - changing them affects the connections opened afterwards, including re-connects.
+ * Socket buffer sizes & TCP_NODELAY left at their defaults are not set on the socket - the platform defaults apply.
+ */
+public final class TransportOptions
+{
+	private volatile int maxFrameSize;
+	private volatile boolean tcpNoDelay;
+	private volatile boolean keepAlive;
+	private volatile int sendBufferSize;
+	private volatile int receiveBufferSize;
+	private volatile boolean isSslContextShared;
+
+	public TransportOptions()
+	{
+		this.maxFrameSize = ClientConstants.MAX_FRAME_SIZE_BYTES;
+		this.isSslContextShared = true;
+	}
+
+	public int getMaxFrameSize()
+	{
+		return this.maxFrameSize;
+	}
+
+	/**
+	 * @param value the largest AMQP frame this client accepts - the peer may negotiate it down. Larger frames carry large messages in fewer transfers.
+	 */
+	public void setMaxFrameSize(final int value)
+	{
+		if (value < Transport.MIN_MAX_FRAME_SIZE)
+		{
+			throw new IllegalArgumentException(String.format(Locale.US, "maxFrameSize should not be less than %s", Transport.MIN_MAX_FRAME_SIZE));
+		}
+
+		this.maxFrameSize = value;
+	}
+
+	public boolean getTcpNoDelay()
+	{
+		return this.tcpNoDelay;
+	}
+
+	/**
+	 * @param value true, to disable Nagle's algorithm on the socket - small frames (dispositions, flows, small sends) go out without waiting to be coalesced
+	 */
+	public void setTcpNoDelay(final boolean value)
+	{
+		this.tcpNoDelay = value;
+	}
+
+	public boolean getKeepAlive()
+	{
+		return this.keepAlive;
+	}
+
+	/**
+	 * @param value true, to enable TCP keep-alive on the socket
+	 */
+	public void setKeepAlive(final boolean value)
+	{
+		this.keepAlive = value;
+	}
+
+	public int getSendBufferSize()
+	{
+		return this.sendBufferSize;
+	}
+
+	/**
+	 * @param value size of the socket send buffer, in bytes - 0, for the platform default
+	 */
+	public void setSendBufferSize(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("sendBufferSize should be non-negative");
+		}
+
+		this.sendBufferSize = value;
+	}
+
+	public int getReceiveBufferSize()
+	{
+		return this.receiveBufferSize;
+	}
+
+	/**
+	 * @param value size of the socket receive buffer, in bytes - 0, for the platform default
+	 */
+	public void setReceiveBufferSize(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("receiveBufferSize should be non-negative");
+		}
+
+		this.receiveBufferSize = value;
+	}
+
+	public boolean getIsSslContextShared()
+	{
+		return this.isSslContextShared;
+	}
+
+	/**
+	 * @param value true - the default - to open all the connections with one SSL context, so that re-connects resume the TLS session
+	 * of an earlier connection to the same host instead of a full handshake; false, for a new SSL context per connection
+	 */
+	public void setIsSslContextShared(final boolean value)
+	{
+		this.isSslContextShared = value;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format(Locale.US, "maxFrameSize=%s;tcpNoDelay=%s;keepAlive=%s;sendBufferSize=%s;receiveBufferSize=%s;isSslContextShared=%s",
+				this.maxFrameSize, this.tcpNoDelay, this.keepAlive, this.sendBufferSize, this.receiveBufferSize, this.isSslContextShared);
+	}
+}
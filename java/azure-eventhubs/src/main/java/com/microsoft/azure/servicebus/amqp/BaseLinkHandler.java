@@ -23,6 +23,11 @@ public class BaseLinkHandler extends BaseHandler
 		this.underlyingEntity = amqpLink;
 	}
 
+	public IAmqpLink getAmqpLink()
+	{
+		return this.underlyingEntity;
+	}
+
 	@Override
 	public void onLinkLocalClose(Event event)
 	{
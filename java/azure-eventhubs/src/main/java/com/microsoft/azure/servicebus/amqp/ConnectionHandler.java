@@ -15,11 +15,13 @@ import org.apache.qpid.proton.engine.EndpointState;
 import org.apache.qpid.proton.engine.Event;
 import org.apache.qpid.proton.engine.Sasl;
 import org.apache.qpid.proton.engine.SslDomain;
+import org.apache.qpid.proton.engine.SslPeerDetails;
 import org.apache.qpid.proton.engine.Transport;
 import org.apache.qpid.proton.reactor.Handshaker;
 
 import com.microsoft.azure.servicebus.ClientConstants;
 import com.microsoft.azure.servicebus.StringUtil;
+import com.microsoft.azure.servicebus.TransportOptions;
 
 // ServiceBus <-> ProtonReactor interaction handles all
 // amqp_connection/transport related events from reactor
@@ -28,17 +30,33 @@ public final class ConnectionHandler extends BaseHandler
 
 	private static final Logger TRACE_LOGGER = Logger.getLogger(ClientConstants.SERVICEBUS_CLIENT_TRACE);
 
+	// one SSL context for all the connections of the process - its session cache lets a re-connect resume the TLS session
+	// of an earlier connection to the same host:port, instead of a full handshake
+	private static final SslDomain SHARED_DOMAIN = makeDomain(SslDomain.Mode.CLIENT);
+
 	private final String username;
 	private final String password;
 	private final IAmqpConnection messagingFactory;
+	private final TransportOptions transportOptions;
 
 	public ConnectionHandler(final IAmqpConnection messagingFactory, final String username, final String password)
+	{
+		this(messagingFactory, username, password, new TransportOptions());
+	}
+
+	public ConnectionHandler(final IAmqpConnection messagingFactory, final String username, final String password, final TransportOptions transportOptions)
 	{
 		add(new Handshaker());
 
 		this.username = username;
 		this.password = password;
 		this.messagingFactory = messagingFactory;
+		this.transportOptions = transportOptions;
+	}
+
+	public TransportOptions getTransportOptions()
+	{
+		return this.transportOptions;
 	}
 	
 	@Override
@@ -56,8 +74,9 @@ public final class ConnectionHandler extends BaseHandler
 	{
 		Transport transport = event.getTransport();
 
-		SslDomain domain = makeDomain(SslDomain.Mode.CLIENT);
-		transport.ssl(domain);
+		// the domain creates its SSL context on the first I/O of a transport using it - two Reactor threads racing on it
+		// at most create one context too many, which only costs the TLS sessions cached in the dropped one
+		transport.ssl(this.transportOptions.getIsSslContextShared() ? SHARED_DOMAIN : makeDomain(SslDomain.Mode.CLIENT), getPeerDetails(event));
 
 		Sasl sasl = transport.sasl();
 		sasl.plain(this.username, this.password);
@@ -127,6 +146,19 @@ public final class ConnectionHandler extends BaseHandler
 		this.messagingFactory.onConnectionError(error);
 	}
 
+	// the session cache of the SSL context is keyed by the peer host:port - without it, no TLS session is resumed
+	private static SslPeerDetails getPeerDetails(Event event)
+	{
+		final String address = event.getReactor().getConnectionAddress(event.getConnection());
+		final int portSeparator = address != null ? address.lastIndexOf(':') : -1;
+		if (portSeparator < 0)
+		{
+			return Proton.sslPeerDetails(address, ClientConstants.AMQPS_PORT);
+		}
+
+		return Proton.sslPeerDetails(address.substring(0, portSeparator), Integer.parseInt(address.substring(portSeparator + 1)));
+	}
+
 	private static SslDomain makeDomain(SslDomain.Mode mode)
 	{
 		SslDomain domain = Proton.sslDomain();
@@ -1,11 +1,17 @@
 package com.microsoft.azure.servicebus.amqp;
 
 import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.EndpointState;
 import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Handler;
 import org.apache.qpid.proton.engine.Transport;
+import org.apache.qpid.proton.reactor.Reactor;
 import org.apache.qpid.proton.reactor.impl.IOHandler;
+import org.apache.qpid.proton.reactor.impl.ReactorImpl;
+
+import com.microsoft.azure.servicebus.TransportOptions;
 
 public class CustomIOHandler extends IOHandler
 {
@@ -18,10 +24,43 @@ public class CustomIOHandler extends IOHandler
 			return;
 		}
 
+		final TransportOptions transportOptions = getTransportOptions(connection);
+
 		Transport transport = Proton.transport();
-		transport.setMaxFrameSize(AmqpConstants.MAX_FRAME_SIZE);
+		transport.setMaxFrameSize(transportOptions != null ? transportOptions.getMaxFrameSize() : AmqpConstants.MAX_FRAME_SIZE);
 		transport.sasl();
 		transport.setEmitFlowEventOnSend(false);
 		transport.bind(connection);
 	}
+
+	@Override
+	public void onConnectionBound(Event event)
+	{
+		// the socket of the connection is opened by this dispatch - see TransportIO
+		final Reactor reactor = event.getReactor();
+		final TransportIO transportIO = reactor instanceof ReactorImpl && ((ReactorImpl) reactor).getIO() instanceof TransportIO
+				? (TransportIO) ((ReactorImpl) reactor).getIO()
+				: null;
+		if (transportIO == null)
+		{
+			super.onConnectionBound(event);
+			return;
+		}
+
+		transportIO.setPendingOptions(getTransportOptions(event.getConnection()));
+		try
+		{
+			super.onConnectionBound(event);
+		}
+		finally
+		{
+			transportIO.setPendingOptions(null);
+		}
+	}
+
+	private static TransportOptions getTransportOptions(final Connection connection)
+	{
+		final Handler handler = BaseHandler.getHandler(connection);
+		return handler instanceof ConnectionHandler ? ((ConnectionHandler) handler).getTransportOptions() : null;
+	}
 }
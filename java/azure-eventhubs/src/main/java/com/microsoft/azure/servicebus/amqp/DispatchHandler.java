@@ -1,14 +1,43 @@
 package com.microsoft.azure.servicebus.amqp;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Event;
 
 public abstract class DispatchHandler extends BaseHandler
 {
+	// the ReactorDispatcher whose work queue the handler is waiting in - so that a handler is queued at most once per dispatcher.
+	// a dispatcher replacing the one of a failed Reactor takes the mark over, and the replaced dispatcher skips the handler
+	private final AtomicReference<ReactorDispatcher> queuedOn = new AtomicReference<ReactorDispatcher>();
+
 	@Override public void onTimerTask(Event e)
 	{
 		this.onEvent();
 	}
 	
 	public abstract void onEvent();
+
+	boolean tryMarkQueued(final ReactorDispatcher dispatcher)
+	{
+		while (true)
+		{
+			final ReactorDispatcher current = this.queuedOn.get();
+			if (current == dispatcher)
+			{
+				return false;
+			}
+
+			if (this.queuedOn.compareAndSet(current, dispatcher))
+			{
+				return true;
+			}
+		}
+	}
+
+	// false if the mark was taken over by another dispatcher - which runs the handler instead
+	boolean tryClearQueued(final ReactorDispatcher dispatcher)
+	{
+		return this.queuedOn.compareAndSet(dispatcher, null);
+	}
 }
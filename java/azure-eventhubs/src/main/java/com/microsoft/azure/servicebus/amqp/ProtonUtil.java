@@ -5,8 +5,8 @@
 package com.microsoft.azure.servicebus.amqp;
 
 import java.io.IOException;
-import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.reactor.Reactor;
+import org.apache.qpid.proton.reactor.impl.ReactorImpl;
 
 public final class ProtonUtil
 {
@@ -16,7 +16,9 @@ public final class ProtonUtil
 
 	public static Reactor reactor(ReactorHandler reactorHandler) throws IOException
 	{
-		Reactor reactor = Proton.reactor(reactorHandler);
+		// same as Proton.reactor(handler) - with an I/O provider which applies the TransportOptions of the connection to its socket
+		Reactor reactor = new ReactorImpl(new TransportIO()) {};
+		reactor.getHandler().add(reactorHandler);
 		reactor.setGlobalHandler(new CustomIOHandler());
 		return reactor;
 	}
@@ -9,7 +9,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.Pipe;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.qpid.proton.engine.BaseHandler;
 import org.apache.qpid.proton.engine.Event;
@@ -26,6 +27,9 @@ import org.apache.qpid.proton.reactor.Selectable.Callback;
  * It uses a {@link Pipe} as the IO on which Reactor Listens to.
  * Cardinality: multiple {@link ReactorDispatcher}'s could be attached to 1 {@link Reactor}.
  * Each {@link ReactorDispatcher} should be initialized Synchronously - as it calls API in {@link Reactor} which is not thread-safe. 
+ * Wakeups are coalesced: only the first work item queued after the Reactor drained the work queue writes to the {@link Pipe};
+ * and a {@link DispatchHandler} which is already waiting in the work queue is not queued again.
+ * A {@link DispatchHandler} queued on a newer dispatcher of the same client (ex: after a Reactor error) is run only by that dispatcher.
  */
 public final class ReactorDispatcher
 {
@@ -33,6 +37,8 @@ public final class ReactorDispatcher
 	private final Pipe ioSignal;
 	private final ConcurrentLinkedQueue<BaseHandler> workQueue;
 	private final ScheduleHandler workScheduler;
+	private final AtomicBoolean isSignalled;
+	private final AtomicLong signalCount;
 
 	public ReactorDispatcher(final Reactor reactor) throws IOException
 	{
@@ -40,6 +46,8 @@ public final class ReactorDispatcher
 		this.ioSignal = Pipe.open();
 		this.workQueue = new ConcurrentLinkedQueue<BaseHandler>();
 		this.workScheduler = new ScheduleHandler();
+		this.isSignalled = new AtomicBoolean();
+		this.signalCount = new AtomicLong();
 		
 		initializeSelectable();
 	}
@@ -58,8 +66,11 @@ public final class ReactorDispatcher
 
 	public void invoke(final DispatchHandler timerCallback) throws IOException
 	{
-		this.workQueue.offer(timerCallback);
-		this.signalWorkQueue();
+		if (timerCallback.tryMarkQueued(this))
+		{
+			this.workQueue.offer(timerCallback);
+			this.signalWorkQueue();
+		}
 	}
 	
 	public void invoke(final int delay, final DispatchHandler timerCallback) throws IOException
@@ -68,15 +79,36 @@ public final class ReactorDispatcher
 		this.signalWorkQueue();
 	}
 	
+	/**
+	 * @return number of wakeups written to the {@link Pipe} - at most one per drain of the work queue by the Reactor
+	 */
+	public long getSignalCount()
+	{
+		return this.signalCount.get();
+	}
+
 	private void signalWorkQueue() throws IOException
 	{
+		if (!this.isSignalled.compareAndSet(false, true))
+		{
+			// the Reactor is yet to drain the work queue - it will pick up this work item as well
+			return;
+		}
+
 		try
 		{
 			this.ioSignal.sink().write(ByteBuffer.allocate(1));
+			this.signalCount.incrementAndGet();
 		}
 		catch(ClosedChannelException ignorePipeClosedDuringReactorShutdown)
 		{
         }
+		catch(IOException ioException)
+		{
+			// the wakeup didn't go through - let the next work item retry it
+			this.isSignalled.set(false);
+			throw ioException;
+		}
 	}
 	
 	private final class DelayHandler extends BaseHandler
@@ -101,12 +133,16 @@ public final class ReactorDispatcher
 	
 	private final class ScheduleHandler implements Callback
 	{
+		// used only on the Reactor thread
+		private final ByteBuffer signalReadBuffer = ByteBuffer.allocate(1024);
+
 		@Override
 		public void run(Selectable selectable)
 		{
 			try
 			{
-				ioSignal.source().read(ByteBuffer.allocate(1024));
+				this.signalReadBuffer.clear();
+				ioSignal.source().read(this.signalReadBuffer);
 			}
 			catch(ClosedChannelException ignorePipeClosedDuringReactorShutdown)
 			{
@@ -116,17 +152,18 @@ public final class ReactorDispatcher
 				throw new RuntimeException(ioException);
 			}
 			
-			final HashSet<BaseHandler> completedWork = new HashSet<BaseHandler>();
-			
+			// reset before draining - work queued from here on signals the pipe again
+			isSignalled.set(false);
+
 			BaseHandler topWork = workQueue.poll(); 
 			while (topWork != null)
 			{
-				if (!completedWork.contains(topWork))
+				// cleared before running, so that the handler can be re-queued while it runs
+				if (!(topWork instanceof DispatchHandler) || ((DispatchHandler) topWork).tryClearQueued(ReactorDispatcher.this))
 				{
 					topWork.onTimerTask(null);
-					completedWork.add(topWork);
 				}
-				
+
 				topWork = workQueue.poll();
 			}
 		}
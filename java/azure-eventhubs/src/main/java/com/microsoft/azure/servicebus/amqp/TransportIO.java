@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.servicebus.amqp;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+
+import org.apache.qpid.proton.reactor.impl.IOImpl;
+
+import com.microsoft.azure.servicebus.TransportOptions;
+
+/*
+ * The I/O provider of the Reactor - applies the socket options of the connection being bound to the socket opened for it.
+ * The Reactor opens the socket of a connection while dispatching its CONNECTION_BOUND event to the IOHandler - CustomIOHandler
+ * sets the options of the connection around that dispatch. Accessed only on the Reactor thread.
+ */
+final class TransportIO extends IOImpl
+{
+	private TransportOptions pendingOptions;
+
+	void setPendingOptions(final TransportOptions transportOptions)
+	{
+		this.pendingOptions = transportOptions;
+	}
+
+	@Override
+	public SocketChannel socketChannel() throws IOException
+	{
+		final SocketChannel socketChannel = super.socketChannel();
+		final TransportOptions transportOptions = this.pendingOptions;
+		if (transportOptions != null)
+		{
+			if (transportOptions.getTcpNoDelay())
+			{
+				socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			}
+
+			if (transportOptions.getKeepAlive())
+			{
+				socketChannel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+			}
+
+			if (transportOptions.getSendBufferSize() > 0)
+			{
+				socketChannel.setOption(StandardSocketOptions.SO_SNDBUF, transportOptions.getSendBufferSize());
+			}
+
+			// set before connect - the receive buffer bounds the TCP window scale negotiated in the handshake
+			if (transportOptions.getReceiveBufferSize() > 0)
+			{
+				socketChannel.setOption(StandardSocketOptions.SO_RCVBUF, transportOptions.getReceiveBufferSize());
+			}
+		}
+
+		return socketChannel;
+	}
+}
@@ -0,0 +1,272 @@
+package com.microsoft.azure.eventhubs;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * Allocation benchmark of the receive path: bytes allocated per received event, when only the body & sequence number are read -
+ * with the lazy {@link EventData} vs a copy of the eager {@code EventData(Message)} before it, which materialized all properties & system properties.
+ */
+public class EventDataAllocationTest
+{
+	private static final int EVENT_COUNT = 20000;
+	private static final int WARMUP_ROUNDS = 3;
+
+	@Test
+	public void lazyMaterializationAllocatesLessPerEvent()
+	{
+		final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported());
+		final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+		final Message[] messages = new Message[EVENT_COUNT];
+		long lazyBytesPerEvent = 0;
+		long eagerBytesPerEvent = 0;
+		for (int round = 0; round <= WARMUP_ROUNDS; round++)
+		{
+			createReceivedMessages(messages);
+			final long lazyStart = allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			long checksum = 0;
+			for (Message message : messages)
+			{
+				final EventData eventData = new EventData(message);
+				checksum += eventData.getBodyBuffer().remaining() + eventData.getSystemProperties().getSequenceNumber();
+			}
+
+			lazyBytesPerEvent = (allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - lazyStart) / EVENT_COUNT;
+
+			createReceivedMessages(messages);
+			final long eagerStart = allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			for (Message message : messages)
+			{
+				final EagerEventData eventData = new EagerEventData(message);
+				checksum += eventData.getBodyBuffer().remaining() + eventData.getSystemProperties().getSequenceNumber();
+			}
+
+			eagerBytesPerEvent = (allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - eagerStart) / EVENT_COUNT;
+			Assert.assertTrue(checksum > 0);
+		}
+
+		TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US, "bytes allocated per received event, reading body & sequenceNumber - eager EventData(Message): %s, lazy EventData(Message): %s",
+				eagerBytesPerEvent, lazyBytesPerEvent));
+		Assert.assertTrue(lazyBytesPerEvent < eagerBytesPerEvent);
+	}
+
+	@Test
+	public void lazyMaterializationReturnsReceivedProperties()
+	{
+		final Message[] messages = new Message[1];
+		createReceivedMessages(messages);
+
+		final EventData eventData = new EventData(messages[0]);
+		Assert.assertEquals(7L, eventData.getSystemProperties().getSequenceNumber());
+		Assert.assertEquals("1024", eventData.getSystemProperties().getOffset());
+		Assert.assertEquals(1000L, eventData.getSystemProperties().getEnqueuedTime().toEpochMilli());
+		Assert.assertNull(eventData.getSystemProperties().getPartitionKey());
+		Assert.assertEquals("value", eventData.getProperties().get("key"));
+		Assert.assertEquals("annotation", eventData.getProperties().get("x-opt-custom"));
+		Assert.assertFalse(eventData.getProperties().containsKey(AmqpConstants.OFFSET.toString()));
+	}
+
+	@Test
+	public void materializationLeavesReceivedSectionsUntouched()
+	{
+		final Message[] messages = new Message[1];
+		createReceivedMessages(messages);
+		final Map<?, ?> receivedApplicationProperties = messages[0].getApplicationProperties().getValue();
+
+		final EventData eventData = new EventData(messages[0]);
+		Assert.assertEquals(2, eventData.getProperties().size());
+		Assert.assertEquals(1, receivedApplicationProperties.size());
+		Assert.assertNotSame(receivedApplicationProperties, eventData.getProperties());
+	}
+
+	@Test
+	public void concurrentReadersSeeAllReceivedProperties() throws Exception
+	{
+		final int readerCount = 4;
+		final Message[] messages = new Message[2000];
+		createReceivedMessages(messages);
+
+		final EventData[] events = new EventData[messages.length];
+		for (int index = 0; index < messages.length; index++)
+		{
+			events[index] = new EventData(messages[index]);
+		}
+
+		final CyclicBarrier barrier = new CyclicBarrier(readerCount);
+		final AtomicInteger incompleteReads = new AtomicInteger();
+		final ExecutorService readers = Executors.newFixedThreadPool(readerCount);
+		try
+		{
+			final Future<?>[] results = new Future<?>[readerCount];
+			for (int reader = 0; reader < readerCount; reader++)
+			{
+				results[reader] = readers.submit(new Callable<Void>()
+				{
+					@Override
+					public Void call() throws Exception
+					{
+						barrier.await();
+						for (EventData eventData : events)
+						{
+							final Map<String, String> properties = eventData.getProperties();
+							if (properties == null || !"value".equals(properties.get("key")) || !"annotation".equals(properties.get("x-opt-custom"))
+									|| !"1024".equals(eventData.getSystemProperties().getOffset()))
+							{
+								incompleteReads.incrementAndGet();
+							}
+						}
+
+						return null;
+					}
+				});
+			}
+
+			for (Future<?> result : results)
+			{
+				result.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally
+		{
+			readers.shutdownNow();
+		}
+
+		Assert.assertEquals(0, incompleteReads.get());
+	}
+
+	private static void createReceivedMessages(final Message[] messages)
+	{
+		final byte[] body = new byte[128];
+		for (int index = 0; index < messages.length; index++)
+		{
+			final Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+			annotations.put(AmqpConstants.SEQUENCE_NUMBER, 7L);
+			annotations.put(AmqpConstants.OFFSET, "1024");
+			annotations.put(AmqpConstants.ENQUEUED_TIME_UTC, new Date(1000));
+			annotations.put(Symbol.valueOf("x-opt-custom"), "annotation");
+
+			final Map<String, String> properties = new HashMap<String, String>();
+			properties.put("key", "value");
+
+			final Message message = Proton.message();
+			message.setMessageAnnotations(new MessageAnnotations(annotations));
+			message.setApplicationProperties(new ApplicationProperties(properties));
+			message.setBody(new Data(new Binary(body)));
+			messages[index] = message;
+		}
+	}
+
+	// EventData(Message) before lazy materialization - what it did for each received event, & the accessors the benchmark reads
+	private static final class EagerEventData
+	{
+		private String partitionKey;
+		private final String offset;
+		private final long sequenceNumber;
+		private final Instant enqueuedTime;
+		private Map<String, String> properties;
+		private final Binary bodyData;
+		private EagerSystemProperties systemProperties;
+
+		@SuppressWarnings("unchecked")
+		EagerEventData(final Message amqpMessage)
+		{
+			final Map<Symbol, Object> messageAnnotations = amqpMessage.getMessageAnnotations().getValue();
+
+			final Object partitionKeyObj = messageAnnotations.get(AmqpConstants.PARTITION_KEY);
+			if (partitionKeyObj != null)
+			{
+				this.partitionKey = partitionKeyObj.toString();
+				messageAnnotations.remove(AmqpConstants.PARTITION_KEY);
+			}
+
+			this.sequenceNumber = (Long) messageAnnotations.get(AmqpConstants.SEQUENCE_NUMBER);
+			messageAnnotations.remove(AmqpConstants.SEQUENCE_NUMBER);
+
+			this.enqueuedTime = ((Date) messageAnnotations.get(AmqpConstants.ENQUEUED_TIME_UTC)).toInstant();
+			messageAnnotations.remove(AmqpConstants.ENQUEUED_TIME_UTC);
+
+			this.offset = messageAnnotations.get(AmqpConstants.OFFSET).toString();
+			messageAnnotations.remove(AmqpConstants.OFFSET);
+
+			this.properties = amqpMessage.getApplicationProperties() == null ? null
+					: ((Map<String, String>) (amqpMessage.getApplicationProperties().getValue()));
+
+			if (!messageAnnotations.isEmpty())
+			{
+				if (this.properties == null)
+				{
+					this.properties = new HashMap<String, String>();
+				}
+
+				for (Map.Entry<Symbol, Object> annotation : messageAnnotations.entrySet())
+				{
+					this.properties.put(annotation.getKey().toString(), annotation.getValue() != null ? annotation.getValue().toString() : null);
+				}
+			}
+
+			this.bodyData = amqpMessage.getBody() == null ? null : ((Data) amqpMessage.getBody()).getValue();
+
+			amqpMessage.clear();
+		}
+
+		ByteBuffer getBodyBuffer()
+		{
+			return this.bodyData == null ? null : this.bodyData.asByteBuffer().slice().asReadOnlyBuffer();
+		}
+
+		EagerSystemProperties getSystemProperties()
+		{
+			if (this.systemProperties == null)
+			{
+				this.systemProperties = new EagerSystemProperties(this);
+			}
+
+			return this.systemProperties;
+		}
+	}
+
+	private static final class EagerSystemProperties
+	{
+		private final EagerEventData eventData;
+
+		EagerSystemProperties(final EagerEventData eventData)
+		{
+			this.eventData = eventData;
+		}
+
+		long getSequenceNumber()
+		{
+			return this.eventData.sequenceNumber;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package com.microsoft.azure.eventhubs;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.IPublisher;
+import com.microsoft.azure.servicebus.ISubscriber;
+import com.microsoft.azure.servicebus.ISubscription;
+import com.microsoft.azure.servicebus.InMemoryMessagingFactory;
+import com.microsoft.azure.servicebus.OperationCancelledException;
+
+/**
+ * {@link PartitionReceiver#toPublisher} - against an in-process peer.
+ */
+public class PartitionReceiverPublisherTest
+{
+	private InMemoryMessagingFactory factory;
+	private PartitionReceiver receiver;
+	private ExecutorService executor;
+	private long nextOffset;
+
+	@Before
+	public void createReceiver() throws Exception
+	{
+		this.factory = InMemoryMessagingFactory.create();
+		this.receiver = PartitionReceiver.create(this.factory, "eventhub1", "$default", "0", "-1", false, null, PartitionReceiver.NULL_EPOCH, false)
+				.get(10, TimeUnit.SECONDS);
+		this.executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void cleanup() throws Exception
+	{
+		// before the executor is shut down - the subscriber is signalled on it
+		this.receiver.close().get(10, TimeUnit.SECONDS);
+		Thread.sleep(100);
+		this.executor.shutdown();
+		this.factory.shutdown();
+		Assert.assertNull(this.factory.getPumpFailure());
+	}
+
+	@Test
+	public void subscriberGetsTheRequestedEvents() throws Exception
+	{
+		this.sendEvents(5);
+		final RecordingSubscriber subscriber = this.subscribe();
+
+		subscriber.subscription.request(3);
+		subscriber.awaitEvents(3);
+		Thread.sleep(200);
+		Assert.assertEquals(3, subscriber.eventCount.get());
+
+		subscriber.subscription.request(2);
+		subscriber.awaitEvents(5);
+		Assert.assertTrue(subscriber.errors.isEmpty());
+	}
+
+	@Test
+	public void nonPositiveRequestFailsTheSubscription() throws Exception
+	{
+		final RecordingSubscriber subscriber = this.subscribe();
+
+		subscriber.subscription.request(-1);
+
+		Assert.assertTrue(subscriber.errors.poll(10, TimeUnit.SECONDS) instanceof IllegalArgumentException);
+	}
+
+	@Test
+	public void secondSubscriberIsRejected() throws Exception
+	{
+		final IPublisher<EventData> publisher = this.receiver.toPublisher(this.executor);
+		final RecordingSubscriber subscriber = new RecordingSubscriber();
+		publisher.subscribe(subscriber);
+
+		final RecordingSubscriber secondSubscriber = new RecordingSubscriber();
+		publisher.subscribe(secondSubscriber);
+
+		Assert.assertNotNull(secondSubscriber.subscription);
+		Assert.assertTrue(secondSubscriber.errors.poll(10, TimeUnit.SECONDS) instanceof IllegalStateException);
+
+		// the first subscriber is unaffected
+		this.sendEvents(1);
+		subscriber.subscription.request(1);
+		subscriber.awaitEvents(1);
+		Assert.assertTrue(subscriber.errors.isEmpty());
+	}
+
+	@Test
+	public void cancelledSubscriberGetsNoFurtherSignals() throws Exception
+	{
+		final RecordingSubscriber subscriber = this.subscribe();
+		this.sendEvents(2);
+		subscriber.subscription.request(1);
+		subscriber.awaitEvents(1);
+
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(1);
+		Thread.sleep(200);
+
+		Assert.assertEquals(1, subscriber.eventCount.get());
+		Assert.assertTrue(subscriber.errors.isEmpty());
+	}
+
+	@Test
+	public void closingTheReceiverFailsTheSubscription() throws Exception
+	{
+		final RecordingSubscriber subscriber = this.subscribe();
+
+		this.receiver.close().get(10, TimeUnit.SECONDS);
+
+		Assert.assertTrue(subscriber.errors.poll(10, TimeUnit.SECONDS) instanceof OperationCancelledException);
+	}
+
+	@Test
+	public void replacingTheReceiveHandlerFailsTheSubscription() throws Exception
+	{
+		final RecordingSubscriber subscriber = this.subscribe();
+
+		this.receiver.setReceiveHandler(new PartitionReceiveHandler(10)
+		{
+			@Override
+			public void onReceive(final Iterable<EventData> events)
+			{
+			}
+
+			@Override
+			public void onError(final Throwable error)
+			{
+			}
+		}, this.executor);
+
+		Assert.assertTrue(subscriber.errors.poll(10, TimeUnit.SECONDS) instanceof OperationCancelledException);
+	}
+
+	private RecordingSubscriber subscribe()
+	{
+		final RecordingSubscriber subscriber = new RecordingSubscriber();
+		this.receiver.toPublisher(this.executor).subscribe(subscriber);
+		Assert.assertNotNull(subscriber.subscription);
+		return subscriber;
+	}
+
+	private void sendEvents(final int eventCount)
+	{
+		for (int index = 0; index < eventCount; index++)
+		{
+			final long offset = this.nextOffset++;
+			this.factory.enqueueMessage(InMemoryMessagingFactory.createMessage(offset, offset, null));
+		}
+	}
+
+	private static final class RecordingSubscriber implements ISubscriber<EventData>
+	{
+		final AtomicInteger eventCount = new AtomicInteger();
+		final LinkedBlockingQueue<Throwable> errors = new LinkedBlockingQueue<Throwable>();
+		volatile ISubscription subscription;
+
+		@Override
+		public void onSubscribe(final ISubscription subscription)
+		{
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(final EventData item)
+		{
+			this.eventCount.incrementAndGet();
+		}
+
+		@Override
+		public void onError(final Throwable error)
+		{
+			this.errors.offer(error);
+		}
+
+		@Override
+		public void onComplete()
+		{
+		}
+
+		void awaitEvents(final int count) throws InterruptedException
+		{
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (this.eventCount.get() < count && System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(5);
+			}
+
+			Assert.assertEquals(count, this.eventCount.get());
+		}
+	}
+}
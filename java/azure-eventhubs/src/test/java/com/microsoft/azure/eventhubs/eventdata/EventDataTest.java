@@ -79,4 +79,18 @@ public class EventDataTest
 	 	
 	 	return deSerializedEvent;
 	}
+
+	@Test
+	public void eventDataBodyBufferIsTheSliceOfTheBody()
+	{
+		final byte[] payload = "0123456789".getBytes();
+		final EventData eventData = new EventData(payload, 2, 5);
+
+		final ByteBuffer bodyBuffer = eventData.getBodyBuffer();
+		Assert.assertTrue(bodyBuffer.isReadOnly());
+		Assert.assertEquals(0, bodyBuffer.position());
+		Assert.assertEquals(5, bodyBuffer.remaining());
+		Assert.assertEquals('2', bodyBuffer.get(0));
+		Assert.assertEquals('6', bodyBuffer.get(4));
+	}
 }
@@ -1,7 +1,28 @@
 package com.microsoft.azure.eventhubs.protoncontracts;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
 import org.junit.Test;
 
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventDataBatch;
+import com.microsoft.azure.servicebus.BatchMessageEncoder;
+import com.microsoft.azure.servicebus.ByteArrayPool;
+import com.microsoft.azure.servicebus.ClientConstants;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
 public class SendBatchContractTest
 {
 	@Test
@@ -9,4 +30,141 @@ public class SendBatchContractTest
 	{
 		// TODO add test to validate the sendBatch contract : https://github.com/apache/qpid-proton/commit/e9e0f31c6894736e54d7d5b624bf3245f704d9af
 	}
+
+	@Test
+	public void batchEncoderWritesOneDataSectionPerMessage()
+	{
+		final Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+		annotations.put(AmqpConstants.PARTITION_KEY, "pk");
+		final MessageAnnotations batchAnnotations = new MessageAnnotations(annotations);
+
+		final byte[] buffer = new byte[4096];
+		final BatchMessageEncoder encoder = new BatchMessageEncoder(buffer, buffer.length);
+		encoder.encodeEnvelope(batchAnnotations);
+		final int envelopeSize = encoder.getEncodedSize();
+
+		for (int index = 0; index < 3; index++)
+		{
+			final Message message = Proton.message();
+			message.setApplicationProperties(new ApplicationProperties(Collections.singletonMap("index", (Object) String.valueOf(index))));
+			message.setBody(new Data(new Binary(("payload" + index).getBytes())));
+			Assert.assertTrue(encoder.tryAppend(message));
+		}
+
+		Assert.assertEquals(3, encoder.getMessageCount());
+
+		final Message envelope = Proton.message();
+		envelope.decode(buffer, 0, envelopeSize);
+		Assert.assertEquals("pk", envelope.getMessageAnnotations().getValue().get(AmqpConstants.PARTITION_KEY));
+
+		final ByteBuffer reader = ByteBuffer.wrap(buffer, envelopeSize, encoder.getEncodedSize() - envelopeSize);
+		for (int index = 0; index < 3; index++)
+		{
+			Assert.assertEquals(0x00, reader.get());
+			Assert.assertEquals(0x53, reader.get());
+			Assert.assertEquals(0x75, reader.get());
+			Assert.assertEquals((byte) 0xb0, reader.get());
+			final int length = reader.getInt();
+
+			final Message decoded = Proton.message();
+			decoded.decode(buffer, reader.position(), length);
+			reader.position(reader.position() + length);
+
+			Assert.assertEquals(String.valueOf(index), decoded.getApplicationProperties().getValue().get("index"));
+			Assert.assertEquals("payload" + index, new String(((Data) decoded.getBody()).getValue().getArray(),
+					((Data) decoded.getBody()).getValue().getArrayOffset(), ((Data) decoded.getBody()).getValue().getLength()));
+		}
+
+		Assert.assertFalse(reader.hasRemaining());
+	}
+
+	@Test
+	public void batchEncoderLeavesBatchUnchangedOnOverflow()
+	{
+		final byte[] buffer = new byte[256];
+		final BatchMessageEncoder encoder = new BatchMessageEncoder(buffer, buffer.length);
+		encoder.encodeEnvelope(null);
+
+		final Message small = Proton.message();
+		small.setBody(new Data(new Binary(new byte[16])));
+		Assert.assertTrue(encoder.tryAppend(small));
+		final int sizeAfterFirst = encoder.getEncodedSize();
+
+		final Message large = Proton.message();
+		large.setBody(new Data(new Binary(new byte[1024])));
+		Assert.assertFalse(encoder.tryAppend(large));
+		Assert.assertEquals(sizeAfterFirst, encoder.getEncodedSize());
+		Assert.assertEquals(1, encoder.getMessageCount());
+	}
+
+	@Test
+	public void eventDataBatchFillsUpToMaxMessageSize()
+	{
+		final EventDataBatch batch = new EventDataBatch("pk");
+		final EventData event = new EventData(new byte[1024]);
+		while (batch.tryAdd(event))
+		{
+		}
+
+		Assert.assertTrue(batch.getSize() > 0);
+		Assert.assertTrue(batch.getEncodedSize() <= ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		Assert.assertTrue(batch.getRemainingBytes() < 1024);
+
+		final int encodedSize = batch.getEncodedSize();
+		Assert.assertFalse(batch.tryAdd(event));
+		Assert.assertEquals(encodedSize, batch.getEncodedSize());
+	}
+
+	@Test
+	public void eventDataBatchReturnsBorrowedBufferOnRelease()
+	{
+		final ByteArrayPool pool = new ByteArrayPool(ClientConstants.MAX_MESSAGE_LENGTH_BYTES, 4, 4 * ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+
+		final EventDataBatch first = new EventDataBatch(null, pool);
+		Assert.assertTrue(first.tryAdd(new EventData(new byte[100])));
+		first.release();
+		first.release();
+		Assert.assertEquals(ClientConstants.MAX_MESSAGE_LENGTH_BYTES, pool.getPooledBytes());
+
+		final EventDataBatch second = new EventDataBatch("pk", pool);
+		Assert.assertEquals(1, pool.getHitCount());
+		Assert.assertEquals(0, second.getSize());
+
+		try
+		{
+			first.tryAdd(new EventData(new byte[100]));
+			Assert.fail("a released batch should not be added to");
+		}
+		catch (IllegalStateException expected)
+		{
+		}
+	}
+
+	@Test
+	public void batchEncoderAppendsEncodedMessageAsIs()
+	{
+		final Message message = Proton.message();
+		message.setBody(new Data(new Binary(new byte[] { 1, 2, 3 })));
+
+		final byte[] encodedBuffer = new byte[256];
+		final BatchMessageEncoder encodingEncoder = new BatchMessageEncoder(encodedBuffer, encodedBuffer.length);
+		encodingEncoder.encodeEnvelope(null);
+		Assert.assertTrue(encodingEncoder.tryAppend(message));
+
+		final byte[] encodedMessage = new byte[256];
+		final int encodedMessageSize = message.encode(encodedMessage, 0, encodedMessage.length);
+
+		final byte[] copiedBuffer = new byte[256];
+		final BatchMessageEncoder copyingEncoder = new BatchMessageEncoder(copiedBuffer, copiedBuffer.length);
+		copyingEncoder.encodeEnvelope(null);
+		Assert.assertTrue(copyingEncoder.tryAppendEncoded(encodedMessage, 0, encodedMessageSize));
+
+		Assert.assertEquals(encodingEncoder.getEncodedSize(), copyingEncoder.getEncodedSize());
+		Assert.assertArrayEquals(
+				Arrays.copyOf(encodedBuffer, encodingEncoder.getEncodedSize()),
+				Arrays.copyOf(copiedBuffer, copyingEncoder.getEncodedSize()));
+
+		Assert.assertFalse(copyingEncoder.tryAppendEncoded(encodedMessage, 0, copyingEncoder.getRemainingBytes()));
+		Assert.assertEquals(1, copyingEncoder.getMessageCount());
+	}
 }
@@ -0,0 +1,49 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.ByteArrayPool;
+
+public class ByteArrayPoolTest
+{
+	@Test
+	public void borrowRoundsUpToSizeClassAndReusesReleasedBuffers()
+	{
+		final ByteArrayPool pool = new ByteArrayPool(256 * 1024, 4, 1024 * 1024);
+
+		final byte[] first = pool.borrow(1500);
+		Assert.assertEquals(2048, first.length);
+		Assert.assertEquals(1, pool.getMissCount());
+
+		pool.release(first);
+		final byte[] second = pool.borrow(2000);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, pool.getHitCount());
+
+		Assert.assertEquals(1024, pool.borrow(1).length);
+		Assert.assertEquals(256 * 1024, pool.borrow(256 * 1024).length);
+	}
+
+	@Test
+	public void releaseHonoursCaps()
+	{
+		final ByteArrayPool pool = new ByteArrayPool(256 * 1024, 1, 1024 * 1024);
+
+		final byte[] first = pool.borrow(1024);
+		final byte[] second = pool.borrow(1024);
+		pool.release(first);
+		pool.release(second);
+		Assert.assertEquals(1024, pool.getPooledBytes());
+
+		// not a size class of the pool
+		pool.release(new byte[1000]);
+		pool.release(new byte[512 * 1024]);
+		Assert.assertEquals(1024, pool.getPooledBytes());
+
+		pool.setMaxPooledBytes(0);
+		pool.borrow(1024);
+		pool.release(first);
+		Assert.assertEquals(0, pool.getPooledBytes());
+	}
+}
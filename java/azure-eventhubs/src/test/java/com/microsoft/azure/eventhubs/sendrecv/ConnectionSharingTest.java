@@ -0,0 +1,41 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.TestEventHubInfo;
+import com.microsoft.azure.servicebus.MessagingFactoryCache;
+import com.microsoft.azure.servicebus.SendMode;
+
+public class ConnectionSharingTest extends TestBase
+{
+	@Test
+	public void clientsShareConnectionUpToLinkCap() throws Exception
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		final TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		final String connectionString = TestBase.getConnectionString(eventHubInfo).toString();
+		final MessagingFactoryCache factoryCache = new MessagingFactoryCache(2, null);
+
+		final EventHubClient first = EventHubClient.createFromConnectionStringShared(connectionString, SendMode.AtLeastOnce, factoryCache).get();
+		final EventHubClient second = EventHubClient.createFromConnectionStringShared(connectionString, SendMode.AtLeastOnce, factoryCache).get();
+		Assert.assertEquals(1, factoryCache.getConnectionCount());
+
+		// the first connection is full - spills over
+		final EventHubClient third = EventHubClient.createFromConnectionStringShared(connectionString, SendMode.AtLeastOnce, factoryCache).get();
+		Assert.assertEquals(2, factoryCache.getConnectionCount());
+
+		first.closeSync();
+		Assert.assertEquals(2, factoryCache.getConnectionCount());
+
+		second.closeSync();
+		Assert.assertEquals(1, factoryCache.getConnectionCount());
+
+		third.closeSync();
+		Assert.assertEquals(0, factoryCache.getConnectionCount());
+	}
+}
@@ -0,0 +1,43 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.LongHashMap;
+
+public class LongHashMapTest
+{
+	@Test
+	public void putGetRemoveAcrossResizes()
+	{
+		final LongHashMap<String> map = new LongHashMap<String>();
+		for (long key = 0; key < 1000; key++)
+		{
+			Assert.assertNull(map.put(key, String.valueOf(key)));
+		}
+
+		Assert.assertEquals(1000, map.size());
+		Assert.assertEquals("999", map.put(999, "replaced"));
+		Assert.assertEquals(1000, map.size());
+
+		// remove every other key - the remaining keys should still be reachable
+		for (long key = 0; key < 1000; key += 2)
+		{
+			Assert.assertEquals(String.valueOf(key), map.remove(key));
+		}
+
+		Assert.assertEquals(500, map.size());
+		for (long key = 0; key < 999; key++)
+		{
+			Assert.assertEquals(key % 2 == 0 ? null : String.valueOf(key), map.get(key));
+		}
+
+		Assert.assertEquals("replaced", map.get(999));
+		Assert.assertNull(map.remove(0));
+		Assert.assertEquals(500, map.values().size());
+
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(1));
+	}
+}
@@ -0,0 +1,269 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.servicebus.PendingSendQueue;
+
+/**
+ * Sends queued per second - by 1, 8 & 32 producer threads, drained by a single consumer (like the Reactor thread) -
+ * of the lock-free {@link PendingSendQueue} vs a locked priority queue ordered by a retry weight (the pending sends of the sender before the queues were split).
+ * Like the sender, the consumer queues the retries: every RETRY_INTERVAL'th send it drains is queued again as a retry.
+ */
+public class PendingSendQueueBenchmarkTest
+{
+	private static final int[] PRODUCER_COUNTS = { 1, 8, 32 };
+	// divisible by all the producer counts
+	private static final int SEND_COUNT = 960000;
+	// every RETRY_INTERVAL'th send is retried once
+	private static final int RETRY_INTERVAL = 10;
+	private static final int DRAIN_COUNT = SEND_COUNT + SEND_COUNT / RETRY_INTERVAL;
+	private static final int MEASURED_RUNS = 5;
+
+	@Test
+	public void retriesDrainAheadOfNewSends()
+	{
+		final PendingSendQueue<String> pendingSends = new PendingSendQueue<String>();
+		pendingSends.offer("send0");
+		pendingSends.offer("send1");
+		pendingSends.offerRetry("retry0");
+		pendingSends.offer("send2");
+		pendingSends.offerRetry("retry1");
+
+		Assert.assertEquals(5, pendingSends.size());
+		Assert.assertEquals("retry0", pendingSends.peek());
+		Assert.assertEquals("send0", pendingSends.peekNew());
+
+		Assert.assertEquals("retry0", pendingSends.poll());
+		Assert.assertEquals("retry1", pendingSends.poll());
+		Assert.assertEquals("send0", pendingSends.poll());
+
+		// a retry queued after new sends were drained still goes out ahead of the remaining new sends
+		pendingSends.offerRetry("retry2");
+		Assert.assertEquals("retry2", pendingSends.poll());
+		Assert.assertEquals("send1", pendingSends.poll());
+
+		pendingSends.offer("send3");
+		Assert.assertNull(pendingSends.pollRetry());
+		Assert.assertEquals("send2", pendingSends.pollNew());
+		Assert.assertEquals("send3", pendingSends.poll());
+		Assert.assertNull(pendingSends.poll());
+		Assert.assertNull(pendingSends.peek());
+		Assert.assertEquals(0, pendingSends.size());
+	}
+
+	@Test
+	public void lockFreeQueuesUnderProducerContention() throws Exception
+	{
+		for (int producerCount : PRODUCER_COUNTS)
+		{
+			// warm up & measure each - alternating, so that neither one runs only on a warm JIT; the median of the runs is logged
+			this.measure(producerCount, false);
+			this.measure(producerCount, true);
+			final double[] locked = new double[MEASURED_RUNS];
+			final double[] lockFree = new double[MEASURED_RUNS];
+			for (int run = 0; run < MEASURED_RUNS; run++)
+			{
+				locked[run] = this.measure(producerCount, false);
+				lockFree[run] = this.measure(producerCount, true);
+			}
+
+			TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US,
+					"producers: %s - locked priority queue: %.0f sends/sec; lock-free queues: %.0f sends/sec",
+					producerCount, median(locked), median(lockFree)));
+		}
+	}
+
+	private static double median(final double[] values)
+	{
+		final double[] sortedValues = values.clone();
+		Arrays.sort(sortedValues);
+		return sortedValues[sortedValues.length / 2];
+	}
+
+	@Test
+	public void uncontendedOfferAndPoll()
+	{
+		// the cost of a send on the queue itself - no thread scheduling in it: on a single core, that makes most of the 1 producer run
+		final Integer[] sends = new Integer[SEND_COUNT];
+		for (int index = 0; index < SEND_COUNT; index++)
+		{
+			sends[index] = index;
+		}
+
+		double lockedNanos = 0;
+		double lockFreeNanos = 0;
+		for (int run = 0; run < 2 + MEASURED_RUNS; run++)
+		{
+			// the first 2 runs warm up
+			lockedNanos = run < 2 ? 0 : lockedNanos + this.measureUncontended(sends, false) / MEASURED_RUNS;
+			lockFreeNanos = run < 2 ? 0 : lockFreeNanos + this.measureUncontended(sends, true) / MEASURED_RUNS;
+		}
+
+		TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US,
+				"uncontended offer & poll - locked priority queue: %.1f ns/send; lock-free queues: %.1f ns/send", lockedNanos, lockFreeNanos));
+	}
+
+	// returns nanoseconds per send - sends are queued & drained in bursts of 100, on the calling thread
+	private double measureUncontended(final Integer[] sends, final boolean lockFree)
+	{
+		final PendingSendQueue<Integer> pendingSends = new PendingSendQueue<Integer>();
+		final LockedPendingSends lockedPendingSends = new LockedPendingSends();
+		int drained = 0;
+		final long start = System.nanoTime();
+		for (int burst = 0; burst < sends.length; burst += 100)
+		{
+			for (int index = burst; index < burst + 100; index++)
+			{
+				if (lockFree)
+				{
+					pendingSends.offer(sends[index]);
+				}
+				else
+				{
+					lockedPendingSends.offer(sends[index], false);
+				}
+			}
+
+			while ((lockFree ? pendingSends.poll() : lockedPendingSends.poll()) != null)
+			{
+				drained++;
+			}
+		}
+
+		final long elapsedNanos = System.nanoTime() - start;
+		Assert.assertEquals(sends.length, drained);
+		return (double) elapsedNanos / sends.length;
+	}
+
+	// returns sends queued & drained per second
+	private double measure(final int producerCount, final boolean lockFree) throws Exception
+	{
+		final PendingSendQueue<Integer> pendingSends = lockFree ? new PendingSendQueue<Integer>() : null;
+		final LockedPendingSends lockedPendingSends = lockFree ? null : new LockedPendingSends();
+		final int sendsPerProducer = SEND_COUNT / producerCount;
+
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		final Thread[] producers = new Thread[producerCount];
+		for (int index = 0; index < producerCount; index++)
+		{
+			producers[index] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						startSignal.await();
+					}
+					catch (InterruptedException exception)
+					{
+						throw new RuntimeException(exception);
+					}
+
+					for (int send = 0; send < sendsPerProducer; send++)
+					{
+						final Integer sendData = send;
+						if (lockFree)
+						{
+							pendingSends.offer(sendData);
+						}
+						else
+						{
+							lockedPendingSends.offer(sendData, false);
+						}
+					}
+				}
+			});
+			producers[index].start();
+		}
+
+		final long start = System.nanoTime();
+		startSignal.countDown();
+
+		// the single consumer - a retry is queued as the negative of its send
+		int drained = 0;
+		final long deadline = start + TimeUnit.SECONDS.toNanos(60);
+		while (drained < DRAIN_COUNT && System.nanoTime() < deadline)
+		{
+			final Integer sendData = lockFree ? pendingSends.poll() : lockedPendingSends.poll();
+			if (sendData != null)
+			{
+				drained++;
+				if (sendData >= 0 && sendData % RETRY_INTERVAL == 0)
+				{
+					final Integer retrySendData = -sendData - 1;
+					if (lockFree)
+					{
+						pendingSends.offerRetry(retrySendData);
+					}
+					else
+					{
+						lockedPendingSends.offer(retrySendData, true);
+					}
+				}
+			}
+		}
+
+		final long elapsedNanos = System.nanoTime() - start;
+		for (Thread producer : producers)
+		{
+			producer.join();
+		}
+
+		Assert.assertEquals(DRAIN_COUNT, drained);
+		return drained * 1000000000.0 / elapsedNanos;
+	}
+
+	// the pending sends of the sender before the queues were split: a priority queue of retry-weighted sends, under a lock
+	private static final class LockedPendingSends
+	{
+		private final Object pendingSendLock = new Object();
+		private final PriorityQueue<WeightedSend> pendingSends = new PriorityQueue<WeightedSend>(1000, new Comparator<WeightedSend>()
+		{
+			@Override
+			public int compare(WeightedSend send0, WeightedSend send1)
+			{
+				return send1.priority - send0.priority;
+			}
+		});
+
+		void offer(final Integer sendData, final boolean isRetry)
+		{
+			synchronized (this.pendingSendLock)
+			{
+				this.pendingSends.offer(new WeightedSend(sendData, isRetry ? 1 : 0));
+			}
+		}
+
+		Integer poll()
+		{
+			synchronized (this.pendingSendLock)
+			{
+				final WeightedSend send = this.pendingSends.poll();
+				return send != null ? send.sendData : null;
+			}
+		}
+	}
+
+	private static final class WeightedSend
+	{
+		final Integer sendData;
+		final int priority;
+
+		WeightedSend(final Integer sendData, final int priority)
+		{
+			this.sendData = sendData;
+			this.priority = priority;
+		}
+	}
+}
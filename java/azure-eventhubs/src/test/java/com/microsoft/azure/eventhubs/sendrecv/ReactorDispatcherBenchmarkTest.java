@@ -0,0 +1,279 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Pipe;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.reactor.Reactor;
+import org.apache.qpid.proton.reactor.Selectable;
+import org.apache.qpid.proton.reactor.Selectable.Callback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.servicebus.amqp.DispatchHandler;
+import com.microsoft.azure.servicebus.amqp.ReactorDispatcher;
+
+/**
+ * Dispatches per second & pipe writes per dispatch - of the coalescing {@link ReactorDispatcher}
+ * vs a pipe write per dispatch (the dispatcher before wakeups were coalesced), with long-lived handlers re-dispatched from producer threads.
+ */
+public class ReactorDispatcherBenchmarkTest
+{
+	private static final int PRODUCER_COUNT = 4;
+	private static final long MEASURE_MILLIS = 1000;
+
+	@Test
+	public void coalescedWakeupsWriteLessPerDispatch() throws Exception
+	{
+		final double[] uncoalesced = this.measure(false);
+		final double[] coalesced = this.measure(true);
+
+		TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US,
+				"pipe write per dispatch - dispatches/sec: %.0f, pipe writes/dispatch: %.3f; coalesced - dispatches/sec: %.0f, pipe writes/dispatch: %.3f",
+				uncoalesced[0], uncoalesced[1], coalesced[0], coalesced[1]));
+
+		Assert.assertEquals(1.0, uncoalesced[1], 0.0);
+		Assert.assertTrue(coalesced[1] < uncoalesced[1]);
+	}
+
+	@Test
+	public void handlerQueuedOnReplacedDispatcherRunsOnTheNewOne() throws Exception
+	{
+		// the Reactor of the replaced dispatcher is not running - like a failed Reactor
+		final Reactor failedReactor = Proton.reactor();
+		final Reactor reactor = Proton.reactor();
+		final ReactorDispatcher replaced = new ReactorDispatcher(failedReactor);
+		final ReactorDispatcher current = new ReactorDispatcher(reactor);
+		final AtomicLong runs = new AtomicLong();
+		final DispatchHandler handler = new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				runs.incrementAndGet();
+			}
+		};
+
+		// still waiting in the queue of the replaced dispatcher - the new dispatcher accepts it all the same
+		replaced.invoke(handler);
+		current.invoke(handler);
+		current.invoke(handler);
+
+		final RunLoop loop = new RunLoop(reactor);
+		loop.start();
+		try
+		{
+			waitFor(runs, 1);
+			Thread.sleep(100);
+			Assert.assertEquals(1, runs.get());
+		}
+		finally
+		{
+			loop.stopLoop();
+		}
+
+		// draining the replaced dispatcher skips the handler - it was run by the new one
+		final RunLoop failedLoop = new RunLoop(failedReactor);
+		failedLoop.start();
+		try
+		{
+			Thread.sleep(100);
+			Assert.assertEquals(1, runs.get());
+		}
+		finally
+		{
+			failedLoop.stopLoop();
+		}
+	}
+
+	// returns { dispatches per second, pipe writes per dispatch }
+	private double[] measure(final boolean coalesced) throws Exception
+	{
+		final Reactor reactor = Proton.reactor();
+		final ReactorDispatcher dispatcher = coalesced ? new ReactorDispatcher(reactor) : null;
+		final UncoalescedDispatcher uncoalescedDispatcher = coalesced ? null : new UncoalescedDispatcher(reactor);
+
+		final AtomicLong dispatches = new AtomicLong();
+		final RunLoop loop = new RunLoop(reactor);
+		loop.start();
+		try
+		{
+			final CountDownLatch startSignal = new CountDownLatch(1);
+			final Thread[] producers = new Thread[PRODUCER_COUNT];
+			final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+			for (int index = 0; index < PRODUCER_COUNT; index++)
+			{
+				// long-lived - like the send work of a sender
+				final DispatchHandler handler = new DispatchHandler()
+				{
+					@Override
+					public void onEvent()
+					{
+					}
+				};
+
+				producers[index] = new Thread(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						try
+						{
+							startSignal.await();
+							while (System.nanoTime() < deadline)
+							{
+								if (coalesced)
+								{
+									dispatcher.invoke(handler);
+								}
+								else
+								{
+									uncoalescedDispatcher.invoke(handler);
+								}
+
+								dispatches.incrementAndGet();
+							}
+						}
+						catch (Exception exception)
+						{
+							throw new RuntimeException(exception);
+						}
+					}
+				});
+				producers[index].start();
+			}
+
+			final long start = System.nanoTime();
+			startSignal.countDown();
+			for (Thread producer : producers)
+			{
+				producer.join();
+			}
+
+			final long elapsedNanos = System.nanoTime() - start;
+			final long signals = coalesced ? dispatcher.getSignalCount() : uncoalescedDispatcher.signalCount.get();
+			return new double[] { dispatches.get() * 1000000000.0 / elapsedNanos, (double) signals / dispatches.get() };
+		}
+		finally
+		{
+			loop.stopLoop();
+			if (uncoalescedDispatcher != null)
+			{
+				uncoalescedDispatcher.ioSignal.sink().close();
+				uncoalescedDispatcher.ioSignal.source().close();
+			}
+		}
+	}
+
+	private static void waitFor(final AtomicLong counter, final long value) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (counter.get() < value && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+	}
+
+	private static final class RunLoop extends Thread
+	{
+		private final Reactor reactor;
+		private volatile boolean isStopped;
+
+		RunLoop(final Reactor reactor)
+		{
+			this.reactor = reactor;
+			this.setDaemon(true);
+		}
+
+		@Override
+		public void run()
+		{
+			this.reactor.setTimeout(3141);
+			this.reactor.start();
+			while (!this.isStopped && this.reactor.process())
+			{
+			}
+
+			this.reactor.stop();
+			this.reactor.free();
+		}
+
+		void stopLoop() throws InterruptedException
+		{
+			this.isStopped = true;
+			this.reactor.wakeup();
+			this.join(10000);
+		}
+	}
+
+	// the dispatcher before wakeups were coalesced: a pipe write per dispatch, de-duplicated per drain
+	private static final class UncoalescedDispatcher
+	{
+		final Pipe ioSignal;
+		final ConcurrentLinkedQueue<BaseHandler> workQueue;
+		final AtomicLong signalCount;
+
+		UncoalescedDispatcher(final Reactor reactor) throws IOException
+		{
+			this.ioSignal = Pipe.open();
+			this.workQueue = new ConcurrentLinkedQueue<BaseHandler>();
+			this.signalCount = new AtomicLong();
+
+			final Selectable selectable = reactor.selectable();
+			selectable.setChannel(this.ioSignal.source());
+			selectable.onReadable(new Callback()
+			{
+				@Override
+				public void run(Selectable selectable)
+				{
+					try
+					{
+						ioSignal.source().read(ByteBuffer.allocate(1024));
+					}
+					catch (IOException ignore)
+					{
+					}
+
+					final HashSet<BaseHandler> completedWork = new HashSet<BaseHandler>();
+					BaseHandler topWork = workQueue.poll();
+					while (topWork != null)
+					{
+						if (!completedWork.contains(topWork))
+						{
+							topWork.onTimerTask(null);
+							completedWork.add(topWork);
+						}
+
+						topWork = workQueue.poll();
+					}
+				}
+			});
+			selectable.setReading(true);
+			reactor.update(selectable);
+		}
+
+		void invoke(final DispatchHandler handler) throws IOException
+		{
+			this.workQueue.offer(handler);
+			try
+			{
+				this.ioSignal.sink().write(ByteBuffer.allocate(1));
+				this.signalCount.incrementAndGet();
+			}
+			catch (ClosedChannelException ignore)
+			{
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.Locale;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.servicebus.ReactorGroup;
+
+/**
+ * Thread count & idle wakeups of one Reactor thread per client (64 partitions of an EventProcessorHost) vs a group sized by the processor count.
+ */
+public class ReactorGroupBenchmarkTest
+{
+	private static final int DEDICATED_REACTOR_COUNT = 64;
+	private static final long MEASURE_MILLIS = 1000;
+
+	@Test
+	public void sharedLoopsBoundThreadsAndWakeups() throws Exception
+	{
+		final int sharedLoopCount = Runtime.getRuntime().availableProcessors();
+
+		final long[] dedicated = this.measure(DEDICATED_REACTOR_COUNT);
+		final long[] shared = this.measure(sharedLoopCount);
+
+		TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US, "dedicated - threads: %s, idle wakeups/sec: %s; shared - threads: %s, idle wakeups/sec: %s",
+				dedicated[0], dedicated[1], shared[0], shared[1]));
+
+		Assert.assertEquals(DEDICATED_REACTOR_COUNT, dedicated[0]);
+		Assert.assertEquals(sharedLoopCount, shared[0]);
+		if (sharedLoopCount < DEDICATED_REACTOR_COUNT)
+		{
+			Assert.assertTrue(shared[1] < dedicated[1]);
+		}
+	}
+
+	@Test
+	public void closeStopsLoopThreads() throws Exception
+	{
+		final ReactorGroup group = new ReactorGroup(2);
+		Assert.assertEquals(2, group.getLoopCount());
+		Assert.assertEquals(0, group.getConnectionCount());
+
+		group.close();
+		Assert.assertTrue(group.getIsClosed());
+
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (countLoopThreads() > 0 && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(50);
+		}
+
+		Assert.assertEquals(0, countLoopThreads());
+	}
+
+	// returns { reactor threads, idle wakeups per second }
+	private long[] measure(final int loopCount) throws Exception
+	{
+		final ReactorGroup group = new ReactorGroup(loopCount);
+		try
+		{
+			// let the loops start
+			Thread.sleep(200);
+
+			final long threadCount = countLoopThreads();
+			final long startWakeups = group.getWakeupCount();
+			final long start = System.nanoTime();
+			Thread.sleep(MEASURE_MILLIS);
+			final long wakeups = group.getWakeupCount() - startWakeups;
+			final long elapsedNanos = System.nanoTime() - start;
+
+			return new long[] { threadCount, wakeups * 1000000000L / elapsedNanos };
+		}
+		finally
+		{
+			group.close();
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (countLoopThreads() > 0 && System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(50);
+			}
+		}
+	}
+
+	private static long countLoopThreads()
+	{
+		long count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet())
+		{
+			if (thread.isAlive() && thread.getName().startsWith("eventhubs-reactor-"))
+			{
+				count++;
+			}
+		}
+
+		return count;
+	}
+}
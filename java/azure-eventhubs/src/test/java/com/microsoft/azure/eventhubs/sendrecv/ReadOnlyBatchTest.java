@@ -0,0 +1,41 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.ReadOnlyBatch;
+
+public class ReadOnlyBatchTest
+{
+	@Test
+	public void batchExposesOnlyTheFirstSizeItems()
+	{
+		final ReadOnlyBatch<String> batch = new ReadOnlyBatch<String>(new Object[] { "a", "b", "c", null }, 3);
+
+		Assert.assertEquals(3, batch.size());
+		Assert.assertEquals("b", batch.get(1));
+		Assert.assertEquals("c", batch.last());
+
+		int iterated = 0;
+		for (String item : batch)
+		{
+			Assert.assertNotNull(item);
+			iterated++;
+		}
+
+		Assert.assertEquals(3, iterated);
+		Assert.assertNull(new ReadOnlyBatch<String>(new Object[0], 0).last());
+	}
+
+	@Test (expected = IndexOutOfBoundsException.class)
+	public void batchRejectsIndexBeyondSize()
+	{
+		new ReadOnlyBatch<String>(new Object[] { "a", "b" }, 1).get(1);
+	}
+
+	@Test (expected = UnsupportedOperationException.class)
+	public void batchIsReadOnly()
+	{
+		new ReadOnlyBatch<String>(new Object[] { "a" }, 1).add("b");
+	}
+}
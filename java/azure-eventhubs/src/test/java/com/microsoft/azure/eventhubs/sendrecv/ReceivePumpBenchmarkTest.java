@@ -0,0 +1,117 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.PartitionReceiveHandler;
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.TestEventHubInfo;
+
+/**
+ * Throughput & first-batch latency of the receive pump thread vs the push mode on an executor - both draining the same partition from the start of stream.
+ */
+public class ReceivePumpBenchmarkTest extends TestBase
+{
+	private static final int EVENT_COUNT = 5000;
+
+	@Test
+	public void pushModeKeepsUpWithPumpThread() throws Exception
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		final TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		final EventHubClient ehClient = EventHubClient.createFromConnectionString(TestBase.getConnectionString(eventHubInfo).toString()).get();
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			final String partitionId = "0";
+			TestBase.pushEventsToPartition(ehClient, partitionId, EVENT_COUNT).get();
+
+			final long[] pumpThread = this.drain(ehClient, eventHubInfo.getRandomConsumerGroup(), partitionId, null);
+			final long[] pushMode = this.drain(ehClient, eventHubInfo.getRandomConsumerGroup(), partitionId, executor);
+
+			TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US, "pump thread - first batch: %sms, events/sec: %s; push mode - first batch: %sms, events/sec: %s",
+					pumpThread[0], pumpThread[1], pushMode[0], pushMode[1]));
+			Assert.assertTrue(pushMode[1] > 0);
+		}
+		finally
+		{
+			executor.shutdown();
+			ehClient.closeSync();
+		}
+	}
+
+	// returns { first batch latency in millis, events per second }
+	private long[] drain(final EventHubClient ehClient, final String consumerGroup, final String partitionId, final ExecutorService executor) throws Exception
+	{
+		final PartitionReceiver receiver = ehClient.createReceiver(consumerGroup, partitionId, PartitionReceiver.START_OF_STREAM, false).get();
+		final CompletableFuture<Void> drained = new CompletableFuture<Void>();
+		final long start = System.nanoTime();
+		final long[] firstBatchNanos = new long[1];
+		final int[] received = new int[1];
+		try
+		{
+			final PartitionReceiveHandler handler = new PartitionReceiveHandler(100)
+			{
+				@Override
+				public void onReceive(Iterable<EventData> events)
+				{
+					if (events == null)
+					{
+						return;
+					}
+
+					if (firstBatchNanos[0] == 0)
+					{
+						firstBatchNanos[0] = System.nanoTime() - start;
+					}
+
+					for (EventData event : events)
+					{
+						received[0]++;
+					}
+
+					if (received[0] >= EVENT_COUNT)
+					{
+						drained.complete(null);
+					}
+				}
+
+				@Override
+				public void onError(Throwable error)
+				{
+					drained.completeExceptionally(error);
+				}
+			};
+
+			if (executor == null)
+			{
+				receiver.setReceiveHandler(handler);
+			}
+			else
+			{
+				receiver.setReceiveHandler(handler, executor);
+			}
+
+			drained.get(5, TimeUnit.MINUTES);
+			final long elapsedNanos = System.nanoTime() - start;
+			return new long[] { TimeUnit.NANOSECONDS.toMillis(firstBatchNanos[0]), received[0] * 1000000000L / elapsedNanos };
+		}
+		finally
+		{
+			receiver.setReceiveHandler(null);
+			receiver.closeSync();
+		}
+	}
+}
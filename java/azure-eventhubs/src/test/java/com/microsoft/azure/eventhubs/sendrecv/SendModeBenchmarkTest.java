@@ -0,0 +1,158 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.servicebus.InMemoryMessagingFactory;
+import com.microsoft.azure.servicebus.InMemoryMessagingFactory.ReceivedDelivery;
+import com.microsoft.azure.servicebus.MessageSender;
+import com.microsoft.azure.servicebus.SendMode;
+import com.microsoft.azure.servicebus.StringUtil;
+
+/**
+ * Sends per second of {@link SendMode#AtMostOnce} (pre-settled) vs {@link SendMode#AtLeastOnce} - against an in-process peer which accepts & settles each send.
+ * Sends are issued SEND_WINDOW at a time, & the next window is issued once all of them complete.
+ */
+public class SendModeBenchmarkTest
+{
+	private static final int SEND_COUNT = 20000;
+	private static final int SEND_WINDOW = 100;
+	private static final int BODY_SIZE = 100;
+	private static final int MEASURED_RUNS = 3;
+
+	@Test
+	public void preSettledSendCompletesWithoutADisposition() throws Exception
+	{
+		final InMemoryMessagingFactory factory = InMemoryMessagingFactory.create();
+		try
+		{
+			final MessageSender atMostOnceSender = MessageSender.create(factory, StringUtil.getRandomString(), "eventhub1", SendMode.AtMostOnce).get(10, TimeUnit.SECONDS);
+			final MessageSender atLeastOnceSender = MessageSender.create(factory, StringUtil.getRandomString(), "eventhub1", SendMode.AtLeastOnce).get(10, TimeUnit.SECONDS);
+			factory.setHoldDispositions(true);
+
+			// completes once handed to the transport - possibly before the peer has received it
+			atMostOnceSender.send(newMessage()).get(10, TimeUnit.SECONDS);
+			awaitReceived(factory, 1);
+			Assert.assertTrue(factory.getReceivedDeliveries().get(0).isPresettled());
+
+			// whereas an unsettled send waits for the disposition
+			final CompletableFuture<Void> atLeastOnceSend = atLeastOnceSender.send(newMessage());
+			awaitReceived(factory, 2);
+			Thread.sleep(100);
+			Assert.assertFalse(atLeastOnceSend.isDone());
+			Assert.assertFalse(factory.getReceivedDeliveries().get(1).isPresettled());
+
+			factory.setHoldDispositions(false);
+			atLeastOnceSend.get(10, TimeUnit.SECONDS);
+
+			atMostOnceSender.close().get(10, TimeUnit.SECONDS);
+			atLeastOnceSender.close().get(10, TimeUnit.SECONDS);
+		}
+		finally
+		{
+			factory.shutdown();
+		}
+
+		Assert.assertNull(factory.getPumpFailure());
+	}
+
+	@Test
+	public void atMostOnceVsAtLeastOnceThroughput() throws Exception
+	{
+		// warm up & measure each - alternating, so that neither one runs only on a warm JIT; the median of the runs is logged
+		this.measure(SendMode.AtLeastOnce);
+		this.measure(SendMode.AtMostOnce);
+		final double[] atLeastOnce = new double[MEASURED_RUNS];
+		final double[] atMostOnce = new double[MEASURED_RUNS];
+		for (int run = 0; run < MEASURED_RUNS; run++)
+		{
+			atLeastOnce[run] = this.measure(SendMode.AtLeastOnce);
+			atMostOnce[run] = this.measure(SendMode.AtMostOnce);
+		}
+
+		TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US,
+				"sends per second, %s sends of %s bytes, %s in flight - AtLeastOnce: %.0f, AtMostOnce: %.0f",
+				SEND_COUNT, BODY_SIZE, SEND_WINDOW, median(atLeastOnce), median(atMostOnce)));
+	}
+
+	// returns sends per second
+	private double measure(final SendMode sendMode) throws Exception
+	{
+		final InMemoryMessagingFactory factory = InMemoryMessagingFactory.create();
+		try
+		{
+			final MessageSender sender = MessageSender.create(factory, StringUtil.getRandomString(), "eventhub1", sendMode).get(10, TimeUnit.SECONDS);
+			final List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>(SEND_WINDOW);
+			final long start = System.nanoTime();
+			for (int sent = 0; sent < SEND_COUNT; sent += SEND_WINDOW)
+			{
+				for (int index = 0; index < SEND_WINDOW; index++)
+				{
+					sends.add(sender.send(newMessage()));
+				}
+
+				for (CompletableFuture<Void> send : sends)
+				{
+					send.get(10, TimeUnit.SECONDS);
+				}
+
+				sends.clear();
+			}
+
+			final long elapsedNanos = System.nanoTime() - start;
+
+			// the sends all reached the peer - settled by the client, or by the peer, as per the mode
+			awaitReceived(factory, SEND_COUNT);
+			for (ReceivedDelivery delivery : factory.getReceivedDeliveries())
+			{
+				Assert.assertEquals(sendMode == SendMode.AtMostOnce, delivery.isPresettled());
+			}
+
+			sender.close().get(10, TimeUnit.SECONDS);
+			Assert.assertNull(factory.getPumpFailure());
+			return SEND_COUNT * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+		}
+		finally
+		{
+			factory.shutdown();
+		}
+	}
+
+	private static void awaitReceived(final InMemoryMessagingFactory factory, final int deliveryCount) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (factory.getReceivedDeliveries().size() < deliveryCount && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertEquals(deliveryCount, factory.getReceivedDeliveries().size());
+	}
+
+	private static Message newMessage()
+	{
+		final Message message = Proton.message();
+		message.setBody(new Data(new Binary(new byte[BODY_SIZE])));
+		return message;
+	}
+
+	private static double median(final double[] values)
+	{
+		final double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
@@ -0,0 +1,76 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.PartitionReceiver;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.TestEventHubInfo;
+import com.microsoft.azure.servicebus.ConnectionStringBuilder;
+import com.microsoft.azure.servicebus.MessageReceiver;
+import com.microsoft.azure.servicebus.MessagingFactory;
+import com.microsoft.azure.servicebus.StringUtil;
+
+/**
+ * Link attach latency & sessions begun - with a session per link vs links sharing the pooled sessions of the factory.
+ */
+public class SessionPoolBenchmarkTest extends TestBase
+{
+	// the service allows 5 non-epoch receivers per partition & consumer group
+	private static final int LINK_COUNT = 5;
+	private static final int MAX_SESSIONS = 2;
+
+	@Test
+	public void pooledSessionsAttachLinksFaster() throws Exception
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		final TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+		final ConnectionStringBuilder connectionString = TestBase.getConnectionString(eventHubInfo);
+
+		final long[] sessionPerLink = this.attach(connectionString, eventHubInfo, 0);
+		final long[] pooled = this.attach(connectionString, eventHubInfo, MAX_SESSIONS);
+
+		TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US, "session per link - attach: %sms, sessions: %s; pooled - attach: %sms, sessions: %s",
+				sessionPerLink[0], sessionPerLink[1], pooled[0], pooled[1]));
+
+		Assert.assertEquals(LINK_COUNT, sessionPerLink[1]);
+		Assert.assertTrue(pooled[1] <= MAX_SESSIONS);
+	}
+
+	// returns { millis to attach all the links, sessions begun }
+	private long[] attach(final ConnectionStringBuilder connectionString, final TestEventHubInfo eventHubInfo, final int maxSessions) throws Exception
+	{
+		final MessagingFactory factory = MessagingFactory.createFromConnectionString(connectionString.toString()).get();
+		final LinkedList<MessageReceiver> receivers = new LinkedList<MessageReceiver>();
+		try
+		{
+			factory.setMaxSessionsPerConnection(maxSessions);
+			final String receivePath = String.format(Locale.US, "%s/ConsumerGroups/%s/Partitions/%s", connectionString.getEntityPath(), eventHubInfo.getRandomConsumerGroup(), "0");
+
+			final long start = System.nanoTime();
+			for (int index = 0; index < LINK_COUNT; index++)
+			{
+				receivers.add(MessageReceiver.create(factory, StringUtil.getRandomString(), receivePath, PartitionReceiver.START_OF_STREAM, false, null,
+						100, 0, false).get());
+			}
+
+			return new long[] { TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), factory.getSessionOpenCount() };
+		}
+		finally
+		{
+			for (MessageReceiver receiver : receivers)
+			{
+				receiver.closeSync();
+			}
+
+			factory.closeSync();
+		}
+	}
+}
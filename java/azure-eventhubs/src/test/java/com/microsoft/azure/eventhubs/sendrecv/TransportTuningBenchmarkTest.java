@@ -0,0 +1,102 @@
+package com.microsoft.azure.eventhubs.sendrecv;
+
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.EventData;
+import com.microsoft.azure.eventhubs.EventHubClient;
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.eventhubs.lib.TestEventHubInfo;
+import com.microsoft.azure.servicebus.ConnectionStringBuilder;
+import com.microsoft.azure.servicebus.MessagingFactory;
+import com.microsoft.azure.servicebus.SendMode;
+import com.microsoft.azure.servicebus.TransportOptions;
+
+/**
+ * Re-connect latency & large batch send throughput - with a new SSL context per connection & the platform socket defaults
+ * vs the shared SSL context, TCP_NODELAY & large socket buffers.
+ */
+public class TransportTuningBenchmarkTest extends TestBase
+{
+	private static final int RECONNECT_COUNT = 5;
+	private static final int BATCH_COUNT = 20;
+	private static final int EVENTS_PER_BATCH = 100;
+	private static final int EVENT_SIZE = 2 * 1024;
+
+	@Test
+	public void tunedTransportReconnectsAndSends() throws Exception
+	{
+		Assume.assumeTrue(TestBase.isServiceRun());
+
+		final TestEventHubInfo eventHubInfo = TestBase.checkoutTestEventHub();
+
+		final TransportOptions baseline = new TransportOptions();
+		baseline.setIsSslContextShared(false);
+
+		final TransportOptions tuned = new TransportOptions();
+		tuned.setTcpNoDelay(true);
+		tuned.setSendBufferSize(1024 * 1024);
+		tuned.setReceiveBufferSize(1024 * 1024);
+
+		final long[] baselineResult = this.run(eventHubInfo, baseline);
+		final long[] tunedResult = this.run(eventHubInfo, tuned);
+
+		TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US, "baseline - reconnect: %sms, send: %s bytes/s; tuned - reconnect: %sms, send: %s bytes/s",
+				baselineResult[0], baselineResult[1], tunedResult[0], tunedResult[1]));
+
+		Assert.assertTrue(baselineResult[1] > 0 && tunedResult[1] > 0);
+	}
+
+	// returns { average millis to open a connection after the first one, bytes sent per second }
+	private long[] run(final TestEventHubInfo eventHubInfo, final TransportOptions transportOptions) throws Exception
+	{
+		final ConnectionStringBuilder connectionString = TestBase.getConnectionString(eventHubInfo);
+		connectionString.setTransportOptions(transportOptions);
+
+		// the first connection pays the full TLS handshake in both runs
+		MessagingFactory.createFromConnectionStringBuilder(connectionString, null).get().closeSync();
+
+		long reconnectNanos = 0;
+		for (int index = 0; index < RECONNECT_COUNT; index++)
+		{
+			final long start = System.nanoTime();
+			final MessagingFactory factory = MessagingFactory.createFromConnectionStringBuilder(connectionString, null).get();
+			reconnectNanos += System.nanoTime() - start;
+			factory.closeSync();
+		}
+
+		final EventHubClient client = EventHubClient.createFromConnectionStringBuilder(connectionString, SendMode.AtLeastOnce, null).get();
+		try
+		{
+			final LinkedList<EventData> batch = new LinkedList<EventData>();
+			for (int index = 0; index < EVENTS_PER_BATCH; index++)
+			{
+				batch.add(new EventData(new byte[EVENT_SIZE]));
+			}
+
+			// warm up the link
+			client.sendSync(batch);
+
+			final long start = System.nanoTime();
+			for (int index = 0; index < BATCH_COUNT; index++)
+			{
+				client.sendSync(batch);
+			}
+
+			final long elapsedNanos = Math.max(1, System.nanoTime() - start);
+			final long bytesSent = (long) BATCH_COUNT * EVENTS_PER_BATCH * EVENT_SIZE;
+
+			return new long[] { TimeUnit.NANOSECONDS.toMillis(reconnectNanos / RECONNECT_COUNT), bytesSent * TimeUnit.SECONDS.toNanos(1) / elapsedNanos };
+		}
+		finally
+		{
+			client.closeSync();
+		}
+	}
+}
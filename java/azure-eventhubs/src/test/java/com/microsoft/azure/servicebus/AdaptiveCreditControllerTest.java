@@ -0,0 +1,163 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveCreditControllerTest
+{
+	private static final long SECOND_NANOS = 1000000000L;
+	private static final int MIN_PREFETCH_COUNT = 10;
+	private static final int MAX_PREFETCH_COUNT = 80;
+
+	@Test
+	public void noEvaluationBeforeTheIntervalElapses()
+	{
+		final AdaptiveCreditController controller = newController();
+		controller.reset(0, 0);
+
+		Assert.assertFalse(controller.update(0, 100, SECOND_NANOS / 2));
+		Assert.assertFalse(controller.update(0, 0, SECOND_NANOS - 1));
+
+		Assert.assertEquals(0, controller.getEvaluationCount());
+		Assert.assertEquals(MAX_PREFETCH_COUNT, controller.getEffectivePrefetchCount());
+		Assert.assertEquals(MAX_PREFETCH_COUNT / 4, controller.getFlowBatchSize());
+	}
+
+	@Test
+	public void shrinksOnceCaughtUpDownToTheMinimum()
+	{
+		final AdaptiveCreditController controller = newController();
+		controller.reset(0, 0);
+
+		// the prefetch queue stayed empty & the link never ran out of credit
+		Assert.assertTrue(controller.update(0, 50, SECOND_NANOS));
+		Assert.assertEquals(40, controller.getEffectivePrefetchCount());
+		Assert.assertEquals(10, controller.getFlowBatchSize());
+		Assert.assertEquals(1.0, controller.getEmptyQueueRatio(), 0.0);
+
+		// empty for less than half of the interval - not caught up
+		Assert.assertFalse(controller.update(5, 50, 1400 * SECOND_NANOS / 1000));
+		Assert.assertFalse(controller.update(5, 50, 2 * SECOND_NANOS));
+		Assert.assertEquals(0.4, controller.getEmptyQueueRatio(), 0.001);
+		Assert.assertEquals(40, controller.getEffectivePrefetchCount());
+
+		// empty for exactly half of the interval - caught up
+		Assert.assertFalse(controller.update(0, 50, 2500 * SECOND_NANOS / 1000));
+		Assert.assertTrue(controller.update(0, 50, 3 * SECOND_NANOS));
+		Assert.assertEquals(0.5, controller.getEmptyQueueRatio(), 0.001);
+		Assert.assertEquals(20, controller.getEffectivePrefetchCount());
+
+		Assert.assertTrue(controller.update(0, 50, 4 * SECOND_NANOS));
+		Assert.assertEquals(MIN_PREFETCH_COUNT, controller.getEffectivePrefetchCount());
+
+		// bounded by minPrefetchCount
+		Assert.assertFalse(controller.update(0, 50, 5 * SECOND_NANOS));
+		Assert.assertEquals(MIN_PREFETCH_COUNT, controller.getEffectivePrefetchCount());
+		Assert.assertEquals(2, controller.getFlowBatchSize());
+
+		Assert.assertEquals(5, controller.getEvaluationCount());
+		Assert.assertEquals(3, controller.getShrinkCount());
+		Assert.assertEquals(0, controller.getGrowCount());
+		Assert.assertEquals(0, controller.getCreditExhaustedCount());
+	}
+
+	@Test
+	public void growsWhileCatchingUpUpToTheMaximum()
+	{
+		final AdaptiveCreditController controller = shrunkToMinimum();
+		long now = 3 * SECOND_NANOS;
+
+		// ran out of credit, but drained less than a window - the window is not the bottleneck
+		controller.onMessagesDrained(MIN_PREFETCH_COUNT - 1);
+		now += SECOND_NANOS;
+		Assert.assertFalse(controller.update(0, 0, now));
+		Assert.assertEquals(MIN_PREFETCH_COUNT, controller.getEffectivePrefetchCount());
+
+		// ran out of credit & drained a full window - catching up
+		int window = MIN_PREFETCH_COUNT;
+		while (window < MAX_PREFETCH_COUNT)
+		{
+			controller.onMessagesDrained(window);
+			now += SECOND_NANOS;
+			Assert.assertTrue(controller.update(window, 0, now));
+			window *= 2;
+			Assert.assertEquals(window, controller.getEffectivePrefetchCount());
+			Assert.assertEquals(window / 4, controller.getFlowBatchSize());
+		}
+
+		// bounded by maxPrefetchCount
+		controller.onMessagesDrained(2 * MAX_PREFETCH_COUNT);
+		now += SECOND_NANOS;
+		Assert.assertFalse(controller.update(MAX_PREFETCH_COUNT, 0, now));
+		Assert.assertEquals(MAX_PREFETCH_COUNT, controller.getEffectivePrefetchCount());
+
+		// an empty queue doesn't shrink the window in an interval in which the link ran out of credit
+		now += SECOND_NANOS;
+		Assert.assertFalse(controller.update(0, 0, now));
+		Assert.assertEquals(MAX_PREFETCH_COUNT, controller.getEffectivePrefetchCount());
+
+		Assert.assertEquals(3, controller.getGrowCount());
+		Assert.assertEquals(3, controller.getShrinkCount());
+		Assert.assertEquals(6, controller.getCreditExhaustedCount());
+		Assert.assertEquals(9, controller.getEvaluationCount());
+	}
+
+	@Test
+	public void drainCountersAreKeptPerIntervalAndInTotal()
+	{
+		final AdaptiveCreditController controller = newController();
+		controller.reset(10, 0);
+
+		controller.onMessagesDrained(30);
+		controller.onMessagesDrained(10);
+		Assert.assertFalse(controller.update(10, 5, 2 * SECOND_NANOS));
+		Assert.assertEquals(20, controller.getDrainRate());
+		Assert.assertEquals(0.0, controller.getEmptyQueueRatio(), 0.0);
+
+		controller.onMessagesDrained(5);
+		Assert.assertFalse(controller.update(10, 5, 3 * SECOND_NANOS));
+		Assert.assertEquals(5, controller.getDrainRate());
+
+		Assert.assertFalse(controller.update(10, 5, 4 * SECOND_NANOS));
+		Assert.assertEquals(0, controller.getDrainRate());
+
+		Assert.assertEquals(45, controller.getDrainedCount());
+		Assert.assertEquals(3, controller.getEvaluationCount());
+		Assert.assertEquals(0, controller.getGrowCount());
+		Assert.assertEquals(0, controller.getShrinkCount());
+		Assert.assertEquals(0, controller.getCreditExhaustedCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxBelowMinIsRejected()
+	{
+		new AdaptiveCreditController(MAX_PREFETCH_COUNT, MIN_PREFETCH_COUNT, Duration.ofSeconds(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nonPositiveMinIsRejected()
+	{
+		new AdaptiveCreditController(0, MAX_PREFETCH_COUNT, Duration.ofSeconds(1));
+	}
+
+	private static AdaptiveCreditController newController()
+	{
+		return new AdaptiveCreditController(MIN_PREFETCH_COUNT, MAX_PREFETCH_COUNT, Duration.ofSeconds(1));
+	}
+
+	// 80 -> 40 -> 20 -> 10, over the first 3 seconds
+	private static AdaptiveCreditController shrunkToMinimum()
+	{
+		final AdaptiveCreditController controller = newController();
+		controller.reset(0, 0);
+		for (int second = 1; second <= 3; second++)
+		{
+			Assert.assertTrue(controller.update(0, 50, second * SECOND_NANOS));
+		}
+
+		Assert.assertEquals(MIN_PREFETCH_COUNT, controller.getEffectivePrefetchCount());
+		return controller;
+	}
+}
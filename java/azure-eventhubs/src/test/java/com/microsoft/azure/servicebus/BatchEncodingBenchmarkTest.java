@@ -0,0 +1,169 @@
+package com.microsoft.azure.servicebus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.eventhubs.lib.TestBase;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * Bytes copied & time per event of encoding a batch for {@link MessageSender#send(Iterable)} - with {@link BatchMessageEncoder} (single pass)
+ * vs the double encoding of the sender before it: each message encoded into a buffer of its own, then wrapped in a Data section & encoded again into the batch.
+ */
+public class BatchEncodingBenchmarkTest
+{
+	private static final int[] BODY_SIZES = { 100, 1024, 16 * 1024 };
+	private static final int BATCH_COUNT = 200;
+	private static final int WARMUP_ROUNDS = 3;
+
+	@Test
+	public void singlePassCopiesEachEventOnce()
+	{
+		final ByteArrayPool bufferPool = new ByteArrayPool(ClientConstants.MAX_MESSAGE_LENGTH_BYTES,
+				ClientConstants.DEFAULT_SEND_BUFFER_POOL_BUFFERS_PER_SIZE_CLASS, ClientConstants.DEFAULT_SEND_BUFFER_POOL_MAX_BYTES);
+		for (int bodySize : BODY_SIZES)
+		{
+			final List<Message> messages = createMessages(bodySize);
+			long[] twice = null;
+			long[] once = null;
+			for (int round = 0; round <= WARMUP_ROUNDS; round++)
+			{
+				twice = measure(messages, bufferPool, false);
+				once = measure(messages, bufferPool, true);
+			}
+
+			TestBase.TEST_LOGGER.log(Level.INFO, String.format(Locale.US,
+					"body: %s bytes, %s events per batch - double encoding: %s bytes copied & %s ns per event; BatchMessageEncoder: %s bytes copied & %s ns per event",
+					bodySize, messages.size(), twice[0], twice[1], once[0], once[1]));
+
+			// the message is copied once, instead of twice
+			Assert.assertTrue(once[0] < twice[0]);
+			Assert.assertTrue(twice[0] > 2 * bodySize);
+			Assert.assertTrue(once[0] < 2 * bodySize);
+		}
+	}
+
+	// returns { bytes copied per event, nanoseconds per event }
+	private static long[] measure(final List<Message> messages, final ByteArrayPool bufferPool, final boolean singlePass)
+	{
+		long bytesCopied = 0;
+		final long start = System.nanoTime();
+		for (int batch = 0; batch < BATCH_COUNT; batch++)
+		{
+			bytesCopied += singlePass ? encodeOnce(messages, bufferPool) : encodeTwice(messages, bufferPool);
+		}
+
+		final long elapsedNanos = System.nanoTime() - start;
+		final long eventCount = (long) BATCH_COUNT * messages.size();
+		return new long[] { bytesCopied / eventCount, elapsedNanos / eventCount };
+	}
+
+	// what MessageSender.send(Iterable<Message>) does - returns the bytes written for the messages, past the envelope
+	private static int encodeOnce(final List<Message> messages, final ByteArrayPool bufferPool)
+	{
+		final byte[] bytes = bufferPool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		final BatchMessageEncoder batchEncoder = new BatchMessageEncoder(bytes, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		batchEncoder.encodeEnvelope(messages.get(0).getMessageAnnotations());
+		final int envelopeSize = batchEncoder.getEncodedSize();
+		for (Message message : messages)
+		{
+			Assert.assertTrue(batchEncoder.tryAppend(message));
+		}
+
+		bufferPool.release(bytes);
+		return batchEncoder.getEncodedSize() - envelopeSize;
+	}
+
+	// MessageSender.send(Iterable<Message>) before BatchMessageEncoder - returns the bytes written for the messages:
+	// into the buffer of each message, and again into the batch
+	private static int encodeTwice(final List<Message> messages, final ByteArrayPool bufferPool)
+	{
+		final Message batchMessage = Proton.message();
+		batchMessage.setMessageAnnotations(messages.get(0).getMessageAnnotations());
+
+		final byte[] bytes = bufferPool.borrow(ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		int byteArrayOffset = batchMessage.encode(bytes, 0, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		int bytesCopied = 0;
+		for (Message amqpMessage : messages)
+		{
+			final Message messageWrappedByData = Proton.message();
+
+			final int payloadSize = getDataSerializedSize(amqpMessage);
+			final int allocationSize = Math.min(payloadSize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES, ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+
+			final byte[] messageBytes = bufferPool.borrow(allocationSize);
+			final int messageSizeBytes = amqpMessage.encode(messageBytes, 0, allocationSize);
+			messageWrappedByData.setBody(new Data(new Binary(messageBytes, 0, messageSizeBytes)));
+
+			final int encodedSize = messageWrappedByData.encode(bytes, byteArrayOffset, ClientConstants.MAX_MESSAGE_LENGTH_BYTES - byteArrayOffset - 1);
+
+			bufferPool.release(messageBytes);
+			byteArrayOffset = byteArrayOffset + encodedSize;
+			bytesCopied += messageSizeBytes + encodedSize;
+		}
+
+		bufferPool.release(bytes);
+		return bytesCopied;
+	}
+
+	// MessageSender.getDataSerializedSize
+	private static int getDataSerializedSize(final Message amqpMessage)
+	{
+		int size = ((Data) amqpMessage.getBody()).getValue().getLength();
+		final MessageAnnotations messageAnnotations = amqpMessage.getMessageAnnotations();
+		if (messageAnnotations != null)
+		{
+			for (Map.Entry<Symbol, Object> annotation : messageAnnotations.getValue().entrySet())
+			{
+				size += Util.sizeof(annotation.getKey()) + Util.sizeof(annotation.getValue());
+			}
+		}
+
+		final ApplicationProperties applicationProperties = amqpMessage.getApplicationProperties();
+		if (applicationProperties != null)
+		{
+			for (Map.Entry<?, ?> property : ((Map<?, ?>) applicationProperties.getValue()).entrySet())
+			{
+				size += Util.sizeof(property.getKey()) + Util.sizeof(property.getValue());
+			}
+		}
+
+		return size;
+	}
+
+	// as many events, with a partitionKey & a property, as fit in a batch - up to 100
+	private static List<Message> createMessages(final int bodySize)
+	{
+		final Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+		annotations.put(AmqpConstants.PARTITION_KEY, "partitionKey");
+		final MessageAnnotations messageAnnotations = new MessageAnnotations(annotations);
+
+		final int messageCount = Math.min(100, ClientConstants.MAX_MESSAGE_LENGTH_BYTES / (bodySize + ClientConstants.MAX_EVENTHUB_AMQP_HEADER_SIZE_BYTES));
+		final List<Message> messages = new ArrayList<Message>();
+		for (int index = 0; index < messageCount; index++)
+		{
+			final Message message = Proton.message();
+			message.setMessageAnnotations(messageAnnotations);
+			message.setApplicationProperties(new ApplicationProperties(Collections.singletonMap("index", (Object) index)));
+			message.setBody(new Data(new Binary(new byte[bodySize])));
+			messages.add(message);
+		}
+
+		return messages;
+	}
+}
@@ -0,0 +1,52 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CoalescedSendTimeoutTest
+{
+	@Test
+	public void batchInheritsTheDeadlineOfItsNewestSend() throws Exception
+	{
+		final ReplayableWorkItem<Void> firstSend = newSend(Duration.ofSeconds(60));
+		Thread.sleep(20);
+		final ReplayableWorkItem<Void> secondSend = newSend(Duration.ofSeconds(60));
+		Thread.sleep(20);
+		final ReplayableWorkItem<Void> lastSend = newSend(Duration.ofSeconds(60));
+
+		final List<ReplayableWorkItem<Void>> coalescedSends = new ArrayList<ReplayableWorkItem<Void>>();
+		coalescedSends.add(firstSend);
+		coalescedSends.add(secondSend);
+		coalescedSends.add(lastSend);
+
+		final TimeoutTracker batchTracker = MessageSender.getLatestTimeoutTracker(coalescedSends);
+
+		Assert.assertSame(lastSend.getTimeoutTracker(), batchTracker);
+		Assert.assertTrue(batchTracker.remaining().compareTo(firstSend.getTimeoutTracker().remaining()) > 0);
+	}
+
+	@Test
+	public void batchInheritsTheLatestDeadlineWhereverItsSendIs()
+	{
+		final ReplayableWorkItem<Void> shortSend = newSend(Duration.ofSeconds(10));
+		final ReplayableWorkItem<Void> longSend = newSend(Duration.ofSeconds(120));
+		final ReplayableWorkItem<Void> defaultSend = newSend(Duration.ofSeconds(60));
+
+		final List<ReplayableWorkItem<Void>> coalescedSends = new ArrayList<ReplayableWorkItem<Void>>();
+		coalescedSends.add(shortSend);
+		coalescedSends.add(longSend);
+		coalescedSends.add(defaultSend);
+
+		Assert.assertSame(longSend.getTimeoutTracker(), MessageSender.getLatestTimeoutTracker(coalescedSends));
+	}
+
+	private static ReplayableWorkItem<Void> newSend(final Duration timeout)
+	{
+		return new ReplayableWorkItem<Void>(new byte[16], 16, 0, new CompletableFuture<Void>(), timeout);
+	}
+}
@@ -0,0 +1,196 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashedWheelTimerTest
+{
+	// the wheel of Timer
+	private static final Duration TICK_DURATION = Duration.ofMillis(10);
+	private static final int TICKS_PER_WHEEL = 512;
+
+	private static final Executor INLINE_EXECUTOR = new Executor()
+	{
+		@Override
+		public void execute(final Runnable task)
+		{
+			task.run();
+		}
+	};
+
+	@Test
+	public void timeoutExpiresWithinOneTick() throws Exception
+	{
+		final HashedWheelTimer timer = startTimer(INLINE_EXECUTOR);
+		try
+		{
+			final AtomicInteger runs = new AtomicInteger();
+			final long start = System.nanoTime();
+			final ScheduledFuture<?> timeout = timer.schedule(new CountingTask(runs), Duration.ofMillis(25));
+
+			timeout.get(5, TimeUnit.SECONDS);
+			final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			Assert.assertEquals(1, runs.get());
+			Assert.assertTrue(timeout.isDone());
+			Assert.assertFalse(timeout.isCancelled());
+			Assert.assertFalse(timeout.cancel(false));
+			Assert.assertTrue("expired early: " + elapsedMillis, elapsedMillis >= 25);
+			// a tick late at most - with some slack for the scheduling of the worker thread
+			Assert.assertTrue("expired late: " + elapsedMillis, elapsedMillis < 25 + TICK_DURATION.toMillis() + 200);
+		}
+		finally
+		{
+			timer.stop();
+		}
+	}
+
+	@Test
+	public void cancelledTimeoutDoesNotRun() throws Exception
+	{
+		final HashedWheelTimer timer = startTimer(INLINE_EXECUTOR);
+		try
+		{
+			final AtomicInteger runs = new AtomicInteger();
+			final ScheduledFuture<?> timeout = timer.schedule(new CountingTask(runs), Duration.ofMillis(100));
+
+			Assert.assertTrue(timeout.cancel(false));
+			Assert.assertTrue(timeout.isCancelled());
+			Assert.assertTrue(timeout.isDone());
+			Assert.assertFalse(timeout.cancel(false));
+
+			try
+			{
+				timeout.get(1, TimeUnit.SECONDS);
+				Assert.fail("get should fail on a cancelled timeout");
+			}
+			catch (CancellationException expected)
+			{
+			}
+
+			// a timeout scheduled after the cancelled one expires - so, the wheel went past the cancelled one
+			timer.schedule(new CountingTask(new AtomicInteger()), Duration.ofMillis(200)).get(5, TimeUnit.SECONDS);
+			Assert.assertEquals(0, runs.get());
+		}
+		finally
+		{
+			timer.stop();
+		}
+	}
+
+	@Test
+	public void timeoutLongerThanOneRotationWaitsForItsRound() throws Exception
+	{
+		final HashedWheelTimer timer = startTimer(INLINE_EXECUTOR);
+		try
+		{
+			final long rotationMillis = TICK_DURATION.toMillis() * TICKS_PER_WHEEL;
+			final long delayMillis = rotationMillis + 300;
+			final AtomicInteger runs = new AtomicInteger();
+			final long start = System.nanoTime();
+			final ScheduledFuture<?> timeout = timer.schedule(new CountingTask(runs), Duration.ofMillis(delayMillis));
+
+			// the bucket of the timeout comes around 300ms in - a round before its deadline
+			Thread.sleep(1000);
+			Assert.assertFalse(timeout.isDone());
+			Assert.assertEquals(0, runs.get());
+			Assert.assertTrue(timeout.getDelay(TimeUnit.MILLISECONDS) > 0);
+
+			timeout.get(delayMillis + 5000, TimeUnit.MILLISECONDS);
+			final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			Assert.assertEquals(1, runs.get());
+			Assert.assertTrue("expired early: " + elapsedMillis, elapsedMillis >= delayMillis);
+		}
+		finally
+		{
+			timer.stop();
+		}
+	}
+
+	@Test
+	public void rejectedTaskFailsItsFuture() throws Exception
+	{
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+
+		final HashedWheelTimer timer = startTimer(executor);
+		try
+		{
+			final AtomicInteger runs = new AtomicInteger();
+			final ScheduledFuture<?> timeout = timer.schedule(new CountingTask(runs), Duration.ofMillis(10));
+
+			try
+			{
+				timeout.get(5, TimeUnit.SECONDS);
+				Assert.fail("get should fail when the executor rejects the task");
+			}
+			catch (ExecutionException expected)
+			{
+				Assert.assertTrue(expected.getCause() instanceof RejectedExecutionException);
+			}
+
+			Assert.assertTrue(timeout.isDone());
+			Assert.assertEquals(0, runs.get());
+
+			// the wheel keeps running after a rejection
+			final ScheduledFuture<?> nextTimeout = timer.schedule(new CountingTask(runs), Duration.ofMillis(10));
+			try
+			{
+				nextTimeout.get(5, TimeUnit.SECONDS);
+				Assert.fail("get should fail when the executor rejects the task");
+			}
+			catch (ExecutionException expected)
+			{
+				Assert.assertTrue(expected.getCause() instanceof RejectedExecutionException);
+			}
+		}
+		finally
+		{
+			timer.stop();
+		}
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void scheduleOnStoppedTimerIsRejected()
+	{
+		final HashedWheelTimer timer = startTimer(INLINE_EXECUTOR);
+		timer.stop();
+
+		timer.schedule(new CountingTask(new AtomicInteger()), Duration.ofMillis(10));
+	}
+
+	private static HashedWheelTimer startTimer(final Executor executor)
+	{
+		final HashedWheelTimer timer = new HashedWheelTimer(executor, TICK_DURATION, TICKS_PER_WHEEL);
+		timer.start();
+		return timer;
+	}
+
+	private static final class CountingTask implements Runnable
+	{
+		private final AtomicInteger runs;
+
+		CountingTask(final AtomicInteger runs)
+		{
+			this.runs = runs;
+		}
+
+		@Override
+		public void run()
+		{
+			this.runs.incrementAndGet();
+		}
+	}
+}
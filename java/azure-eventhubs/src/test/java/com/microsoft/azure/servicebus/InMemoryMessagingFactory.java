@@ -0,0 +1,711 @@
+package com.microsoft.azure.servicebus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Rejected;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.codec.AMQPDefinedTypes;
+import org.apache.qpid.proton.codec.DecoderImpl;
+import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.engine.Collector;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Handler;
+import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Receiver;
+import org.apache.qpid.proton.engine.Sender;
+import org.apache.qpid.proton.engine.Session;
+import org.apache.qpid.proton.engine.Transport;
+import org.apache.qpid.proton.message.Message;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+import com.microsoft.azure.servicebus.amqp.AmqpErrorCode;
+import com.microsoft.azure.servicebus.amqp.DispatchHandler;
+
+/**
+ * A {@link MessagingFactory} connected to an in-process AMQP peer - instead of the service - so that the senders & receivers
+ * created on it can be tested offline. The peer opens whatever the client opens & sends the queued messages as link credit allows.
+ * Messages sent by the client are recorded & accepted - or held, or rejected, as the test sets up.
+ * <p>The client & the peer transports are bound to no socket (so, no TLS or SASL either): the bytes are moved between them,
+ * and the client events are dispatched to the handlers of the links & sessions, by a pump on the Reactor thread of the factory.
+ */
+public class InMemoryMessagingFactory extends MessagingFactory
+{
+	private static final String CONNECTION_STRING = "Endpoint=amqps://localhost;SharedAccessKeyName=somename;EntityPath=eventhub1;SharedAccessKey=somekey";
+	private static final int PUMP_INTERVAL_MILLIS = 1;
+	private static final int PEER_LINK_CREDIT = 100;
+
+	private final ReactorGroup reactorGroup;
+	private final CompletableFuture<Void> firstOpen;
+	private final ConcurrentLinkedQueue<Message> pendingMessages;
+	private final AtomicInteger settledCount;
+	private final AtomicInteger connectionCount;
+	private final ConcurrentLinkedQueue<ReceivedDelivery> receivedDeliveries;
+
+	// accessed only on the Reactor thread
+	private final List<PeerConnection> peerConnections;
+	private final List<Delivery> heldDeliveries;
+	private long nextDeliveryTag;
+
+	private volatile boolean isStopped;
+	private volatile boolean holdDispositions;
+	private volatile ErrorCondition rejectCondition;
+	private volatile boolean refuseAttaches;
+	private volatile int refusedAttachCount;
+	private volatile RuntimeException pumpFailure;
+
+	private InMemoryMessagingFactory(final ConnectionStringBuilder builder, final ReactorGroup reactorGroup)
+	{
+		super(builder, reactorGroup);
+
+		this.reactorGroup = reactorGroup;
+		this.firstOpen = new CompletableFuture<Void>();
+		this.pendingMessages = new ConcurrentLinkedQueue<Message>();
+		this.settledCount = new AtomicInteger();
+		this.connectionCount = new AtomicInteger();
+		this.receivedDeliveries = new ConcurrentLinkedQueue<ReceivedDelivery>();
+		this.peerConnections = new ArrayList<PeerConnection>();
+		this.heldDeliveries = new ArrayList<Delivery>();
+	}
+
+	public static InMemoryMessagingFactory create() throws Exception
+	{
+		return create(new ConnectionStringBuilder(CONNECTION_STRING));
+	}
+
+	/**
+	 * @param builder carries the operation timeout & the retry policy of the factory - its endpoint is not connected to
+	 */
+	public static InMemoryMessagingFactory create(final ConnectionStringBuilder builder) throws Exception
+	{
+		final InMemoryMessagingFactory factory = new InMemoryMessagingFactory(builder, new ReactorGroup(1));
+		factory.createConnection(builder);
+		factory.firstOpen.get(10, TimeUnit.SECONDS);
+		return factory;
+	}
+
+	public static ConnectionStringBuilder getConnectionStringBuilder()
+	{
+		return new ConnectionStringBuilder(CONNECTION_STRING);
+	}
+
+	/**
+	 * A message as the service would send it - annotated with its position in the partition.
+	 */
+	public static Message createMessage(final long offset, final long sequenceNumber, final Map<String, Object> properties)
+	{
+		final Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+		annotations.put(AmqpConstants.OFFSET, Long.toString(offset));
+		annotations.put(AmqpConstants.SEQUENCE_NUMBER, sequenceNumber);
+
+		final Message message = Proton.message();
+		message.setMessageAnnotations(new MessageAnnotations(annotations));
+		if (properties != null)
+		{
+			message.setApplicationProperties(new ApplicationProperties(properties));
+		}
+
+		message.setBody(new Data(new Binary(new byte[16])));
+		return message;
+	}
+
+	/**
+	 * Queue a message to be sent by the peer - on the first link the client receives on, once it has credit.
+	 */
+	public void enqueueMessage(final Message message)
+	{
+		this.pendingMessages.offer(message);
+	}
+
+	/**
+	 * @return number of messages sent by the peer & settled by the client
+	 */
+	public int getSettledCount()
+	{
+		return this.settledCount.get();
+	}
+
+	/**
+	 * @return the deliveries sent by the client - in the order the peer received them
+	 */
+	public List<ReceivedDelivery> getReceivedDeliveries()
+	{
+		return new ArrayList<ReceivedDelivery>(this.receivedDeliveries);
+	}
+
+	/**
+	 * @param value true, for the peer to hold back the disposition of the deliveries it receives - until this is set back to false
+	 */
+	public void setHoldDispositions(final boolean value)
+	{
+		this.holdDispositions = value;
+	}
+
+	/**
+	 * @param value error to reject the received deliveries with - null, the default, to accept them
+	 */
+	public void setRejectCondition(final ErrorCondition value)
+	{
+		this.rejectCondition = value;
+	}
+
+	/**
+	 * @return number of connections opened by the client
+	 */
+	public int getConnectionCount()
+	{
+		return this.connectionCount.get();
+	}
+
+	/**
+	 * @param value true, for the peer to refuse (close with an error, right after the attach) every link attached to it
+	 */
+	public void setRefuseAttaches(final boolean value)
+	{
+		this.refuseAttaches = value;
+	}
+
+	/**
+	 * @param value number of the next link attaches for the peer to refuse
+	 */
+	public void setRefusedAttachCount(final int value)
+	{
+		this.refusedAttachCount = value;
+	}
+
+	public RuntimeException getPumpFailure()
+	{
+		return this.pumpFailure;
+	}
+
+	/**
+	 * The peer closes the connection with an error - like the service, or a network failure, would.
+	 */
+	public void dropConnection() throws IOException
+	{
+		this.scheduleOnReactorThread(new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				for (PeerConnection peerConnection : InMemoryMessagingFactory.this.peerConnections)
+				{
+					if (peerConnection.peer.getLocalState() != EndpointState.CLOSED)
+					{
+						peerConnection.peer.setCondition(new ErrorCondition(AmqpErrorCode.InternalError, "connection dropped by the peer"));
+						peerConnection.peer.close();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Run the given work on the Reactor thread & wait for it.
+	 */
+	public void runOnReactorThread(final Runnable work) throws Exception
+	{
+		final CompletableFuture<Void> done = new CompletableFuture<Void>();
+		this.scheduleOnReactorThread(new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				try
+				{
+					work.run();
+					done.complete(null);
+				}
+				catch (RuntimeException exception)
+				{
+					done.completeExceptionally(exception);
+				}
+			}
+		});
+
+		done.get(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Close the factory - and stop the Reactor thread under it.
+	 */
+	public void shutdown()
+	{
+		try
+		{
+			this.close().get(5, TimeUnit.SECONDS);
+		}
+		catch (Exception ignore)
+		{
+		}
+		finally
+		{
+			this.isStopped = true;
+			this.reactorGroup.close();
+		}
+	}
+
+	@Override
+	Connection connectToHost()
+	{
+		final Connection connection = Proton.connection();
+		final Transport transport = Proton.transport();
+		transport.bind(connection);
+		final Collector collector = Proton.collector();
+		connection.collect(collector);
+		connection.setHostname(this.getHostName());
+		connection.setContainer(StringUtil.getRandomString());
+		connection.open();
+
+		final Connection peer = Proton.connection();
+		final Transport peerTransport = Proton.transport();
+		peerTransport.bind(peer);
+		final Collector peerCollector = Proton.collector();
+		peer.collect(peerCollector);
+
+		this.peerConnections.add(new PeerConnection(connection, transport, collector, peer, peerTransport, peerCollector));
+		if (this.connectionCount.getAndIncrement() == 0)
+		{
+			this.schedulePump();
+		}
+
+		return connection;
+	}
+
+	private void schedulePump()
+	{
+		if (this.isStopped)
+		{
+			return;
+		}
+
+		try
+		{
+			this.scheduleOnReactorThread(PUMP_INTERVAL_MILLIS, new DispatchHandler()
+			{
+				@Override
+				public void onEvent()
+				{
+					try
+					{
+						InMemoryMessagingFactory.this.pump();
+					}
+					catch (RuntimeException exception)
+					{
+						InMemoryMessagingFactory.this.pumpFailure = exception;
+					}
+
+					InMemoryMessagingFactory.this.schedulePump();
+				}
+			});
+		}
+		catch (IOException ignore)
+		{
+		}
+	}
+
+	private void pump()
+	{
+		// handlers may open a new connection - it is pumped from the next run
+		final Iterator<PeerConnection> peerConnections = new ArrayList<PeerConnection>(this.peerConnections).iterator();
+		while (peerConnections.hasNext())
+		{
+			final PeerConnection peerConnection = peerConnections.next();
+			boolean isProgress;
+			do
+			{
+				isProgress = transfer(peerConnection.transport, peerConnection.peerTransport);
+				isProgress |= transfer(peerConnection.peerTransport, peerConnection.transport);
+				isProgress |= this.dispatchClientEvents(peerConnection);
+				isProgress |= this.handlePeerEvents(peerConnection);
+				isProgress |= this.sendPendingMessages(peerConnection);
+				isProgress |= this.settleHeldDeliveries();
+			}
+			while (isProgress);
+
+			if (peerConnection.connection.getLocalState() == EndpointState.CLOSED && peerConnection.peer.getLocalState() == EndpointState.CLOSED)
+			{
+				this.peerConnections.remove(peerConnection);
+			}
+		}
+	}
+
+	private static boolean transfer(final Transport from, final Transport to)
+	{
+		final int pending = from.pending();
+		if (pending <= 0)
+		{
+			return false;
+		}
+
+		final int capacity = to.capacity();
+		if (capacity < 0)
+		{
+			// the other end stopped reading - the bytes are dropped, like on a closed socket
+			from.pop(pending);
+			return true;
+		}
+
+		if (capacity == 0)
+		{
+			return false;
+		}
+
+		final int count = Math.min(pending, capacity);
+		final ByteBuffer head = from.head().duplicate();
+		head.limit(head.position() + count);
+		to.tail().put(head);
+		to.process();
+		from.pop(count);
+		return true;
+	}
+
+	private boolean dispatchClientEvents(final PeerConnection peerConnection)
+	{
+		boolean isDispatched = false;
+		Event event;
+		while ((event = peerConnection.collector.peek()) != null)
+		{
+			isDispatched = true;
+			try
+			{
+				final Handler handler = getHandler(event);
+				if (handler != null)
+				{
+					event.dispatch(handler);
+				}
+				else if (event.getType() == Event.Type.CONNECTION_REMOTE_OPEN)
+				{
+					this.onOpenComplete(null);
+					this.firstOpen.complete(null);
+				}
+				else if (event.getType() == Event.Type.CONNECTION_REMOTE_CLOSE)
+				{
+					// what the ConnectionHandler of the factory does
+					final Connection connection = event.getConnection();
+					if (connection.getLocalState() != EndpointState.CLOSED)
+					{
+						connection.close();
+					}
+
+					this.onConnectionError(connection.getRemoteCondition());
+				}
+			}
+			finally
+			{
+				peerConnection.collector.pop();
+			}
+		}
+
+		return isDispatched;
+	}
+
+	// the handler of the link - or of the session - of the event; connection events are handled by the pump
+	private static Handler getHandler(final Event event)
+	{
+		final Link link = event.getLink();
+		if (link != null)
+		{
+			return BaseHandler.getHandler(link);
+		}
+
+		final Session session = event.getSession();
+		return session != null ? BaseHandler.getHandler(session) : null;
+	}
+
+	private boolean handlePeerEvents(final PeerConnection peerConnection)
+	{
+		boolean isHandled = false;
+		Event event;
+		while ((event = peerConnection.peerCollector.peek()) != null)
+		{
+			isHandled = true;
+			try
+			{
+				this.handlePeerEvent(event);
+			}
+			finally
+			{
+				peerConnection.peerCollector.pop();
+			}
+		}
+
+		return isHandled;
+	}
+
+	private void handlePeerEvent(final Event event)
+	{
+		switch (event.getType())
+		{
+		case CONNECTION_REMOTE_OPEN:
+			if (event.getConnection().getLocalState() == EndpointState.UNINITIALIZED)
+			{
+				event.getConnection().setContainer(StringUtil.getRandomString());
+				event.getConnection().open();
+			}
+			break;
+
+		case CONNECTION_REMOTE_CLOSE:
+			if (event.getConnection().getLocalState() != EndpointState.CLOSED)
+			{
+				event.getConnection().close();
+			}
+			break;
+
+		case SESSION_REMOTE_OPEN:
+			if (event.getSession().getLocalState() == EndpointState.UNINITIALIZED)
+			{
+				event.getSession().open();
+			}
+			break;
+
+		case SESSION_REMOTE_CLOSE:
+			if (event.getSession().getLocalState() != EndpointState.CLOSED)
+			{
+				event.getSession().close();
+			}
+			break;
+
+		case LINK_REMOTE_OPEN:
+			final Link link = event.getLink();
+			if (link.getLocalState() == EndpointState.UNINITIALIZED)
+			{
+				link.setSource(link.getRemoteSource());
+				link.setTarget(link.getRemoteTarget());
+				link.open();
+
+				final boolean isRefused = this.refuseAttaches || this.refusedAttachCount > 0;
+				if (this.refusedAttachCount > 0)
+				{
+					this.refusedAttachCount--;
+				}
+
+				if (isRefused)
+				{
+					link.setCondition(new ErrorCondition(AmqpErrorCode.InternalError, "attach refused by the peer"));
+					link.close();
+				}
+				else if (link instanceof Receiver)
+				{
+					((Receiver) link).flow(PEER_LINK_CREDIT);
+				}
+			}
+			break;
+
+		case LINK_REMOTE_CLOSE:
+		case LINK_REMOTE_DETACH:
+			if (event.getLink().getLocalState() != EndpointState.CLOSED)
+			{
+				event.getLink().close();
+			}
+			break;
+
+		case DELIVERY:
+			final Delivery delivery = event.getDelivery();
+			if (delivery.getLink() instanceof Sender && delivery.remotelySettled() && !delivery.isSettled())
+			{
+				delivery.settle();
+				this.settledCount.incrementAndGet();
+			}
+			else if (delivery.getLink() instanceof Receiver && delivery.pending() > 0 && !delivery.isPartial())
+			{
+				this.receiveDelivery((Receiver) delivery.getLink(), delivery);
+			}
+			break;
+
+		default:
+			break;
+		}
+	}
+
+	private void receiveDelivery(final Receiver receiver, final Delivery delivery)
+	{
+		final byte[] bytes = new byte[delivery.pending()];
+		final int length = receiver.recv(bytes, 0, bytes.length);
+		receiver.advance();
+		// keeps the credit of the client where it was
+		receiver.flow(1);
+
+		final boolean isPresettled = delivery.remotelySettled();
+		this.receivedDeliveries.offer(new ReceivedDelivery(Arrays.copyOf(bytes, length), delivery.getMessageFormat(), isPresettled));
+		if (isPresettled)
+		{
+			// no disposition for a pre-settled delivery
+			delivery.settle();
+		}
+		else
+		{
+			this.heldDeliveries.add(delivery);
+		}
+	}
+
+	private boolean settleHeldDeliveries()
+	{
+		if (this.holdDispositions || this.heldDeliveries.isEmpty())
+		{
+			return false;
+		}
+
+		final ErrorCondition condition = this.rejectCondition;
+		for (Delivery delivery : this.heldDeliveries)
+		{
+			if (condition != null)
+			{
+				final Rejected rejected = new Rejected();
+				rejected.setError(condition);
+				delivery.disposition(rejected);
+			}
+			else
+			{
+				delivery.disposition(Accepted.getInstance());
+			}
+
+			delivery.settle();
+		}
+
+		this.heldDeliveries.clear();
+		return true;
+	}
+
+	private boolean sendPendingMessages(final PeerConnection peerConnection)
+	{
+		if (this.pendingMessages.isEmpty())
+		{
+			return false;
+		}
+
+		boolean isSent = false;
+		Link link = peerConnection.peer.linkHead(EnumSet.of(EndpointState.ACTIVE), EnumSet.of(EndpointState.ACTIVE));
+		while (link != null)
+		{
+			if (link instanceof Sender)
+			{
+				final Sender sender = (Sender) link;
+				Message message;
+				while (sender.getCredit() > 0 && (message = this.pendingMessages.poll()) != null)
+				{
+					final byte[] bytes = new byte[1024];
+					final int length = message.encode(bytes, 0, bytes.length);
+					sender.delivery(Long.toString(this.nextDeliveryTag++).getBytes());
+					sender.send(bytes, 0, length);
+					sender.advance();
+					isSent = true;
+				}
+
+				break;
+			}
+
+			link = link.next(EnumSet.of(EndpointState.ACTIVE), EnumSet.of(EndpointState.ACTIVE));
+		}
+
+		return isSent;
+	}
+
+	/**
+	 * A delivery sent by the client.
+	 */
+	public static final class ReceivedDelivery
+	{
+		private final byte[] bytes;
+		private final int messageFormat;
+		private final boolean isPresettled;
+
+		ReceivedDelivery(final byte[] bytes, final int messageFormat, final boolean isPresettled)
+		{
+			this.bytes = bytes;
+			this.messageFormat = messageFormat;
+			this.isPresettled = isPresettled;
+		}
+
+		public int getMessageFormat()
+		{
+			return this.messageFormat;
+		}
+
+		public boolean isPresettled()
+		{
+			return this.isPresettled;
+		}
+
+		public int getSize()
+		{
+			return this.bytes.length;
+		}
+
+		public Message getMessage()
+		{
+			final Message message = Proton.message();
+			message.decode(this.bytes, 0, this.bytes.length);
+			return message;
+		}
+
+		/**
+		 * @return the messages in each Data section of a batch delivery
+		 */
+		public List<Message> getBatchedMessages()
+		{
+			final DecoderImpl decoder = new DecoderImpl();
+			AMQPDefinedTypes.registerAllTypes(decoder, new EncoderImpl(decoder));
+			final ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+			decoder.setByteBuffer(buffer);
+
+			final List<Message> messages = new ArrayList<Message>();
+			while (buffer.hasRemaining())
+			{
+				final Object section = decoder.readObject();
+				if (section instanceof Data)
+				{
+					final Binary value = ((Data) section).getValue();
+					final Message message = Proton.message();
+					message.decode(value.getArray(), value.getArrayOffset(), value.getLength());
+					messages.add(message);
+				}
+			}
+
+			return messages;
+		}
+	}
+
+	private static final class PeerConnection
+	{
+		final Connection connection;
+		final Transport transport;
+		final Collector collector;
+		final Connection peer;
+		final Transport peerTransport;
+		final Collector peerCollector;
+
+		PeerConnection(final Connection connection, final Transport transport, final Collector collector,
+				final Connection peer, final Transport peerTransport, final Collector peerCollector)
+		{
+			this.connection = connection;
+			this.transport = transport;
+			this.collector = collector;
+			this.peer = peer;
+			this.peerTransport = peerTransport;
+			this.peerCollector = peerCollector;
+		}
+	}
+}
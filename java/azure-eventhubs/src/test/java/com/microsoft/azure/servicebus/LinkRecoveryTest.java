@@ -0,0 +1,290 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.amqp.messaging.Target;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.engine.EndpointState;
+import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Receiver;
+import org.apache.qpid.proton.engine.Session;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.amqp.BaseLinkHandler;
+import com.microsoft.azure.servicebus.amqp.IAmqpLink;
+
+/**
+ * The link recovery of {@link MessagingFactory} - after the in-process peer drops the connection.
+ */
+public class LinkRecoveryTest
+{
+	private static final Duration RETRY_INTERVAL = Duration.ofMillis(100);
+
+	private InMemoryMessagingFactory factory;
+
+	@After
+	public void cleanup()
+	{
+		if (this.factory != null)
+		{
+			this.factory.shutdown();
+			Assert.assertNull(this.factory.getPumpFailure());
+		}
+	}
+
+	@Test
+	public void recoveryRecreatesOnlyTheClosedLinks() throws Exception
+	{
+		this.factory = createFactory(Duration.ofSeconds(30));
+		final RecoverableLink closedLink = this.openLink(false);
+		// re-creates its link as soon as it is closed - like a sender or receiver whose own retry wins
+		final RecoverableLink selfRecreatingLink = this.openLink(true);
+
+		this.factory.dropConnection();
+		this.awaitRecoveryCount(1);
+
+		Assert.assertEquals(1, closedLink.recoveries.size());
+		Assert.assertEquals(0, selfRecreatingLink.recoveries.size());
+		Assert.assertTrue(this.isActive(closedLink));
+		Assert.assertTrue(this.isActive(selfRecreatingLink));
+
+		// the connection is re-opened once - for both the links
+		Assert.assertEquals(2, this.factory.getConnectionCount());
+		Assert.assertEquals(0, this.factory.getFailedLinkRecoveryCount());
+		Assert.assertNotNull(this.factory.getLastLinkRecoveryDuration());
+	}
+
+	@Test
+	public void refusedLinksAreRetriedAfterTheRetryIntervalWithJitter() throws Exception
+	{
+		this.factory = createFactory(Duration.ofSeconds(30));
+		final RecoverableLink link = this.openLink(false);
+
+		this.factory.setRefusedAttachCount(3);
+		final long dropNanos = System.nanoTime();
+		this.factory.dropConnection();
+		this.awaitRecoveryCount(1);
+
+		// the first pass & a retry for each refused attach
+		Assert.assertEquals(4, link.recoveries.size());
+		Assert.assertTrue(this.isActive(link));
+
+		// a failed pass is found by the check after it - the retry follows the retry interval & up to half of it as jitter
+		final long minSpacingMillis = ClientConstants.LINK_RECOVERY_CHECK_INTERVAL_MILLIS + RETRY_INTERVAL.toMillis();
+		final long maxSpacingMillis = minSpacingMillis + RETRY_INTERVAL.toMillis() / 2;
+		for (int index = 1; index < link.recoveries.size(); index++)
+		{
+			final long spacingMillis = TimeUnit.NANOSECONDS.toMillis(link.recoveries.get(index) - link.recoveries.get(index - 1));
+			// the Reactor schedules timers off the clock read at the start of its current pass - which can fire them a few ms early
+			Assert.assertTrue("retried early: " + spacingMillis, spacingMillis >= minSpacingMillis - 10);
+			// with some slack for the scheduling of the Reactor thread
+			Assert.assertTrue("retried late: " + spacingMillis, spacingMillis < maxSpacingMillis + 200);
+		}
+
+		final Duration recoveryDuration = this.factory.getLastLinkRecoveryDuration();
+		Assert.assertTrue(recoveryDuration.toMillis() >= 3 * (minSpacingMillis - 10));
+		Assert.assertTrue(recoveryDuration.toNanos() <= System.nanoTime() - dropNanos);
+		Assert.assertEquals(0, this.factory.getFailedLinkRecoveryCount());
+	}
+
+	@Test
+	public void recoveryGivesUpAfterTheOperationTimeout() throws Exception
+	{
+		final Duration operationTimeout = Duration.ofMillis(600);
+		this.factory = createFactory(operationTimeout);
+		final RecoverableLink link = this.openLink(false);
+
+		this.factory.setRefuseAttaches(true);
+		final long dropNanos = System.nanoTime();
+		this.factory.dropConnection();
+		this.awaitFailedRecoveryCount(1);
+
+		final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - dropNanos);
+		Assert.assertTrue("gave up early: " + elapsedMillis, elapsedMillis >= operationTimeout.toMillis() - RETRY_INTERVAL.toMillis());
+		Assert.assertTrue(link.recoveries.size() > 1);
+		Assert.assertEquals(0, this.factory.getLinkRecoveryCount());
+		Assert.assertNull(this.factory.getLastLinkRecoveryDuration());
+
+		// no more passes - the link is left to its sender or receiver
+		final int recoveries = link.recoveries.size();
+		Thread.sleep(3 * RETRY_INTERVAL.toMillis());
+		Assert.assertEquals(recoveries, link.recoveries.size());
+
+		// the next loss of the connection starts a new recovery
+		this.factory.setRefuseAttaches(false);
+		this.factory.dropConnection();
+		this.awaitRecoveryCount(1);
+
+		Assert.assertTrue(this.isActive(link));
+		Assert.assertEquals(1, this.factory.getFailedLinkRecoveryCount());
+		Assert.assertNotNull(this.factory.getLastLinkRecoveryDuration());
+	}
+
+	private static InMemoryMessagingFactory createFactory(final Duration operationTimeout) throws Exception
+	{
+		final ConnectionStringBuilder builder = InMemoryMessagingFactory.getConnectionStringBuilder();
+		builder.setOperationTimeout(operationTimeout);
+		builder.setRetryPolicy(new FixedIntervalRetryPolicy(RETRY_INTERVAL));
+		return InMemoryMessagingFactory.create(builder);
+	}
+
+	private RecoverableLink openLink(final boolean recreatesOnClose) throws Exception
+	{
+		final RecoverableLink link = new RecoverableLink(this.factory, recreatesOnClose);
+		this.factory.runOnReactorThread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				link.createLink();
+			}
+		});
+
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (!this.isActive(link) && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertTrue(this.isActive(link));
+		return link;
+	}
+
+	private boolean isActive(final RecoverableLink link) throws Exception
+	{
+		final AtomicBoolean isActive = new AtomicBoolean();
+		this.factory.runOnReactorThread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final Link currentLink = link.getRecoverableLink();
+				isActive.set(currentLink != null && currentLink.getLocalState() == EndpointState.ACTIVE
+						&& currentLink.getRemoteState() == EndpointState.ACTIVE);
+			}
+		});
+
+		return isActive.get();
+	}
+
+	private void awaitRecoveryCount(final long count) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (this.factory.getLinkRecoveryCount() < count && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertEquals(count, this.factory.getLinkRecoveryCount());
+	}
+
+	private void awaitFailedRecoveryCount(final long count) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (this.factory.getFailedLinkRecoveryCount() < count && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertEquals(count, this.factory.getFailedLinkRecoveryCount());
+	}
+
+	// a receive link which is re-attached only by the link recovery - unless it re-creates itself on close
+	private static final class RecoverableLink implements IAmqpLink, IRecoverableLink
+	{
+		final MessagingFactory factory;
+		final boolean recreatesOnClose;
+		final String name;
+		// System.nanoTime() of each recreateLink by the link recovery
+		final List<Long> recoveries;
+
+		// accessed only on the Reactor thread
+		Receiver link;
+
+		RecoverableLink(final MessagingFactory factory, final boolean recreatesOnClose)
+		{
+			this.factory = factory;
+			this.recreatesOnClose = recreatesOnClose;
+			this.name = StringUtil.getRandomString();
+			this.recoveries = new CopyOnWriteArrayList<Long>();
+		}
+
+		void createLink()
+		{
+			if (this.link != null)
+			{
+				this.factory.deregisterForConnectionError(this.link);
+			}
+
+			final Session session = this.factory.getSession(this.name, 0);
+			final Receiver receiver = session.receiver(this.name);
+
+			final Source source = new Source();
+			source.setAddress(this.name);
+			receiver.setSource(source);
+			receiver.setTarget(new Target());
+
+			BaseHandler.setHandler(receiver, new BaseLinkHandler(this));
+			this.factory.registerForConnectionError(receiver);
+			this.link = receiver;
+			receiver.open();
+		}
+
+		@Override
+		public Link getRecoverableLink()
+		{
+			return this.link;
+		}
+
+		@Override
+		public void recreateLink()
+		{
+			this.recoveries.add(System.nanoTime());
+			this.createLink();
+		}
+
+		@Override
+		public void onOpenComplete(final Exception completionException)
+		{
+		}
+
+		@Override
+		public void onError(final Exception exception)
+		{
+		}
+
+		@Override
+		public void onClose(final ErrorCondition condition)
+		{
+			if (this.recreatesOnClose)
+			{
+				this.createLink();
+			}
+		}
+	}
+
+	private static final class FixedIntervalRetryPolicy extends RetryPolicy
+	{
+		private final Duration retryInterval;
+
+		FixedIntervalRetryPolicy(final Duration retryInterval)
+		{
+			super("FixedInterval");
+			this.retryInterval = retryInterval;
+		}
+
+		@Override
+		protected Duration onGetNextRetryInterval(final String clientId, final Exception lastException, final Duration remainingTime, final int baseWaitTime)
+		{
+			return remainingTime.compareTo(this.retryInterval) > 0 ? this.retryInterval : null;
+		}
+	}
+}
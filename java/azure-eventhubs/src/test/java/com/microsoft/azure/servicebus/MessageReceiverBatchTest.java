@@ -0,0 +1,169 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Receive calls & the push mode of {@link MessageReceiver}, waiting for a minimum batch - against an in-process peer.
+ */
+public class MessageReceiverBatchTest
+{
+	private static final int PREFETCH_COUNT = 100;
+
+	private InMemoryMessagingFactory factory;
+	private MessageReceiver receiver;
+	private long nextOffset;
+
+	@Before
+	public void createReceiver() throws Exception
+	{
+		this.factory = InMemoryMessagingFactory.create();
+		this.receiver = MessageReceiver.create(this.factory, StringUtil.getRandomString(), "eventhub1/ConsumerGroups/$default/Partitions/0",
+				"-1", false, null, PREFETCH_COUNT, 0, false).get(10, TimeUnit.SECONDS);
+	}
+
+	@After
+	public void cleanup()
+	{
+		if (this.receiver != null)
+		{
+			this.receiver.close();
+		}
+
+		this.factory.shutdown();
+		Assert.assertNull(this.factory.getPumpFailure());
+	}
+
+	@Test
+	public void receiveCompletesAtMinMessageCount() throws Exception
+	{
+		final long start = System.nanoTime();
+		final CompletableFuture<Collection<Message>> receive = this.receiver.receive(5, 10, Duration.ofSeconds(30));
+
+		this.sendMessages(3);
+		this.awaitSettled(3);
+		Assert.assertFalse(receive.isDone());
+
+		this.sendMessages(2);
+		final Collection<Message> messages = receive.get(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(5, messages.size());
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 30);
+	}
+
+	@Test
+	public void receiveCompletesWithPartialBatchAfterMaxWait() throws Exception
+	{
+		final long maxWaitMillis = 500;
+		final long start = System.nanoTime();
+		final CompletableFuture<Collection<Message>> receive = this.receiver.receive(5, 10, Duration.ofMillis(maxWaitMillis));
+
+		this.sendMessages(2);
+		final Collection<Message> messages = receive.get(10, TimeUnit.SECONDS);
+		final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		Assert.assertEquals(2, messages.size());
+		// the timer fires up to a tick before the deadline - see MessageReceiver.MIN_TIMEOUT_DURATION_MILLIS
+		Assert.assertTrue("completed early: " + elapsedMillis, elapsedMillis >= maxWaitMillis - 50);
+	}
+
+	@Test
+	public void receiveCompletesWithNullAfterMaxWaitIfNothingArrived() throws Exception
+	{
+		final Collection<Message> messages = this.receiver.receive(5, 10, Duration.ofMillis(200)).get(10, TimeUnit.SECONDS);
+
+		Assert.assertNull(messages);
+	}
+
+	@Test
+	public void pushModeLingersForMinMessageCount() throws Exception
+	{
+		final long maxWaitMillis = 500;
+		final LinkedBlockingQueue<Integer> batchSizes = new LinkedBlockingQueue<Integer>();
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			this.receiver.setReceiveHandler(new IMessageReceiveHandler()
+			{
+				@Override
+				public int getMaxMessageCount()
+				{
+					return 10;
+				}
+
+				@Override
+				public int getMinMessageCount()
+				{
+					return 5;
+				}
+
+				@Override
+				public Duration getMaxWaitTime()
+				{
+					return Duration.ofMillis(maxWaitMillis);
+				}
+
+				@Override
+				public void onReceive(final ReadOnlyBatch<Message> messages)
+				{
+					batchSizes.offer(messages == null ? 0 : messages.size());
+				}
+
+				@Override
+				public void onError(final Throwable error)
+				{
+					batchSizes.offer(-1);
+				}
+			}, executor);
+
+			// a full batch is handed over as soon as it is prefetched
+			this.sendMessages(5);
+			Assert.assertEquals(Integer.valueOf(5), batchSizes.poll(maxWaitMillis / 2, TimeUnit.MILLISECONDS));
+
+			// a partial batch lingers - till maxWaitTime passes since the last batch
+			final long start = System.nanoTime();
+			this.sendMessages(2);
+			this.awaitSettled(7);
+			Assert.assertNull(batchSizes.poll(maxWaitMillis / 4, TimeUnit.MILLISECONDS));
+
+			Assert.assertEquals(Integer.valueOf(2), batchSizes.poll(10, TimeUnit.SECONDS));
+			Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= maxWaitMillis / 2);
+		}
+		finally
+		{
+			this.receiver.removeReceiveHandler();
+			executor.shutdown();
+		}
+	}
+
+	private void sendMessages(final int messageCount)
+	{
+		for (int index = 0; index < messageCount; index++)
+		{
+			final long offset = this.nextOffset++;
+			this.factory.enqueueMessage(InMemoryMessagingFactory.createMessage(offset, offset, null));
+		}
+	}
+
+	private void awaitSettled(final int messageCount) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (this.factory.getSettledCount() < messageCount && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertEquals(messageCount, this.factory.getSettledCount());
+	}
+}
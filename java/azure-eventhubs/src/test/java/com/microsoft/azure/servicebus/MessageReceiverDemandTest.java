@@ -0,0 +1,222 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The demand driven push mode of {@link MessageReceiver} - against an in-process peer.
+ */
+public class MessageReceiverDemandTest
+{
+	private static final int PREFETCH_COUNT = 10;
+
+	private InMemoryMessagingFactory factory;
+	private MessageReceiver receiver;
+	private ExecutorService executor;
+	private long nextOffset;
+
+	@Before
+	public void createReceiver() throws Exception
+	{
+		this.factory = InMemoryMessagingFactory.create();
+		this.receiver = MessageReceiver.create(this.factory, StringUtil.getRandomString(), "eventhub1/ConsumerGroups/$default/Partitions/0",
+				"-1", false, null, PREFETCH_COUNT, 0, false).get(10, TimeUnit.SECONDS);
+		this.executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void cleanup() throws Exception
+	{
+		// before the executor is shut down - the handler is stopped on it
+		this.receiver.close().get(10, TimeUnit.SECONDS);
+		Thread.sleep(100);
+		this.executor.shutdown();
+		this.factory.shutdown();
+		Assert.assertNull(this.factory.getPumpFailure());
+	}
+
+	@Test
+	public void requestedMessagesDriveTheLinkCredit() throws Exception
+	{
+		// the credit issued when the link was opened is used up - and not topped up, with no demand
+		this.sendMessages(PREFETCH_COUNT);
+		this.awaitSettled(PREFETCH_COUNT);
+
+		final RecordingHandler handler = new RecordingHandler();
+		this.receiver.setDemandDrivenReceiveHandler(handler, this.executor);
+
+		this.receiver.request(3);
+		handler.awaitReceived(3);
+
+		// 7 messages are still prefetched for the next requests - so, no credit is issued
+		this.sendMessages(5);
+		Thread.sleep(200);
+		Assert.assertEquals(PREFETCH_COUNT, this.factory.getSettledCount());
+		Assert.assertEquals(3, handler.receivedCount.get());
+
+		// credit for the 3 requested messages, which are not prefetched
+		this.receiver.request(10);
+		handler.awaitReceived(13);
+		Thread.sleep(200);
+		Assert.assertEquals(13, this.factory.getSettledCount());
+		Assert.assertEquals(13, handler.receivedCount.get());
+		Assert.assertTrue(handler.errors.isEmpty());
+	}
+
+	@Test
+	public void nonPositiveRequestStopsTheHandler() throws Exception
+	{
+		final RecordingHandler handler = new RecordingHandler();
+		this.receiver.setDemandDrivenReceiveHandler(handler, this.executor);
+
+		this.receiver.request(0);
+
+		Assert.assertTrue(handler.errors.poll(10, TimeUnit.SECONDS) instanceof IllegalArgumentException);
+		this.sendMessages(1);
+		this.receiver.request(1);
+		Thread.sleep(200);
+		Assert.assertEquals(0, handler.receivedCount.get());
+		Assert.assertTrue(handler.errors.isEmpty());
+	}
+
+	@Test
+	public void removedHandlerIsStoppedAfterTheBatchInFlight() throws Exception
+	{
+		final RecordingHandler handler = new RecordingHandler();
+		handler.receiveGate = new CountDownLatch(1);
+		this.receiver.setDemandDrivenReceiveHandler(handler, this.executor);
+
+		this.sendMessages(1);
+		this.receiver.request(1);
+		Assert.assertTrue(handler.receiveStarted.await(10, TimeUnit.SECONDS));
+
+		this.receiver.removeReceiveHandler();
+		Assert.assertNull(handler.errors.poll(200, TimeUnit.MILLISECONDS));
+
+		handler.receiveGate.countDown();
+		Assert.assertTrue(handler.errors.poll(10, TimeUnit.SECONDS) instanceof OperationCancelledException);
+		Assert.assertEquals(1, handler.receivedCount.get());
+	}
+
+	@Test
+	public void replacedHandlerIsStopped() throws Exception
+	{
+		final RecordingHandler replacedHandler = new RecordingHandler();
+		this.receiver.setDemandDrivenReceiveHandler(replacedHandler, this.executor);
+
+		final RecordingHandler handler = new RecordingHandler();
+		this.receiver.setDemandDrivenReceiveHandler(handler, this.executor);
+
+		Assert.assertTrue(replacedHandler.errors.poll(10, TimeUnit.SECONDS) instanceof OperationCancelledException);
+
+		this.sendMessages(2);
+		this.receiver.request(2);
+		handler.awaitReceived(2);
+		Assert.assertEquals(0, replacedHandler.receivedCount.get());
+		Assert.assertTrue(handler.errors.isEmpty());
+	}
+
+	@Test
+	public void closingTheReceiverStopsTheHandler() throws Exception
+	{
+		final RecordingHandler handler = new RecordingHandler();
+		this.receiver.setDemandDrivenReceiveHandler(handler, this.executor);
+
+		this.receiver.close().get(10, TimeUnit.SECONDS);
+
+		Assert.assertTrue(handler.errors.poll(10, TimeUnit.SECONDS) instanceof OperationCancelledException);
+		Assert.assertNull(handler.errors.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	private void sendMessages(final int messageCount)
+	{
+		for (int index = 0; index < messageCount; index++)
+		{
+			final long offset = this.nextOffset++;
+			this.factory.enqueueMessage(InMemoryMessagingFactory.createMessage(offset, offset, null));
+		}
+	}
+
+	private void awaitSettled(final int messageCount) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (this.factory.getSettledCount() < messageCount && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertEquals(messageCount, this.factory.getSettledCount());
+	}
+
+	private static final class RecordingHandler implements IMessageReceiveHandler
+	{
+		final AtomicInteger receivedCount = new AtomicInteger();
+		final LinkedBlockingQueue<Throwable> errors = new LinkedBlockingQueue<Throwable>();
+		final CountDownLatch receiveStarted = new CountDownLatch(1);
+		volatile CountDownLatch receiveGate;
+
+		@Override
+		public int getMaxMessageCount()
+		{
+			return 100;
+		}
+
+		@Override
+		public int getMinMessageCount()
+		{
+			return 1;
+		}
+
+		@Override
+		public Duration getMaxWaitTime()
+		{
+			return Duration.ofSeconds(1);
+		}
+
+		@Override
+		public void onReceive(final ReadOnlyBatch<Message> messages)
+		{
+			this.receiveStarted.countDown();
+			if (this.receiveGate != null)
+			{
+				try
+				{
+					this.receiveGate.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ignore)
+				{
+				}
+			}
+
+			this.receivedCount.addAndGet(messages.size());
+		}
+
+		@Override
+		public void onError(final Throwable error)
+		{
+			this.errors.offer(error);
+		}
+
+		void awaitReceived(final int messageCount) throws InterruptedException
+		{
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (this.receivedCount.get() < messageCount && System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(5);
+			}
+
+			Assert.assertEquals(messageCount, this.receivedCount.get());
+		}
+	}
+}
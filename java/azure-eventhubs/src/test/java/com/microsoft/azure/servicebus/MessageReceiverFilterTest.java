@@ -0,0 +1,150 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * The position of a {@link MessageReceiver} with a message filter - a dropped message moves it only once nothing prefetched is ahead of it.
+ */
+public class MessageReceiverFilterTest
+{
+	private static final String DROP_PROPERTY = "drop";
+
+	private InMemoryMessagingFactory factory;
+	private MessageReceiver receiver;
+	private long nextOffset;
+
+	@Before
+	public void createReceiver() throws Exception
+	{
+		this.factory = InMemoryMessagingFactory.create();
+		this.receiver = MessageReceiver.create(this.factory, StringUtil.getRandomString(), "eventhub1/ConsumerGroups/$default/Partitions/0",
+				"-1", false, null, 100, 0, false).get(10, TimeUnit.SECONDS);
+		this.receiver.setMessageFilter(new IMessageFilter()
+		{
+			@Override
+			public boolean accept(final Map<Symbol, Object> messageAnnotations, final Map<String, Object> applicationProperties)
+			{
+				return applicationProperties == null || !applicationProperties.containsKey(DROP_PROPERTY);
+			}
+		});
+	}
+
+	@After
+	public void cleanup()
+	{
+		if (this.receiver != null)
+		{
+			this.receiver.close();
+		}
+
+		this.factory.shutdown();
+		Assert.assertNull(this.factory.getPumpFailure());
+	}
+
+	@Test
+	public void droppedMessageAdvancesThePositionIfNothingIsPrefetched() throws Exception
+	{
+		this.sendMessage(true);
+		this.sendMessage(true);
+		this.awaitSettled(2);
+
+		Assert.assertEquals("1", this.receiver.getLastReceivedOffset());
+		Assert.assertEquals(1, this.receiver.getLastReceivedSequenceNumber());
+		Assert.assertEquals(2, this.receiver.getFilteredMessageCount());
+	}
+
+	@Test
+	public void droppedMessageAdvancesThePositionOncePrefetchedMessagesAheadOfItAreReturned() throws Exception
+	{
+		this.sendMessage(false);
+		this.sendMessage(false);
+		this.sendMessage(true);
+		this.sendMessage(true);
+		this.awaitSettled(4);
+
+		Assert.assertNull(this.receiver.getLastReceivedOffset());
+		Assert.assertEquals(2, this.receiver.getFilteredMessageCount());
+
+		// a message is still prefetched ahead of the dropped ones
+		this.assertReceived(0);
+		Assert.assertEquals("0", this.receiver.getLastReceivedOffset());
+
+		// the last prefetched message is returned - so, the position moves past the dropped ones
+		this.assertReceived(1);
+		Assert.assertEquals("3", this.receiver.getLastReceivedOffset());
+		Assert.assertEquals(3, this.receiver.getLastReceivedSequenceNumber());
+	}
+
+	@Test
+	public void droppedMessageBehindAPrefetchedMessageDoesNotMoveThePosition() throws Exception
+	{
+		this.sendMessage(false);
+		this.sendMessage(true);
+		this.sendMessage(false);
+		this.awaitSettled(3);
+
+		this.assertReceived(0);
+		Assert.assertEquals("0", this.receiver.getLastReceivedOffset());
+
+		this.assertReceived(2);
+		Assert.assertEquals("2", this.receiver.getLastReceivedOffset());
+		Assert.assertEquals(2, this.receiver.getLastReceivedSequenceNumber());
+		Assert.assertEquals(1, this.receiver.getFilteredMessageCount());
+	}
+
+	@Test
+	public void droppedMessagesAreNotReturned() throws Exception
+	{
+		this.sendMessage(false);
+		this.sendMessage(true);
+		this.sendMessage(false);
+		this.sendMessage(true);
+		this.awaitSettled(4);
+
+		final Collection<Message> messages = this.receiver.receive(1, 10, Duration.ofSeconds(10)).get(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(2, messages.size());
+		Assert.assertEquals("3", this.receiver.getLastReceivedOffset());
+		Assert.assertEquals(2, this.receiver.getFilteredMessageCount());
+	}
+
+	private void sendMessage(final boolean drop)
+	{
+		final long offset = this.nextOffset++;
+		final Map<String, Object> properties = drop ? Collections.<String, Object>singletonMap(DROP_PROPERTY, true) : null;
+		this.factory.enqueueMessage(InMemoryMessagingFactory.createMessage(offset, offset, properties));
+	}
+
+	private void assertReceived(final long offset) throws Exception
+	{
+		final Collection<Message> messages = this.receiver.receive(1, 1, Duration.ofSeconds(10)).get(10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(1, messages.size());
+		final Object receivedOffset = messages.iterator().next().getMessageAnnotations().getValue().get(AmqpConstants.OFFSET);
+		Assert.assertEquals(Long.toString(offset), receivedOffset);
+	}
+
+	private void awaitSettled(final int messageCount) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (this.factory.getSettledCount() < messageCount && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertEquals(messageCount, this.factory.getSettledCount());
+	}
+}
@@ -0,0 +1,163 @@
+package com.microsoft.azure.servicebus;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The in-flight send window of {@link MessageSender} - against an in-process peer which holds back its dispositions.
+ */
+public class MessageSenderWindowTest
+{
+	private InMemoryMessagingFactory factory;
+	private MessageSender sender;
+
+	@Before
+	public void createSender() throws Exception
+	{
+		this.factory = InMemoryMessagingFactory.create();
+		this.sender = MessageSender.create(this.factory, StringUtil.getRandomString(), "eventhub1").get(10, TimeUnit.SECONDS);
+		this.factory.setHoldDispositions(true);
+	}
+
+	@After
+	public void cleanup() throws Exception
+	{
+		this.factory.setHoldDispositions(false);
+		this.sender.close().get(10, TimeUnit.SECONDS);
+		this.factory.shutdown();
+		Assert.assertNull(this.factory.getPumpFailure());
+	}
+
+	@Test
+	public void sendFailsFastWhenTheWindowIsFull() throws Exception
+	{
+		this.sender.setMaxInFlightSends(2);
+		final CompletableFuture<Void> firstSend = this.sender.send(newMessage(100));
+		final CompletableFuture<Void> secondSend = this.sender.send(newMessage(100));
+		this.awaitReceived(2);
+
+		final CompletableFuture<Void> rejectedSend = this.sender.send(newMessage(100));
+		Assert.assertTrue(rejectedSend.isCompletedExceptionally());
+		try
+		{
+			rejectedSend.get();
+			Assert.fail("send should fail when the window is full");
+		}
+		catch (ExecutionException exception)
+		{
+			Assert.assertTrue(exception.getCause() instanceof ServiceBusException);
+			Assert.assertTrue(((ServiceBusException) exception.getCause()).getIsTransient());
+		}
+
+		Assert.assertEquals(2, this.sender.getInFlightSendCount());
+		this.factory.setHoldDispositions(false);
+		firstSend.get(10, TimeUnit.SECONDS);
+		secondSend.get(10, TimeUnit.SECONDS);
+
+		this.sender.send(newMessage(100)).get(10, TimeUnit.SECONDS);
+		Assert.assertEquals(0, this.sender.getInFlightSendCount());
+		Assert.assertEquals(0, this.sender.getInFlightBytes());
+	}
+
+	@Test
+	public void trySendReturnsNullWhenTheWindowIsFull() throws Exception
+	{
+		final CompletableFuture<Void> firstSend = this.sender.trySend(newMessage(100));
+		final long messageSize = this.sender.getInFlightBytes();
+		this.sender.setMaxInFlightBytes(2 * messageSize);
+
+		final CompletableFuture<Void> secondSend = this.sender.trySend(newMessage(100));
+		Assert.assertNotNull(secondSend);
+		Assert.assertNull(this.sender.trySend(newMessage(100)));
+		Assert.assertEquals(2, this.sender.getInFlightSendCount());
+		Assert.assertEquals(2 * messageSize, this.sender.getInFlightBytes());
+
+		this.factory.setHoldDispositions(false);
+		firstSend.get(10, TimeUnit.SECONDS);
+		secondSend.get(10, TimeUnit.SECONDS);
+		Assert.assertNotNull(this.sender.trySend(newMessage(100)));
+	}
+
+	@Test
+	public void waitingSendIsUnblockedWhenAnInFlightSendCompletes() throws Exception
+	{
+		this.sender.setMaxInFlightSends(1);
+		final CompletableFuture<Void> firstSend = this.sender.send(newMessage(100));
+		this.awaitReceived(1);
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			// what EventHubClient.sendSync does
+			final Future<Void> waitingSend = executor.submit(new Callable<Void>()
+			{
+				@Override
+				public Void call() throws Exception
+				{
+					return MessageSenderWindowTest.this.sender.send(newMessage(100), true).get(10, TimeUnit.SECONDS);
+				}
+			});
+
+			Thread.sleep(200);
+			Assert.assertFalse(waitingSend.isDone());
+			Assert.assertEquals(1, this.factory.getReceivedDeliveries().size());
+
+			this.factory.setHoldDispositions(false);
+			firstSend.get(10, TimeUnit.SECONDS);
+			waitingSend.get(10, TimeUnit.SECONDS);
+			Assert.assertEquals(2, this.factory.getReceivedDeliveries().size());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void messageLargerThanTheWindowIsSentWhenNothingElseIsInFlight() throws Exception
+	{
+		this.sender.setMaxInFlightBytes(1024);
+
+		final CompletableFuture<Void> largeSend = this.sender.send(newMessage(4096));
+		Assert.assertFalse(largeSend.isCompletedExceptionally());
+		this.awaitReceived(1);
+		Assert.assertTrue(this.sender.send(newMessage(100)).isCompletedExceptionally());
+
+		this.factory.setHoldDispositions(false);
+		largeSend.get(10, TimeUnit.SECONDS);
+		this.sender.send(newMessage(4096)).get(10, TimeUnit.SECONDS);
+		Assert.assertEquals(2, this.factory.getReceivedDeliveries().size());
+	}
+
+	private static Message newMessage(final int bodySize)
+	{
+		final Message message = Proton.message();
+		message.setBody(new Data(new Binary(new byte[bodySize])));
+		return message;
+	}
+
+	private void awaitReceived(final int deliveryCount) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (this.factory.getReceivedDeliveries().size() < deliveryCount && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+
+		Assert.assertEquals(deliveryCount, this.factory.getReceivedDeliveries().size());
+	}
+}
@@ -0,0 +1,267 @@
+package com.microsoft.azure.servicebus;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.AmqpSequence;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.DeliveryAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Footer;
+import org.apache.qpid.proton.amqp.messaging.Header;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Properties;
+import org.apache.qpid.proton.amqp.messaging.Section;
+import org.apache.qpid.proton.engine.Receiver;
+import org.apache.qpid.proton.message.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+
+/**
+ * Round trips proton encoded messages through {@link ReceiveBuffer}.
+ */
+public class ReceiveBufferTest
+{
+	@Test
+	public void vbin8BodyIsSlicedBetweenTheOtherSections()
+	{
+		final byte[] body = newBody(200);
+		final Message sentMessage = newMessageWithAllSections(new Data(new Binary(body)));
+		final byte[] encodedMessage = encode(sentMessage);
+		// a Data section with a vbin8 value
+		Assert.assertTrue(indexOf(encodedMessage, new byte[] { 0x00, 0x53, 0x75, (byte) 0xa0, (byte) 200 }) > 0);
+
+		final Message message = new ReceiveBuffer().decode(encodedMessage, 0, encodedMessage.length);
+
+		assertSectionsEqual(sentMessage, message);
+		final Binary receivedBody = ((Data) message.getBody()).getValue();
+		Assert.assertArrayEquals(body, copyOf(receivedBody));
+		Assert.assertSame(encodedMessage, receivedBody.getArray());
+	}
+
+	@Test
+	public void vbin32BodyIsSliced()
+	{
+		final byte[] body = newBody(1000);
+		final byte[] encodedMessage = encode(newMessageWithAllSections(new Data(new Binary(body))));
+		Assert.assertTrue(indexOf(encodedMessage, new byte[] { 0x00, 0x53, 0x75, (byte) 0xb0, 0, 0, 0x03, (byte) 0xe8 }) > 0);
+
+		final Message message = new ReceiveBuffer().decode(encodedMessage, 0, encodedMessage.length);
+
+		final Binary receivedBody = ((Data) message.getBody()).getValue();
+		Assert.assertSame(encodedMessage, receivedBody.getArray());
+		Assert.assertArrayEquals(body, copyOf(receivedBody));
+		Assert.assertEquals("footer", message.getFooter().getValue().get(Symbol.getSymbol("footerKey")));
+	}
+
+	@Test
+	public void smallBodyIsCopiedOutOfALargeBuffer()
+	{
+		final byte[] body = newBody(100);
+		final byte[] encodedMessage = encode(newMessageWithAllSections(new Data(new Binary(body))));
+		final byte[] buffer = new byte[ReceiveBuffer.DEFAULT_CHUNK_SIZE];
+		System.arraycopy(encodedMessage, 0, buffer, 1000, encodedMessage.length);
+
+		final Message message = new ReceiveBuffer().decode(buffer, 1000, encodedMessage.length);
+
+		final Binary receivedBody = ((Data) message.getBody()).getValue();
+		Assert.assertNotSame(buffer, receivedBody.getArray());
+		Assert.assertEquals(body.length, receivedBody.getArray().length);
+		Assert.assertArrayEquals(body, copyOf(receivedBody));
+	}
+
+	@Test
+	public void nonDataBodiesAreDecoded()
+	{
+		final Message valueMessage = newMessageWithAllSections(new AmqpValue("value"));
+		final byte[] encodedValueMessage = encode(valueMessage);
+		final Message decodedValueMessage = new ReceiveBuffer().decode(encodedValueMessage, 0, encodedValueMessage.length);
+		assertSectionsEqual(valueMessage, decodedValueMessage);
+		Assert.assertEquals("value", ((AmqpValue) decodedValueMessage.getBody()).getValue());
+
+		final Message sequenceMessage = newMessageWithAllSections(new AmqpSequence(Arrays.asList("first", 2L)));
+		final byte[] encodedSequenceMessage = encode(sequenceMessage);
+		final Message decodedSequenceMessage = new ReceiveBuffer().decode(encodedSequenceMessage, 0, encodedSequenceMessage.length);
+		assertSectionsEqual(sequenceMessage, decodedSequenceMessage);
+		Assert.assertEquals(Arrays.asList("first", 2L), ((AmqpSequence) decodedSequenceMessage.getBody()).getValue());
+	}
+
+	@Test
+	public void truncatedBodyIsNotSliced()
+	{
+		final byte[] body = newBody(1000);
+		final Message sentMessage = Proton.message();
+		sentMessage.setBody(new Data(new Binary(body)));
+		final byte[] encodedMessage = encode(sentMessage);
+
+		// the encoded length of the body is past the end of the message
+		assertDecodeFails(encodedMessage, encodedMessage.length - 1);
+
+		final byte[] smallBodyMessage = encode(newMessage(new Data(new Binary(newBody(200)))));
+		assertDecodeFails(smallBodyMessage, smallBodyMessage.length - 1);
+	}
+
+	@Test
+	public void deliveriesAreReadIntoTheChunkUntilItIsFull()
+	{
+		final int chunkSize = 1024;
+		final Queue<byte[]> deliveries = new ArrayDeque<byte[]>();
+		final byte[][] bodies = new byte[5][];
+		for (int index = 0; index < 4; index++)
+		{
+			bodies[index] = newBody(280);
+			deliveries.add(encode(newMessage(new Data(new Binary(bodies[index])))));
+		}
+
+		// larger than half of the chunk - gets a buffer of its own
+		bodies[4] = newBody(700);
+		deliveries.add(encode(newMessage(new Data(new Binary(bodies[4])))));
+
+		final ReceiveBuffer receiveBuffer = new ReceiveBuffer(chunkSize);
+		final Receiver receiveLink = newReceiver(deliveries);
+		final Binary[] receivedBodies = new Binary[5];
+		for (int index = 0; index < 5; index++)
+		{
+			final Message message = receiveBuffer.readMessage(receiveLink, deliveries.peek().length);
+			receivedBodies[index] = ((Data) message.getBody()).getValue();
+			Assert.assertArrayEquals(bodies[index], copyOf(receivedBodies[index]));
+		}
+
+		// 3 deliveries fit in a chunk - the 4th one rolls over to a new chunk
+		Assert.assertEquals(chunkSize, receivedBodies[0].getArray().length);
+		Assert.assertSame(receivedBodies[0].getArray(), receivedBodies[1].getArray());
+		Assert.assertSame(receivedBodies[0].getArray(), receivedBodies[2].getArray());
+		Assert.assertNotSame(receivedBodies[0].getArray(), receivedBodies[3].getArray());
+		Assert.assertEquals(chunkSize, receivedBodies[3].getArray().length);
+
+		Assert.assertNotSame(receivedBodies[3].getArray(), receivedBodies[4].getArray());
+		Assert.assertTrue(receivedBodies[4].getArray().length < chunkSize);
+		Assert.assertTrue(deliveries.isEmpty());
+	}
+
+	private static void assertDecodeFails(final byte[] encodedMessage, final int length)
+	{
+		try
+		{
+			final Message message = new ReceiveBuffer().decode(encodedMessage, 0, length);
+			Assert.fail("decoded a truncated message: " + message.getBody());
+		}
+		catch (RuntimeException expected)
+		{
+		}
+	}
+
+	private static Message newMessage(final Section body)
+	{
+		final Message message = Proton.message();
+		final Properties properties = new Properties();
+		properties.setMessageId("id");
+		message.setProperties(properties);
+		message.setBody(body);
+		return message;
+	}
+
+	private static Message newMessageWithAllSections(final Section body)
+	{
+		final Message message = newMessage(body);
+		final Header header = new Header();
+		header.setDurable(true);
+		message.setHeader(header);
+
+		final Map<Symbol, Object> deliveryAnnotations = new HashMap<Symbol, Object>();
+		deliveryAnnotations.put(Symbol.getSymbol("deliveryKey"), "delivery");
+		message.setDeliveryAnnotations(new DeliveryAnnotations(deliveryAnnotations));
+
+		final Map<Symbol, Object> messageAnnotations = new HashMap<Symbol, Object>();
+		messageAnnotations.put(AmqpConstants.OFFSET, "10");
+		messageAnnotations.put(AmqpConstants.SEQUENCE_NUMBER, 10L);
+		message.setMessageAnnotations(new MessageAnnotations(messageAnnotations));
+
+		message.setApplicationProperties(new ApplicationProperties(Collections.singletonMap("appKey", "app")));
+
+		final Map<Symbol, Object> footer = new HashMap<Symbol, Object>();
+		footer.put(Symbol.getSymbol("footerKey"), "footer");
+		message.setFooter(new Footer(footer));
+		return message;
+	}
+
+	private static void assertSectionsEqual(final Message expected, final Message actual)
+	{
+		Assert.assertEquals(expected.getHeader().getDurable(), actual.getHeader().getDurable());
+		Assert.assertEquals(expected.getDeliveryAnnotations().getValue(), actual.getDeliveryAnnotations().getValue());
+		Assert.assertEquals(expected.getMessageAnnotations().getValue(), actual.getMessageAnnotations().getValue());
+		Assert.assertEquals(expected.getMessageId(), actual.getMessageId());
+		Assert.assertEquals(expected.getApplicationProperties().getValue(), actual.getApplicationProperties().getValue());
+		Assert.assertEquals(expected.getFooter().getValue(), actual.getFooter().getValue());
+	}
+
+	private static byte[] encode(final Message message)
+	{
+		final byte[] buffer = new byte[64 * 1024];
+		final int length = message.encode(buffer, 0, buffer.length);
+		return Arrays.copyOf(buffer, length);
+	}
+
+	private static byte[] newBody(final int length)
+	{
+		final byte[] body = new byte[length];
+		for (int index = 0; index < length; index++)
+		{
+			body[index] = (byte) (index * 31);
+		}
+
+		return body;
+	}
+
+	private static byte[] copyOf(final Binary binary)
+	{
+		return Arrays.copyOfRange(binary.getArray(), binary.getArrayOffset(), binary.getArrayOffset() + binary.getLength());
+	}
+
+	private static int indexOf(final byte[] buffer, final byte[] pattern)
+	{
+		for (int index = 0; index <= buffer.length - pattern.length; index++)
+		{
+			if (Arrays.equals(pattern, Arrays.copyOfRange(buffer, index, index + pattern.length)))
+			{
+				return index;
+			}
+		}
+
+		return -1;
+	}
+
+	// a receive link whose current delivery is the head of deliveries
+	private static Receiver newReceiver(final Queue<byte[]> deliveries)
+	{
+		return (Receiver) Proxy.newProxyInstance(Receiver.class.getClassLoader(), new Class<?>[] { Receiver.class }, new InvocationHandler()
+		{
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args)
+			{
+				if (method.getName().equals("recv") && args != null && args.length == 3)
+				{
+					final byte[] delivery = deliveries.remove();
+					final int length = Math.min(delivery.length, (Integer) args[2]);
+					System.arraycopy(delivery, 0, args[0], (Integer) args[1], length);
+					return length;
+				}
+
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+}
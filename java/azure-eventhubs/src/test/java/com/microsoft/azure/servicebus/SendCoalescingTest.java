@@ -0,0 +1,241 @@
+package com.microsoft.azure.servicebus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.engine.impl.DeliveryImpl;
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.microsoft.azure.servicebus.InMemoryMessagingFactory.ReceivedDelivery;
+import com.microsoft.azure.servicebus.amqp.AmqpConstants;
+import com.microsoft.azure.servicebus.amqp.DispatchHandler;
+
+/**
+ * Send coalescing of {@link MessageSender} - against an in-process peer. The sends are queued up behind a blocked Reactor thread,
+ * so that they are all pending when the sender gets to them.
+ */
+public class SendCoalescingTest
+{
+	private InMemoryMessagingFactory factory;
+	private MessageSender sender;
+
+	@After
+	public void cleanup() throws Exception
+	{
+		this.factory.setHoldDispositions(false);
+		this.factory.setRejectCondition(null);
+		this.sender.close().get(10, TimeUnit.SECONDS);
+		this.factory.shutdown();
+		Assert.assertNull(this.factory.getPumpFailure());
+	}
+
+	@Test
+	public void queuedSendsGoOutAsOneBatchDelivery() throws Exception
+	{
+		this.createSender(InMemoryMessagingFactory.getConnectionStringBuilder());
+
+		final List<CompletableFuture<Void>> sends = this.sendQueued(null, null, null, null, null);
+		for (CompletableFuture<Void> send : sends)
+		{
+			send.get(10, TimeUnit.SECONDS);
+		}
+
+		final List<ReceivedDelivery> deliveries = this.factory.getReceivedDeliveries();
+		Assert.assertEquals(1, deliveries.size());
+		Assert.assertEquals(AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT, deliveries.get(0).getMessageFormat());
+		Assert.assertEquals(sends.size(), deliveries.get(0).getBatchedMessages().size());
+		for (int index = 0; index < sends.size(); index++)
+		{
+			Assert.assertEquals(index, deliveries.get(0).getBatchedMessages().get(index).getApplicationProperties().getValue().get("index"));
+		}
+	}
+
+	@Test
+	public void differentPartitionKeyBreaksTheMerge() throws Exception
+	{
+		this.createSender(InMemoryMessagingFactory.getConnectionStringBuilder());
+
+		final List<CompletableFuture<Void>> sends = this.sendQueued("a", "a", "b", "b", "a");
+		for (CompletableFuture<Void> send : sends)
+		{
+			send.get(10, TimeUnit.SECONDS);
+		}
+
+		final List<ReceivedDelivery> deliveries = this.factory.getReceivedDeliveries();
+		Assert.assertEquals(3, deliveries.size());
+		assertBatch(deliveries.get(0), "a", 0, 1);
+		assertBatch(deliveries.get(1), "b", 2, 3);
+		Assert.assertEquals(DeliveryImpl.DEFAULT_MESSAGE_FORMAT, deliveries.get(2).getMessageFormat());
+		Assert.assertEquals(4, deliveries.get(2).getMessage().getApplicationProperties().getValue().get("index"));
+	}
+
+	@Test
+	public void batchIsCutAtTheMaximumMessageSize() throws Exception
+	{
+		this.createSender(InMemoryMessagingFactory.getConnectionStringBuilder());
+
+		// 2 of these fit in a batch
+		final int bodySize = ClientConstants.MAX_MESSAGE_LENGTH_BYTES / 3;
+		final CountDownLatch unblock = this.blockReactorThread();
+		final List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>();
+		for (int index = 0; index < 5; index++)
+		{
+			sends.add(this.sender.send(newMessage(index, null, bodySize)));
+		}
+
+		unblock.countDown();
+		for (CompletableFuture<Void> send : sends)
+		{
+			send.get(10, TimeUnit.SECONDS);
+		}
+
+		final List<ReceivedDelivery> deliveries = this.factory.getReceivedDeliveries();
+		Assert.assertEquals(3, deliveries.size());
+		Assert.assertEquals(2, deliveries.get(0).getBatchedMessages().size());
+		Assert.assertEquals(2, deliveries.get(1).getBatchedMessages().size());
+		Assert.assertEquals(DeliveryImpl.DEFAULT_MESSAGE_FORMAT, deliveries.get(2).getMessageFormat());
+		for (ReceivedDelivery delivery : deliveries)
+		{
+			Assert.assertTrue(delivery.getSize() <= ClientConstants.MAX_MESSAGE_LENGTH_BYTES);
+		}
+	}
+
+	@Test
+	public void rejectedBatchFailsEachSend() throws Exception
+	{
+		this.createSender(InMemoryMessagingFactory.getConnectionStringBuilder());
+		this.factory.setRejectCondition(new ErrorCondition(ClientConstants.ARGUMENT_ERROR, "rejected by the peer"));
+
+		final List<CompletableFuture<Void>> sends = this.sendQueued(null, null, null);
+		for (CompletableFuture<Void> send : sends)
+		{
+			final Throwable failure = awaitFailure(send);
+			Assert.assertTrue(failure instanceof ServiceBusException);
+			Assert.assertFalse(((ServiceBusException) failure).getIsTransient());
+		}
+
+		Assert.assertEquals(1, this.factory.getReceivedDeliveries().size());
+	}
+
+	@Test
+	public void timedOutBatchFailsEachSend() throws Exception
+	{
+		final ConnectionStringBuilder builder = InMemoryMessagingFactory.getConnectionStringBuilder();
+		builder.setOperationTimeout(Duration.ofSeconds(1));
+		this.createSender(builder);
+		this.factory.setHoldDispositions(true);
+
+		final List<CompletableFuture<Void>> sends = this.sendQueued(null, null, null);
+		for (CompletableFuture<Void> send : sends)
+		{
+			Assert.assertTrue(awaitFailure(send) instanceof TimeoutException);
+		}
+
+		Assert.assertEquals(1, this.factory.getReceivedDeliveries().size());
+	}
+
+	private void createSender(final ConnectionStringBuilder builder) throws Exception
+	{
+		this.factory = InMemoryMessagingFactory.create(builder);
+		this.sender = MessageSender.create(this.factory, StringUtil.getRandomString(), "eventhub1").get(10, TimeUnit.SECONDS);
+		this.sender.setSendCoalescingEnabled(true);
+	}
+
+	// sends a message for each of the partitionKeys - null for none - while the Reactor thread is blocked
+	private List<CompletableFuture<Void>> sendQueued(final String... partitionKeys) throws Exception
+	{
+		final CountDownLatch unblock = this.blockReactorThread();
+		final List<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>();
+		for (int index = 0; index < partitionKeys.length; index++)
+		{
+			sends.add(this.sender.send(newMessage(index, partitionKeys[index], 100)));
+		}
+
+		unblock.countDown();
+		return sends;
+	}
+
+	private CountDownLatch blockReactorThread() throws Exception
+	{
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch unblock = new CountDownLatch(1);
+		this.factory.scheduleOnReactorThread(new DispatchHandler()
+		{
+			@Override
+			public void onEvent()
+			{
+				blocked.countDown();
+				try
+				{
+					unblock.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ignore)
+				{
+				}
+			}
+		});
+
+		Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+		return unblock;
+	}
+
+	private static Message newMessage(final int index, final String partitionKey, final int bodySize)
+	{
+		final Message message = Proton.message();
+		message.setApplicationProperties(new ApplicationProperties(Collections.singletonMap("index", (Object) index)));
+		if (partitionKey != null)
+		{
+			final Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+			annotations.put(AmqpConstants.PARTITION_KEY, partitionKey);
+			message.setMessageAnnotations(new MessageAnnotations(annotations));
+		}
+
+		message.setBody(new Data(new Binary(new byte[bodySize])));
+		return message;
+	}
+
+	private static void assertBatch(final ReceivedDelivery delivery, final String partitionKey, final int... indexes)
+	{
+		Assert.assertEquals(AmqpConstants.AMQP_BATCH_MESSAGE_FORMAT, delivery.getMessageFormat());
+		Assert.assertEquals(partitionKey, delivery.getMessage().getMessageAnnotations().getValue().get(AmqpConstants.PARTITION_KEY));
+
+		final List<Message> messages = delivery.getBatchedMessages();
+		Assert.assertEquals(indexes.length, messages.size());
+		for (int index = 0; index < indexes.length; index++)
+		{
+			Assert.assertEquals(indexes[index], messages.get(index).getApplicationProperties().getValue().get("index"));
+		}
+	}
+
+	private static Throwable awaitFailure(final CompletableFuture<Void> send) throws Exception
+	{
+		try
+		{
+			send.get(10, TimeUnit.SECONDS);
+			Assert.fail("send should fail");
+			return null;
+		}
+		catch (ExecutionException exception)
+		{
+			return exception.getCause();
+		}
+	}
+}